@@ -0,0 +1,262 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hsqldb.jdbc.JDBCDriver;
+import org.ligoj.app.plugin.bt.IssueSla;
+import org.ligoj.app.plugin.bt.SlaData;
+import org.ligoj.app.plugin.bt.model.BugTrackerConfiguration;
+import org.ligoj.app.plugin.jira.JiraSlaComputations;
+import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
+import org.ligoj.app.plugin.jira.model.CustomFieldValue;
+import org.ligoj.bootstrap.core.DescribedBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+
+/**
+ * Synthetic data generators of the benchmarks. The generated data are deterministic for a given size.
+ */
+public final class BenchmarkData {
+
+	/**
+	 * JIRA project identifier of the generated data.
+	 */
+	public static final int JIRA = 10000;
+
+	/**
+	 * JIRA project key of the generated data.
+	 */
+	public static final String PKEY = "BEN";
+
+	/**
+	 * Amount of changes of each generated issue, including the creation.
+	 */
+	public static final int CHANGES_PER_ISSUE = 5;
+
+	/**
+	 * Workflow of each issue : status identifier and name.
+	 */
+	private static final int[] STATUS_IDS = { 1, 3, 4, 6, 4 };
+	private static final String[] STATUS_NAMES = { "Open", "In Progress", "Resolved", "Closed", "Resolved" };
+
+	private static final long START = 1388530800000L; // 2014-01-01
+	private static final long HOUR = 3600000L;
+
+	private BenchmarkData() {
+		// Utility class
+	}
+
+	/**
+	 * Return the status texts of the generated data.
+	 *
+	 * @return The status texts. Key is the identifier.
+	 */
+	public static Map<Integer, String> statusText() {
+		final Map<Integer, String> result = new LinkedHashMap<>();
+		for (var i = 0; i < STATUS_IDS.length; i++) {
+			result.put(STATUS_IDS[i], STATUS_NAMES[i]);
+		}
+		return result;
+	}
+
+	private static Map<Integer, String> singleText(final String text) {
+		final Map<Integer, String> result = new HashMap<>();
+		result.put(1, text);
+		return result;
+	}
+
+	/**
+	 * Return an import CSV content.
+	 *
+	 * @param changes The amount of changes, grouped by {@link #CHANGES_PER_ISSUE} in issues.
+	 * @return The CSV content, with headers.
+	 */
+	public static String importCsv(final int changes) {
+		final var result = new StringBuilder(changes * 120);
+		result.append("issue;status;summary;type;priority;resolution;resolutionDate;dueDate;date;assignee;reporter;author\n");
+		for (var i = 0; i < changes; i++) {
+			final var issue = i / CHANGES_PER_ISSUE + 1;
+			final var step = i % CHANGES_PER_ISSUE;
+			final var resolved = step >= 2;
+			result.append(PKEY).append('-').append(issue).append(';');
+			result.append(STATUS_NAMES[step]).append(';');
+			result.append("Summary of issue ").append(issue).append(';');
+			result.append("Bug;Major;");
+			result.append(resolved ? "Fixed" : "").append(';');
+			result.append(resolved ? String.format("%02d/03/2014 10:%02d", 1 + issue % 28, step) : "").append(';');
+			result.append(String.format("%02d/04/2014", 1 + issue % 28)).append(';');
+			result.append(String.format("%02d/03/2014 09:%02d", 1 + issue % 28, step)).append(';');
+			result.append("assignee").append(issue % 10).append(";reporter;author").append(step).append('\n');
+		}
+		return result.toString();
+	}
+
+	/**
+	 * Return status changes.
+	 *
+	 * @param changes The amount of changes, grouped by {@link #CHANGES_PER_ISSUE} in issues.
+	 * @return The changes ordered by issue and date.
+	 */
+	public static List<JiraChangeItem> changeItems(final int changes) {
+		final List<JiraChangeItem> result = new ArrayList<>(changes);
+		for (var i = 0; i < changes; i++) {
+			final var issue = i / CHANGES_PER_ISSUE + 1;
+			final var step = i % CHANGES_PER_ISSUE;
+			final var change = new JiraChangeItem();
+			change.setId(issue);
+			change.setCreated(new Date(START + issue * HOUR + step * 60000L));
+			change.setToStatus(STATUS_IDS[step]);
+			if (step == 0) {
+				change.setPkey(PKEY + "-" + issue);
+				change.setReporter("reporter");
+			} else {
+				change.setFromStatus(STATUS_IDS[step - 1]);
+				change.setAuthor("author" + step);
+			}
+			result.add(change);
+		}
+		return result;
+	}
+
+	/**
+	 * Return computed issues.
+	 *
+	 * @param issues The amount of issues.
+	 * @return The issues with one SLA data each.
+	 */
+	public static List<IssueSla> issues(final int issues) {
+		final List<IssueSla> result = new ArrayList<>(issues);
+		final Map<Integer, Integer> counters = new HashMap<>();
+		counters.put(1, 1);
+		counters.put(6, 1);
+		for (var i = 1; i <= issues; i++) {
+			final var issue = new IssueSla();
+			issue.setId(i);
+			issue.setPkey(PKEY + "-" + i);
+			issue.setAssignee("assignee" + i % 10);
+			issue.setReporter("reporter");
+			issue.setCreated(new Date(START + i * HOUR));
+			issue.setDueDate(new Date(START + i * HOUR + 48 * HOUR));
+			issue.setPriority(1);
+			issue.setResolution(1);
+			issue.setStatus(6);
+			issue.setType(1);
+			issue.setStatusCounter(counters);
+			final var data = new SlaData();
+			data.setDuration(i * 60000L);
+			data.setRevisedDueDateDistance(HOUR);
+			final List<SlaData> slaData = new ArrayList<>();
+			slaData.add(data);
+			issue.setData(slaData);
+			result.add(issue);
+		}
+		return result;
+	}
+
+	/**
+	 * Return SLA computations of the given issues, without SLA configuration.
+	 *
+	 * @param issues The computed issues.
+	 * @return The SLA computations.
+	 */
+	public static JiraSlaComputations slaComputations(final List<IssueSla> issues) {
+		final var result = new JiraSlaComputations();
+		result.setJira(JIRA);
+		final var project = new DescribedBean<Integer>();
+		project.setName(PKEY);
+		result.setProject(project);
+		final var btConfiguration = new BugTrackerConfiguration();
+		btConfiguration.setSlas(new ArrayList<>());
+		result.setBtConfiguration(btConfiguration);
+		result.setSlaConfigurations(new ArrayList<>());
+		result.setHolidays(new ArrayList<>());
+		result.setStatusText(statusText());
+		result.setTypeText(singleText("Bug"));
+		result.setPriorityText(singleText("Major"));
+		result.setResolutionText(singleText("Fixed"));
+		result.setIssues(issues);
+		return result;
+	}
+
+	/**
+	 * Return custom field values of the given issues.
+	 *
+	 * @param values       The amount of values.
+	 * @param issues       The amount of issues.
+	 * @param customFields The amount of custom fields.
+	 * @return The custom field values ordered by issue.
+	 */
+	public static List<CustomFieldValue> customFieldValues(final int values, final int issues, final int customFields) {
+		final List<CustomFieldValue> result = new ArrayList<>(values);
+		final var perIssue = Math.max(1, values / issues);
+		for (var i = 0; i < values; i++) {
+			final var value = new CustomFieldValue();
+			value.setIssue(i / perIssue + 1);
+			value.setCustomField(i % customFields + 1);
+			value.setStringValue("value " + i);
+			result.add(value);
+		}
+		return result;
+	}
+
+	/**
+	 * Return an in-memory JIRA database filled with issues and status changes.
+	 *
+	 * @param changes The amount of changes, grouped by {@link #CHANGES_PER_ISSUE} in issues.
+	 * @return The data source of the database.
+	 * @throws SQLException When the database cannot be created.
+	 */
+	public static DataSource database(final int changes) throws SQLException {
+		final var dataSource = new SimpleDriverDataSource(new JDBCDriver(), "jdbc:hsqldb:mem:benchmark" + changes, null,
+				null);
+		try (var connection = dataSource.getConnection()) {
+			// Same layered schema than the tests : plugin version, configuration, then issues and changes
+			for (final var script : new String[] { "base-1", "base-2", "sla" }) {
+				ScriptUtils.executeSqlScript(connection, new EncodedResource(
+						new ClassPathResource("sql/" + script + "/jira-create.sql"), StandardCharsets.UTF_8));
+			}
+		}
+		final var jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.update("INSERT INTO pluginversion (ID, pluginname, pluginkey, pluginversion) VALUES (1, ?, ?, ?)",
+				"JIRA RPC Plugin", "com.atlassian.jira.ext.rpc", "4.4.1");
+		jdbcTemplate.update("INSERT INTO project (ID, pname, pkey) VALUES (?, ?, ?)", JIRA, "Benchmark", PKEY);
+		final List<Object[]> issues = new ArrayList<>();
+		final List<Object[]> groups = new ArrayList<>();
+		final List<Object[]> items = new ArrayList<>();
+		for (final var change : changeItems(changes)) {
+			final var created = new Timestamp(change.getCreated().getTime());
+			if (change.getFromStatus() == null) {
+				issues.add(new Object[] { change.getId(), change.getPkey(), JIRA, "reporter", "assignee", "1", "3",
+						"6", created });
+			} else {
+				final var id = groups.size() + 1;
+				groups.add(new Object[] { id, change.getId(), change.getAuthor(), created });
+				items.add(new Object[] { id, id, "jira", "status", String.valueOf(change.getFromStatus()),
+						String.valueOf(change.getToStatus()) });
+			}
+		}
+		jdbcTemplate.batchUpdate("INSERT INTO jiraissue (ID, pkey, PROJECT, REPORTER, ASSIGNEE, issuetype, PRIORITY,"
+				+ " issuestatus, CREATED) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)", issues);
+		jdbcTemplate.batchUpdate("INSERT INTO changegroup (ID, issueid, AUTHOR, CREATED) VALUES (?, ?, ?, ?)", groups);
+		jdbcTemplate.batchUpdate(
+				"INSERT INTO changeitem (ID, groupid, FIELDTYPE, FIELD, OLDVALUE, NEWVALUE) VALUES (?, ?, ?, ?, ?, ?)",
+				items);
+		return dataSource;
+	}
+}
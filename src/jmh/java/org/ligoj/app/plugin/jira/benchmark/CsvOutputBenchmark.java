@@ -0,0 +1,100 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.app.plugin.jira.JiraSlaComputations;
+import org.ligoj.app.plugin.jira.dao.JiraChangeHistory;
+import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
+import org.ligoj.app.plugin.jira.editor.CustomFieldEditor;
+import org.ligoj.app.plugin.jira.editor.IdentityEditor;
+import org.ligoj.app.plugin.jira.model.CustomFieldValue;
+import org.ligoj.app.plugin.jira.out.CsvStatusStreamingOutput;
+import org.ligoj.app.plugin.jira.out.CsvStreamingOutput;
+import org.ligoj.app.plugin.jira.out.CsvWithCustomFieldsStreamingOutput;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CSV export benchmark : SLA, status changes and full export with custom fields. The output is discarded, only the
+ * formatting is measured. Run with "-prof gc" to get the allocation rate.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class CsvOutputBenchmark {
+
+	private static final int CUSTOM_FIELDS = 5;
+
+	/**
+	 * Amount of changes and custom field values. The amount of issues is the amount of changes divided by
+	 * {@link BenchmarkData#CHANGES_PER_ISSUE}.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	private int size;
+
+	private JiraSlaComputations computations;
+	private List<JiraChangeItem> changes;
+	private JiraChangeHistory history;
+	private List<CustomFieldValue> customFieldValues;
+	private Map<Integer, CustomFieldEditor> customFields;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		final var issues = size / BenchmarkData.CHANGES_PER_ISSUE;
+		computations = BenchmarkData.slaComputations(BenchmarkData.issues(issues));
+		changes = BenchmarkData.changeItems(size);
+		history = JiraChangeHistory.of(changes);
+		customFieldValues = BenchmarkData.customFieldValues(size, issues, CUSTOM_FIELDS);
+		customFields = new HashMap<>();
+		for (var i = 1; i <= CUSTOM_FIELDS; i++) {
+			final var customField = new CustomFieldEditor();
+			customField.setId(i);
+			customField.setName("CF" + i);
+			customField.setEditor(new IdentityEditor());
+			customFields.put(i, customField);
+		}
+	}
+
+	@Benchmark
+	public void sla() throws IOException {
+		new CsvStreamingOutput(computations).write(OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public void status() throws IOException {
+		new CsvStatusStreamingOutput(changes, computations.getStatusText()).write(OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public void statusHistory() throws IOException {
+		new CsvStatusStreamingOutput(history, computations.getStatusText()).write(OutputStream.nullOutputStream());
+	}
+
+	@Benchmark
+	public void full() throws IOException {
+		new CsvWithCustomFieldsStreamingOutput(computations, customFieldValues, customFields, Collections.emptyMap(),
+				Collections.emptyMap(), Collections.emptyMap()).write(OutputStream.nullOutputStream());
+	}
+}
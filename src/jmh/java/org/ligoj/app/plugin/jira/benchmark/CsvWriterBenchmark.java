@@ -0,0 +1,98 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.ligoj.app.plugin.jira.out.CsvWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * CSV row encoding benchmark : the cells of a SLA row written with {@link String} conversions, versus
+ * {@link CsvWriter}. Run with "-prof gc" to compare the "gc.alloc.rate.norm" per row.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1)
+public class CsvWriterBenchmark {
+
+	private static final int ROWS = 1024;
+
+	private final FastDateFormat df = FastDateFormat.getInstance("yyyy/MM/dd HH:mm:ss");
+	private Writer writer;
+	private CsvWriter csvWriter;
+	private Integer[] ids;
+	private Date[] dates;
+	private Long[] durations;
+	private int row;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		writer = new BufferedWriter(Writer.nullWriter(), 64 * 1024);
+		csvWriter = new CsvWriter(Writer.nullWriter(), 64 * 1024, TimeZone.getDefault());
+		ids = new Integer[ROWS];
+		dates = new Date[ROWS];
+		durations = new Long[ROWS];
+		for (var i = 0; i < ROWS; i++) {
+			ids[i] = 10000 + i * 7;
+			dates[i] = new Date(1388530800000L + i * 3600000L);
+			durations[i] = i * 123456L;
+		}
+	}
+
+	private int next() {
+		row = (row + 1) % ROWS;
+		return row;
+	}
+
+	@Benchmark
+	public void format() throws IOException {
+		final var i = next();
+		writer.write(ids[i].toString());
+		writer.write(';');
+		writer.write(df.format(dates[i]));
+		writer.write(';');
+		writer.write(String.valueOf(dates[i].getTime()));
+		writer.write(';');
+		writer.write(DurationFormatUtils.formatDuration(durations[i], "HH:mm:ss"));
+		writer.write(';');
+		writer.write(String.valueOf(durations[i]));
+		writer.write('\n');
+	}
+
+	@Benchmark
+	public void encode() throws IOException {
+		final var i = next();
+		csvWriter.writeInt(ids[i]);
+		csvWriter.write(';');
+		csvWriter.writeDate(dates[i]);
+		csvWriter.write(';');
+		csvWriter.writeLong(dates[i].getTime());
+		csvWriter.write(';');
+		csvWriter.writeDuration(durations[i]);
+		csvWriter.write(';');
+		csvWriter.writeLong(durations[i]);
+		csvWriter.write('\n');
+	}
+}
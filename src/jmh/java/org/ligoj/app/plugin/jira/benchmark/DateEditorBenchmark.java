@@ -0,0 +1,39 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.ligoj.app.plugin.jira.editor.DateEditor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DateEditor} parsing benchmark, one operation per date.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DateEditorBenchmark {
+
+	@Param({ "01/03/2014 12:01", "2014-03-01 12:01:02", "2014/03/01", "1.3.2014 12:01", "41699.5" })
+	private String date;
+
+	@Benchmark
+	public Date toDate() {
+		return DateEditor.toDate(date);
+	}
+}
@@ -0,0 +1,72 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.output.CountingOutputStream;
+import org.ligoj.app.plugin.jira.JiraSlaComputations;
+import org.ligoj.app.plugin.jira.out.CsvStreamingOutput;
+import org.ligoj.app.plugin.jira.out.ExportEncoding;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Export encoding benchmark : the SLA CSV export written with each {@link ExportEncoding}. The time measures the
+ * formatting and compression CPU cost, the "bytes" counter the size sent to the client.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ExportEncodingBenchmark {
+
+	/**
+	 * Amount of changes. The amount of issues is the amount of changes divided by
+	 * {@link BenchmarkData#CHANGES_PER_ISSUE}.
+	 */
+	@Param({ "100000", "1000000" })
+	private int size;
+
+	@Param({ "IDENTITY", "GZIP" })
+	private ExportEncoding encoding;
+
+	private JiraSlaComputations computations;
+
+	/**
+	 * Size of the encoded export.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class EncodedSize {
+		public long bytes;
+	}
+
+	@Setup(Level.Trial)
+	public void setup() {
+		computations = BenchmarkData.slaComputations(BenchmarkData.issues(size / BenchmarkData.CHANGES_PER_ISSUE));
+	}
+
+	@Benchmark
+	public void sla(final EncodedSize encoded) throws IOException {
+		final var out = new CountingOutputStream(OutputStream.nullOutputStream());
+		encoding.encode(new CsvStreamingOutput(computations)).write(out);
+		encoded.bytes = out.getByteCount();
+	}
+}
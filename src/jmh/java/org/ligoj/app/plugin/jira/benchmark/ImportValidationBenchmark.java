@@ -0,0 +1,78 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.plugin.jira.model.ImportEntry;
+import org.ligoj.bootstrap.core.csv.CsvBeanReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Import benchmark : CSV reading of {@link ImportEntry} and their bean validation, as done before the import.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class ImportValidationBenchmark {
+
+	/**
+	 * Amount of changes to import.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	private int size;
+
+	private String csv;
+	private Validator validator;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		csv = BenchmarkData.importCsv(size);
+		validator = Validation.buildDefaultValidatorFactory().getValidator();
+	}
+
+	private CsvBeanReader<ImportEntry> newReader() throws IOException {
+		final var reader = new BufferedReader(new StringReader(csv));
+		final var headers = StringUtils.split(StringUtils.trimToEmpty(reader.readLine()), ';');
+		return new CsvBeanReader<>(reader, ImportEntry.class, headers);
+	}
+
+	@Benchmark
+	public void read(final Blackhole blackhole) throws IOException {
+		final var reader = newReader();
+		for (var entry = reader.read(); entry != null; entry = reader.read()) {
+			blackhole.consume(entry);
+		}
+	}
+
+	@Benchmark
+	public void readAndValidate(final Blackhole blackhole) throws IOException {
+		final var reader = newReader();
+		for (var entry = reader.read(); entry != null; entry = reader.read()) {
+			blackhole.consume(validator.validate(entry));
+		}
+	}
+}
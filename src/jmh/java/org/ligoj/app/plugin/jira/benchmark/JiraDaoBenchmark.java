@@ -0,0 +1,81 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.ligoj.app.plugin.jira.dao.JiraChangeHistory;
+import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
+import org.ligoj.app.plugin.jira.dao.JiraDao;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link JiraDao} change history benchmark against an in-memory JIRA database : whole list versus issue by issue
+ * streaming.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class JiraDaoBenchmark {
+
+	/**
+	 * Amount of status changes, including the issue creations.
+	 */
+	@Param({ "10000", "100000", "1000000" })
+	private int size;
+
+	private DataSource dataSource;
+	private final JiraDao dao = new JiraDao();
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+		dataSource = BenchmarkData.database(size);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		new JdbcTemplate(dataSource).execute("SHUTDOWN");
+	}
+
+	@Benchmark
+	public List<JiraChangeItem> getChanges() {
+		return dao.getChanges(dataSource, BenchmarkData.JIRA, BenchmarkData.PKEY, false, false);
+	}
+
+	@Benchmark
+	public List<JiraChangeItem> getAuthoredChanges() {
+		return dao.getChanges(dataSource, BenchmarkData.JIRA, BenchmarkData.PKEY, true, false);
+	}
+
+	@Benchmark
+	public JiraChangeHistory getChangeHistory() {
+		return dao.getChangeHistory(dataSource, BenchmarkData.JIRA, BenchmarkData.PKEY);
+	}
+
+	@Benchmark
+	public void forEachIssueChanges(final Blackhole blackhole) {
+		dao.forEachIssueChanges(dataSource, BenchmarkData.JIRA, BenchmarkData.PKEY, false, blackhole::consume);
+	}
+}
@@ -0,0 +1,83 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.benchmark;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.ligoj.app.plugin.jira.dao.IndexedRowMapper;
+import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+
+/**
+ * Change history mapping benchmark : {@link IndexedRowMapper} versus {@link BeanPropertyRowMapper}, on the same result
+ * set. The rows are consumed one by one, so only the mapping is measured besides the in-memory database read.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RowMapperBenchmark {
+
+	private static final String SQL = "SELECT i.ID AS id, cgi.OLDVALUE AS fromStatus, cgi.NEWVALUE AS toStatus,"
+			+ " cg.CREATED AS created, cg.AUTHOR AS author FROM changeitem cgi"
+			+ " INNER JOIN changegroup AS cg ON (cgi.groupid = cg.ID) INNER JOIN jiraissue AS i ON (cg.issueid = i.ID)"
+			+ " WHERE cgi.FIELD = ? AND i.PROJECT = ?";
+
+	/**
+	 * Amount of status changes, including the issue creations.
+	 */
+	@Param({ "100000", "1000000" })
+	private int size;
+
+	private DataSource dataSource;
+
+	@Setup(Level.Trial)
+	public void setup() throws SQLException {
+		dataSource = BenchmarkData.database(size);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		new JdbcTemplate(dataSource).execute("SHUTDOWN");
+	}
+
+	private void map(final RowMapper<JiraChangeItem> rowMapper, final Blackhole blackhole) {
+		final int[] row = { 0 };
+		new JdbcTemplate(dataSource).query(SQL,
+				(RowCallbackHandler) rs -> blackhole.consume(rowMapper.mapRow(rs, row[0]++)), "status",
+				BenchmarkData.JIRA);
+	}
+
+	@Benchmark
+	public void beanProperty(final Blackhole blackhole) {
+		map(new BeanPropertyRowMapper<>(JiraChangeItem.class), blackhole);
+	}
+
+	@Benchmark
+	public void indexed(final Blackhole blackhole) {
+		map(new IndexedRowMapper<>(JiraChangeItem.class), blackhole);
+	}
+}
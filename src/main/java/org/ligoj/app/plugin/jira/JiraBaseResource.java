@@ -3,7 +3,6 @@
  */
 package org.ligoj.app.plugin.jira;
 
-import java.sql.Driver;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -11,8 +10,6 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -28,7 +25,10 @@ import org.apache.commons.lang3.Strings;
 import org.ligoj.app.plugin.bt.BugTrackerResource;
 import org.ligoj.app.plugin.bt.IdentifierHelper;
 import org.ligoj.app.plugin.jira.dao.JiraDao;
+import org.ligoj.app.plugin.jira.dao.JiraDataSourceRegistry;
+import org.ligoj.app.plugin.jira.dao.JiraWorkflowCache;
 import org.ligoj.app.plugin.jira.model.Workflow;
+import org.ligoj.app.plugin.jira.model.WorkflowDescriptor;
 import org.ligoj.app.plugin.bt.model.ChangeItem;
 import org.ligoj.app.plugin.bt.model.Sla;
 import org.ligoj.app.resource.node.NodeResource;
@@ -38,10 +38,8 @@ import org.ligoj.bootstrap.core.INamableBean;
 import org.ligoj.bootstrap.core.NamedBean;
 import org.ligoj.bootstrap.core.curl.CurlProcessor;
 import org.ligoj.bootstrap.core.curl.CurlRequest;
-import org.ligoj.bootstrap.core.resource.TechnicalException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.datasource.SimpleDriverDataSource;
 
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
@@ -113,12 +111,6 @@ public class JiraBaseResource {
 	 */
 	protected static final String PARAMETER_CACHE_VERSION = KEY + ":version";
 
-	/**
-	 * Workflow XML description pattern to match step-status identifiers.
-	 */
-	private static final Pattern STEP_PATTERN = Pattern.compile("<step id=\"(\\d+)\" name=\"([^\"]+)\">");
-	private static final Pattern STATUS_PATTERN = Pattern.compile("<meta name=\"jira.status.id\">(\\d+)</meta>");
-
 	/**
 	 * Default 'jira' step to status mapping.
 	 */
@@ -148,6 +140,12 @@ public class JiraBaseResource {
 	@Autowired
 	protected JiraDao jiraDao;
 
+	@Autowired
+	protected JiraDataSourceRegistry dataSourceRegistry;
+
+	@Autowired
+	protected JiraWorkflowCache workflowCache;
+
 	@Autowired
 	protected IdentifierHelper identifierHelper;
 
@@ -178,17 +176,45 @@ public class JiraBaseResource {
 	 * @return the data source of JIRA database server.
 	 */
 	protected DataSource getDataSource(final Map<String, String> parameters) {
-		try {
-			return new SimpleDriverDataSource(
-					(Driver) Class.forName(StringUtils.defaultIfBlank(parameters.get(PARAMETER_JDBC_DRIVER), "com.mysql.cj.jdbc.Driver"))
-							.getDeclaredConstructor().newInstance(),
-					StringUtils.defaultIfBlank(parameters.get(PARAMETER_JDBC_URL),
-							"jdbc:mysql://localhost:3306/jira6?useColumnNamesInFindColumn=true&useUnicode=yes&characterEncoding=UTF-8&autoReconnect=true&maxReconnects=3"),
-					parameters.get(PARAMETER_JDBC_USER), parameters.get(PARAMETER_JDBC_PASSSWORD));
-		} catch (final Exception e) {
-			log.error("Database connection issue for JIRA", e);
-			throw new TechnicalException("Database connection issue for JIRA", e);
-		}
+		return dataSourceRegistry.getDataSource(getJdbcDriver(parameters), getJdbcUrl(parameters),
+				parameters.get(PARAMETER_JDBC_USER), parameters.get(PARAMETER_JDBC_PASSSWORD));
+	}
+
+	/**
+	 * Return the data source of JIRA database server dedicated to the streamed
+	 * result sets of the exports.
+	 *
+	 * @param parameters
+	 *            the subscription parameters containing at least the data
+	 *            source configuration.
+	 * @return the streaming data source of JIRA database server.
+	 */
+	protected DataSource getStreamingDataSource(final Map<String, String> parameters) {
+		return dataSourceRegistry.getStreamingDataSource(getJdbcDriver(parameters), getJdbcUrl(parameters),
+				parameters.get(PARAMETER_JDBC_USER), parameters.get(PARAMETER_JDBC_PASSSWORD));
+	}
+
+	/**
+	 * Bind a node to the data source of its current parameters. The pool of its previous parameters is closed.
+	 *
+	 * @param node
+	 *            the node identifier.
+	 * @param parameters
+	 *            the node parameters containing at least the data source
+	 *            configuration.
+	 */
+	protected void bindDataSource(final String node, final Map<String, String> parameters) {
+		dataSourceRegistry.bind(node, getJdbcDriver(parameters), getJdbcUrl(parameters),
+				parameters.get(PARAMETER_JDBC_USER), parameters.get(PARAMETER_JDBC_PASSSWORD));
+	}
+
+	private String getJdbcDriver(final Map<String, String> parameters) {
+		return StringUtils.defaultIfBlank(parameters.get(PARAMETER_JDBC_DRIVER), "com.mysql.cj.jdbc.Driver");
+	}
+
+	private String getJdbcUrl(final Map<String, String> parameters) {
+		return StringUtils.defaultIfBlank(parameters.get(PARAMETER_JDBC_URL),
+				"jdbc:mysql://localhost:3306/jira6?useColumnNamesInFindColumn=true&useUnicode=yes&characterEncoding=UTF-8&autoReconnect=true&maxReconnects=3");
 	}
 
 	/**
@@ -304,6 +330,26 @@ public class JiraBaseResource {
 	 */
 	protected Map<Integer, String> updateIndentifierFromText(final DataSource dataSource, final List<Sla> slas, final int jira,
 			final List<ChangeItem> changes) {
+		return updateIndentifierFromText(dataSource, slas, jira, getInvolvedStatuses(changes));
+	}
+
+	/**
+	 * Update the status, priorities, resolutions and types text of given SLA
+	 * and retrieve all status texts involved of issues of given project.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param slas
+	 *            the SLA list containing involved status.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @param involvedStatuses
+	 *            The status identifiers involved in the changes.
+	 * @return a {@link Map} where KEY is the status identifier and the VALUE is
+	 *         the status name, upper case and un-localized.
+	 */
+	protected Map<Integer, String> updateIndentifierFromText(final DataSource dataSource, final List<Sla> slas, final int jira,
+			final Collection<Integer> involvedStatuses) {
 		// Get all available priorities & types for given project
 		final Map<Integer, String> types = jiraDao.getTypes(dataSource, jira);
 		final Map<Integer, String> priorities = jiraDao.getPriorities(dataSource);
@@ -320,7 +366,7 @@ public class JiraBaseResource {
 
 		// Compute the identifiers from the texts
 		log.info("Get relevant text of {} statuses", slaStatus.size());
-		final Map<Integer, String> allStatus = jiraDao.getStatuses(dataSource, getInvolvedStatuses(changes), slaStatus);
+		final Map<Integer, String> allStatus = jiraDao.getStatuses(dataSource, involvedStatuses, slaStatus);
 		for (final Sla sla : slas) {
 			// Augment start/end/ignored status having a similar name
 			sla.setStartAsSet(identifierHelper.toIdentifiers(sla.getStart(), allStatus));
@@ -357,15 +403,23 @@ public class JiraBaseResource {
 	 * 'jira' workflow. KEY is the status, VALUE is the corresponding workflow's
 	 * step
 	 */
-	private Workflow getWorkflow(final String name, final String workflowXml, final Map<Integer, String> statuses) {
-		if (workflowXml == null) {
+	private Workflow getWorkflow(final String name, final WorkflowDescriptor descriptor,
+			final Map<Integer, String> statuses) {
+		if (descriptor == null) {
 			// Default worflow
 			return JIRA_WORKFLOW;
 		}
-		final Map<String, INamableBean<Integer>> statusToSteps = getWorkflowSteps(workflowXml, statuses);
+		final Map<String, INamableBean<Integer>> statusToSteps = new HashMap<>();
+		descriptor.getStatusToStep().forEach((status, step) -> statusToSteps.put(statuses.get(status),
+				new NamedBean<>(step.getId(), step.getName())));
+
+		// Remove not used status by the current import
+		statusToSteps.remove(null);
+
 		final Workflow result = new Workflow();
 		result.setName(name);
 		result.setStatusToSteps(statusToSteps);
+		result.setDescriptor(descriptor);
 		return result;
 	}
 
@@ -391,40 +445,12 @@ public class JiraBaseResource {
 			final Integer type = entry.getKey();
 			if (!workflows.containsKey(workflow)) {
 				// Not yet parsed workflow
-				final String workflowXml = jiraDao.getWorflow(dataSource, workflow);
-				workflows.put(workflow, getWorkflow(workflow, workflowXml, statuses));
+				workflows.put(workflow,
+						getWorkflow(workflow, workflowCache.getDescriptor(dataSource, workflow), statuses));
 			}
 			mapping.put(type, workflows.get(workflow));
 		}
 		return mapping;
 	}
 
-	/**
-	 * Return workflow steps of given workflow's name. KEY is the status, VALUE
-	 * is the corresponding workflow's step
-	 */
-	private Map<String, INamableBean<Integer>> getWorkflowSteps(final String workflowXml, final Map<Integer, String> statuses) {
-		final Map<String, INamableBean<Integer>> workflowSteps = new HashMap<>();
-		final String[] lines = Strings.CS.replace(Strings.CS.replace(workflowXml, "\\\"", "\""), "\\n", "\n").split("\\r?\\n");
-		NamedBean<Integer> currentStep = null;
-		for (String line : lines) {
-			line = line.trim();
-			if (line.startsWith("<step id=")) {
-				final Matcher matcher = STEP_PATTERN.matcher(line);
-				matcher.find();
-				currentStep = new NamedBean<>(Integer.valueOf(matcher.group(1)), matcher.group(2));
-			} else if (line.startsWith("<meta name=\"jira.status.id\">")) {
-				final Matcher matcher = STATUS_PATTERN.matcher(line);
-				matcher.find();
-				workflowSteps.put(statuses.get(Integer.valueOf(matcher.group(1))), currentStep);
-				currentStep = null;
-			}
-		}
-
-		// Remove not used status by the current import
-		workflowSteps.remove(null);
-
-		return workflowSteps;
-	}
-
 }
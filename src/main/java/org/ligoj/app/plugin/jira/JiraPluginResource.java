@@ -32,6 +32,7 @@ import org.ligoj.app.model.Parameter;
 import org.ligoj.app.plugin.bt.BugTrackerServicePlugin;
 import org.ligoj.app.plugin.bt.dao.SlaRepository;
 import org.ligoj.app.plugin.jira.dao.ImportStatusRepository;
+import org.ligoj.app.plugin.jira.dao.JiraSlaCheckpointStore;
 import org.ligoj.app.plugin.jira.model.ImportStatus;
 import org.ligoj.app.plugin.jira.model.Workflow;
 import org.ligoj.app.resource.ActivitiesProvider;
@@ -68,6 +69,9 @@ public class JiraPluginResource extends JiraBaseResource
 	@Autowired
 	protected SecurityHelper securityHelper;
 
+	@Autowired
+	protected JiraSlaCheckpointStore checkpointStore;
+
 	@Autowired
 	protected SlaRepository slaRepository;
 
@@ -178,6 +182,24 @@ public class JiraPluginResource extends JiraBaseResource
 		return !parameters.containsKey(PARAMETER_ADMIN_USER) || super.validateAdminConnectivity(parameters);
 	}
 
+	@Override
+	public boolean checkStatus(final String node, final Map<String, String> parameters) {
+		// Close the pool of the outdated parameters of this node
+		bindDataSource(node, parameters);
+		return checkStatus(parameters);
+	}
+
+	@Override
+	public void delete(final String node, final boolean remoteData) {
+		dataSourceRegistry.unbind(node);
+	}
+
+	@Override
+	public void delete(final int subscription, final boolean remoteData) {
+		// The SLA checkpoint only holds the subscription identifier
+		checkpointStore.delete(subscription);
+	}
+
 	@Override
 	public SubscriptionStatusWithData checkSubscriptionStatus(final Map<String, String> parameters) {
 		final SubscriptionStatusWithData nodeStatusWithData = new SubscriptionStatusWithData();
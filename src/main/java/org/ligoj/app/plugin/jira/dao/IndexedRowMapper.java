@@ -0,0 +1,133 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+import org.springframework.beans.BeanUtils;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.JdbcUtils;
+
+/**
+ * Row mapper setting the bean properties matching the column labels, like {@link BeanPropertyRowMapper}, but resolving
+ * the columns only once per result set. The setters are resolved once per bean type, and each row is mapped with
+ * column-index based reads and direct setter calls, without bean wrapper nor name normalization.<br>
+ * An instance is not thread safe and should be used for a single query.
+ *
+ * @param <T>
+ *            The bean type.
+ */
+public class IndexedRowMapper<T> implements RowMapper<T> {
+
+	/**
+	 * A resolved property setter.
+	 */
+	private record Setter(Class<?> type, MethodHandle handle) {
+	}
+
+	/**
+	 * A column read at the given index and set to the bean.
+	 */
+	private record Column(int index, Class<?> type, MethodHandle handle) {
+	}
+
+	/**
+	 * Setters by bean type. Key of the setters is the lower case property name.
+	 */
+	private static final Map<Class<?>, Map<String, Setter>> SETTERS = new ConcurrentHashMap<>();
+
+	private final Class<T> type;
+
+	/**
+	 * The result set of the resolved columns.
+	 */
+	private ResultSet resultSet;
+
+	private Column[] columns;
+
+	/**
+	 * Create a mapper for the given bean type.
+	 *
+	 * @param type
+	 *            The bean type, with a default constructor.
+	 */
+	public IndexedRowMapper(final Class<T> type) {
+		this.type = type;
+	}
+
+	@Override
+	public T mapRow(final ResultSet rs, final int rowNum) throws SQLException {
+		if (rs != resultSet) {
+			resolve(rs);
+		}
+		final T bean = BeanUtils.instantiateClass(type);
+		for (final Column column : columns) {
+			final Object value = JdbcUtils.getResultSetValue(rs, column.index(), column.type());
+			if (value != null || !column.type().isPrimitive()) {
+				set(column, bean, value);
+			}
+		}
+		return bean;
+	}
+
+	private void set(final Column column, final T bean, final Object value) {
+		try {
+			column.handle().invokeExact((Object) bean, value);
+		} catch (final Throwable e) { // NOSONAR - Invocation of a resolved setter
+			throw new TechnicalException("Unable to set column " + column.index() + " to " + type.getSimpleName(), e);
+		}
+	}
+
+	/**
+	 * Resolve the columns of the given result set having a matching property.
+	 */
+	private void resolve(final ResultSet rs) throws SQLException {
+		final Map<String, Setter> setters = SETTERS.computeIfAbsent(type, IndexedRowMapper::newSetters);
+		final var metaData = rs.getMetaData();
+		final List<Column> resolved = new ArrayList<>();
+		for (var index = 1; index <= metaData.getColumnCount(); index++) {
+			final var label = JdbcUtils.lookupColumnName(metaData, index).replace(" ", "").toLowerCase(Locale.ENGLISH);
+			final var setter = setters.get(label);
+			if (setter != null) {
+				resolved.add(new Column(index, setter.type(), setter.handle()));
+			}
+		}
+		columns = resolved.toArray(new Column[0]);
+		resultSet = rs;
+	}
+
+	/**
+	 * Return the setters of the given bean type. Key is the lower case property name.
+	 */
+	private static Map<String, Setter> newSetters(final Class<?> type) {
+		final Map<String, Setter> result = new HashMap<>();
+		final var lookup = MethodHandles.publicLookup();
+		for (final PropertyDescriptor descriptor : BeanUtils.getPropertyDescriptors(type)) {
+			final var method = descriptor.getWriteMethod();
+			if (method != null) {
+				try {
+					result.put(descriptor.getName().toLowerCase(Locale.ENGLISH), new Setter(descriptor.getPropertyType(),
+							lookup.unreflect(method).asType(MethodType.methodType(void.class, Object.class, Object.class))));
+				} catch (final IllegalAccessException e) {
+					throw new TechnicalException(
+							"Unable to access property " + descriptor.getName() + " of " + type.getSimpleName(), e);
+				}
+			}
+		}
+		return result;
+	}
+}
@@ -3,21 +3,40 @@
  */
 package org.ligoj.app.plugin.jira.dao;
 
-import org.ligoj.bootstrap.core.model.AbstractPersistable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
 
 import lombok.Getter;
 import lombok.Setter;
 
 /**
- * A complete issue
+ * A complete issue : the stored "jiraissue" row with its components, versions, custom field values, labels and status
+ * changes.
  */
 @Getter
 @Setter
-public class IssueWithCollections extends AbstractPersistable<Integer> {
+public class IssueWithCollections extends JiraIssueRow {
 
 	/**
-	 * Issue key.
+	 * Workflow entry identifier.
 	 */
-	private int issue;
+	private int workflow;
+
+	/**
+	 * Status changes, ordered by date.
+	 */
+	private List<JiraChangeRow> statusChanges = new ArrayList<>();
+
+	/**
+	 * Constructor with empty collections.
+	 */
+	public IssueWithCollections() {
+		setComponents(new ArrayList<>());
+		setVersions(new ArrayList<>());
+		setFixedVersions(new ArrayList<>());
+		setCustomFields(new HashMap<>());
+		setLabels(new ArrayList<>());
+	}
 
 }
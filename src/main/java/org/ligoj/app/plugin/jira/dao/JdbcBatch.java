@@ -0,0 +1,95 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.jdbc.core.JdbcOperations;
+
+import lombok.Getter;
+
+/**
+ * Batched JDBC writer. Rows are buffered by SQL statement and sent with {@link JdbcOperations#batchUpdate(String, List)}
+ * when the batch size is reached, or when this batch is flushed. The statements are flushed in the order of their first
+ * use. Combined with "rewriteBatchedStatements" MySQL option, each batch becomes a single multi-rows
+ * <code>INSERT</code>. The pending rows must be flushed explicitly on success, closing this batch discards them, so an
+ * interrupted work does not write its partial batches.
+ */
+class JdbcBatch implements AutoCloseable {
+
+	private final JdbcOperations jdbcTemplate;
+
+	private final int batchSize;
+
+	private final Map<String, List<Object[]>> pending = new LinkedHashMap<>();
+
+	/**
+	 * Amount of sent rows.
+	 */
+	@Getter
+	private int rows;
+
+	/**
+	 * Amount of sent batches.
+	 */
+	@Getter
+	private int batches;
+
+	/**
+	 * Create a new batch.
+	 *
+	 * @param jdbcTemplate
+	 *            The JDBC template used to send the batches.
+	 * @param batchSize
+	 *            The maximal amount of rows per batch. A value lower than 1 is
+	 *            considered as 1.
+	 */
+	JdbcBatch(final JdbcOperations jdbcTemplate, final int batchSize) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.batchSize = Math.max(1, batchSize);
+	}
+
+	/**
+	 * Add a row to the batch of the given statement.
+	 *
+	 * @param sql
+	 *            The SQL statement.
+	 * @param args
+	 *            The row arguments.
+	 */
+	void add(final String sql, final Object... args) {
+		final List<Object[]> rowsOfSql = pending.computeIfAbsent(sql, s -> new ArrayList<>());
+		rowsOfSql.add(args);
+		if (rowsOfSql.size() >= batchSize) {
+			flush(sql, rowsOfSql);
+		}
+	}
+
+	/**
+	 * Send all pending rows.
+	 */
+	void flush() {
+		pending.forEach(this::flush);
+	}
+
+	private void flush(final String sql, final List<Object[]> rowsOfSql) {
+		if (!rowsOfSql.isEmpty()) {
+			jdbcTemplate.batchUpdate(sql, rowsOfSql);
+			rows += rowsOfSql.size();
+			batches++;
+			rowsOfSql.clear();
+		}
+	}
+
+	/**
+	 * Discard the pending rows.
+	 */
+	@Override
+	public void close() {
+		pending.clear();
+	}
+}
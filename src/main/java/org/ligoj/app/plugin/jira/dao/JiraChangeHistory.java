@@ -0,0 +1,297 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Columnar status change history of a project. Each change is stored in primitive arrays : issue identifier, from and
+ * to statuses, date and dictionary-encoded author. The creation of an issue is a change without "from" status.<br>
+ * Read the changes by index, from <code>0</code> to {@link #size()} excluded, without boxing.
+ */
+public class JiraChangeHistory {
+
+	/**
+	 * Status value of an issue creation, without "from" status.
+	 */
+	public static final int NO_STATUS = -1;
+
+	private static final int NO_AUTHOR = -1;
+
+	private int size;
+	private int[] issues;
+	private int[] fromStatuses;
+	private int[] toStatuses;
+	private long[] created;
+	private int[] authors;
+
+	/**
+	 * Author dictionary : index to name.
+	 */
+	private String[] names = new String[16];
+	private int nbNames;
+
+	/**
+	 * Author dictionary : name to index. Released once the history is complete.
+	 */
+	private Map<String, Integer> nameIndexes = new HashMap<>();
+
+	/**
+	 * Issue keys. Key is the issue identifier.
+	 */
+	private final Map<Integer, String> keys = new HashMap<>();
+
+	/**
+	 * All statuses involved in the changes and in the current status of the issues.
+	 */
+	private final Set<Integer> statuses = new HashSet<>();
+
+	/**
+	 * Create an empty history.
+	 *
+	 * @param capacity
+	 *            The initial amount of changes.
+	 */
+	JiraChangeHistory(final int capacity) {
+		final var initial = Math.max(16, capacity);
+		issues = new int[initial];
+		fromStatuses = new int[initial];
+		toStatuses = new int[initial];
+		created = new long[initial];
+		authors = new int[initial];
+	}
+
+	/**
+	 * Return a history from already ordered changes.
+	 *
+	 * @param changes
+	 *            The changes ordered by date, starting with the issue creation.
+	 * @return The columnar history of these changes, in the same order.
+	 */
+	public static JiraChangeHistory of(final List<JiraChangeItem> changes) {
+		final var result = new JiraChangeHistory(changes.size());
+		for (final JiraChangeItem change : changes) {
+			if (change.getPkey() != null) {
+				result.addIssue(change.getId(), change.getPkey(), change.getStatus());
+			}
+			result.add(change.getId(), change.getFromStatus() == null ? NO_STATUS : change.getFromStatus(),
+					change.getToStatus(), change.getCreated().getTime(),
+					change.getAuthor() == null ? change.getReporter() : change.getAuthor());
+		}
+		result.complete(false);
+		return result;
+	}
+
+	/**
+	 * Register an issue.
+	 *
+	 * @param issue
+	 *            The issue identifier.
+	 * @param key
+	 *            The issue key.
+	 * @param status
+	 *            The current status of the issue.
+	 */
+	void addIssue(final int issue, final String key, final int status) {
+		keys.put(issue, key);
+		statuses.add(status);
+	}
+
+	/**
+	 * Add a change.
+	 *
+	 * @param issue
+	 *            The issue identifier.
+	 * @param fromStatus
+	 *            The previous status, or {@link #NO_STATUS} for the issue creation.
+	 * @param toStatus
+	 *            The new status.
+	 * @param date
+	 *            The change timestamp.
+	 * @param author
+	 *            The change author, or the reporter for the issue creation. May be <code>null</code>.
+	 */
+	void add(final int issue, final int fromStatus, final int toStatus, final long date, final String author) {
+		if (size == issues.length) {
+			final var capacity = size + (size >> 1);
+			issues = Arrays.copyOf(issues, capacity);
+			fromStatuses = Arrays.copyOf(fromStatuses, capacity);
+			toStatuses = Arrays.copyOf(toStatuses, capacity);
+			created = Arrays.copyOf(created, capacity);
+			authors = Arrays.copyOf(authors, capacity);
+		}
+		issues[size] = issue;
+		fromStatuses[size] = fromStatus;
+		toStatuses[size] = toStatus;
+		created[size] = date;
+		authors[size] = toAuthorIndex(author);
+		if (fromStatus != NO_STATUS) {
+			statuses.add(fromStatus);
+		}
+		statuses.add(toStatus);
+		size++;
+	}
+
+	private int toAuthorIndex(final String author) {
+		if (author == null) {
+			return NO_AUTHOR;
+		}
+		return nameIndexes.computeIfAbsent(author, a -> {
+			if (nbNames == names.length) {
+				names = Arrays.copyOf(names, nbNames * 2);
+			}
+			names[nbNames] = a;
+			return nbNames++;
+		});
+	}
+
+	/**
+	 * Complete this history : the changes are ordered by date when requested, and the building structures are
+	 * released.
+	 *
+	 * @param sort
+	 *            When <code>true</code>, the changes are sorted by date. The sort is stable.
+	 */
+	void complete(final boolean sort) {
+		nameIndexes = null;
+		if (sort) {
+			final var order = new int[size];
+			Arrays.setAll(order, i -> i);
+			mergeSort(order, new int[size], 0, size);
+			issues = reorder(issues, order);
+			fromStatuses = reorder(fromStatuses, order);
+			toStatuses = reorder(toStatuses, order);
+			authors = reorder(authors, order);
+			final var sorted = new long[size];
+			for (var i = 0; i < size; i++) {
+				sorted[i] = created[order[i]];
+			}
+			created = sorted;
+		}
+	}
+
+	/**
+	 * Stable sort of change indexes by date.
+	 */
+	private void mergeSort(final int[] order, final int[] buffer, final int from, final int to) {
+		if (to - from < 2) {
+			return;
+		}
+		final var middle = (from + to) >>> 1;
+		mergeSort(order, buffer, from, middle);
+		mergeSort(order, buffer, middle, to);
+		if (created[order[middle - 1]] <= created[order[middle]]) {
+			// Already ordered
+			return;
+		}
+		System.arraycopy(order, from, buffer, from, to - from);
+		var left = from;
+		var right = middle;
+		for (var i = from; i < to; i++) {
+			if (right >= to || left < middle && created[buffer[left]] <= created[buffer[right]]) {
+				order[i] = buffer[left++];
+			} else {
+				order[i] = buffer[right++];
+			}
+		}
+	}
+
+	private int[] reorder(final int[] values, final int[] order) {
+		final var result = new int[size];
+		for (var i = 0; i < size; i++) {
+			result[i] = values[order[i]];
+		}
+		return result;
+	}
+
+	/**
+	 * Return the amount of changes.
+	 *
+	 * @return The amount of changes.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Return the issue identifier of a change.
+	 *
+	 * @param index
+	 *            The change index.
+	 * @return The issue identifier.
+	 */
+	public int getIssue(final int index) {
+		return issues[index];
+	}
+
+	/**
+	 * Return the previous status of a change.
+	 *
+	 * @param index
+	 *            The change index.
+	 * @return The previous status, or {@link #NO_STATUS} for the issue creation.
+	 */
+	public int getFromStatus(final int index) {
+		return fromStatuses[index];
+	}
+
+	/**
+	 * Return the new status of a change.
+	 *
+	 * @param index
+	 *            The change index.
+	 * @return The new status.
+	 */
+	public int getToStatus(final int index) {
+		return toStatuses[index];
+	}
+
+	/**
+	 * Return the timestamp of a change.
+	 *
+	 * @param index
+	 *            The change index.
+	 * @return The change timestamp.
+	 */
+	public long getCreated(final int index) {
+		return created[index];
+	}
+
+	/**
+	 * Return the author of a change, or the reporter for the issue creation.
+	 *
+	 * @param index
+	 *            The change index.
+	 * @return The author. May be <code>null</code>.
+	 */
+	public String getAuthor(final int index) {
+		final var author = authors[index];
+		return author == NO_AUTHOR ? null : names[author];
+	}
+
+	/**
+	 * Return the key of an issue.
+	 *
+	 * @param issue
+	 *            The issue identifier.
+	 * @return The issue key. May be <code>null</code> when the issue has not been registered.
+	 */
+	public String getKey(final int issue) {
+		return keys.get(issue);
+	}
+
+	/**
+	 * Return the statuses involved in the changes and the current status of the issues.
+	 *
+	 * @return The involved status identifiers.
+	 */
+	public Set<Integer> getStatuses() {
+		return statuses;
+	}
+}
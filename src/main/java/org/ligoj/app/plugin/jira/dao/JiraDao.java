@@ -3,21 +3,30 @@
  */
 package org.ligoj.app.plugin.jira.dao;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.CharBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.Iterator;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -41,12 +50,21 @@ import org.ligoj.app.plugin.jira.editor.UrlEditor;
 import org.ligoj.app.plugin.jira.model.CustomField;
 import org.ligoj.app.plugin.jira.model.CustomFieldValue;
 import org.ligoj.app.plugin.bt.model.IssueDetails;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
-import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
 import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
 
 /**
  * DAO for JIRA services.
@@ -56,6 +74,37 @@ import org.springframework.stereotype.Component;
 @Component
 public class JiraDao {
 
+	/**
+	 * Amount of rows fetched by round trip by the streaming queries.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.jdbc.fetch-size:1000}")
+	private int fetchSize = 1000;
+
+	@Autowired
+	private JiraReferenceDataCache referenceCache;
+
+	/**
+	 * Time to live in milliseconds of the cached project statistics. When
+	 * <code>0</code>, the cache is disabled.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.project.cache-ttl:0}")
+	private long projectCacheTtl = 0;
+
+	/**
+	 * Cached project statistics key.
+	 */
+	private record ProjectCacheKey(DataSource dataSource, int jira) {
+	}
+
+	private final TtlCache<ProjectCacheKey, JiraProject> projectCache = new TtlCache<>(this::getProjectCacheTtl);
+
+	@Autowired
+	private JiraDataSourceRegistry dataSourceRegistry;
+
 	private static final String STATUS_OPEN = "1";
 
 	// Query to get issue changes
@@ -64,6 +113,11 @@ public class JiraDao {
 			+ " WHERE cgi.FIELD = ? AND cgi.OLDVALUE IS NOT NULL AND cgi.NEWVALUE IS NOT NULL AND cg.CREATED IS NOT NULL AND i.PROJECT = ?";
 	private static final String SELECT_CHANGES = SELECT_CHANGES_PART1 + SELECT_CHANGES_PART2;
 	private static final String SELECT_CHANGES_AUTHORING = SELECT_CHANGES_PART1 + ", cg.AUTHOR as author" + SELECT_CHANGES_PART2;
+
+	// Query to get custom field values ordered by issue and custom field
+	private static final String SELECT_CUSTOM_FIELD_VALUES = "SELECT cv.STRINGVALUE AS stringValue,cv.NUMBERVALUE AS numberValue,cv.TEXTVALUE AS textValue,cv.DATEVALUE AS dateValue, cv.CUSTOMFIELD AS customField, cv.ISSUE AS issue"
+			+ " FROM customfieldvalue cv INNER JOIN jiraissue i ON (i.ID = cv.ISSUE AND i.PROJECT = ?) ORDER BY cv.ISSUE,cv.CUSTOMFIELD";
+
 	/**
 	 * Fail safe editor, non blocking export.
 	 */
@@ -132,22 +186,155 @@ public class JiraDao {
 	public <T> List<T> getChanges(final DataSource dataSource, final int jira, final String pkey, final Class<T> resultType,
 			final boolean timing, final boolean summary) {
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final RowMapper<T> rowMapper = new BeanPropertyRowMapper<>(resultType);
+		final RowMapper<T> rowMapper = new IndexedRowMapper<>(resultType);
 
 		// First, get all created issues (first change)
-		final List<T> issues;
+		final boolean jira6 = isJira6(dataSource);
+		return jdbcTemplate.query(newSelectIssues(jira6, timing, summary), rowMapper, newSelectIssuesArgs(jira6, jira, pkey));
+	}
+
+	/**
+	 * Indicate the JIRA version is 6+. In this case, "pkey" is no more available in the 'jiraissue' table.
+	 */
+	private boolean isJira6(final DataSource dataSource) {
+		return getJiraVersion(dataSource).compareTo("6.0.0") >= 0;
+	}
+
+	/**
+	 * Return the SQL query returning the issues of a project as a first change.
+	 */
+	private String newSelectIssues(final boolean jira6, final boolean timing, final boolean summary) {
 		final String sqlPart = ", RESOLUTION AS resolution, PRIORITY AS priority, issuestatus AS status, ASSIGNEE AS assignee,"
 				+ " REPORTER AS reporter, issuetype AS type, ? AS toStatus, DUEDATE AS dueDate, created"
 				+ (timing ? ", TIMESPENT AS timeSpent, TIMEESTIMATE AS timeEstimate, TIMEORIGINALESTIMATE AS timeEstimateInit" : "")
 				+ (summary ? ", SUMMARY AS summary" : "") + "  FROM jiraissue WHERE PROJECT = ?";
-		if (getJiraVersion(dataSource).compareTo("6.0.0") < 0) {
-			// JIRA 4-5 implementation, use "pkey"
-			issues = jdbcTemplate.query("SELECT ID AS id, pkey AS pkey" + sqlPart, rowMapper, STATUS_OPEN, jira);
-		} else {
+		if (jira6) {
 			// JIRA 6+, "pkey" is no more available in the 'jiraissue' table
-			issues = jdbcTemplate.query("SELECT ID AS id, CONCAT(?, issuenum) AS pkey" + sqlPart, rowMapper, pkey + "-", STATUS_OPEN, jira);
+			return "SELECT ID AS id, CONCAT(?, issuenum) AS pkey" + sqlPart;
 		}
-		return issues;
+		// JIRA 4-5 implementation, use "pkey"
+		return "SELECT ID AS id, pkey AS pkey" + sqlPart;
+	}
+
+	/**
+	 * Return the parameters of the query built by {@link #newSelectIssues(boolean, boolean, boolean)}.
+	 */
+	private Object[] newSelectIssuesArgs(final boolean jira6, final int jira, final String pkey) {
+		if (jira6) {
+			return new Object[] { pkey + "-", STATUS_OPEN, jira };
+		}
+		return new Object[] { STATUS_OPEN, jira };
+	}
+
+	/**
+	 * Stream the status changes of issues of given project, issue by issue. The issues and their changes are read with
+	 * forward-only cursors ordered by issue identifier, so only the changes of the current issue are in memory. The
+	 * changes given to the consumer start with the issue creation and are ordered by date.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @param pkey
+	 *            the project 'pkey'.
+	 * @param timing
+	 *            When <code>true</code> time spent data is fetched.
+	 * @param consumer
+	 *            The consumer of the changes of each issue.
+	 */
+	public void forEachIssueChanges(final DataSource dataSource, final int jira, final String pkey, final boolean timing,
+			final Consumer<List<JiraChangeItem>> consumer) {
+		// Both cursors share a single connection
+		readOnSingleConnection(dataSource, () -> forEachIssueChangesInternal(dataSource, jira, pkey, timing, consumer));
+	}
+
+	/**
+	 * Run a task reading the JIRA database on a single read-only connection: all the queries of the current thread on
+	 * the given data source share this connection, including the cursors opened together. A task already running on a
+	 * single connection of this data source keeps it.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param task
+	 *            The task to run.
+	 */
+	public void readOnSingleConnection(final DataSource dataSource, final Runnable task) {
+		final var transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transaction.setReadOnly(true);
+		transaction.executeWithoutResult(s -> task.run());
+	}
+
+	private void forEachIssueChangesInternal(final DataSource dataSource, final int jira, final String pkey,
+			final boolean timing, final Consumer<List<JiraChangeItem>> consumer) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(fetchSize);
+		// The cursors are read alternately, each one keeps the column mapping of its own result set
+		final RowMapper<JiraChangeItem> issueMapper = new IndexedRowMapper<>(JiraChangeItem.class);
+		final RowMapper<JiraChangeItem> changeMapper = new IndexedRowMapper<>(JiraChangeItem.class);
+		final boolean jira6 = isJira6(dataSource);
+		try (var issues = jdbcTemplate.queryForStream(newSelectIssues(jira6, timing, false) + " ORDER BY ID",
+				issueMapper, newSelectIssuesArgs(jira6, jira, pkey));
+				var changes = jdbcTemplate.queryForStream(SELECT_CHANGES + " ORDER BY i.ID, cg.CREATED, cgi.ID",
+						changeMapper, "status", jira)) {
+			final Iterator<JiraChangeItem> changesIterator = changes.iterator();
+			JiraChangeItem change = changesIterator.hasNext() ? changesIterator.next() : null;
+			final Iterator<JiraChangeItem> issuesIterator = issues.iterator();
+			while (issuesIterator.hasNext()) {
+				final JiraChangeItem issue = issuesIterator.next();
+				final List<JiraChangeItem> issueChanges = new ArrayList<>();
+				issueChanges.add(issue);
+
+				// Both cursors are ordered by issue, merge the changes of this issue
+				while (change != null && change.getId() <= issue.getId()) {
+					if (change.getId().equals(issue.getId())) {
+						issueChanges.add(change);
+					}
+					change = changesIterator.hasNext() ? changesIterator.next() : null;
+				}
+
+				// Same order than the whole change list sorted by date
+				issueChanges.sort(Comparator.comparing(IssueDetails::getCreated));
+				consumer.accept(issueChanges);
+			}
+		}
+	}
+
+	/**
+	 * Return the creation date of the oldest issue of given project.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return The creation date of the oldest issue. <code>null</code> when there is no issue.
+	 */
+	public Date getFirstCreated(final DataSource dataSource, final int jira) {
+		return new JdbcTemplate(dataSource).queryForObject("SELECT MIN(CREATED) FROM jiraissue WHERE PROJECT = ?", Date.class,
+				jira);
+	}
+
+	/**
+	 * Return the statuses involved in the issues and the status changes of given project.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return The involved status identifiers.
+	 */
+	public Set<Integer> getInvolvedStatuses(final DataSource dataSource, final int jira) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		final Set<Integer> statuses = new HashSet<>(
+				jdbcTemplate.queryForList("SELECT DISTINCT issuestatus FROM jiraissue WHERE PROJECT = ?", Integer.class, jira));
+		if (!statuses.isEmpty()) {
+			// Status of the issue creation
+			statuses.add(Integer.valueOf(STATUS_OPEN));
+		}
+		jdbcTemplate.query("SELECT DISTINCT cgi.OLDVALUE, cgi.NEWVALUE" + SELECT_CHANGES_PART2, (RowCallbackHandler) rs -> {
+			statuses.add(Integer.valueOf(rs.getString(1).trim()));
+			statuses.add(Integer.valueOf(rs.getString(2).trim()));
+		}, "status", jira);
+		return statuses;
 	}
 
 	/**
@@ -169,7 +356,7 @@ public class JiraDao {
 	public List<JiraChangeItem> getChanges(final DataSource dataSource, final int jira, final String pkey, final boolean authoring,
 			final boolean timing) {
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final RowMapper<JiraChangeItem> rowMapper = new BeanPropertyRowMapper<>(JiraChangeItem.class);
+		final RowMapper<JiraChangeItem> rowMapper = new IndexedRowMapper<>(JiraChangeItem.class);
 
 		// First, get all created issues (first change)
 		final List<JiraChangeItem> changes = getChanges(dataSource, jira, pkey, JiraChangeItem.class, timing, false);
@@ -187,6 +374,140 @@ public class JiraDao {
 		return changes;
 	}
 
+	/**
+	 * Return the SQL condition matching the issues touched since a high-water mark : unresolved issues, issues created
+	 * or updated since the given date, and issues having a change since the given date or change group.
+	 */
+	private String newTouchedCondition(final String issue) {
+		return issue + "RESOLUTION IS NULL OR " + issue + "UPDATED >= ? OR " + issue
+				+ "CREATED >= ? OR EXISTS (SELECT 1 FROM changegroup g WHERE g.issueid = " + issue
+				+ "ID AND (g.CREATED >= ? OR g.ID > ?))";
+	}
+
+	/**
+	 * Return the status changes of issues of given project touched since a high-water mark, and last known issue
+	 * values. Same as {@link #getChanges(DataSource, int, String, boolean, boolean)} without authoring, but restricted
+	 * to the unresolved issues and the issues created, updated or changed since the high-water mark. All changes of
+	 * these issues are returned.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @param pkey
+	 *            the project 'pkey'.
+	 * @param timing
+	 *            When <code>true</code> time spent data is fetched.
+	 * @param since
+	 *            The last update date already processed.
+	 * @param sinceGroup
+	 *            The last change group identifier already processed.
+	 * @return status changes of the touched issues of given project.
+	 */
+	public List<JiraChangeItem> getChanges(final DataSource dataSource, final int jira, final String pkey,
+			final boolean timing, final Date since, final int sinceGroup) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(fetchSize);
+		final RowMapper<JiraChangeItem> rowMapper = new IndexedRowMapper<>(JiraChangeItem.class);
+
+		// First, get the touched issues (first change)
+		final boolean jira6 = isJira6(dataSource);
+		final List<JiraChangeItem> changes = jdbcTemplate.query(
+				newSelectIssues(jira6, timing, false) + " AND (" + newTouchedCondition("jiraissue.") + ")", rowMapper,
+				ArrayUtils.addAll(newSelectIssuesArgs(jira6, jira, pkey), since, since, since, sinceGroup));
+
+		// Then add all status changes of these issues
+		changes.addAll(jdbcTemplate.query(SELECT_CHANGES + " AND (" + newTouchedCondition("i.") + ")", rowMapper,
+				"status", jira, since, since, since, sinceGroup));
+		changes.sort(Comparator.comparing(IssueDetails::getCreated));
+		return changes;
+	}
+
+	/**
+	 * Return the last creation or update date of the issues and the changes of given project.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return The last update date. <code>null</code> when there is no issue.
+	 */
+	public Date getLastUpdate(final DataSource dataSource, final int jira) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		return ObjectUtils.max(
+				jdbcTemplate.queryForObject("SELECT MAX(CREATED) FROM jiraissue WHERE PROJECT = ?", Date.class, jira),
+				jdbcTemplate.queryForObject("SELECT MAX(UPDATED) FROM jiraissue WHERE PROJECT = ?", Date.class, jira),
+				jdbcTemplate.queryForObject(
+						"SELECT MAX(cg.CREATED) FROM changegroup cg INNER JOIN jiraissue i ON (cg.issueid = i.ID) WHERE i.PROJECT = ?",
+						Date.class, jira));
+	}
+
+	/**
+	 * Return the last change group identifier of given project.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return The last change group identifier. <code>0</code> when there is no change.
+	 */
+	public int getLastChangeGroup(final DataSource dataSource, final int jira) {
+		return ObjectUtils.getIfNull(new JdbcTemplate(dataSource).queryForObject(
+				"SELECT MAX(cg.ID) FROM changegroup cg INNER JOIN jiraissue i ON (cg.issueid = i.ID) WHERE i.PROJECT = ?",
+				Integer.class, jira), 0);
+	}
+
+	/**
+	 * Return the identifiers of the issues of given project.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return The issue identifiers.
+	 */
+	public Set<Integer> getIssueIds(final DataSource dataSource, final int jira) {
+		return new HashSet<>(new JdbcTemplate(dataSource).queryForList("SELECT ID FROM jiraissue WHERE PROJECT = ?",
+				Integer.class, jira));
+	}
+
+	/**
+	 * Return the status history of issues of given project in a columnar form : same changes and same order than
+	 * {@link #getChanges(DataSource, int, String, boolean, boolean)} with authoring, but without one bean per change.
+	 * The author of an issue creation is the reporter.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @param pkey
+	 *            the project 'pkey'.
+	 * @return status history of all issues of given project.
+	 */
+	public JiraChangeHistory getChangeHistory(final DataSource dataSource, final int jira, final String pkey) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(fetchSize);
+		final JiraChangeHistory history = new JiraChangeHistory(fetchSize);
+
+		// First, get all created issues (first change)
+		final boolean jira6 = isJira6(dataSource);
+		jdbcTemplate.query(newSelectIssues(jira6, false, false), (RowCallbackHandler) rs -> {
+			final int issue = rs.getInt("id");
+			history.addIssue(issue, rs.getString("pkey"), rs.getInt("status"));
+			history.add(issue, JiraChangeHistory.NO_STATUS, rs.getInt("toStatus"), rs.getTimestamp("created").getTime(),
+					rs.getString("reporter"));
+		}, newSelectIssuesArgs(jira6, jira, pkey));
+
+		// Then add all status changes
+		jdbcTemplate.query(SELECT_CHANGES_AUTHORING, (RowCallbackHandler) rs -> history.add(rs.getInt("id"),
+				rs.getInt("fromStatus"), rs.getInt("toStatus"), rs.getTimestamp("created").getTime(), rs.getString("author")),
+				"status", jira);
+
+		// Then sort the whole history by "created" date
+		history.complete(true);
+		return history;
+	}
+
 	/**
 	 * Return all custom fields values attached to an issue of a project.
 	 * 
@@ -199,11 +520,41 @@ public class JiraDao {
 	 */
 	public List<CustomFieldValue> getCustomFieldValues(final DataSource dataSource, final int jira) {
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final RowMapper<CustomFieldValue> rowMapper = new BeanPropertyRowMapper<>(CustomFieldValue.class);
-		return jdbcTemplate.query(
-				"SELECT cv.STRINGVALUE AS stringValue,cv.NUMBERVALUE AS numberValue,cv.TEXTVALUE AS textValue,cv.DATEVALUE AS dateValue, cv.CUSTOMFIELD AS customField, cv.ISSUE AS issue"
-						+ " FROM customfieldvalue cv INNER JOIN jiraissue i ON (i.ID = cv.ISSUE AND i.PROJECT = ?) ORDER BY cv.ISSUE,cv.CUSTOMFIELD",
-				rowMapper, jira);
+		final RowMapper<CustomFieldValue> rowMapper = new IndexedRowMapper<>(CustomFieldValue.class);
+		return jdbcTemplate.query(SELECT_CUSTOM_FIELD_VALUES, rowMapper, jira);
+	}
+
+	/**
+	 * Stream all custom fields values attached to an issue of a project. The values are read with a forward-only
+	 * cursor, the returned stream must be closed to release the underlying connection. Within
+	 * {@link #readOnSingleConnection(DataSource, Runnable)}, the connection is the one of the task.
+	 * 
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return all custom fields attached to an issue of a project ordered by issue and custom field.
+	 */
+	public Stream<CustomFieldValue> streamCustomFieldValues(final DataSource dataSource, final int jira) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		jdbcTemplate.setFetchSize(fetchSize);
+		final RowMapper<CustomFieldValue> rowMapper = new IndexedRowMapper<>(CustomFieldValue.class);
+		return jdbcTemplate.queryForStream(SELECT_CUSTOM_FIELD_VALUES, rowMapper, jira);
+	}
+
+	/**
+	 * Return the identifiers of the custom fields having at least one value in an issue of a project.
+	 * 
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 * @return the custom field identifiers.
+	 */
+	public Set<Integer> getCustomFieldIds(final DataSource dataSource, final int jira) {
+		return new LinkedHashSet<>(new JdbcTemplate(dataSource).queryForList(
+				"SELECT DISTINCT cv.CUSTOMFIELD FROM customfieldvalue cv INNER JOIN jiraissue i ON (i.ID = cv.ISSUE AND i.PROJECT = ?)",
+				Integer.class, jira));
 	}
 
 	/**
@@ -217,7 +568,7 @@ public class JiraDao {
 	 */
 	public List<JiraProject> findProjectsByName(final DataSource dataSource, final String nameIdOrKey) {
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final RowMapper<JiraProject> rowMapper = new BeanPropertyRowMapper<>(JiraProject.class);
+		final RowMapper<JiraProject> rowMapper = new IndexedRowMapper<>(JiraProject.class);
 		return jdbcTemplate.query("SELECT pkey AS name, ID AS id, pname AS description FROM project"
 				+ " WHERE UPPER(pkey) LIKE CONCAT(CONCAT('%',UPPER(?)),'%') OR  UPPER(pname) LIKE CONCAT(CONCAT('%',UPPER(?)),'%') OR ID = ? ORDER BY pname",
 				rowMapper, nameIdOrKey, nameIdOrKey, NumberUtils.toInt(nameIdOrKey));
@@ -229,6 +580,8 @@ public class JiraDao {
 	 * <li>Counts for each provided status</li>
 	 * <li>Counts for each provided priorities</li>
 	 * </ul>
+	 * The result is cached during {@link #projectCacheTtl} milliseconds when
+	 * enabled, and a copy is returned.
 	 * 
 	 * @param dataSource
 	 *            The data source of JIRA database.
@@ -237,80 +590,108 @@ public class JiraDao {
 	 * @return the project's name or <code>null</code>.
 	 */
 	public JiraProject getProject(final DataSource dataSource, final int jira) {
-		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final Map<Integer, String> priorities = getPriorities(dataSource);
-		final Map<Integer, String> statuses = getStatuses(dataSource);
-		final StringBuilder query = new StringBuilder(100 * (1 + priorities.size() + statuses.size())); // NOPMD
-
-		// Fetch basic projetc definition
-		query.append("SELECT pkey, ID, pname"); // NOPMD - capacity well defined
-
-		// Fetch priorities count
-		priorities.forEach((id, name) -> query.append(',').append(newSelectCount("PRIORITY", id, "p")));
+		if (!projectCache.isEnabled()) {
+			return getProjectNoCache(dataSource, jira);
+		}
+		return copy(projectCache.get(new ProjectCacheKey(dataSource, jira), () -> getProjectNoCache(dataSource, jira)));
+	}
 
-		// Fetch statuses count
-		statuses.forEach((id, name) -> query.append(',').append(newSelectCount("issuestatus", id, "s")));
+	/**
+	 * Return a copy of the given cached project, so the callers never modify the cached one.
+	 */
+	private JiraProject copy(final JiraProject cached) {
+		if (cached == null) {
+			return null;
+		}
+		final var project = new JiraProject();
+		project.setId(cached.getId());
+		project.setName(cached.getName());
+		project.setDescription(cached.getDescription());
+		project.setPriorities(new LinkedHashMap<>(cached.getPriorities()));
+		project.setStatuses(new LinkedHashMap<>(cached.getStatuses()));
+		return project;
+	}
 
-		// Execute the query for maximal 1 project
-		query.append(" FROM project WHERE ID = ? GROUP BY ID");
-		final Object[] dummyProjet = new Object[priorities.size() + statuses.size() + 1];
-		Arrays.fill(dummyProjet, jira);
-		return jdbcTemplate.query(query.toString(), (rs, rowNum) -> {
-			final JiraProject project = new JiraProject();
-			project.setName(rs.getString("pkey"));
-			project.setId(rs.getInt("ID"));
-			project.setDescription(rs.getString("pname"));
+	/**
+	 * Clear the cached projects statistics.
+	 */
+	public void clearProjectCache() {
+		projectCache.clear();
+	}
 
-			// Add priorities count
-			project.setPriorities(toMapCount(priorities, rs, "p"));
+	/**
+	 * Clear the cached statistics of a project, for instance after an import.
+	 *
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param jira
+	 *            the JIRA project identifier.
+	 */
+	public void clearProjectCache(final DataSource dataSource, final int jira) {
+		projectCache.invalidate(new ProjectCacheKey(dataSource, jira));
+	}
 
-			// Add statuses count
-			project.setStatuses(toMapCount(statuses, rs, "s"));
-			return project;
-		}, dummyProjet).stream().findFirst().orElse(null);
+	/**
+	 * Clear the cached statistics of the closed pools.
+	 */
+	@PostConstruct
+	public void registerListener() {
+		dataSourceRegistry.addCloseListener(d -> projectCache.invalidateIf(k -> k.dataSource() == d));
 	}
 
 	/**
-	 * Return a count on table <code>jiraissue</code> for unresolved issues and
-	 * column matching to the given identifier.
-	 * 
-	 * @param column
-	 *            Column to be filtered.
-	 * @param id
-	 *            Filtered value against the column.
-	 * @param prefixAlias
-	 *            The prefix used for alias. Alias would be
-	 *            <code>prefixAlias+id</code>.
-	 * @return a count on table <code>jiraissue</code> for unresolved issues and
-	 *         column matching to the given identifier.
+	 * Return the project and its statistics without cache. The counts are computed with a single aggregate query.
 	 */
-	private String newSelectCount(final String column, final Integer id, final String prefixAlias) {
-		return "(SELECT COUNT(ID) FROM jiraissue WHERE " + column + "=" + id + " AND PROJECT=? AND RESOLUTION IS NULL) AS " + prefixAlias
-				+ id;
+	private JiraProject getProjectNoCache(final DataSource dataSource, final int jira) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		final JiraProject project = jdbcTemplate.query("SELECT pkey, ID, pname FROM project WHERE ID = ?", (rs, rowNum) -> {
+			final JiraProject result = new JiraProject();
+			result.setName(rs.getString("pkey"));
+			result.setId(rs.getInt("ID"));
+			result.setDescription(rs.getString("pname"));
+			return result;
+		}, jira).stream().findFirst().orElse(null);
+		if (project == null) {
+			return null;
+		}
+
+		// Count the unresolved issues by priority and status at once
+		final Map<Integer, Integer> priorityCounts = new HashMap<>();
+		final Map<Integer, Integer> statusCounts = new HashMap<>();
+		jdbcTemplate.query(
+				"SELECT PRIORITY AS p, issuestatus AS s, COUNT(ID) AS c FROM jiraissue WHERE PROJECT = ? AND RESOLUTION IS NULL"
+						+ " GROUP BY PRIORITY, issuestatus",
+				(RowCallbackHandler) rs -> {
+					final int count = rs.getInt("c");
+					priorityCounts.merge(rs.getInt("p"), count, Integer::sum);
+					statusCounts.merge(rs.getInt("s"), count, Integer::sum);
+				}, jira);
+
+		// Add priorities count
+		project.setPriorities(toMapCount(getPriorities(dataSource), priorityCounts));
+
+		// Add statuses count
+		project.setStatuses(toMapCount(getStatuses(dataSource), statusCounts));
+		return project;
 	}
 
 	/**
 	 * Return a map where an entry is <code>entry.key=reverseMap.value</code>
-	 * and <code>entry.value=rs[resulsetPrefix+reverseMap.key]</code> if
+	 * and <code>entry.value=counts[reverseMap.key]</code> if
 	 * <code>entry.value</code> is superior than 0.
 	 * 
 	 * @param reverseMap
-	 *            the set of results to read from the {@link ResultSet}. K of
-	 *            this map is used to extract the count.
-	 * @param rs
-	 *            the current {@link ResultSet}
-	 * @param resulsetPrefix
-	 *            Prefix of column name of result set.
-	 * @return K is the value of given reverse map. V is the non zero result
-	 *         column named with the following form : prefix+K of given reverse
-	 *         map.
-	 */
-	private Map<String, Integer> toMapCount(final Map<Integer, String> reverseMap, final ResultSet rs, final String resulsetPrefix)
-			throws SQLException {
+	 *            the ordered texts. K of this map is used to extract the
+	 *            count.
+	 * @param counts
+	 *            the counts by identifier.
+	 * @return K is the value of given reverse map. V is the non zero count.
+	 */
+	private Map<String, Integer> toMapCount(final Map<Integer, String> reverseMap, final Map<Integer, Integer> counts) {
 		final Map<String, Integer> result = new LinkedHashMap<>();
 		for (final Entry<Integer, String> entry : reverseMap.entrySet()) {
 			// Add only non zero values
-			final int count = rs.getInt(resulsetPrefix + entry.getKey());
+			final int count = counts.getOrDefault(entry.getKey(), 0);
 			if (count > 0) {
 				result.put(entry.getValue(), count);
 			}
@@ -339,7 +720,8 @@ public class JiraDao {
 	 * @return all priorities labels.
 	 */
 	public Map<Integer, String> getPriorities(final DataSource dataSource) {
-		return AbstractEditor.getMap(dataSource, "SELECT p.ID AS id, p.pname AS pname FROM priority p ORDER BY id");
+		return referenceCache.get(dataSource, "priority", 0,
+				() -> AbstractEditor.getMap(dataSource, "SELECT p.ID AS id, p.pname AS pname FROM priority p ORDER BY id"));
 	}
 
 	/**
@@ -350,7 +732,8 @@ public class JiraDao {
 	 * @return all resolutions labels.
 	 */
 	public Map<Integer, String> getResolutions(final DataSource dataSource) {
-		return AbstractEditor.getMap(dataSource, "SELECT p.ID AS id, p.pname AS pname FROM resolution p ORDER BY SEQUENCE");
+		return referenceCache.get(dataSource, "resolution", 0, () -> AbstractEditor.getMap(dataSource,
+				"SELECT p.ID AS id, p.pname AS pname FROM resolution p ORDER BY SEQUENCE"));
 	}
 
 	/**
@@ -363,12 +746,12 @@ public class JiraDao {
 	 * @return all types labels. Key is the identifier.
 	 */
 	public Map<Integer, String> getTypes(final DataSource dataSource, final int jira) {
-		return AbstractEditor.getMap(dataSource,
+		return referenceCache.get(dataSource, "issuetype", jira, () -> AbstractEditor.getMap(dataSource,
 				"SELECT ID AS id, pname FROM issuetype AS i, (SELECT OPTIONID FROM optionconfiguration AS o,"
 						+ "(SELECT FIELDCONFIGSCHEME FROM configurationcontext WHERE customfield = ? AND "
 						+ "(PROJECT = ? OR PROJECT IS NULL AND NOT EXISTS (SELECT FIELDCONFIGSCHEME FROM configurationcontext WHERE customfield = ? AND PROJECT = ?))"
 						+ ") AS f WHERE o.FIELDCONFIG IN (f.FIELDCONFIGSCHEME)) AS t WHERE i.ID IN (t.OPTIONID) ORDER BY id",
-				"issuetype", jira, "issuetype", jira);
+				"issuetype", jira, "issuetype", jira));
 	}
 
 	/**
@@ -379,7 +762,8 @@ public class JiraDao {
 	 * @return all existing statuses.
 	 */
 	public Map<Integer, String> getStatuses(final DataSource dataSource) {
-		return AbstractEditor.getMap(dataSource, "SELECT ID AS id, pname AS pname FROM issuestatus ORDER BY pname");
+		return referenceCache.get(dataSource, "issuestatus", 0,
+				() -> AbstractEditor.getMap(dataSource, "SELECT ID AS id, pname AS pname FROM issuestatus ORDER BY pname"));
 	}
 
 	/**
@@ -438,7 +822,7 @@ public class JiraDao {
 
 		// Get map as list
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final RowMapper<CustomFieldEditor> rowMapper = new BeanPropertyRowMapper<>(CustomFieldEditor.class);
+		final RowMapper<CustomFieldEditor> rowMapper = new IndexedRowMapper<>(CustomFieldEditor.class);
 		final List<CustomFieldEditor> resultList = jdbcTemplate.query(
 				"SELECT cf.ID AS id, TRIM(cf.cfname) AS name, cf.DESCRIPTION AS description, cf.CUSTOMFIELDTYPEKEY AS fieldType FROM customfield AS cf WHERE TRIM(cf.cfname) IN ("
 						+ newIn(customFields) + ")",
@@ -480,7 +864,7 @@ public class JiraDao {
 
 		// Get map as list
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final RowMapper<CustomFieldEditor> rowMapper = new BeanPropertyRowMapper<>(CustomFieldEditor.class);
+		final RowMapper<CustomFieldEditor> rowMapper = new IndexedRowMapper<>(CustomFieldEditor.class);
 		final List<CustomFieldEditor> resultList = jdbcTemplate.query(
 				"SELECT ID AS id, TRIM(cfname) AS name, DESCRIPTION AS description, CUSTOMFIELDTYPEKEY AS fieldType FROM customfield WHERE ID IN ("
 						+ newIn(customFields) + ") ORDER BY id",
@@ -625,9 +1009,9 @@ public class JiraDao {
 		final Collection<Integer> updatingIssues = CollectionUtils.intersection(existing, importIssues);
 		final Map<Integer, IssueWithCollections> result = new LinkedHashMap<>();
 		if (!updatingIssues.isEmpty()) {
-			final RowMapper<IssueWithCollections> rowMapper = new BeanPropertyRowMapper<>(IssueWithCollections.class);
+			final RowMapper<IssueWithCollections> rowMapper = new IndexedRowMapper<>(IssueWithCollections.class);
 			final List<IssueWithCollections> issues = jdbcTemplate.query(
-					"SELECT i.ID AS id, i.issuenum AS issue" + " FROM jiraissue AS i WHERE i.PROJECT = ? AND i.issuenum IN ("
+					"SELECT i.ID AS id, i.issuenum AS issueNum" + " FROM jiraissue AS i WHERE i.PROJECT = ? AND i.issuenum IN ("
 							+ newIn(updatingIssues) + ") ORDER BY i.issuenum",
 					rowMapper, ArrayUtils.addAll(new Object[] { jira }, updatingIssues.toArray()));
 			for (final IssueWithCollections issue : issues) {
@@ -638,24 +1022,153 @@ public class JiraDao {
 	}
 
 	/**
-	 * Return workflow definition.
+	 * Return the stored state of the given issues : the "jiraissue" row, the components, the versions, the values of the
+	 * given custom fields, the labels and the status changes.
+	 * 
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param issues
+	 *            the issue identifiers.
+	 * @param customFields
+	 *            the custom fields to read. KEY is the custom field name.
+	 * @return the complete issues. KEY is the issue identifier.
+	 */
+	@SuppressWarnings("unchecked")
+	public Map<Integer, IssueWithCollections> getIssuesWithCollections(final DataSource dataSource,
+			final Collection<Integer> issues, final Map<String, CustomFieldEditor> customFields) {
+		final Map<Integer, IssueWithCollections> result = new LinkedHashMap<>();
+		if (issues.isEmpty()) {
+			return result;
+		}
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		final String in = newIn(issues);
+		final Object[] ids = issues.toArray();
+		jdbcTemplate.query("SELECT ID AS id, issuenum AS issueNum, REPORTER AS reporter, ASSIGNEE AS assignee, CREATOR AS author,"
+				+ " issuetype AS type, SUMMARY AS summary, DESCRIPTION AS description, PRIORITY AS priority, RESOLUTION AS resolution,"
+				+ " RESOLUTIONDATE AS resolutionDate, issuestatus AS status, CREATED AS created, UPDATED AS updated,"
+				+ " WORKFLOW_ID AS workflow, DUEDATE AS dueDate FROM jiraissue WHERE ID IN (" + in + ")",
+				new IndexedRowMapper<>(IssueWithCollections.class), ids).forEach(i -> result.put(i.getId(), i));
+
+		// Components and versions
+		jdbcTemplate.query("SELECT SOURCE_NODE_ID AS issue, SINK_NODE_ID AS item, ASSOCIATION_TYPE AS type FROM nodeassociation"
+				+ " WHERE SOURCE_NODE_ENTITY = ? AND SOURCE_NODE_ID IN (" + in + ")", (RowCallbackHandler) rs -> {
+					final IssueWithCollections issue = result.get(rs.getInt("issue"));
+					switch (rs.getString("type")) {
+					case "IssueComponent" -> issue.getComponents().add(rs.getInt("item"));
+					case "IssueVersion" -> issue.getVersions().add(rs.getInt("item"));
+					case "IssueFixVersion" -> issue.getFixedVersions().add(rs.getInt("item"));
+					default -> {
+						// Not managed association
+					}
+					}
+				}, ArrayUtils.addAll(new Object[] { "Issue" }, ids));
+
+		// Values of the imported custom fields, multiple values are collected
+		if (!customFields.isEmpty()) {
+			final Map<Integer, CustomFieldEditor> byId = new HashMap<>();
+			customFields.values().forEach(c -> byId.put(c.getId(), c));
+			jdbcTemplate.query("SELECT ISSUE AS issue, CUSTOMFIELD AS customField, STRINGVALUE AS stringValue, NUMBERVALUE AS numberValue,"
+					+ " TEXTVALUE AS textValue, DATEVALUE AS dateValue FROM customfieldvalue WHERE ISSUE IN (" + in
+					+ ") AND CUSTOMFIELD IN (" + newIn(byId.keySet()) + ")", new IndexedRowMapper<>(CustomFieldValue.class),
+					ArrayUtils.addAll(ids, byId.keySet().toArray())).forEach(v -> {
+						final CustomFieldEditor customField = byId.get(v.getCustomField());
+						final Object value = switch (MANAGED_TYPE.get(customField.getFieldType()).getCustomColumn()) {
+						case "NUMBERVALUE" -> v.getNumberValue();
+						case "TEXTVALUE" -> v.getTextValue();
+						case "DATEVALUE" -> v.getDateValue();
+						default -> v.getStringValue();
+						};
+						((List<Object>) result.get(v.getIssue()).getCustomFields().computeIfAbsent(customField.getName(),
+								k -> new ArrayList<>())).add(value);
+					});
+		}
+
+		// Labels
+		jdbcTemplate.query("SELECT ISSUE AS issue, LABEL AS label FROM label WHERE ISSUE IN (" + in + ")",
+				(RowCallbackHandler) rs -> result.get(rs.getInt("issue")).getLabels().add(rs.getString("label")), ids);
+
+		// Status changes
+		jdbcTemplate.query("SELECT cg.issueid AS issue, cgi.OLDVALUE AS fromStatus, cgi.OLDSTRING AS fromStatusText,"
+				+ " cgi.NEWVALUE AS toStatus, cgi.NEWSTRING AS toStatusText, cg.AUTHOR AS author, cg.CREATED AS created"
+				+ " FROM changeitem cgi INNER JOIN changegroup AS cg ON (cgi.groupid = cg.ID)"
+				+ " WHERE cgi.FIELD = ? AND cg.issueid IN (" + in + ") ORDER BY cg.CREATED, cg.ID", (RowCallbackHandler) rs -> {
+					final JiraChangeRow change = new JiraChangeRow(NumberUtils.toInt(rs.getString("fromStatus")),
+							rs.getString("fromStatusText"), NumberUtils.toInt(rs.getString("toStatus")),
+							rs.getString("toStatusText"), rs.getString("author"), rs.getTimestamp("created"));
+					change.setId(rs.getInt("issue"));
+					result.get(change.getId()).getStatusChanges().add(change);
+				}, ArrayUtils.addAll(new Object[] { "status" }, ids));
+		return result;
+	}
+
+	/**
+	 * Return a parsed workflow definition. The descriptor is streamed to the
+	 * parser.
 	 * 
 	 * @param dataSource
 	 *            The data source of JIRA database.
 	 * @param workflow
 	 *            the workflow's name.
-	 * @return The workflow XML description.
+	 * @param parser
+	 *            The descriptor parser.
+	 * @param <T>
+	 *            The parsed type.
+	 * @return The parsed workflow. <code>null</code> for the implicit 'jira'
+	 *         workflow.
 	 */
-	public String getWorflow(final DataSource dataSource, final String workflow) {
+	public <T> T getWorflow(final DataSource dataSource, final String workflow, final Function<Reader, T> parser) {
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-		final List<String> workflows = jdbcTemplate.queryForList("SELECT DESCRIPTOR FROM jiraworkflows WHERE workflowname=?", String.class,
-				workflow);
-		if (workflows.isEmpty()) {
+		return jdbcTemplate.query("SELECT DESCRIPTOR FROM jiraworkflows WHERE workflowname=?", (ResultSetExtractor<T>) rs -> {
+			if (rs.next()) {
+				final Reader descriptor = rs.getCharacterStream(1);
+				if (descriptor != null) {
+					return parser.apply(descriptor);
+				}
+			}
 
 			// Implicit 'jira' workflow case
 			return null;
+		}, workflow);
+	}
+
+	/**
+	 * Return the signature of a workflow definition : its identifier and the
+	 * digest of its descriptor. The descriptor is streamed to the digest
+	 * without being parsed nor kept in memory.
+	 * 
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param workflow
+	 *            the workflow's name.
+	 * @return The workflow signature. <code>null</code> for the implicit 'jira'
+	 *         workflow.
+	 */
+	public String getWorflowSignature(final DataSource dataSource, final String workflow) {
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		final List<String> signatures = jdbcTemplate.query("SELECT ID, DESCRIPTOR FROM jiraworkflows WHERE workflowname=?",
+				(rs, rowNum) -> rs.getLong(1) + ":" + digest(rs.getCharacterStream(2)), workflow);
+		return signatures.isEmpty() ? null : signatures.get(0);
+	}
+
+	/**
+	 * Return the hexadecimal SHA-256 digest of the given content.
+	 */
+	private static String digest(final Reader content) {
+		if (content == null) {
+			return "";
+		}
+		try (content) {
+			final var digest = MessageDigest.getInstance("SHA-256");
+			final var buffer = CharBuffer.allocate(8192);
+			while (content.read(buffer) != -1) {
+				buffer.flip();
+				digest.update(StandardCharsets.UTF_8.encode(buffer));
+				buffer.clear();
+			}
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (final IOException | NoSuchAlgorithmException e) {
+			throw new TechnicalException("Unable to compute the workflow signature", e);
 		}
-		return workflows.get(0);
 	}
 
 	/**
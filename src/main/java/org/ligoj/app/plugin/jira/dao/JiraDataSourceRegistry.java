@@ -0,0 +1,479 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import javax.sql.DataSource;
+
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+import org.springframework.stereotype.Component;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.pool.HikariPool.PoolInitializationException;
+
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Registry of pooled JIRA data sources. A pool is shared by all nodes and subscriptions targeting the same JDBC driver,
+ * URL and credentials. The pool of the outdated parameters of a node is closed when the node is updated or deleted, and
+ * a pool not used for a while is closed. The streaming exports may use a distinct pool of the same configuration, with
+ * the server side cursors enabled.
+ */
+@Component
+@Slf4j
+public class JiraDataSourceRegistry {
+
+	private static final String MYSQL = "jdbc:mysql:";
+
+	/**
+	 * Statistics of a pool.
+	 *
+	 * @param url        The JDBC URL.
+	 * @param user       The JDBC user.
+	 * @param active     The amount of borrowed connections.
+	 * @param idle       The amount of idle connections.
+	 * @param total      The amount of physical connections.
+	 * @param waiting    The amount of threads waiting for a connection.
+	 * @param lastAccess The last time this pool has been requested, in milliseconds.
+	 */
+	public record PoolStatistics(String url, String user, int active, int idle, int total, int waiting, long lastAccess) {
+	}
+
+	/**
+	 * Pool identifier.
+	 */
+	private record PoolKey(String driver, String url, String user, String password, boolean cursorFetch) {
+
+		/**
+		 * Return the identifier of the pool of the same configuration, with the server side cursors enabled.
+		 */
+		private PoolKey toCursorFetch() {
+			return new PoolKey(driver, url, user, password, true);
+		}
+
+		@Override
+		public String toString() {
+			// Never expose the password
+			return user + "@" + url + (cursorFetch ? " (cursor)" : "");
+		}
+	}
+
+	/**
+	 * A pool and its last access time. The pool is built on first access, outside of the registry map, so only the
+	 * requests of the same configuration wait for the first connection.
+	 */
+	private class PoolEntry {
+		private final PoolKey key;
+		private volatile HikariDataSource dataSource;
+		private volatile long lastAccess = System.currentTimeMillis();
+		private boolean closed;
+
+		private PoolEntry(final PoolKey key) {
+			this.key = key;
+		}
+
+		/**
+		 * Return the pool, built on first call. Return <code>null</code> when this entry is closed.
+		 */
+		private HikariDataSource open() {
+			var result = dataSource;
+			if (result == null) {
+				synchronized (this) {
+					result = dataSource;
+					if (result == null && !closed) {
+						result = newPool(key);
+						urls.put(result, key.url());
+						dataSource = result;
+					}
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Close the pool. A next call of {@link #open()} returns <code>null</code>.
+		 */
+		private synchronized void close() {
+			closed = true;
+			if (dataSource != null) {
+				dataSource.close();
+			}
+		}
+	}
+
+	private final Map<PoolKey, PoolEntry> pools = new ConcurrentHashMap<>();
+
+	/**
+	 * The current configuration of each node.
+	 */
+	private final Map<String, PoolKey> nodes = new ConcurrentHashMap<>();
+
+	/**
+	 * The JDBC URL of each opened pool, including the pools being closed until their listeners are notified.
+	 */
+	private final Map<DataSource, String> urls = new ConcurrentHashMap<>();
+
+	/**
+	 * The listeners notified of the closed pools.
+	 */
+	private final List<Consumer<DataSource>> closeListeners = new CopyOnWriteArrayList<>();
+
+	private final AtomicInteger poolCounter = new AtomicInteger();
+
+	private volatile long lastEviction = System.currentTimeMillis();
+
+	/**
+	 * Maximal amount of physical connections of each pool.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.max-pool-size:10}")
+	private int maxPoolSize = 10;
+
+	/**
+	 * Minimal amount of idle connections of each pool.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.min-idle:0}")
+	private int minIdle = 0;
+
+	/**
+	 * Delay in milliseconds before an idle connection is closed.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.idle-timeout:60000}")
+	private long idleTimeout = 60000;
+
+	/**
+	 * Maximal delay in milliseconds to wait for a connection.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.connection-timeout:30000}")
+	private long connectionTimeout = 30000;
+
+	/**
+	 * Delay in milliseconds before a pool without any access and without borrowed connection is closed.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.pool-timeout:600000}")
+	private long poolTimeout = 600000;
+
+	/**
+	 * When <code>true</code>, the batched statements are rewritten by the MySQL/MariaDB driver as multi-rows statements.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.rewrite-batched-statements:true}")
+	private boolean rewriteBatchedStatements = true;
+
+	/**
+	 * When <code>true</code>, the streaming data sources of MySQL use server side cursors for the statements having a
+	 * fetch size, so streamed result sets are not fully loaded in memory. Without these cursors, MySQL Connector/J
+	 * ignores the fetch size and reads the whole result set. These data sources are distinct pools, since the server
+	 * side prepared statements disable the rewriting of the batched statements.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.cursor-fetch:true}")
+	private boolean cursorFetch = true;
+
+	/**
+	 * When <code>true</code>, the pools are exposed as JMX beans.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.datasource.jmx:false}")
+	private boolean jmx;
+
+	/**
+	 * Return the pooled data source matching to the given JDBC configuration.
+	 *
+	 * @param driver   The JDBC driver class name.
+	 * @param url      The JDBC URL.
+	 * @param user     The optional database user.
+	 * @param password The optional database password.
+	 * @return The pooled data source. Never <code>null</code>.
+	 */
+	public DataSource getDataSource(final String driver, final String url, final String user, final String password) {
+		return getDataSource(new PoolKey(driver, url, user, password, false));
+	}
+
+	/**
+	 * Return the pooled data source matching to the given JDBC configuration, dedicated to the streamed result sets.
+	 * When the server side cursors are not enabled or not supported by the driver, the pool is the one of
+	 * {@link #getDataSource(String, String, String, String)}.
+	 *
+	 * @param driver   The JDBC driver class name.
+	 * @param url      The JDBC URL.
+	 * @param user     The optional database user.
+	 * @param password The optional database password.
+	 * @return The pooled data source. Never <code>null</code>.
+	 */
+	public DataSource getStreamingDataSource(final String driver, final String url, final String user,
+			final String password) {
+		return getDataSource(
+				new PoolKey(driver, url, user, password, cursorFetch && StringUtils.startsWith(url, MYSQL)));
+	}
+
+	private DataSource getDataSource(final PoolKey key) {
+		evictUnused();
+		while (true) {
+			final var entry = pools.computeIfAbsent(key, PoolEntry::new);
+			final HikariDataSource dataSource;
+			try {
+				dataSource = entry.open();
+			} catch (final RuntimeException e) {
+				// Next request tries again with a new entry
+				pools.remove(key, entry);
+				throw e;
+			}
+			if (dataSource != null) {
+				entry.lastAccess = System.currentTimeMillis();
+				return dataSource;
+			}
+			// Closed concurrently, use a new entry
+			pools.remove(key, entry);
+		}
+	}
+
+	/**
+	 * Bind a node to its current JDBC configuration. When the configuration of this node has changed, the pool of the
+	 * previous configuration is closed, unless still bound to another node.
+	 *
+	 * @param node     The node identifier. When <code>null</code>, nothing is bound.
+	 * @param driver   The JDBC driver class name.
+	 * @param url      The JDBC URL.
+	 * @param user     The optional database user.
+	 * @param password The optional database password.
+	 */
+	public void bind(final String node, final String driver, final String url, final String user,
+			final String password) {
+		if (node == null) {
+			// Parameters not yet attached to a node
+			return;
+		}
+		final var key = new PoolKey(driver, url, user, password, false);
+		final var previous = nodes.put(node, key);
+		if (previous != null && !previous.equals(key)) {
+			log.info("JDBC configuration of node {} has changed", node);
+			release(previous);
+		}
+	}
+
+	/**
+	 * Unbind a deleted node. The pool of its configuration is closed, unless still bound to another node.
+	 *
+	 * @param node The node identifier.
+	 */
+	public void unbind(final String node) {
+		final var previous = nodes.remove(node);
+		if (previous != null) {
+			release(previous);
+		}
+	}
+
+	/**
+	 * Close the pool of a configuration not bound to any node.
+	 */
+	private void release(final PoolKey key) {
+		if (!nodes.containsValue(key)) {
+			invalidate(key);
+		}
+	}
+
+	/**
+	 * Close the pools matching to the given JDBC configuration. Next request with the same configuration builds a new
+	 * pool.
+	 *
+	 * @param driver   The JDBC driver class name.
+	 * @param url      The JDBC URL.
+	 * @param user     The optional database user.
+	 * @param password The optional database password.
+	 */
+	public void invalidate(final String driver, final String url, final String user, final String password) {
+		invalidate(new PoolKey(driver, url, user, password, false));
+	}
+
+	/**
+	 * Close the pool of the given configuration and its streaming pool.
+	 */
+	private void invalidate(final PoolKey key) {
+		for (final var poolKey : List.of(key, key.toCursorFetch())) {
+			final var entry = pools.remove(poolKey);
+			if (entry != null) {
+				close(entry);
+			}
+		}
+	}
+
+	/**
+	 * Register a listener notified of each closed pool, so the data attached to this data source can be released.
+	 *
+	 * @param listener The listener receiving the closed data source.
+	 */
+	public void addCloseListener(final Consumer<DataSource> listener) {
+		closeListeners.add(listener);
+	}
+
+	/**
+	 * Return the JDBC URL of a pool, available while its close listeners are notified.
+	 *
+	 * @param dataSource The pooled data source.
+	 * @return The JDBC URL of the pool configuration, or <code>null</code> when this data source is not an opened pool of
+	 *         this registry.
+	 */
+	public String getUrl(final DataSource dataSource) {
+		return urls.get(dataSource);
+	}
+
+	/**
+	 * Return the statistics of all opened pools.
+	 *
+	 * @return The statistics of all opened pools. Key is the pool name.
+	 */
+	public Map<String, PoolStatistics> getStatistics() {
+		final var result = new TreeMap<String, PoolStatistics>();
+		pools.forEach((key, entry) -> {
+			final var dataSource = entry.dataSource;
+			final var mxBean = dataSource == null ? null : dataSource.getHikariPoolMXBean();
+			if (mxBean != null) {
+				result.put(dataSource.getPoolName(),
+						new PoolStatistics(key.url(), key.user(), mxBean.getActiveConnections(), mxBean.getIdleConnections(),
+								mxBean.getTotalConnections(), mxBean.getThreadsAwaitingConnection(), entry.lastAccess));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Close all pools.
+	 */
+	@PreDestroy
+	public void close() {
+		nodes.clear();
+		pools.keySet().forEach(key -> {
+			final var entry = pools.remove(key);
+			if (entry != null) {
+				close(entry);
+			}
+		});
+	}
+
+	/**
+	 * Close the pools not used since {@link #poolTimeout} and without borrowed connection.
+	 */
+	private void evictUnused() {
+		final var now = System.currentTimeMillis();
+		if (now - lastEviction < poolTimeout) {
+			// Not yet the time to check the pools
+			return;
+		}
+		lastEviction = now;
+		pools.forEach((key, entry) -> {
+			// A pool being built is not evicted
+			final var dataSource = entry.dataSource;
+			final var mxBean = dataSource == null ? null : dataSource.getHikariPoolMXBean();
+			if (dataSource != null && now - entry.lastAccess >= poolTimeout
+					&& (mxBean == null || mxBean.getActiveConnections() == 0) && pools.remove(key, entry)) {
+				log.info("Close unused JIRA pool {}", key);
+				close(entry);
+			}
+		});
+	}
+
+	/**
+	 * Build a new pool from the given configuration.
+	 */
+	private HikariDataSource newPool(final PoolKey key) {
+		final Driver driver;
+		try {
+			driver = (Driver) Class.forName(key.driver()).getDeclaredConstructor().newInstance();
+		} catch (final Exception e) {
+			log.error("Database connection issue for JIRA", e);
+			throw new TechnicalException("Database connection issue for JIRA", e);
+		}
+
+		final var config = new HikariConfig();
+		config.setPoolName("jira-" + poolCounter.incrementAndGet());
+		config.setDataSource(
+				new SimpleDriverDataSource(driver, toUrl(key.url(), key.cursorFetch()), key.user(), key.password()));
+		config.setMaximumPoolSize(maxPoolSize);
+		config.setMinimumIdle(minIdle);
+		config.setIdleTimeout(idleTimeout);
+		config.setConnectionTimeout(connectionTimeout);
+		config.setRegisterMbeans(jmx);
+		try {
+			// The first connection is validated there
+			final var dataSource = new HikariDataSource(config);
+			log.info("New JIRA pool {} for {}", config.getPoolName(), key);
+			return dataSource;
+		} catch (final PoolInitializationException e) {
+			log.error("Database connection issue for JIRA {}", key, e);
+			throw new CannotGetJdbcConnectionException("Failed to obtain JDBC Connection",
+					e.getCause() instanceof SQLException se ? se : new SQLException(e));
+		}
+	}
+
+	/**
+	 * Complete the JDBC URL with the driver specific options.
+	 *
+	 * @param url         The JDBC URL as configured in the node.
+	 * @param cursorFetch When <code>true</code>, the server side cursors are enabled.
+	 * @return The JDBC URL to use.
+	 */
+	protected String toUrl(final String url, final boolean cursorFetch) {
+		var result = url;
+		if (rewriteBatchedStatements) {
+			result = addOption(result, "rewriteBatchedStatements", "true", MYSQL, "jdbc:mariadb:");
+		}
+		if (cursorFetch) {
+			result = addOption(result, "useCursorFetch", "true", MYSQL);
+		}
+		return result;
+	}
+
+	/**
+	 * Add an option to a JDBC URL of the given drivers when not yet defined.
+	 */
+	private String addOption(final String url, final String option, final String value, final String... prefixes) {
+		if (!StringUtils.startsWithAny(url, prefixes) || url.contains(option + "=")) {
+			// Not a supported URL or explicitly configured option
+			return url;
+		}
+		return url + (url.indexOf('?') == -1 ? '?' : '&') + option + "=" + value;
+	}
+
+	/**
+	 * Close the pool of the given entry and notify the listeners.
+	 */
+	private void close(final PoolEntry entry) {
+		entry.close();
+		final var dataSource = entry.dataSource;
+		if (dataSource != null) {
+			closeListeners.forEach(l -> l.accept(dataSource));
+			urls.remove(dataSource);
+		}
+	}
+}
@@ -0,0 +1,161 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Cache of the JIRA reference data: statuses, priorities, resolutions and types. These tables rarely change, so their
+ * content is kept by data source during {@link #ttl} milliseconds, and until the pool of this data source is closed.
+ * The cache is disabled by default. Independently, the reference data can be shared by the tasks of a {@link Scope},
+ * for instance the projects of a bulk export.
+ */
+@Component
+public class JiraReferenceDataCache {
+
+	/**
+	 * Cached reference data identifier.
+	 *
+	 * @param dataSource The data source of JIRA database.
+	 * @param name       The reference data name.
+	 * @param jira       The JIRA project identifier, or <code>0</code> for the global data.
+	 */
+	private record CacheKey(DataSource dataSource, String name, int jira) {
+	}
+
+	/**
+	 * Reference data shared by the tasks of a bulk operation, whatever the time to live.
+	 */
+	public static final class Scope {
+		private final Map<CacheKey, Map<Integer, String>> values = new ConcurrentHashMap<>();
+	}
+
+	private final TtlCache<CacheKey, Map<Integer, String>> cache = new TtlCache<>(this::getTtl);
+
+	private final ThreadLocal<Scope> currentScope = new ThreadLocal<>();
+
+	@Autowired
+	private JiraDataSourceRegistry dataSourceRegistry;
+
+	/**
+	 * Time to live in milliseconds of the cached data. When <code>0</code>, the cache is disabled.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.reference.cache-ttl:0}")
+	private long ttl = 0;
+
+	/**
+	 * Invalidate the cached data of the closed pools.
+	 */
+	@PostConstruct
+	public void registerListener() {
+		dataSourceRegistry.addCloseListener(this::invalidate);
+	}
+
+	/**
+	 * Return the cached reference data, or load them.
+	 *
+	 * @param dataSource The data source of JIRA database.
+	 * @param name       The reference data name.
+	 * @param jira       The JIRA project identifier, or <code>0</code> for the global data.
+	 * @param loader     The data loader called when the data are not cached.
+	 * @return The reference data. Read only when cached.
+	 */
+	public Map<Integer, String> get(final DataSource dataSource, final String name, final int jira,
+			final Supplier<Map<Integer, String>> loader) {
+		final var scope = currentScope.get();
+		if (scope != null) {
+			return scope.values.computeIfAbsent(new CacheKey(dataSource, name, jira),
+					k -> Collections.unmodifiableMap(getCached(dataSource, name, jira, loader)));
+		}
+		return getCached(dataSource, name, jira, loader);
+	}
+
+	private Map<Integer, String> getCached(final DataSource dataSource, final String name, final int jira,
+			final Supplier<Map<Integer, String>> loader) {
+		if (!cache.isEnabled()) {
+			return loader.get();
+		}
+		return cache.get(new CacheKey(dataSource, name, jira), () -> Collections.unmodifiableMap(loader.get()));
+	}
+
+	/**
+	 * Run a task sharing the reference data of the given scope.
+	 *
+	 * @param scope The scope of the shared reference data.
+	 * @param task  The task to run.
+	 * @param <T>   The task result type.
+	 * @return The task result.
+	 */
+	public <T> T share(final Scope scope, final Supplier<T> task) {
+		final var previous = currentScope.get();
+		currentScope.set(scope);
+		try {
+			return task.get();
+		} finally {
+			if (previous == null) {
+				currentScope.remove();
+			} else {
+				currentScope.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Invalidate the cached data of a data source.
+	 *
+	 * @param dataSource The data source of JIRA database.
+	 */
+	public void invalidate(final DataSource dataSource) {
+		cache.invalidateIf(k -> k.dataSource() == dataSource);
+	}
+
+	/**
+	 * Invalidate all cached data.
+	 */
+	public void invalidate() {
+		cache.clear();
+	}
+
+	/**
+	 * Return the amount of requests served from the cache.
+	 *
+	 * @return The amount of requests served from the cache.
+	 */
+	public long getHits() {
+		return cache.getHits();
+	}
+
+	/**
+	 * Return the amount of requests loading the data while the cache is enabled.
+	 *
+	 * @return The amount of requests loading the data while the cache is enabled.
+	 */
+	public long getMisses() {
+		return cache.getMisses();
+	}
+
+	/**
+	 * Return the amount of cached data sets, including the expired ones not yet purged.
+	 *
+	 * @return The amount of cached data sets.
+	 */
+	public int size() {
+		return cache.size();
+	}
+}
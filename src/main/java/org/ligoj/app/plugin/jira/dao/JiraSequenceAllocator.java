@@ -0,0 +1,234 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import javax.sql.DataSource;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory allocator of the "SEQUENCE_VALUE_ITEM" identifiers. A block of identifiers is reserved in the JIRA database
+ * with a single update, then the identifiers are handed out from memory to all imports targeting the same database,
+ * without lock until the block is exhausted. The sequences are identified by the JDBC URL of the database, so they
+ * survive to the renewal of a pool. The identifiers not handed out are lost, JIRA never reuses them.
+ */
+@Slf4j
+public class JiraSequenceAllocator {
+
+	/**
+	 * A range of identifiers reserved in the database.
+	 *
+	 * @param start   The first reserved identifier.
+	 * @param end     The first identifier after the range.
+	 * @param retries The amount of failed updates of the sequence, because of a concurrent reservation.
+	 */
+	record Range(int start, int end, int retries) {
+	}
+
+	/**
+	 * Database reservation of a range.
+	 */
+	@FunctionalInterface
+	interface Reservation {
+
+		/**
+		 * Reserve at least the given amount of identifiers.
+		 *
+		 * @param dataSource   The data source of JIRA database.
+		 * @param sequenceName The sequence name, like "Version" or "Component".
+		 * @param amount       The amount of identifiers to reserve.
+		 * @return The reserved range.
+		 */
+		Range reserve(DataSource dataSource, String sequenceName, int amount);
+	}
+
+	/**
+	 * Statistics of a sequence.
+	 *
+	 * @param reservations The amount of ranges reserved in the database.
+	 * @param retries      The amount of failed updates of the sequence, because of a concurrent reservation.
+	 * @param waits        The amount of allocations having waited for a block reserved by another thread.
+	 * @param reserved     The amount of identifiers reserved in the database.
+	 * @param allocated    The amount of identifiers handed out.
+	 * @param unused       The amount of reserved identifiers lost : block tails and rounded ranges.
+	 * @param available    The amount of identifiers remaining in the current block.
+	 */
+	public record SequenceStatistics(long reservations, long retries, long waits, long reserved, long allocated,
+			long unused, long available) {
+	}
+
+	/**
+	 * Sequence identifier.
+	 *
+	 * @param database The JDBC URL of the database.
+	 * @param name     The sequence name.
+	 */
+	private record SequenceKey(String database, String name) {
+	}
+
+	/**
+	 * A block of identifiers : the next identifier to hand out and the first identifier after the block.
+	 */
+	private static class Block {
+		private final AtomicLong next;
+		private final int end;
+
+		private Block(final int start, final int end) {
+			this.next = new AtomicLong(start);
+			this.end = end;
+		}
+
+		private long available() {
+			return Math.max(0, end - next.get());
+		}
+	}
+
+	/**
+	 * The current block of a sequence and its counters.
+	 */
+	private static class Sequence {
+		private volatile Block block = new Block(0, 0);
+		private final LongAdder reservations = new LongAdder();
+		private final LongAdder retries = new LongAdder();
+		private final LongAdder waits = new LongAdder();
+		private final LongAdder reserved = new LongAdder();
+		private final LongAdder allocated = new LongAdder();
+		private final LongAdder unused = new LongAdder();
+	}
+
+	private final Map<SequenceKey, Sequence> sequences = new ConcurrentHashMap<>();
+
+	private final Reservation reservation;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param reservation The database reservation of a range.
+	 */
+	JiraSequenceAllocator(final Reservation reservation) {
+		this.reservation = reservation;
+	}
+
+	/**
+	 * Return the first identifier of a contiguous range of the given amount.
+	 *
+	 * @param dataSource   The data source of JIRA database.
+	 * @param database     The JDBC URL of JIRA database.
+	 * @param sequenceName The sequence name, like "Version" or "Component".
+	 * @param amount       The amount of identifiers.
+	 * @param blockSize    The amount of identifiers reserved at once. An amount not lower than this size gets its own
+	 *                     range reserved in the database.
+	 * @return The first identifier of the range.
+	 */
+	public int allocate(final DataSource dataSource, final String database, final String sequenceName, final int amount,
+			final int blockSize) {
+		final var sequence = sequences.computeIfAbsent(new SequenceKey(database, sequenceName), k -> new Sequence());
+		if (amount >= blockSize) {
+			// Dedicated range
+			final var range = reserve(sequence, dataSource, sequenceName, amount);
+			sequence.unused.add(range.end() - range.start() - amount);
+			sequence.allocated.add(amount);
+			return range.start();
+		}
+		while (true) {
+			final var block = sequence.block;
+			final var start = block.next.getAndAdd(amount);
+			if (start + amount <= block.end) {
+				sequence.allocated.add(amount);
+				return (int) start;
+			}
+			if (start < block.end) {
+				// Only the allocation crossing the end of the block loses its tail
+				log.debug("Unused identifiers [{}, {}) of sequence {}", start, block.end, sequenceName);
+				sequence.unused.add(block.end - start);
+			}
+			refill(sequence, block, dataSource, sequenceName, blockSize);
+		}
+	}
+
+	/**
+	 * Replace the exhausted block, unless already replaced by another thread.
+	 */
+	private void refill(final Sequence sequence, final Block exhausted, final DataSource dataSource,
+			final String sequenceName, final int blockSize) {
+		synchronized (sequence) {
+			if (sequence.block == exhausted) {
+				final var range = reserve(sequence, dataSource, sequenceName, blockSize);
+				sequence.block = new Block(range.start(), range.end());
+			} else {
+				sequence.waits.increment();
+			}
+		}
+	}
+
+	/**
+	 * Reserve a range in the database and update the counters.
+	 */
+	private Range reserve(final Sequence sequence, final DataSource dataSource, final String sequenceName,
+			final int amount) {
+		final var range = reservation.reserve(dataSource, sequenceName, amount);
+		sequence.reservations.increment();
+		sequence.retries.add(range.retries());
+		sequence.reserved.add(range.end() - range.start());
+		return range;
+	}
+
+	/**
+	 * Return the statistics of the sequences of a database.
+	 *
+	 * @param database The JDBC URL of JIRA database.
+	 * @return The statistics of the used sequences. Key is the sequence name.
+	 */
+	public Map<String, SequenceStatistics> getStatistics(final String database) {
+		final var result = new TreeMap<String, SequenceStatistics>();
+		sequences.forEach((key, sequence) -> {
+			if (key.database().equals(database)) {
+				result.put(key.name(),
+						new SequenceStatistics(sequence.reservations.sum(), sequence.retries.sum(), sequence.waits.sum(),
+								sequence.reserved.sum(), sequence.allocated.sum(), sequence.unused.sum(),
+								sequence.block.available()));
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Forget the blocks of the sequences of a database and report the identifiers not handed out.
+	 *
+	 * @param database The JDBC URL of JIRA database.
+	 * @return The amount of identifiers not handed out.
+	 */
+	public long close(final String database) {
+		return close(key -> key.database().equals(database));
+	}
+
+	/**
+	 * Forget the blocks of all sequences and report the identifiers not handed out.
+	 *
+	 * @return The amount of identifiers not handed out.
+	 */
+	public long close() {
+		return close(key -> true);
+	}
+
+	private long close(final Predicate<SequenceKey> filter) {
+		final var unused = new LongAdder();
+		sequences.keySet().stream().filter(filter).forEach(key -> {
+			final var sequence = sequences.remove(key);
+			if (sequence != null && sequence.block.available() > 0) {
+				log.info("Unused identifiers [{}, {}) of sequence {} of {}", sequence.block.next.get(),
+						sequence.block.end, key.name(), key.database());
+				unused.add(sequence.block.available());
+			}
+		});
+		return unused.sum();
+	}
+}
@@ -0,0 +1,203 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.apache.commons.collections4.ListUtils;
+import org.apache.commons.lang3.ObjectUtils;
+import org.ligoj.app.plugin.bt.IssueSla;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.Sla;
+import org.ligoj.app.plugin.jira.model.SlaCheckpoint;
+import org.ligoj.app.plugin.jira.model.SlaCheckpointIssue;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Store of the SLA checkpoints : the computed resolved issues of a subscription, and the high-water mark of the
+ * changes they include. Incremental SLA computations are disabled by default.
+ */
+@Slf4j
+@Component
+public class JiraSlaCheckpointStore {
+
+	/**
+	 * Amount of issues deleted by statement.
+	 */
+	private static final int DELETE_BATCH = 1000;
+
+	private static final ObjectMapper MAPPER = new ObjectMapper()
+			.configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+	@Autowired
+	protected SlaCheckpointRepository repository;
+
+	@Autowired
+	protected SlaCheckpointIssueRepository issueRepository;
+
+	/**
+	 * When <code>true</code>, the SLA computations reuse the checkpoint of the subscription.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.sla.incremental:false}")
+	private boolean enabled = false;
+
+	/**
+	 * Return the digest of the configuration involved in the SLA of the issues resolved before a date.
+	 *
+	 * @param slas
+	 *            The SLA to compute.
+	 * @param businessHours
+	 *            The business hours.
+	 * @param holidays
+	 *            The holidays.
+	 * @param until
+	 *            The upper bound of the relevant holidays, excluded.
+	 * @return The configuration digest.
+	 */
+	public String newConfiguration(final List<Sla> slas, final List<BusinessHours> businessHours,
+			final List<Date> holidays, final Date until) {
+		final var configuration = new StringBuilder();
+		for (final Sla sla : slas) {
+			configuration.append(sla.getName()).append(';').append(sla.getStart()).append(';').append(sla.getStop())
+					.append(';').append(sla.getPause()).append(';').append(sla.getThreshold()).append(';')
+					.append(sla.getTypes()).append(';').append(sla.getPriorities()).append(';')
+					.append(sla.getResolutions()).append('\n');
+		}
+		for (final BusinessHours hours : businessHours) {
+			configuration.append(hours.getStart()).append('-').append(hours.getEnd()).append('\n');
+		}
+		holidays.stream().filter(h -> h.before(until)).forEach(h -> configuration.append(h.getTime()).append('\n'));
+		return DigestUtils.md5DigestAsHex(configuration.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	/**
+	 * Return the checkpoint of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param timing
+	 *            When <code>true</code>, the checkpoint must include the time spent data.
+	 * @return The checkpoint, or <code>null</code> when there is no compatible checkpoint.
+	 */
+	public SlaCheckpoint get(final int subscription, final boolean timing) {
+		final var checkpoint = repository.findBySubscription(subscription);
+		if (checkpoint == null || checkpoint.isTiming() != timing || checkpoint.getWatermark() == null) {
+			return null;
+		}
+		return checkpoint;
+	}
+
+	/**
+	 * Return the computed issues of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The computed issues ordered by identifier, or <code>null</code> when the checkpoint cannot be read.
+	 */
+	public Map<Integer, IssueSla> getIssues(final int subscription) {
+		final Map<Integer, IssueSla> result = new TreeMap<>();
+		try {
+			for (final SlaCheckpointIssue issue : issueRepository.findAllBySubscription(subscription)) {
+				result.put(issue.getIssue(), MAPPER.readValue(issue.getData(), IssueSla.class));
+			}
+		} catch (final JsonProcessingException e) {
+			log.warn("Unreadable SLA checkpoint of subscription {}, computed again", subscription, e);
+			return null;
+		}
+		return result;
+	}
+
+	/**
+	 * Save the checkpoint of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param timing
+	 *            When <code>true</code>, the computed issues include the time spent data.
+	 * @param configuration
+	 *            The configuration digest. See {@link #newConfiguration(List, List, List, Date)}.
+	 * @param watermark
+	 *            The last update date of the computed issues and changes.
+	 * @param watermarkId
+	 *            The last change group identifier of the computed changes.
+	 * @param computed
+	 *            The computed issues. Only the resolved ones are stored.
+	 * @param removed
+	 *            The identifiers of the issues to remove from the checkpoint. When <code>null</code>, the whole
+	 *            checkpoint is replaced.
+	 */
+	public void save(final int subscription, final boolean timing, final String configuration, final Date watermark,
+			final int watermarkId, final Collection<IssueSla> computed, final Collection<Integer> removed) {
+		final var checkpoint = ObjectUtils.getIfNull(repository.findBySubscription(subscription), SlaCheckpoint::new);
+		checkpoint.setSubscription(subscription);
+		checkpoint.setTiming(timing);
+		checkpoint.setConfiguration(configuration);
+		checkpoint.setWatermark(watermark);
+		checkpoint.setWatermarkId(watermarkId);
+		repository.saveAndFlush(checkpoint);
+
+		// Replace the computed issues
+		if (removed == null) {
+			issueRepository.deleteAllBySubscription(subscription);
+		} else {
+			final List<Integer> deleted = new ArrayList<>(removed);
+			computed.forEach(i -> deleted.add(i.getId()));
+			ListUtils.partition(deleted, DELETE_BATCH)
+					.forEach(p -> issueRepository.deleteAllBySubscriptionAndIssue(subscription, p));
+		}
+		final List<SlaCheckpointIssue> issues = new ArrayList<>();
+		for (final IssueSla issue : computed) {
+			if (issue.getResolution() != null) {
+				final var entity = new SlaCheckpointIssue();
+				entity.setSubscription(subscription);
+				entity.setIssue(issue.getId());
+				entity.setData(toJson(issue));
+				issues.add(entity);
+			}
+		}
+		issueRepository.saveAll(issues);
+	}
+
+	/**
+	 * Delete the checkpoint of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 */
+	public void delete(final int subscription) {
+		issueRepository.deleteAllBySubscription(subscription);
+		final var checkpoint = repository.findBySubscription(subscription);
+		if (checkpoint != null) {
+			repository.delete(checkpoint);
+		}
+	}
+
+	private String toJson(final IssueSla issue) {
+		try {
+			return MAPPER.writeValueAsString(issue);
+		} catch (final JsonProcessingException e) {
+			throw new TechnicalException("Unable to store the SLA of issue " + issue.getId(), e);
+		}
+	}
+}
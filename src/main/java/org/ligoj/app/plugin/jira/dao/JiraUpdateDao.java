@@ -3,12 +3,20 @@
  */
 package org.ligoj.app.plugin.jira.dao;
 
+import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import javax.sql.DataSource;
 
@@ -18,10 +26,19 @@ import org.ligoj.app.plugin.jira.model.CustomField;
 import org.ligoj.app.plugin.jira.model.Workflow;
 import org.ligoj.bootstrap.core.INamableBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.JdbcOperations;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDriverBasedDataSource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -40,8 +57,116 @@ public class JiraUpdateDao {
 	private static final String VERSION_NODE = "Version";
 	private static final String ISSUE_NODE = "Issue";
 
+	/**
+	 * Differences between an imported issue and its stored state. The values are compared with their
+	 * {@link JiraUpdateDao#fingerprint(Object)}, the collections without order.
+	 */
+	private static class IssueDiff {
+		private final JiraIssueRow issue;
+		private final IssueWithCollections stored;
+
+		/**
+		 * When <code>true</code>, a "jiraissue" column is changed.
+		 */
+		private final boolean fields;
+
+		/**
+		 * When <code>true</code>, the workflow step is changed.
+		 */
+		private final boolean step;
+
+		/**
+		 * When <code>true</code>, a component or a version is changed.
+		 */
+		private final boolean associations;
+
+		/**
+		 * Names of the custom fields whose values are replaced, and the amount of new values.
+		 */
+		private final List<String> customFields = new ArrayList<>();
+		private int customFieldValues;
+
+		private final Set<String> addedLabels;
+		private final Set<String> removedLabels;
+
+		/**
+		 * When <code>true</code>, the stored status changes are not the first imported ones and are replaced.
+		 */
+		private final boolean replacedChanges;
+		private final List<JiraChangeRow> addedChanges;
+
+		private IssueDiff(final JiraIssueRow issue, final IssueWithCollections stored, final Collection<String> cfNames,
+				final List<JiraChangeRow> changes) {
+			this.issue = issue;
+			this.stored = stored;
+			fields = !toFields(issue).equals(toFields(stored));
+			step = !Objects.equals(issue.getStatus(), stored.getStatus()) || !Objects.equals(issue.getType(), stored.getType());
+			associations = !new HashSet<>(issue.getComponents()).equals(new HashSet<>(stored.getComponents()))
+					|| !new HashSet<>(issue.getVersions()).equals(new HashSet<>(stored.getVersions()))
+					|| !new HashSet<>(issue.getFixedVersions()).equals(new HashSet<>(stored.getFixedVersions()));
+			for (final String name : cfNames) {
+				final Collection<Object> values = toCollection(issue.getCustomFields().get(name));
+				if (!fingerprints(values).equals(fingerprints(toCollection(stored.getCustomFields().get(name))))) {
+					customFields.add(name);
+					customFieldValues += values.size();
+				}
+			}
+			addedLabels = new LinkedHashSet<>(issue.getLabels());
+			addedLabels.removeAll(stored.getLabels());
+			removedLabels = new LinkedHashSet<>(stored.getLabels());
+			removedLabels.removeAll(issue.getLabels());
+
+			// Append the new status changes when the stored ones are unchanged
+			final List<String> storedChanges = stored.getStatusChanges().stream().map(JiraUpdateDao::fingerprint).toList();
+			final List<String> importedChanges = changes.stream().map(JiraUpdateDao::fingerprint).toList();
+			replacedChanges = storedChanges.size() > importedChanges.size()
+					|| !importedChanges.subList(0, storedChanges.size()).equals(storedChanges);
+			addedChanges = replacedChanges ? changes : changes.subList(storedChanges.size(), changes.size());
+		}
+
+		private boolean isChanged() {
+			return fields || associations || !customFields.isEmpty() || !addedLabels.isEmpty() || !removedLabels.isEmpty()
+					|| replacedChanges || !addedChanges.isEmpty();
+		}
+	}
+
+	@Autowired
+	protected JiraDao jiraDao;
+
 	@Autowired
-	private JiraDao jiraDao;
+	protected JiraDataSourceRegistry dataSourceRegistry;
+
+	/**
+	 * Maximal amount of rows sent in a single JDBC batch.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.jdbc.batch-size:1000}")
+	private int batchSize = 1000;
+
+	/**
+	 * Amount of identifiers reserved at once in a sequence and handed out from memory to all imports. When
+	 * <code>0</code>, each phase reserves its own identifiers.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.sequence.block-size:0}")
+	private int sequenceBlockSize = 0;
+
+	private final JiraSequenceAllocator sequenceAllocator = new JiraSequenceAllocator(this::reserve);
+
+	/**
+	 * Identifiers handed out in the current thread, when recorded. Key is the sequence name, value is the first
+	 * identifier and the first identifier after the span of the handed out identifiers.
+	 */
+	private final ThreadLocal<Map<String, int[]>> recordedRanges = new ThreadLocal<>();
+
+	/**
+	 * Return a new batch writer.
+	 */
+	private JdbcBatch newBatch(final JdbcOperations jdbcTemplate) {
+		return new JdbcBatch(jdbcTemplate, batchSize);
+	}
 
 	/**
 	 * Add the given components to the given project
@@ -58,10 +183,13 @@ public class JiraUpdateDao {
 		final Map<String, Integer> result = new HashMap<>();
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
 		int nextId = prepareForNextId(dataSource, COMPONENT_NODE, components.size());
-		for (final String component : components) {
-			jdbcTemplate.update("INSERT INTO component (ID,PROJECT,cname) values(?,?,?)", nextId, jira, component);
-			result.put(component, nextId);
-			nextId++;
+		try (var batch = newBatch(jdbcTemplate)) {
+			for (final String component : components) {
+				batch.add("INSERT INTO component (ID,PROJECT,cname) values(?,?,?)", nextId, jira, component);
+				result.put(component, nextId);
+				nextId++;
+			}
+			batch.flush();
 		}
 		return result;
 	}
@@ -82,12 +210,15 @@ public class JiraUpdateDao {
 		final JdbcOperations jdbcTemplate = new JdbcTemplate(dataSource);
 		int nextId = prepareForNextId(dataSource, VERSION_NODE, versions.size());
 		int nextSequence = getNextVersionSequence(jira, jdbcTemplate);
-		for (final String version : versions) {
-			jdbcTemplate.update("INSERT INTO projectversion (ID,PROJECT,vname,SEQUENCE) values(?,?,?,?)", nextId, jira, version,
-					nextSequence);
-			result.put(version, nextId);
-			nextId++;
-			nextSequence++;
+		try (var batch = newBatch(jdbcTemplate)) {
+			for (final String version : versions) {
+				batch.add("INSERT INTO projectversion (ID,PROJECT,vname,SEQUENCE) values(?,?,?,?)", nextId, jira, version,
+						nextSequence);
+				result.put(version, nextId);
+				nextId++;
+				nextSequence++;
+			}
+			batch.flush();
 		}
 		return result;
 	}
@@ -124,22 +255,125 @@ public class JiraUpdateDao {
 		if (amount == 0) {
 			return 0;
 		}
+		final var start = sequenceAllocator.allocate(dataSource, getDatabase(dataSource), sequenceName, amount,
+				sequenceBlockSize);
+		final var ranges = recordedRanges.get();
+		if (ranges != null) {
+			ranges.merge(sequenceName, new int[] { start, start + amount },
+					(a, b) -> new int[] { Math.min(a[0], b[0]), Math.max(a[1], b[1]) });
+		}
+		return start;
+	}
+
+	/**
+	 * Run a task and record the span of the identifiers it gets from each sequence. Since the blocks are shared by all
+	 * imports, a span may include identifiers handed out to concurrent imports.
+	 *
+	 * @param ranges
+	 *            The recorded spans, merged with the given ones. Key is the sequence name, value is the first identifier
+	 *            and the first identifier after the span.
+	 * @param task
+	 *            The task to run.
+	 */
+	public void recordRanges(final Map<String, int[]> ranges, final Runnable task) {
+		final var previous = recordedRanges.get();
+		recordedRanges.set(ranges);
+		try {
+			task.run();
+		} finally {
+			if (previous == null) {
+				recordedRanges.remove();
+			} else {
+				recordedRanges.set(previous);
+			}
+		}
+	}
+
+	/**
+	 * Reserve the identifiers of a sequence in the database for the allocator, blocks and dedicated ranges alike. The
+	 * range is reserved in its own transaction, so the sequence is not locked until the end of the current transaction,
+	 * and the range survives to its rollback : the identifiers kept in memory are never handed out twice.
+	 */
+	private JiraSequenceAllocator.Range reserve(final DataSource dataSource, final String sequenceName,
+			final int amount) {
+		final var transaction = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+		transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+		return transaction.execute(s -> reserveRange(dataSource, sequenceName, amount));
+	}
 
+	/**
+	 * Reserve the identifiers of a sequence in the database, rounded to the next hundred.
+	 */
+	private JiraSequenceAllocator.Range reserveRange(final DataSource dataSource, final String sequenceName,
+			final int amount) {
 		int updated;
 		int currentSequence;
+		int nextSequence;
+		int retries = -1;
 		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
 		do {
+			retries++;
 			currentSequence = getCurrentSequence(sequenceName, jdbcTemplate);
 
 			// Set the next sequence
-			final int nextSequence = (currentSequence / 100) * 100 + ((int) Math.signum(currentSequence % 100)) * 100
+			nextSequence = (currentSequence / 100) * 100 + ((int) Math.signum(currentSequence % 100)) * 100
 					+ (amount / 100 + (int) Math.signum(amount % 100)) * 100;
 			updated = jdbcTemplate.update("UPDATE SEQUENCE_VALUE_ITEM SET SEQ_ID = ? WHERE SEQ_NAME = ? AND SEQ_ID = ?", nextSequence,
 					sequenceName, currentSequence);
 		} while (updated == 0);
 
-		return currentSequence;
+		return new JiraSequenceAllocator.Range(currentSequence, nextSequence, retries);
+	}
+
+	/**
+	 * Return the statistics of the sequences of a data source : reservations, contention and unused identifiers.
+	 * 
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @return The statistics of the used sequences. Key is the sequence name.
+	 */
+	public Map<String, JiraSequenceAllocator.SequenceStatistics> getSequenceStatistics(final DataSource dataSource) {
+		return sequenceAllocator.getStatistics(getDatabase(dataSource));
+	}
+
+	/**
+	 * Return the JDBC URL identifying the database of the sequences of a data source.
+	 */
+	private String getDatabase(final DataSource dataSource) {
+		final var url = dataSourceRegistry == null ? null : dataSourceRegistry.getUrl(dataSource);
+		if (url != null) {
+			return url;
+		}
+		if (dataSource instanceof AbstractDriverBasedDataSource driverDataSource) {
+			// Not pooled data source
+			return driverDataSource.getUrl();
+		}
+		return dataSource.toString();
+	}
+
+	/**
+	 * Forget the sequence blocks of the closed pools, and report their identifiers not handed out.
+	 */
+	@PostConstruct
+	public void registerListener() {
+		dataSourceRegistry.addCloseListener(d -> {
+			final var database = getDatabase(d);
+			final var unused = sequenceAllocator.close(database);
+			if (unused > 0) {
+				log.info("{} identifiers not handed out by the closed pool of {}", unused, database);
+			}
+		});
+	}
 
+	/**
+	 * Report the identifiers reserved but not handed out.
+	 */
+	@PreDestroy
+	public void close() {
+		final var unused = sequenceAllocator.close();
+		if (unused > 0) {
+			log.info("{} identifiers not handed out", unused);
+		}
 	}
 
 	/**
@@ -211,8 +445,20 @@ public class JiraUpdateDao {
 		if (amount > 0) {
 			final JdbcOperations jdbcTemplate = new JdbcTemplate(dataSource);
 			int nextId = prepareForNextId(dataSource, "Label", amount);
-			for (final JiraIssueRow issue : issues) {
-				nextId = addLabels(jdbcTemplate, nextId, issue);
+
+			// Remove the previous labels before inserting the new ones
+			try (var batch = newBatch(jdbcTemplate)) {
+				for (final JiraIssueRow issue : issues) {
+					batch.add("DELETE FROM label WHERE ISSUE = ? AND LABEL NOT IN (" + jiraDao.newIn(issue.getLabels()) + ")",
+							ArrayUtils.addAll(new Object[] { issue.getId() }, issue.getLabels().toArray()));
+				}
+				batch.flush();
+			}
+			try (var batch = newBatch(jdbcTemplate)) {
+				for (final JiraIssueRow issue : issues) {
+					nextId = addLabels(batch, nextId, issue);
+				}
+				batch.flush();
 			}
 		}
 	}
@@ -220,15 +466,10 @@ public class JiraUpdateDao {
 	/**
 	 * Add labels to given issue.
 	 */
-	private int addLabels(final JdbcOperations jdbcTemplate, final int nextId, final JiraIssueRow issue) {
+	private int addLabels(final JdbcBatch batch, final int nextId, final JiraIssueRow issue) {
 		int nextIdl = nextId;
-		// Remove previous labels
-		jdbcTemplate.update("DELETE FROM label WHERE ISSUE = ? AND LABEL NOT IN (" + jiraDao.newIn(issue.getLabels()) + ")",
-				ArrayUtils.addAll(new Object[] { issue.getId() }, issue.getLabels().toArray()));
-
-		// Add missing labels
 		for (final String label : issue.getLabels()) {
-			jdbcTemplate.update("INSERT INTO label(ID,ISSUE,LABEL) values(?,?,?)", nextIdl, issue.getId(), label);
+			batch.add("INSERT INTO label(ID,ISSUE,LABEL) values(?,?,?)", nextIdl, issue.getId(), label);
 			nextIdl++;
 		}
 		return nextIdl;
@@ -255,39 +496,47 @@ public class JiraUpdateDao {
 		reserveProjectCounter(dataSource, jira, issues);
 		int nextCurrentStepId = prepareForNextId(dataSource, "OSCurrentStep", issues.size());
 		int nextWfEntryId = prepareForNextId(dataSource, "OSWorkflowEntry", issues.size());
-		int counter = 0;
-		for (final JiraIssueRow issueRow : issues) {
-			issueRow.setId(nextId);
-			log.info("Inserting issue {}-{}({}) {}/{}", issueRow.getPkey(), issueRow.getIssueNum(), issueRow.getId(), counter,
-					issues.size());
-			Workflow workflow = workflowStepMapping.get(issueRow.getType());
-			if (workflow == null) {
-				workflow = workflowStepMapping.get(0);
+		try (var batch = newBatch(jdbcTemplate)) {
+			for (final JiraIssueRow issueRow : issues) {
+				issueRow.setId(nextId);
+				log.debug("Inserting issue {}-{}({})", issueRow.getPkey(), issueRow.getIssueNum(), issueRow.getId());
+				addIssue(jira, batch, nextId, nextCurrentStepId, nextWfEntryId, issueRow,
+						getWorkflow(workflowStepMapping, issueRow));
+				nextId++;
+				nextWfEntryId++;
+				nextCurrentStepId++;
 			}
+			batch.flush();
+			log.info("Inserted {} issues in {} batches", issues.size(), batch.getBatches());
+		}
+	}
 
-			addIssue(jira, jdbcTemplate, nextId, nextCurrentStepId, nextWfEntryId, issueRow, workflow);
-			nextId++;
-			nextWfEntryId++;
-			nextCurrentStepId++;
-			counter++;
+	/**
+	 * Return the workflow of the type of an issue, or the default one.
+	 */
+	private Workflow getWorkflow(final Map<Integer, Workflow> workflowStepMapping, final JiraIssueRow issueRow) {
+		final Workflow workflow = workflowStepMapping.get(issueRow.getType());
+		if (workflow == null) {
+			return workflowStepMapping.get(0);
 		}
+		return workflow;
 	}
 
 	/**
 	 * Add an issue, workflow entry, corresponding step of current status and
 	 * link author to this issue (user activity dashboard)
 	 */
-	private void addIssue(final int jira, final JdbcOperations jdbcTemplate, final int nextId, final int nextCurrentStepId,
+	private void addIssue(final int jira, final JdbcBatch batch, final int nextId, final int nextCurrentStepId,
 			final int nextWfEntryId, final JiraIssueRow issueRow, final Workflow workflow) {
 		final INamableBean<Integer> workflowStep = workflow.getStatusToSteps().get(issueRow.getStatusText());
 
 		// Insert workflow activity
-		jdbcTemplate.update("INSERT INTO OS_WFENTRY (ID,NAME,STATE) values(?,?,?)", nextWfEntryId, workflow.getName(), 1);
-		jdbcTemplate.update("INSERT INTO OS_CURRENTSTEP (ID,ENTRY_ID,STEP_ID,ACTION_ID,START_DATE,STATUS) values(?,?,?,?,?,?)",
+		batch.add("INSERT INTO OS_WFENTRY (ID,NAME,STATE) values(?,?,?)", nextWfEntryId, workflow.getName(), 1);
+		batch.add("INSERT INTO OS_CURRENTSTEP (ID,ENTRY_ID,STEP_ID,ACTION_ID,START_DATE,STATUS) values(?,?,?,?,?,?)",
 				nextCurrentStepId, nextWfEntryId, workflowStep.getId(), 0, issueRow.getCreated(), workflowStep.getName());
 
 		// Insert issue
-		jdbcTemplate.update("INSERT INTO jiraissue"
+		batch.add("INSERT INTO jiraissue"
 				+ " (ID,issuenum,WATCHES,VOTES,PROJECT,REPORTER,ASSIGNEE,CREATOR,issuetype,SUMMARY,DESCRIPTION,PRIORITY,RESOLUTION,RESOLUTIONDATE,"
 				+ "issuestatus,CREATED,UPDATED,WORKFLOW_ID,DUEDATE) values(?,?,1,0,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)", nextId,
 				issueRow.getIssueNum(), jira, issueRow.getReporter(), issueRow.getAssignee(), issueRow.getAuthor(), issueRow.getType(),
@@ -296,7 +545,7 @@ public class JiraUpdateDao {
 				issueRow.getDueDate());
 
 		// Add user relation
-		jdbcTemplate.update(
+		batch.add(
 				"INSERT INTO userassociation (SOURCE_NAME,SINK_NODE_ID,SINK_NODE_ENTITY,ASSOCIATION_TYPE,CREATED) values(?,?,?,?,?)",
 				issueRow.getAuthor(), nextId, ISSUE_NODE, "WatchIssue", issueRow.getUpdated());
 	}
@@ -311,23 +560,24 @@ public class JiraUpdateDao {
 	 *            The issues to add.
 	 */
 	public void associateComponentsAndVersions(final DataSource dataSource, final List<JiraIssueRow> issues) {
-		final JdbcOperations jdbcTemplate = new JdbcTemplate(dataSource);
-		for (final JiraIssueRow issueRow : issues) {
-			final int issueId = issueRow.getId();
-			associatedItems(jdbcTemplate, issueId, issueRow.getComponents(), COMPONENT_NODE, "IssueComponent");
-			associatedItems(jdbcTemplate, issueId, issueRow.getVersions(), VERSION_NODE, "IssueVersion");
-			associatedItems(jdbcTemplate, issueId, issueRow.getFixedVersions(), VERSION_NODE, "IssueFixVersion");
+		try (var batch = newBatch(new JdbcTemplate(dataSource))) {
+			for (final JiraIssueRow issueRow : issues) {
+				final int issueId = issueRow.getId();
+				associatedItems(batch, issueId, issueRow.getComponents(), COMPONENT_NODE, "IssueComponent");
+				associatedItems(batch, issueId, issueRow.getVersions(), VERSION_NODE, "IssueVersion");
+				associatedItems(batch, issueId, issueRow.getFixedVersions(), VERSION_NODE, "IssueFixVersion");
+			}
+			batch.flush();
 		}
 	}
 
 	/**
 	 * Associate an issue to a set of items;
 	 */
-	private void associatedItems(final JdbcOperations jdbcTemplate, final int issueId, final Collection<Integer> items,
+	private void associatedItems(final JdbcBatch batch, final int issueId, final Collection<Integer> items,
 			final String nodetype, final String associationType) {
 		for (final Integer item : items) {
-			jdbcTemplate
-					.update("INSERT INTO nodeassociation (SOURCE_NODE_ID,SOURCE_NODE_ENTITY,SINK_NODE_ID,SINK_NODE_ENTITY,ASSOCIATION_TYPE)"
+			batch.add("INSERT INTO nodeassociation (SOURCE_NODE_ID,SOURCE_NODE_ENTITY,SINK_NODE_ID,SINK_NODE_ENTITY,ASSOCIATION_TYPE)"
 							+ " values(?,?,?,?,?)", issueId, ISSUE_NODE, item, nodetype, associationType);
 		}
 	}
@@ -344,12 +594,13 @@ public class JiraUpdateDao {
 	 */
 	public void associateCustomFieldsValues(final DataSource dataSource, final List<JiraIssueRow> issues,
 			final Map<String, CustomFieldEditor> customFields) {
-		final JdbcOperations jdbcTemplate = new JdbcTemplate(dataSource);
-
 		// Compute total amount of custom values to create
 		int nextId = prepareForNextId(dataSource, "CustomFieldValue", countCustomFieldValues(issues));
-		for (final JiraIssueRow issueRow : issues) {
-			nextId = associateCutomFieldValues(customFields, jdbcTemplate, nextId, issueRow);
+		try (var batch = newBatch(new JdbcTemplate(dataSource))) {
+			for (final JiraIssueRow issueRow : issues) {
+				nextId = associateCutomFieldValues(customFields, batch, nextId, issueRow);
+			}
+			batch.flush();
 		}
 	}
 
@@ -376,7 +627,7 @@ public class JiraUpdateDao {
 	 * Associate custom field values to a given issue.
 	 */
 	@SuppressWarnings("unchecked")
-	private int associateCutomFieldValues(final Map<String, CustomFieldEditor> customFields, final JdbcOperations jdbcTemplate,
+	private int associateCutomFieldValues(final Map<String, CustomFieldEditor> customFields, final JdbcBatch batch,
 			final int nextId, final JiraIssueRow issueRow) {
 		int nextIdl = nextId;
 		for (final Entry<String, Object> entry : issueRow.getCustomFields().entrySet()) {
@@ -396,7 +647,7 @@ public class JiraUpdateDao {
 				values = new ArrayList<>(1);
 				values.add(cfValue);
 			}
-			nextIdl = associateCustomFieldValue(jdbcTemplate, issueRow.getId(), nextIdl, cfId, column, values);
+			nextIdl = associateCustomFieldValue(batch, issueRow.getId(), nextIdl, cfId, column, values);
 
 		}
 		return nextIdl;
@@ -405,12 +656,12 @@ public class JiraUpdateDao {
 	/**
 	 * Associate a single custom field values to a given issue.
 	 */
-	private int associateCustomFieldValue(final JdbcOperations jdbcTemplate, final int issueId, final int nextId, final int cfId,
+	private int associateCustomFieldValue(final JdbcBatch batch, final int issueId, final int nextId, final int cfId,
 			final String column, final Iterable<Object> values) {
 		int nextIdl = nextId;
 		// Persist single/multiple values
 		for (final Object value : values) {
-			jdbcTemplate.update("INSERT INTO customfieldvalue (ID,ISSUE,CUSTOMFIELD," + column + ") values(?,?,?,?)", nextIdl, issueId,
+			batch.add("INSERT INTO customfieldvalue (ID,ISSUE,CUSTOMFIELD," + column + ") values(?,?,?,?)", nextIdl, issueId,
 					cfId, value);
 			nextIdl++;
 		}
@@ -426,8 +677,6 @@ public class JiraUpdateDao {
 	 *            the status changes.
 	 */
 	public void addChanges(final DataSource dataSource, final Map<Integer, List<JiraChangeRow>> buildStatusChanges) {
-		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
-
 		// Compute total change items to add
 		int totalChanges = 0;
 		for (final List<JiraChangeRow> changes : buildStatusChanges.values()) {
@@ -436,22 +685,230 @@ public class JiraUpdateDao {
 
 		int nextChangeItemId = prepareForNextId(dataSource, "ChangeItem", totalChanges);
 		int nextChangeGroupId = prepareForNextId(dataSource, "ChangeGroup", totalChanges);
-		for (final Map.Entry<Integer, List<JiraChangeRow>> changes : buildStatusChanges.entrySet()) {
-			for (final JiraChangeRow change : changes.getValue()) {
+		try (var batch = newBatch(new JdbcTemplate(dataSource))) {
+			for (final Map.Entry<Integer, List<JiraChangeRow>> changes : buildStatusChanges.entrySet()) {
+				for (final JiraChangeRow change : changes.getValue()) {
+					addChange(batch, nextChangeItemId, nextChangeGroupId, change);
+					nextChangeItemId++;
+					nextChangeGroupId++;
+				}
+			}
+			batch.flush();
+		}
+	}
+
+	/**
+	 * Add a status change.
+	 */
+	private void addChange(final JdbcBatch batch, final int nextChangeItemId, final int nextChangeGroupId,
+			final JiraChangeRow change) {
+		// Add 'changegroup'
+		batch.add("INSERT INTO changegroup (ID,issueid,AUTHOR,CREATED) values(?,?,?,?)", nextChangeGroupId,
+				change.getId(), change.getAuthor(), change.getDate());
+
+		// Add 'changeitem'
+		batch.add(
+				"INSERT INTO changeitem (ID,groupId,FIELDTYPE,FIELD,OLDVALUE,OLDSTRING,NEWVALUE,NEWSTRING) values(?,?,?,?,?,?,?,?)",
+				nextChangeItemId, nextChangeGroupId, "jira", "status", change.getFromStatus(), change.getFromStatusText(),
+				change.getToStatus(), change.getToStatusText());
+	}
 
-				// Add 'changegroup'
-				jdbcTemplate.update("INSERT INTO changegroup (ID,issueid,AUTHOR,CREATED) values(?,?,?,?)", nextChangeGroupId,
-						change.getId(), change.getAuthor(), change.getDate());
+	/**
+	 * Update the given existing issues to their imported state. Only the changed columns, associations, custom field
+	 * values, labels and status changes are written, and the unchanged issues are skipped.
+	 * 
+	 * @param dataSource
+	 *            The data source of JIRA database.
+	 * @param issues
+	 *            The imported issues. The ID property of each issue is the stored issue identifier.
+	 * @param stored
+	 *            The stored issues. KEY is the issue identifier.
+	 * @param customFields
+	 *            The imported custom field definitions. KEY is the custom field name.
+	 * @param workflowStepMapping
+	 *            the {@link Map} linking type identifier to a {@link Map} linking status name to steps.
+	 * @param statusChanges
+	 *            The imported status changes. KEY is the issue number.
+	 * @return The amount of updated issues.
+	 */
+	public int updateIssues(final DataSource dataSource, final List<JiraIssueRow> issues,
+			final Map<Integer, IssueWithCollections> stored, final Map<String, CustomFieldEditor> customFields,
+			final Map<Integer, Workflow> workflowStepMapping, final Map<Integer, List<JiraChangeRow>> statusChanges) {
+		final List<IssueDiff> diffs = new ArrayList<>();
+		for (final JiraIssueRow issue : issues) {
+			final IssueDiff diff = new IssueDiff(issue, stored.get(issue.getId()), customFields.keySet(),
+					statusChanges.getOrDefault(issue.getIssueNum(), Collections.emptyList()));
+			if (diff.isChanged()) {
+				diffs.add(diff);
+			}
+		}
+		log.info("Update {} issues, {} unchanged issues", diffs.size(), issues.size() - diffs.size());
+		if (diffs.isEmpty()) {
+			return 0;
+		}
 
-				// Add 'changeitem'
-				jdbcTemplate.update(
-						"INSERT INTO changeitem (ID,groupId,FIELDTYPE,FIELD,OLDVALUE,OLDSTRING,NEWVALUE,NEWSTRING) values(?,?,?,?,?,?,?,?)",
-						nextChangeItemId, nextChangeGroupId, "jira", "status", change.getFromStatus(), change.getFromStatusText(),
-						change.getToStatus(), change.getToStatusText());
+		// Delete the replaced rows before inserting the new ones
+		final JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		try (var batch = newBatch(jdbcTemplate)) {
+			diffs.forEach(diff -> deleteReplaced(batch, diff, customFields));
+			batch.flush();
+		}
 
-				nextChangeItemId++;
-				nextChangeGroupId++;
+		int nextCfId = prepareForNextId(dataSource, "CustomFieldValue",
+				diffs.stream().mapToInt(d -> d.customFieldValues).sum());
+		int nextLabelId = prepareForNextId(dataSource, "Label", diffs.stream().mapToInt(d -> d.addedLabels.size()).sum());
+		final int nbChanges = diffs.stream().mapToInt(d -> d.addedChanges.size()).sum();
+		int nextChangeItemId = prepareForNextId(dataSource, "ChangeItem", nbChanges);
+		int nextChangeGroupId = prepareForNextId(dataSource, "ChangeGroup", nbChanges);
+		try (var batch = newBatch(jdbcTemplate)) {
+			for (final IssueDiff diff : diffs) {
+				final JiraIssueRow issue = diff.issue;
+				updateFields(batch, diff, workflowStepMapping);
+				if (diff.associations) {
+					associatedItems(batch, issue.getId(), added(issue.getComponents(), diff.stored.getComponents()),
+							COMPONENT_NODE, "IssueComponent");
+					associatedItems(batch, issue.getId(), added(issue.getVersions(), diff.stored.getVersions()),
+							VERSION_NODE, "IssueVersion");
+					associatedItems(batch, issue.getId(), added(issue.getFixedVersions(), diff.stored.getFixedVersions()),
+							VERSION_NODE, "IssueFixVersion");
+				}
+				for (final String name : diff.customFields) {
+					final CustomField customField = customFields.get(name);
+					nextCfId = associateCustomFieldValue(batch, issue.getId(), nextCfId, customField.getId(),
+							JiraDao.MANAGED_TYPE.get(customField.getFieldType()).getCustomColumn(),
+							toCollection(issue.getCustomFields().get(name)));
+				}
+				for (final String label : diff.addedLabels) {
+					batch.add("INSERT INTO label(ID,ISSUE,LABEL) values(?,?,?)", nextLabelId, issue.getId(), label);
+					nextLabelId++;
+				}
+				for (final JiraChangeRow change : diff.addedChanges) {
+					addChange(batch, nextChangeItemId, nextChangeGroupId, change);
+					nextChangeItemId++;
+					nextChangeGroupId++;
+				}
 			}
+			batch.flush();
+		}
+		return diffs.size();
+	}
+
+	/**
+	 * Delete the removed associations and labels, and the replaced custom field values and status changes of an issue.
+	 */
+	private void deleteReplaced(final JdbcBatch batch, final IssueDiff diff, final Map<String, CustomFieldEditor> customFields) {
+		final int issueId = diff.issue.getId();
+		if (diff.associations) {
+			deleteItems(batch, issueId, added(diff.stored.getComponents(), diff.issue.getComponents()), COMPONENT_NODE,
+					"IssueComponent");
+			deleteItems(batch, issueId, added(diff.stored.getVersions(), diff.issue.getVersions()), VERSION_NODE,
+					"IssueVersion");
+			deleteItems(batch, issueId, added(diff.stored.getFixedVersions(), diff.issue.getFixedVersions()),
+					VERSION_NODE, "IssueFixVersion");
+		}
+		for (final String name : diff.customFields) {
+			batch.add("DELETE FROM customfieldvalue WHERE ISSUE = ? AND CUSTOMFIELD = ?", issueId,
+					customFields.get(name).getId());
+		}
+		for (final String label : diff.removedLabels) {
+			batch.add("DELETE FROM label WHERE ISSUE = ? AND LABEL = ?", issueId, label);
+		}
+		if (diff.replacedChanges) {
+			// The status items are deleted first, then the groups without remaining item
+			batch.add("DELETE FROM changeitem WHERE FIELD = ? AND groupid IN (SELECT ID FROM changegroup WHERE issueid = ?)",
+					"status", issueId);
+			batch.add("DELETE FROM changegroup WHERE issueid = ?"
+					+ " AND NOT EXISTS (SELECT 1 FROM changeitem ci WHERE ci.groupid = changegroup.ID)", issueId);
+		}
+	}
+
+	/**
+	 * Update the "jiraissue" columns and the workflow step of an issue.
+	 */
+	private void updateFields(final JdbcBatch batch, final IssueDiff diff, final Map<Integer, Workflow> workflowStepMapping) {
+		final JiraIssueRow issue = diff.issue;
+		if (diff.fields) {
+			batch.add("UPDATE jiraissue SET REPORTER=?,ASSIGNEE=?,CREATOR=?,issuetype=?,SUMMARY=?,DESCRIPTION=?,PRIORITY=?,"
+					+ "RESOLUTION=?,RESOLUTIONDATE=?,issuestatus=?,CREATED=?,UPDATED=?,DUEDATE=? WHERE ID=?", issue.getReporter(),
+					issue.getAssignee(), issue.getAuthor(), issue.getType(), issue.getSummary(), issue.getDescription(),
+					issue.getPriority(), issue.getResolution(), issue.getResolutionDate(), issue.getStatus(), issue.getCreated(),
+					issue.getUpdated(), issue.getDueDate(), issue.getId());
+		}
+		if (diff.step) {
+			final Workflow workflow = getWorkflow(workflowStepMapping, issue);
+			final INamableBean<Integer> workflowStep = workflow.getStatusToSteps().get(issue.getStatusText());
+			batch.add("UPDATE OS_WFENTRY SET NAME = ? WHERE ID = ?", workflow.getName(), diff.stored.getWorkflow());
+			batch.add("UPDATE OS_CURRENTSTEP SET STEP_ID = ?, STATUS = ? WHERE ENTRY_ID = ?", workflowStep.getId(),
+					workflowStep.getName(), diff.stored.getWorkflow());
+		}
+	}
+
+	/**
+	 * Dissociate an issue from a set of items.
+	 */
+	private void deleteItems(final JdbcBatch batch, final int issueId, final Collection<Integer> items,
+			final String nodetype, final String associationType) {
+		for (final Integer item : items) {
+			batch.add("DELETE FROM nodeassociation WHERE SOURCE_NODE_ID = ? AND SOURCE_NODE_ENTITY = ? AND SINK_NODE_ID = ?"
+					+ " AND SINK_NODE_ENTITY = ? AND ASSOCIATION_TYPE = ?", issueId, ISSUE_NODE, item, nodetype, associationType);
+		}
+	}
+
+	/**
+	 * Return the items not in the other collection.
+	 */
+	private static Collection<Integer> added(final Collection<Integer> items, final Collection<Integer> others) {
+		final Set<Integer> result = new LinkedHashSet<>(items);
+		result.removeAll(others);
+		return result;
+	}
+
+	/**
+	 * Return the values of a single or multiple values custom field.
+	 */
+	@SuppressWarnings("unchecked")
+	private static Collection<Object> toCollection(final Object value) {
+		if (value instanceof Collection) {
+			return (Collection<Object>) value;
+		}
+		return value == null ? Collections.emptyList() : Collections.singletonList(value);
+	}
+
+	/**
+	 * Return the sorted fingerprints of values.
+	 */
+	private static List<String> fingerprints(final Collection<Object> values) {
+		return values.stream().map(JiraUpdateDao::fingerprint).sorted().toList();
+	}
+
+	/**
+	 * Return the fingerprints of the "jiraissue" columns of an issue.
+	 */
+	private static List<String> toFields(final JiraIssueRow issue) {
+		return Stream.of(issue.getReporter(), issue.getAssignee(), issue.getAuthor(), issue.getType(), issue.getSummary(),
+				issue.getDescription(), issue.getPriority(), issue.getResolution(), issue.getResolutionDate(), issue.getStatus(),
+				issue.getCreated(), issue.getUpdated(), issue.getDueDate()).map(JiraUpdateDao::fingerprint).toList();
+	}
+
+	/**
+	 * Return the fingerprint of a status change.
+	 */
+	private static String fingerprint(final JiraChangeRow change) {
+		return change.getFromStatus() + "|" + change.getToStatus() + "|" + fingerprint(change.getAuthor()) + "|"
+				+ fingerprint(change.getDate());
+	}
+
+	/**
+	 * Return the canonical value used to compare an imported value to a stored one : the time of the dates, the plain
+	 * decimal of the numbers, and an empty string for <code>null</code>.
+	 */
+	private static String fingerprint(final Object value) {
+		if (value instanceof Date date) {
+			return String.valueOf(date.getTime());
+		}
+		if (value instanceof Number number) {
+			return new BigDecimal(number.toString()).stripTrailingZeros().toPlainString();
 		}
+		return Objects.toString(value, "");
 	}
 }
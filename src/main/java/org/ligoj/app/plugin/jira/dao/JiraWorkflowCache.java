@@ -0,0 +1,104 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import javax.sql.DataSource;
+
+import org.ligoj.app.plugin.jira.model.WorkflowDescriptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Cache of the parsed JIRA workflows. A parsed workflow is reused while the signature of its descriptor is unchanged,
+ * so the descriptor is not parsed again. The parsed workflows are dropped with the pool of their
+ * data source. The cache is disabled by default.
+ */
+@Component
+public class JiraWorkflowCache {
+
+	/**
+	 * Cached workflow identifier.
+	 */
+	private record CacheKey(DataSource dataSource, String name) {
+	}
+
+	/**
+	 * Parsed workflow and the signature of its descriptor.
+	 */
+	private record CacheEntry(String signature, WorkflowDescriptor descriptor) {
+	}
+
+	private final TtlCache<CacheKey, CacheEntry> cache = new TtlCache<>(this::getTtl);
+
+	@Autowired
+	protected JiraDao jiraDao;
+
+	@Autowired
+	protected JiraWorkflowParser parser;
+
+	@Autowired
+	private JiraDataSourceRegistry dataSourceRegistry;
+
+	/**
+	 * Time to live in milliseconds of a parsed workflow. When <code>0</code>, the cache is disabled.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.workflow.cache-ttl:0}")
+	private long ttl = 0;
+
+	/**
+	 * Invalidate the parsed workflows of the closed pools.
+	 */
+	@PostConstruct
+	public void registerListener() {
+		dataSourceRegistry.addCloseListener(d -> cache.invalidateIf(k -> k.dataSource() == d));
+	}
+
+	/**
+	 * Return the parsed descriptor of a workflow.
+	 *
+	 * @param dataSource The data source of JIRA database.
+	 * @param name       The workflow's name.
+	 * @return The parsed descriptor. <code>null</code> for the implicit 'jira' workflow.
+	 */
+	public WorkflowDescriptor getDescriptor(final DataSource dataSource, final String name) {
+		if (!cache.isEnabled()) {
+			return jiraDao.getWorflow(dataSource, name, parser::parse);
+		}
+		final var key = new CacheKey(dataSource, name);
+		final var signature = jiraDao.getWorflowSignature(dataSource, name);
+		if (signature == null) {
+			// Implicit 'jira' workflow case
+			cache.invalidate(key);
+			return null;
+		}
+		final var entry = cache.get(key, e -> e.signature().equals(signature), () -> {
+			final var descriptor = jiraDao.getWorflow(dataSource, name, parser::parse);
+			return descriptor == null ? null : new CacheEntry(signature, descriptor);
+		});
+		return entry == null ? null : entry.descriptor();
+	}
+
+	/**
+	 * Invalidate all parsed workflows.
+	 */
+	public void invalidate() {
+		cache.clear();
+	}
+
+	/**
+	 * Return the amount of cached workflows, including the expired ones not yet purged.
+	 *
+	 * @return The amount of cached workflows.
+	 */
+	public int size() {
+		return cache.size();
+	}
+}
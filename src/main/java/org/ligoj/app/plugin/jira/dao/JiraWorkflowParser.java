@@ -0,0 +1,200 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.io.FilterReader;
+import java.io.IOException;
+import java.io.PushbackReader;
+import java.io.Reader;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+import org.ligoj.app.plugin.jira.model.WorkflowAction;
+import org.ligoj.app.plugin.jira.model.WorkflowDescriptor;
+import org.ligoj.app.plugin.jira.model.WorkflowStep;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Streaming JIRA workflow descriptor parser. The descriptor is read in one pass, the DTD is never loaded.
+ */
+@Component
+public class JiraWorkflowParser {
+
+	private static final String STATUS_META = "jira.status.id";
+
+	private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+	static {
+		FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+		FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+	}
+
+	/**
+	 * Reader translating on the fly the <code>\"</code> and <code>\n</code> escaped sequences, as found in some
+	 * imported descriptors.
+	 */
+	private static class UnescapeReader extends FilterReader {
+
+		private final PushbackReader pushback;
+
+		UnescapeReader(final Reader reader) {
+			this(new PushbackReader(reader));
+		}
+
+		private UnescapeReader(final PushbackReader reader) {
+			super(reader);
+			this.pushback = reader;
+		}
+
+		/**
+		 * Return the escaped character of the given one, or <code>-1</code>.
+		 */
+		private int unescape(final int c) {
+			if (c == '"') {
+				return '"';
+			}
+			return c == 'n' ? '\n' : -1;
+		}
+
+		@Override
+		public int read() throws IOException {
+			final var c = pushback.read();
+			if (c == '\\') {
+				final var next = pushback.read();
+				final var escaped = unescape(next);
+				if (escaped != -1) {
+					return escaped;
+				}
+				if (next != -1) {
+					pushback.unread(next);
+				}
+			}
+			return c;
+		}
+
+		@Override
+		public int read(final char[] cbuf, final int off, final int len) throws IOException {
+			final var read = pushback.read(cbuf, off, len);
+			if (read <= 0) {
+				return read;
+			}
+			final var end = off + read;
+			var w = off;
+			for (var i = off; i < end; i++) {
+				var c = cbuf[i];
+				if (c == '\\') {
+					if (i + 1 < end) {
+						final var escaped = unescape(cbuf[i + 1]);
+						if (escaped != -1) {
+							c = (char) escaped;
+							i++;
+						}
+					} else {
+						// Escaped sequence across two buffers
+						final var next = pushback.read();
+						final var escaped = unescape(next);
+						if (escaped != -1) {
+							c = (char) escaped;
+						} else if (next != -1) {
+							pushback.unread(next);
+						}
+					}
+				}
+				cbuf[w++] = c;
+			}
+			return w - off;
+		}
+	}
+
+	/**
+	 * Parse a workflow descriptor.
+	 *
+	 * @param descriptor The workflow XML descriptor reader. Not closed there.
+	 * @return The parsed descriptor.
+	 */
+	public WorkflowDescriptor parse(final Reader descriptor) {
+		try {
+			final var reader = FACTORY.createXMLStreamReader(new UnescapeReader(descriptor));
+			try {
+				return parse(reader);
+			} finally {
+				reader.close();
+			}
+		} catch (final XMLStreamException e) {
+			throw new TechnicalException("Invalid workflow descriptor", e);
+		}
+	}
+
+	private WorkflowDescriptor parse(final XMLStreamReader reader) throws XMLStreamException {
+		final var result = new WorkflowDescriptor();
+		var initial = false;
+		WorkflowStep step = null;
+		WorkflowAction action = null;
+		while (reader.hasNext()) {
+			final var event = reader.next();
+			if (event == XMLStreamConstants.START_ELEMENT) {
+				switch (reader.getLocalName()) {
+				case "initial-actions" -> initial = true;
+				case "step" -> {
+					step = new WorkflowStep();
+					step.setId(toInteger(reader.getAttributeValue(null, "id")));
+					step.setName(reader.getAttributeValue(null, "name"));
+					result.getSteps().put(step.getId(), step);
+				}
+				case "action" -> {
+					action = new WorkflowAction();
+					action.setId(toInteger(reader.getAttributeValue(null, "id")));
+					action.setName(reader.getAttributeValue(null, "name"));
+					result.getActions().put(action.getId(), action);
+					addAction(result, initial, step, action.getId());
+				}
+				case "common-action" -> addAction(result, initial, step, toInteger(reader.getAttributeValue(null, "id")));
+				case "unconditional-result" -> {
+					if (action != null) {
+						action.setStep(toInteger(reader.getAttributeValue(null, "step")));
+					}
+				}
+				case "meta" -> {
+					if (step != null && action == null && STATUS_META.equals(reader.getAttributeValue(null, "name"))) {
+						step.setStatus(toInteger(reader.getElementText()));
+					}
+				}
+				default -> {
+					// Ignored element
+				}
+				}
+			} else if (event == XMLStreamConstants.END_ELEMENT) {
+				switch (reader.getLocalName()) {
+				case "initial-actions" -> initial = false;
+				case "step" -> step = null;
+				case "action" -> action = null;
+				default -> {
+					// Ignored element
+				}
+				}
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Attach an action to the current step or to the initial actions.
+	 */
+	private void addAction(final WorkflowDescriptor result, final boolean initial, final WorkflowStep step,
+			final Integer action) {
+		if (step != null) {
+			step.getActions().add(action);
+		} else if (initial) {
+			result.getInitialActions().add(action);
+		}
+	}
+
+	private Integer toInteger(final String value) {
+		return value == null || value.isBlank() ? null : Integer.valueOf(value.trim());
+	}
+}
@@ -0,0 +1,49 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.Collection;
+import java.util.List;
+
+import org.ligoj.app.plugin.jira.model.SlaCheckpointIssue;
+import org.ligoj.bootstrap.core.dao.RestRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+/**
+ * {@link SlaCheckpointIssue} repository.
+ */
+public interface SlaCheckpointIssueRepository extends RestRepository<SlaCheckpointIssue, Integer> {
+
+	/**
+	 * Return the computed issues of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The computed issues.
+	 */
+	List<SlaCheckpointIssue> findAllBySubscription(int subscription);
+
+	/**
+	 * Delete the computed issues of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 */
+	@Modifying
+	@Query("DELETE FROM SlaCheckpointIssue WHERE subscription = ?1")
+	void deleteAllBySubscription(int subscription);
+
+	/**
+	 * Delete some computed issues of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param issues
+	 *            The JIRA issue identifiers.
+	 */
+	@Modifying
+	@Query("DELETE FROM SlaCheckpointIssue WHERE subscription = ?1 AND issue IN ?2")
+	void deleteAllBySubscriptionAndIssue(int subscription, Collection<Integer> issues);
+}
@@ -0,0 +1,22 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import org.ligoj.app.plugin.jira.model.SlaCheckpoint;
+import org.ligoj.bootstrap.core.dao.RestRepository;
+
+/**
+ * {@link SlaCheckpoint} repository.
+ */
+public interface SlaCheckpointRepository extends RestRepository<SlaCheckpoint, Integer> {
+
+	/**
+	 * Return the checkpoint of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The checkpoint or <code>null</code>.
+	 */
+	SlaCheckpoint findBySubscription(int subscription);
+}
@@ -0,0 +1,160 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache of values expiring after a time to live. The expired entries are purged at most once by time to live period,
+ * so a miss does not scan the whole cache. The <code>null</code> values are not cached. The cached values are shared,
+ * so they must not be modified.
+ *
+ * @param <K> The key type.
+ * @param <V> The value type.
+ */
+class TtlCache<K, V> {
+
+	/**
+	 * Cached value and its expiration time.
+	 */
+	private record Entry<V>(V value, long expire) {
+	}
+
+	private final Map<K, Entry<V>> entries = new ConcurrentHashMap<>();
+
+	private final LongSupplier ttl;
+
+	private final AtomicLong hits = new AtomicLong();
+
+	private final AtomicLong misses = new AtomicLong();
+
+	private volatile long nextPurge;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ttl The time to live in milliseconds of the values, read at each access. When <code>0</code>, the cache is
+	 *            disabled.
+	 */
+	TtlCache(final LongSupplier ttl) {
+		this.ttl = ttl;
+	}
+
+	/**
+	 * Indicate this cache is enabled.
+	 *
+	 * @return <code>true</code> when the time to live is positive.
+	 */
+	boolean isEnabled() {
+		return ttl.getAsLong() > 0;
+	}
+
+	/**
+	 * Return the cached value, or load it.
+	 *
+	 * @param key    The value key.
+	 * @param loader The value loader called when the value is not cached or expired.
+	 * @return The value. May be <code>null</code>.
+	 */
+	V get(final K key, final Supplier<V> loader) {
+		return get(key, v -> true, loader);
+	}
+
+	/**
+	 * Return the cached value when still valid, or load it.
+	 *
+	 * @param key    The value key.
+	 * @param valid  The predicate checking a cached and not expired value is still valid.
+	 * @param loader The value loader called when the value is not cached, expired or not valid.
+	 * @return The value. May be <code>null</code>.
+	 */
+	V get(final K key, final Predicate<V> valid, final Supplier<V> loader) {
+		final var ttlValue = ttl.getAsLong();
+		if (ttlValue <= 0) {
+			return loader.get();
+		}
+		final var now = System.currentTimeMillis();
+		final var cached = entries.get(key);
+		if (cached != null && cached.expire() > now && valid.test(cached.value())) {
+			hits.incrementAndGet();
+			return cached.value();
+		}
+		misses.incrementAndGet();
+		purge(now, ttlValue);
+		final var value = loader.get();
+		if (value == null) {
+			entries.remove(key);
+		} else {
+			entries.put(key, new Entry<>(value, now + ttlValue));
+		}
+		return value;
+	}
+
+	/**
+	 * Remove the expired entries, at most once by time to live period.
+	 */
+	private void purge(final long now, final long ttlValue) {
+		if (now >= nextPurge) {
+			nextPurge = now + ttlValue;
+			entries.values().removeIf(e -> e.expire() <= now);
+		}
+	}
+
+	/**
+	 * Invalidate a cached value.
+	 *
+	 * @param key The value key.
+	 */
+	void invalidate(final K key) {
+		entries.remove(key);
+	}
+
+	/**
+	 * Invalidate the cached values matching to the given key filter.
+	 *
+	 * @param filter The key filter.
+	 */
+	void invalidateIf(final Predicate<K> filter) {
+		entries.keySet().removeIf(filter);
+	}
+
+	/**
+	 * Invalidate all cached values.
+	 */
+	void clear() {
+		entries.clear();
+	}
+
+	/**
+	 * Return the amount of cached values, including the expired ones not yet purged.
+	 *
+	 * @return The amount of cached values.
+	 */
+	int size() {
+		return entries.size();
+	}
+
+	/**
+	 * Return the amount of requests served from the cache.
+	 *
+	 * @return The amount of requests served from the cache.
+	 */
+	long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Return the amount of requests loading the value while the cache is enabled.
+	 *
+	 * @return The amount of requests loading the value while the cache is enabled.
+	 */
+	long getMisses() {
+		return misses.get();
+	}
+}
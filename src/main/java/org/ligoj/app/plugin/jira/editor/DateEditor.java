@@ -3,7 +3,9 @@
  */
 package org.ligoj.app.plugin.jira.editor;
 
+import java.time.Year;
 import java.util.Date;
+import java.util.GregorianCalendar;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -26,6 +28,11 @@ public class DateEditor extends AbstractEditor {
 	 */
 	private static final Map<Pattern, Processor<String>> PATTERN_TO_FORMAT = new LinkedHashMap<>();
 
+	/**
+	 * Decimal date processor
+	 */
+	private static final DecimalDateProcessor DECIMAL_PROCESSOR = new DecimalDateProcessor();
+
 	static {
 		PATTERN_TO_FORMAT.put(Pattern.compile(ImportEntry.DATE_TIME_FR + ImportEntry.SECONDS_PATTERN), new ParseDateProcessor("dd/MM/yyyy HH:mm:ss"));
 		PATTERN_TO_FORMAT.put(Pattern.compile(ImportEntry.DATE_TIME_FR), new ParseDateProcessor("dd/MM/yyyy HH:mm"));
@@ -43,7 +50,7 @@ public class DateEditor extends AbstractEditor {
 		PATTERN_TO_FORMAT.put(Pattern.compile(ImportEntry.DATE_TIME_EN), new ParseDateProcessor("dd.MM.yyyy HH:mm"));
 		PATTERN_TO_FORMAT.put(Pattern.compile(ImportEntry.DATE_EN), new ParseDateProcessor("dd.MM.yyyy"));
 
-		PATTERN_TO_FORMAT.put(Pattern.compile(ImportEntry.DATE_DECIMAL), new DecimalDateProcessor());
+		PATTERN_TO_FORMAT.put(Pattern.compile(ImportEntry.DATE_DECIMAL), DECIMAL_PROCESSOR);
 	}
 
 	@Override
@@ -77,13 +84,38 @@ public class DateEditor extends AbstractEditor {
 	}
 
 	/**
-	 * Parse the date using ordered patterns {@link #PATTERN_TO_FORMAT}.
+	 * Parse the date using ordered patterns {@link #PATTERN_TO_FORMAT}. The well-formed dates are recognized without
+	 * regular expression, the other ones are parsed with these patterns.
 	 * 
 	 * @param rawDate
 	 *            the date as string.
 	 * @return the date object of <code>null</code>.O
 	 */
 	public static Date toDate(final String rawDate) {
+		return toDate(rawDate, false);
+	}
+
+	/**
+	 * Parse the date. The well-formed dates are recognized in a single pass without regular expression : the format is
+	 * chosen from the length and the separators.
+	 * 
+	 * @param rawDate
+	 *            the date as string.
+	 * @param strict
+	 *            When <code>true</code>, the whole string must be a supported format with valid field values, otherwise
+	 *            <code>null</code> is returned. When <code>false</code>, the dates not recognized by the single pass are
+	 *            parsed with the ordered patterns {@link #PATTERN_TO_FORMAT}, leniently and ignoring the surrounding
+	 *            characters.
+	 * @return the date object of <code>null</code>.
+	 */
+	public static Date toDate(final String rawDate, final boolean strict) {
+		final var date = parseDateTime(rawDate);
+		if (date != null) {
+			return date;
+		}
+		if (strict) {
+			return isDecimal(rawDate) ? (Date) DECIMAL_PROCESSOR.getValue(rawDate) : null;
+		}
 		for (final Entry<Pattern, Processor<String>> pattern : PATTERN_TO_FORMAT.entrySet()) {
 			if (pattern.getKey().matcher(rawDate).find()) {
 				return (Date) pattern.getValue().getValue(rawDate);
@@ -91,4 +123,131 @@ public class DateEditor extends AbstractEditor {
 		}
 		return null;
 	}
+
+	/**
+	 * Parse a well-formed date of one of the formats : "dd/MM/yyyy", "yyyy-MM-dd", "yyyy/MM/dd", "d.M.yyyy", each one
+	 * with an optional " HH:mm" or " HH:mm:ss" time.
+	 * 
+	 * @return The date in the default time zone, or <code>null</code> when the format or a field value is not valid.
+	 */
+	private static Date parseDateTime(final String raw) {
+		final int length = raw.length();
+		final int year;
+		final int month;
+		final int day;
+		final int end;
+		if (length >= 10 && raw.charAt(2) == '/' && raw.charAt(5) == '/') {
+			// dd/MM/yyyy
+			day = parse2(raw, 0);
+			month = parse2(raw, 3);
+			year = parse4(raw, 6);
+			end = 10;
+		} else if (length >= 10 && (raw.charAt(4) == '-' || raw.charAt(4) == '/') && raw.charAt(7) == raw.charAt(4)) {
+			// yyyy-MM-dd and yyyy/MM/dd
+			year = parse4(raw, 0);
+			month = parse2(raw, 5);
+			day = parse2(raw, 8);
+			end = 10;
+		} else {
+			// d.M.yyyy
+			final int dot1 = raw.indexOf('.', 1);
+			final int dot2 = dot1 == -1 || dot1 > 2 ? -1 : raw.indexOf('.', dot1 + 2);
+			if (dot2 == -1 || dot2 > dot1 + 3 || length < dot2 + 5) {
+				return null;
+			}
+			day = parseDigits(raw, 0, dot1);
+			month = parseDigits(raw, dot1 + 1, dot2);
+			year = parse4(raw, dot2 + 1);
+			end = dot2 + 5;
+		}
+		if ((year | month | day) < 0 || month == 0 || month > 12 || day == 0 || day > lengthOfMonth(year, month)) {
+			return null;
+		}
+		return parseTime(raw, end, year, month, day);
+	}
+
+	/**
+	 * Parse the optional " HH:mm" or " HH:mm:ss" time starting at the given index and build the date.
+	 */
+	private static Date parseTime(final String raw, final int start, final int year, final int month, final int day) {
+		final int length = raw.length() - start;
+		var hour = 0;
+		var minute = 0;
+		var second = 0;
+		if (length == 6 || length == 9) {
+			if (raw.charAt(start) != ' ' || raw.charAt(start + 3) != ':') {
+				return null;
+			}
+			hour = parse2(raw, start + 1);
+			minute = parse2(raw, start + 4);
+			if (length == 9) {
+				if (raw.charAt(start + 6) != ':') {
+					return null;
+				}
+				second = parse2(raw, start + 7);
+			}
+		} else if (length != 0) {
+			return null;
+		}
+		if ((hour | minute | second) < 0 || hour > 23 || minute > 59 || second > 59) {
+			return null;
+		}
+
+		// Same calendar and time zone than the patterns
+		return new GregorianCalendar(year, month - 1, day, hour, minute, second).getTime();
+	}
+
+	private static int lengthOfMonth(final int year, final int month) {
+		return switch (month) {
+		case 2 -> Year.isLeap(year) ? 29 : 28;
+		case 4, 6, 9, 11 -> 30;
+		default -> 31;
+		};
+	}
+
+	/**
+	 * Indicate the whole string is a decimal date such as "1523,4568".
+	 */
+	private static boolean isDecimal(final String raw) {
+		var separator = -1;
+		for (var i = 0; i < raw.length(); i++) {
+			final var c = raw.charAt(i);
+			if (c == '.' || c == ',') {
+				if (separator != -1 || i == 0) {
+					return false;
+				}
+				separator = i;
+			} else if (!isDigit(c)) {
+				return false;
+			}
+		}
+		return separator != -1 && separator < raw.length() - 1;
+	}
+
+	private static boolean isDigit(final char c) {
+		return c >= '0' && c <= '9';
+	}
+
+	/**
+	 * Return the value of the digits between the given indexes, or <code>-1</code>.
+	 */
+	private static int parseDigits(final String raw, final int start, final int end) {
+		var value = 0;
+		for (var i = start; i < end; i++) {
+			final var c = raw.charAt(i);
+			if (!isDigit(c)) {
+				return -1;
+			}
+			value = value * 10 + c - '0';
+		}
+		return value;
+	}
+
+	private static int parse2(final String raw, final int start) {
+		return parseDigits(raw, start, start + 2);
+	}
+
+	private static int parse4(final String raw, final int start) {
+		return parseDigits(raw, start, start + 4);
+	}
 }
@@ -3,11 +3,17 @@
  */
 package org.ligoj.app.plugin.jira.in;
 
+import jakarta.annotation.PreDestroy;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.*;
 import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.MapUtils;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.cxf.jaxrs.ext.multipart.Multipart;
 import org.ligoj.app.plugin.jira.JiraBaseResource;
@@ -23,20 +29,40 @@ import org.ligoj.app.plugin.jira.model.ImportEntry;
 import org.ligoj.app.plugin.jira.model.ImportStatus;
 import org.ligoj.app.plugin.jira.model.UploadMode;
 import org.ligoj.app.plugin.jira.model.Workflow;
-import org.ligoj.bootstrap.core.csv.CsvForBean;
+import org.ligoj.app.plugin.jira.out.JiraExportCache;
+import org.ligoj.bootstrap.core.csv.CsvBeanReader;
 import org.ligoj.bootstrap.core.curl.CurlProcessor;
 import org.ligoj.bootstrap.core.curl.CurlRequest;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
 import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.ligoj.bootstrap.core.validation.ValidatorBean;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import javax.sql.DataSource;
+import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -44,12 +70,23 @@ import java.util.stream.Collectors;
  * JIRA import resource.
  */
 @Slf4j
-@Path(JiraBaseResource.URL + "/{subscription:\\d+}")
+@jakarta.ws.rs.Path(JiraBaseResource.URL + "/{subscription:\\d+}")
 @Service
 @Transactional
 @Produces(MediaType.APPLICATION_JSON)
 public class JiraImportPluginResource extends JiraBaseResource {
 
+	/**
+	 * A change having the same values than the previous change of the same issue, except for the custom fields. Raw
+	 * values of custom fields are compared once typed.
+	 *
+	 * @param message    The error message when custom field values are also the same.
+	 * @param previousCf The raw custom field values of the previous change.
+	 * @param cf         The raw custom field values of the change.
+	 */
+	private record UnchangedCandidate(String message, Map<String, Object> previousCf, Map<String, Object> cf) {
+	}
+
 	/**
 	 * Import context data.
 	 */
@@ -71,6 +108,46 @@ public class JiraImportPluginResource extends JiraBaseResource {
 		 */
 		private final Set<String> completeComponents = new HashSet<>();
 
+		/**
+		 * Distinct raw values of each custom field.
+		 */
+		private final Map<String, Set<String>> cfValues = new LinkedHashMap<>();
+
+		/**
+		 * Typed values of each custom field. KEY is the raw value.
+		 */
+		private Map<String, Map<String, Object>> cfTypedValues;
+
+		/**
+		 * Changes to compare with the typed custom field values.
+		 */
+		private final List<UnchangedCandidate> unchangedCandidates = new ArrayList<>();
+
+		/**
+		 * Issues where the last kept change must not be replaced by the next change.
+		 */
+		private final Set<Integer> pinned = new HashSet<>();
+
+		/**
+		 * Issues having reached a resolution status.
+		 */
+		private final Set<Integer> resolved = new HashSet<>();
+
+		/**
+		 * Last change date of each issue.
+		 */
+		private final Map<Integer, Date> chronology = new LinkedHashMap<>();
+
+		/**
+		 * Amount of read changes, and the date of the first and the last ones.
+		 */
+		private int nbChanges;
+		private Date issueFrom;
+		private Date issueTo;
+
+		private int minIssue = Integer.MAX_VALUE;
+		private int maxIssue = Integer.MIN_VALUE;
+
 		private Map<Integer, String> statuses;
 		private Map<String, Integer> invertedStatuses;
 		private Map<String, Integer> priorities;
@@ -80,12 +157,27 @@ public class JiraImportPluginResource extends JiraBaseResource {
 		private Map<String, Integer> existingComponents;
 		private Map<String, Integer> existingVersions;
 		private Map<Integer, IssueWithCollections> issuesToUpdate;
+
+		/**
+		 * Identifier of the existing issues. KEY is the issue number.
+		 */
+		private final Map<Integer, Integer> existing = new HashMap<>();
+
+		/**
+		 * Issue numbers already persisted by a previous failed import.
+		 */
+		private Set<Integer> resumed = Collections.emptySet();
+
+		/**
+		 * SHA-256 fingerprint of the imported file.
+		 */
+		private String fingerprint;
+
 		private DataSource dataSource;
 		private Set<Integer> issues;
-		private Map<Integer, List<ImportEntry>> changes;
+		private final Map<Integer, List<ImportEntry>> changes = new LinkedHashMap<>();
 		private Map<Integer, Workflow> typeToStatusToStep;
 		private Map<String, String> parameters;
-		private List<ImportEntry> rawEntries;
 		private Set<String> newVersionsAsSet;
 		private Set<String> newComponentsAsSet;
 	}
@@ -96,10 +188,10 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	private static final String FIELD_RESOLUTION = "resolution";
 
 	@Autowired
-	private CsvForBean csvForBean;
+	protected JiraPluginResource resource;
 
 	@Autowired
-	protected JiraPluginResource resource;
+	protected PlatformTransactionManager transactionManager;
 
 	@Autowired
 	private ValidatorBean validatorBean;
@@ -107,6 +199,92 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	@Autowired
 	protected JiraUpdateDao jiraUpdateDao;
 
+	@Autowired
+	protected JiraExportCache exportCache;
+
+	/**
+	 * Amount of workers of the bean validation of the changes. When <code>1</code>, the changes are validated in the
+	 * requesting thread.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.import.validation.parallelism:1}")
+	private int validationParallelism = 1;
+
+	/**
+	 * Amount of invalid changes reported by the bean validation before stopping the import.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.import.validation.max-errors:1}")
+	private int validationMaxErrors = 1;
+
+	/**
+	 * Amount of issues persisted in a single JIRA transaction, with all their associations and changes.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.import.chunk-size:1000}")
+	private int chunkSize = 1000;
+
+	/**
+	 * Amount of asynchronous imports running concurrently. The other ones are queued, at most one per subscription.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.import.async.parallelism:2}")
+	private int asyncParallelism = 2;
+
+	/**
+	 * Maximal delay in milliseconds to wait for the asynchronous imports on shutdown. Then, the running imports are
+	 * interrupted and the queued ones are ended as failed.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.import.async.shutdown-timeout:30000}")
+	private long asyncShutdownTimeout = 30000;
+
+	/**
+	 * Executor of the asynchronous imports.
+	 */
+	protected Executor importExecutor;
+
+	/**
+	 * A queued asynchronous import of a spooled CSV file.
+	 */
+	private class AsyncImport implements Runnable {
+		private final ImportStatus importStatus;
+		private final Path file;
+		private final String encoding;
+		private final SecurityContext context;
+
+		private AsyncImport(final ImportStatus importStatus, final Path file, final String encoding,
+				final SecurityContext context) {
+			this.importStatus = importStatus;
+			this.file = file;
+			this.encoding = encoding;
+			this.context = context;
+		}
+
+		@Override
+		public void run() {
+			runAsync(importStatus, file, encoding, context);
+		}
+
+		/**
+		 * End a never started import as failed.
+		 */
+		private void cancel() {
+			final int subscription = importStatus.getLocked().getId();
+			log.info("Cancel the queued import of subscription {}", subscription);
+			try {
+				resource.endTask(subscription, true);
+			} finally {
+				FileUtils.deleteQuietly(file.toFile());
+			}
+		}
+	}
+
 	/**
 	 * Prepare an authenticated connection to JIRA
 	 *
@@ -122,15 +300,12 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	 * Build status changes of all issues. Issues without changes will not be in this result, and VALUE of this
 	 * {@link Map} is never an empty list. KEY is the issueNum.
 	 */
-	private Map<Integer, List<JiraChangeRow>> buildStatusChanges(final ImportContext context, final ImportStatus result,
+	private Map<Integer, List<JiraChangeRow>> buildStatusChanges(final ImportContext context,
 			final List<JiraIssueRow> issues) {
 		final var statusChanges = new HashMap<Integer, List<JiraChangeRow>>();
-		int nbStatusChanges = 0;
 		for (final var issue : issues) {
-			nbStatusChanges += buildStatusChanges(context, statusChanges, issue);
-
+			buildStatusChanges(context, statusChanges, issue);
 		}
-		result.setStatusChanges(nbStatusChanges);
 		return statusChanges;
 	}
 
@@ -160,91 +335,152 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	}
 
 	/**
-	 * Check changes
+	 * Check each change modifies at least one value, custom field values being compared once typed.
 	 */
-	private Map<Integer, List<ImportEntry>> checkChanges(final List<ImportEntry> rawEntries) {
-		final var result = new LinkedHashMap<Integer, List<ImportEntry>>();
-		for (final var entry : rawEntries) {
-			checkChanges(result, entry);
+	private void checkChanges(final ImportContext context) {
+		for (final var candidate : context.unchangedCandidates) {
+			if (isEquals(toTypedCf(context, candidate.previousCf()), toTypedCf(context, candidate.cf()))) {
+				// No change means a history issue this the last line is useless
+				throw new ValidationJsonException(FIELD_ISSUE, candidate.message());
+			}
 		}
-		return result;
 	}
 
 	/**
-	 * Check changes for a given entry
+	 * Validate a change and group it with the previous changes of the same issue. Only the changes involved in the
+	 * final state, the status history or the resolution checks are kept, so the memory depends on the amount of issues
+	 * and status changes rather than on the amount of lines.
 	 */
-	private void checkChanges(final Map<Integer, List<ImportEntry>> issues, final ImportEntry entry) {
-		var changes = issues.get(entry.getIssueNum());
-		if (changes == null) {
-			// First change
-			changes = new ArrayList<>();
-			issues.put(entry.getIssueNum(), changes);
-		} else if (isEquals(changes.getLast(), entry)) {
-			// No change means a history issue this the last line is useless
-			throw new ValidationJsonException(FIELD_ISSUE, "No change detected detected for issue " + toLog(entry)
-					+ " for changes between " + changes.getLast().getDate() + " and " + entry.getDate());
+	private void addChange(final ImportContext context, final String pkey, final ImportEntry entry) {
+		// Check unique PKEY of issue
+		checkPKey(pkey, entry);
+		final var issueNum = entry.getIssueNum();
+
+		// Get and save the Java Date and check the history
+		final var date = checkExcelDate(context.chronology.get(issueNum), entry);
+		entry.setDateValid(date);
+		context.chronology.put(issueNum, date);
+		if (context.nbChanges++ == 0) {
+			context.issueFrom = date;
 		}
-		changes.add(entry);
-	}
-
-	/**
-	 * Check history and 'pkey' and return issues number.
-	 */
-	private Set<Integer> checkChronologyAndPkey(final List<ImportEntry> rawEntries, final String pkey) {
-		final var chronology = new LinkedHashMap<Integer, Date>();
-		final var first = new LinkedHashMap<Integer, ImportEntry>();
-		for (final var rawEntry : rawEntries) {
-			// Check unique PKEY of issue
-			checkPKey(pkey, rawEntry);
+		context.issueTo = date;
 
-			// Get and save the Java Date and check the history
-			final var date = checkExcelDate(chronology.get(rawEntry.getIssueNum()), rawEntry);
-			rawEntry.setDateValid(date);
-			chronology.put(rawEntry.getIssueNum(), date);
-			rawEntry.setDateValid(date);
+		// Check the resolution/resolution date
+		checkResolutionDate(entry);
 
-			// Check the resolution/resolution date
-			checkResolutionDate(rawEntry);
+		// Check the due date
+		final var changes = context.changes.get(issueNum);
+		checkDueDate(changes, entry);
 
-			// Check the due date
-			checkDueDate(first, rawEntry);
+		// Collect the required data
+		completeContext(context, entry);
 
-			// Register the issue for the first change
-			if (!first.containsKey(rawEntry.getIssueNum())) {
-				first.put(rawEntry.getIssueNum(), rawEntry);
+		if (changes == null) {
+			// First change, always kept
+			final var newChanges = new ArrayList<ImportEntry>();
+			newChanges.add(entry);
+			context.changes.put(issueNum, newChanges);
+			context.pinned.add(issueNum);
+		} else {
+			final var last = changes.getLast();
+			if (isSameChange(last, entry)) {
+				// Only the typed custom field values could make a difference
+				context.unchangedCandidates.add(new UnchangedCandidate("No change detected detected for issue "
+						+ toLog(entry) + " for changes between " + last.getDate() + " and " + entry.getDate(),
+						last.getCf(), entry.getCf()));
+			}
+			if (context.pinned.contains(issueNum)) {
+				strip(last);
+				changes.add(entry);
+			} else {
+				// The previous change is neither the first one, neither a status change
+				changes.set(changes.size() - 1, entry);
+			}
+			if (changes.get(changes.size() - 2).getStatus().equals(entry.getStatus())
+					&& !isResolutionCheckRequired(context, entry)) {
+				context.pinned.remove(issueNum);
+			} else {
+				context.pinned.add(issueNum);
 			}
 		}
+		if (isResolutionStatus(entry.getStatus())) {
+			context.resolved.add(issueNum);
+		}
+	}
 
-		return chronology.keySet();
+	/**
+	 * Indicate the given change provides a resolution without having been resolved.
+	 */
+	private boolean isResolutionCheckRequired(final ImportContext context, final ImportEntry entry) {
+		return entry.getResolution() != null && !isResolutionStatus(entry.getStatus())
+				&& !context.resolved.contains(entry.getIssueNum());
+	}
+
+	/**
+	 * Release the data of a kept change not involved in the final state of the issue.
+	 */
+	private void strip(final ImportEntry entry) {
+		entry.setSummary(null);
+		entry.setDescription(null);
+		entry.setAssignee(null);
+		entry.setReporter(null);
+		entry.setDueDate(null);
+		entry.setLabels(null);
+		entry.setLabelsText(null);
+		entry.setComponents(null);
+		entry.setComponentsText(null);
+		entry.setVersion(null);
+		entry.setVersionText(null);
+		entry.setFixedVersion(null);
+		entry.setFixedVersionText(null);
+		entry.setCf(null);
 	}
 
 	/**
-	 * Check custom fields. During this call, {@link String} custom fields values are replaced with the formatted and
-	 * typed ones.
+	 * Check custom fields. Each distinct raw value is validated once. During this call, {@link String} custom fields
+	 * values of the final state of each issue are replaced with the formatted and typed ones.
 	 */
-	private void checkCustomFields(final List<ImportEntry> rawEntries, final Set<String> requiredCustomFields,
-			final Map<String, CustomFieldEditor> customFields) {
+	private void checkCustomFields(final ImportContext context) {
+		final var requiredCustomFields = context.requiredCustomFields;
+		final var customFields = context.customFields;
 		final var size = requiredCustomFields.size();
 		checkRequired("cf", "custom fields", customFields, requiredCustomFields);
-		log.info("Step5 - Type of {} custom fields of {} changes", size, rawEntries.size());
-		for (final var rawEntry : rawEntries) {
-			for (final var cfEntry : rawEntry.getCf().entrySet()) {
-				final CustomFieldEditor customField = customFields.get(cfEntry.getKey());
-				cfEntry.setValue(customField.getEditor().getValue(customField, (String) cfEntry.getValue()));
+		log.info("Step5 - Type of {} custom fields", size);
+		context.cfTypedValues = new HashMap<>();
+		for (final var cfEntry : context.cfValues.entrySet()) {
+			final CustomFieldEditor customField = customFields.get(cfEntry.getKey());
+			final var typedValues = new HashMap<String, Object>();
+			for (final var value : cfEntry.getValue()) {
+				typedValues.put(value, customField.getEditor().getValue(customField, value));
 			}
+			context.cfTypedValues.put(cfEntry.getKey(), typedValues);
+		}
+
+		// Only the final state of issues keeps the custom field values
+		for (final var changes : context.changes.values()) {
+			final var last = changes.getLast();
+			last.setCf(toTypedCf(context, last.getCf()));
 		}
 	}
 
+	/**
+	 * Return the typed custom field values from the raw ones.
+	 */
+	private Map<String, Object> toTypedCf(final ImportContext context, final Map<String, Object> rawCf) {
+		final var result = new HashMap<String, Object>();
+		rawCf.forEach((name, value) -> result.put(name, context.cfTypedValues.get(name).get(value)));
+		return result;
+	}
+
 	/**
 	 * Check the due date
 	 */
-	private void checkDueDate(final Map<Integer, ImportEntry> first, final ImportEntry rawEntry) {
+	private void checkDueDate(final List<ImportEntry> changes, final ImportEntry rawEntry) {
 		if (rawEntry.getDueDate() != null) {
 			rawEntry.setDueDateValid(DateEditor.toDate(rawEntry.getDueDate()));
 
 			// Check the due date against creation
-			if (first.containsKey(rawEntry.getIssueNum()) && rawEntry.getDueDateValid().getTime() < first
-					.get(rawEntry.getIssueNum()).getDateValid().getTime()) {
+			if (changes != null && rawEntry.getDueDateValid().getTime() < changes.getFirst().getDateValid().getTime()) {
 				throw new ValidationJsonException("dueDate",
 						"Due date must be greater or equals to the creation date for issue " + toLog(rawEntry));
 			}
@@ -292,11 +528,25 @@ public class JiraImportPluginResource extends JiraBaseResource {
 		context.issuesToUpdate = jiraDao.getIssues(context.dataSource, jira, result.getMinIssue(), result.getMaxIssue(),
 				context.issues);
 		result.setNewIssues(context.issues.size() - context.issuesToUpdate.size());
-		if (!context.issuesToUpdate.isEmpty()) {
+		context.issuesToUpdate.values().forEach(i -> context.existing.put(i.getIssueNum(), i.getId()));
+		if (result.getCheckpoint() != null && !context.fingerprint.equals(result.getCheckpointFile())) {
+			log.info("Ignore the checkpoint {} of another file", result.getCheckpoint());
+		} else if (result.getCheckpoint() != null) {
+			// Resume the previous failed import of this file: the existing issues up to the checkpoint are persisted
+			context.resumed = context.issuesToUpdate.values().stream().map(IssueWithCollections::getIssueNum)
+					.filter(i -> i <= result.getCheckpoint()).collect(Collectors.toSet());
+			context.issuesToUpdate.values().removeIf(i -> context.resumed.contains(i.getIssueNum()));
+			result.setResumedIssues(context.resumed.size());
+			log.info("Resume the import after issue {}, {} issues already persisted", result.getCheckpoint(),
+					context.resumed.size());
+		}
+		if (result.getMode() == UploadMode.UPDATE) {
+			log.info("{} existing issues to update", context.issuesToUpdate.size());
+		} else if (!context.issuesToUpdate.isEmpty()) {
 			final var first = context.issuesToUpdate.values().iterator().next();
 			throw new ValidationJsonException(FIELD_ISSUE,
 					"Updating issues is not yet implemented. " + context.issuesToUpdate.size()
-							+ " issues are concerned. First one is issue " + first.getIssue() + " (id=" + first.getId()
+							+ " issues are concerned. First one is issue " + first.getIssueNum() + " (id=" + first.getId()
 							+ ")");
 		}
 	}
@@ -398,6 +648,19 @@ public class JiraImportPluginResource extends JiraBaseResource {
 					"At least one specified status exists but is not managed in the workflow : "
 							+ String.join(",", copyOfRequired));
 		}
+
+		// The final status of each issue must be a step of the workflow of its final type
+		for (final var changes : context.changes.values()) {
+			final var last = changes.getLast();
+			final var workflow = context.typeToStatusToStep.getOrDefault(context.types.get(last.getType()),
+					context.typeToStatusToStep.get(0));
+			final var status = context.statuses.get(context.invertedStatuses.get(last.getStatus()));
+			if (!workflow.getStatusToSteps().containsKey(status)) {
+				throw new ValidationJsonException(FIELD_STATUS, "Status '" + status + "' of issue " + toLog(last)
+						+ " is not managed by the workflow '" + workflow.getName() + "' of its type '" + last.getType()
+						+ "'");
+			}
+		}
 	}
 
 	/**
@@ -464,51 +727,34 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	/**
 	 * Complete context : required date and data to complete during the import.
 	 */
-	private void completeContext(final ImportStatus result, final List<ImportEntry> rawEntries,
-			final ImportContext context) {
-		final var requiredStatuses = context.requiredStatuses;
-		final var requiredPriorities = context.requiredPriorities;
-		final var requiredTypes = context.requiredTypes;
-		final var requiredUsers = context.requiredUsers;
-		final var requiredCustomFields = context.requiredCustomFields;
-		final var requiredResolutions = context.requiredResolutions;
-		final var completeVersions = context.completeVersions;
-		final var completeComponents = context.completeComponents;
-		var minIssue = rawEntries.getFirst().getIssueNum();
-		var maxIssue = rawEntries.getLast().getIssueNum();
-		for (final var rawEntry : rawEntries) {
-			if (rawEntry.getIssueNum() < minIssue) {
-				minIssue = rawEntry.getIssueNum();
-			}
-			if (rawEntry.getIssueNum() > maxIssue) {
-				maxIssue = rawEntry.getIssueNum();
-			}
-
-			// Collect the data
-			requiredStatuses.add(rawEntry.getStatus());
-			requiredPriorities.add(rawEntry.getPriority());
-			requiredTypes.add(rawEntry.getType());
-			requiredUsers.add(rawEntry.getAssignee());
-			requiredUsers.add(rawEntry.getAuthor());
-			requiredUsers.add(rawEntry.getReporter());
-			if (rawEntry.getCf() == null) {
-				rawEntry.setCf(new HashMap<>());
-			} else {
-				requiredCustomFields.addAll(rawEntry.getCf().keySet());
-			}
-			if (rawEntry.getResolution() != null) {
-				requiredResolutions.add(rawEntry.getResolution());
-			}
-			rawEntry.setVersionText(getItems(rawEntry.getVersion()));
-			completeVersions.addAll(rawEntry.getVersionText());
-			rawEntry.setFixedVersionText(getItems(rawEntry.getFixedVersion()));
-			completeVersions.addAll(rawEntry.getFixedVersionText());
-			rawEntry.setComponentsText(getItems(rawEntry.getComponents()));
-			completeComponents.addAll(rawEntry.getComponentsText());
-			rawEntry.setLabelsText(getItems(rawEntry.getLabels()));
+	private void completeContext(final ImportContext context, final ImportEntry rawEntry) {
+		context.minIssue = Math.min(context.minIssue, rawEntry.getIssueNum());
+		context.maxIssue = Math.max(context.maxIssue, rawEntry.getIssueNum());
+
+		// Collect the data
+		context.requiredStatuses.add(rawEntry.getStatus());
+		context.requiredPriorities.add(rawEntry.getPriority());
+		context.requiredTypes.add(rawEntry.getType());
+		context.requiredUsers.add(rawEntry.getAssignee());
+		context.requiredUsers.add(rawEntry.getAuthor());
+		context.requiredUsers.add(rawEntry.getReporter());
+		if (rawEntry.getCf() == null) {
+			rawEntry.setCf(new HashMap<>());
+		} else {
+			context.requiredCustomFields.addAll(rawEntry.getCf().keySet());
+			rawEntry.getCf().forEach((name, value) -> context.cfValues
+					.computeIfAbsent(name, n -> new LinkedHashSet<>()).add((String) value));
+		}
+		if (rawEntry.getResolution() != null) {
+			context.requiredResolutions.add(rawEntry.getResolution());
 		}
-		result.setMinIssue(minIssue);
-		result.setMaxIssue(maxIssue);
+		rawEntry.setVersionText(getItems(rawEntry.getVersion()));
+		context.completeVersions.addAll(rawEntry.getVersionText());
+		rawEntry.setFixedVersionText(getItems(rawEntry.getFixedVersion()));
+		context.completeVersions.addAll(rawEntry.getFixedVersionText());
+		rawEntry.setComponentsText(getItems(rawEntry.getComponents()));
+		context.completeComponents.addAll(rawEntry.getComponentsText());
+		rawEntry.setLabelsText(getItems(rawEntry.getLabels()));
 	}
 
 	/**
@@ -581,15 +827,17 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	/**
 	 * Complete the identifiers of text values of required data.
 	 */
-	private void convertTextToId(final List<ImportEntry> rawEntries, final ImportContext context) {
-		for (final var rawEntry : rawEntries) {
-
-			// Collect the data
-			rawEntry.setStatusId(context.invertedStatuses.get(rawEntry.getStatus()));
-			rawEntry.setPriorityId(context.priorities.get(rawEntry.getPriority()));
-			rawEntry.setTypeId(context.types.get(rawEntry.getType()));
-			if (rawEntry.getResolution() != null) {
-				rawEntry.setResolutionId(context.resolutions.get(rawEntry.getResolution()));
+	private void convertTextToId(final ImportContext context) {
+		for (final var changes : context.changes.values()) {
+			for (final var rawEntry : changes) {
+
+				// Collect the data
+				rawEntry.setStatusId(context.invertedStatuses.get(rawEntry.getStatus()));
+				rawEntry.setPriorityId(context.priorities.get(rawEntry.getPriority()));
+				rawEntry.setTypeId(context.types.get(rawEntry.getType()));
+				if (rawEntry.getResolution() != null) {
+					rawEntry.setResolutionId(context.resolutions.get(rawEntry.getResolution()));
+				}
 			}
 		}
 	}
@@ -613,24 +861,24 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	}
 
 	/**
-	 * Compare 2 entries
+	 * Compare 2 entries, except the custom field values.
 	 */
-	private boolean isEquals(final ImportEntry lastEntry, final ImportEntry entry) {
+	private boolean isSameChange(final ImportEntry lastEntry, final ImportEntry entry) {
 		// CHECKSTYLE:OFF
 		return isEquals(lastEntry.getAssignee(), entry.getAssignee())
 				&& isEquals(lastEntry.getAuthor(), entry.getAuthor())
 				&& isEquals(lastEntry.getReporter(), entry.getReporter())
 				&& isEquals(lastEntry.getDescription(), entry.getDescription())
 				&& isEquals(lastEntry.getFixedVersionText(), entry.getFixedVersionText())
-				&& lastEntry.getPriorityId() == entry.getPriorityId()
-				&& isEquals(lastEntry.getResolutionId(), entry.getResolutionId())
+				&& isEquals(lastEntry.getPriority(), entry.getPriority())
+				&& isEquals(lastEntry.getResolution(), entry.getResolution())
 				&& isEquals(lastEntry.getResolutionDateValid(), entry.getResolutionDateValid())
 				&& isEquals(lastEntry.getDueDateValid(), entry.getDueDateValid())
-				&& lastEntry.getStatusId() == entry.getStatusId()
-				&& isEquals(lastEntry.getSummary(), entry.getSummary()) && isEquals(lastEntry.getCf(), entry.getCf())
+				&& isEquals(lastEntry.getStatus(), entry.getStatus())
+				&& isEquals(lastEntry.getSummary(), entry.getSummary())
 				&& isEquals(lastEntry.getLabelsText(), entry.getLabelsText())
 				&& isEquals(lastEntry.getComponentsText(), entry.getComponentsText())
-				&& lastEntry.getTypeId() == entry.getTypeId()
+				&& isEquals(lastEntry.getType(), entry.getType())
 				&& isEquals(lastEntry.getVersionText(), entry.getVersionText());
 		// CHECKSTYLE:ON
 	}
@@ -666,37 +914,129 @@ public class JiraImportPluginResource extends JiraBaseResource {
 				.putAll(jiraUpdateDao.addVersions(context.dataSource, result.getJira(), context.newVersionsAsSet));
 		nextStep(result);
 
-		// Add issues, final state
-		log.info("Create issues");
+		// Add issues by chunks, in the issue number order, with their associations and changes
 		final var issues = computeFinalIssueState(context);
-		jiraUpdateDao.addIssues(context.dataSource, result.getJira(), issues, context.typeToStatusToStep);
+		issues.removeIf(i -> context.resumed.contains(i.getIssueNum()));
+		issues.sort(Comparator.comparing(JiraIssueRow::getIssueNum));
+		final var transaction = new TransactionTemplate(new DataSourceTransactionManager(context.dataSource));
+		final var size = Math.max(1, chunkSize);
+		final var ranges = context.resumed.isEmpty() ? new TreeMap<String, int[]>()
+				: parseRanges(result.getCheckpointRanges());
+		for (var from = 0; from < issues.size(); from += size) {
+			final var chunk = issues.subList(from, Math.min(from + size, issues.size()));
+			final Map<String, int[]> chunkRanges = new TreeMap<>();
+			transaction.executeWithoutResult(
+					s -> jiraUpdateDao.recordRanges(chunkRanges, () -> persistChunk(context, result, chunk)));
+			chunkRanges.forEach((name, range) -> ranges.merge(name, range,
+					(a, b) -> new int[] { Math.min(a[0], b[0]), Math.max(a[1], b[1]) }));
+			setCheckpoint(result, chunk.getLast().getIssueNum(), context.fingerprint, formatRanges(ranges));
+		}
+		setCheckpoint(result, null, null, formatRanges(ranges));
+
+		// Issues, components, custom fields, labels and changes steps are done by chunks
+		nextStep(result);
 		nextStep(result);
+		nextStep(result);
+		nextStep(result);
+		nextStep(result);
+
+		// Synchronize JIRA, and the cached statistics of this project
+		log.info("Synchronize JIRA cache and index");
+		jiraDao.clearProjectCache(context.dataSource, result.getJira());
+		exportCache.invalidate(result.getLocked().getId());
+		synchronizeJira(context, result);
+		nextStep(result);
+		// OPT : Build and return a rollback file
+	}
+
+	/**
+	 * Save the checkpoint once a chunk is committed, so the chunk is skipped by the next import of the same file. A
+	 * failure before this save leaves the previous checkpoint : the committed chunk is then reported as existing issues.
+	 */
+	private void setCheckpoint(final ImportStatus result, final Integer checkpoint, final String file,
+			final String ranges) {
+		result.setCheckpoint(checkpoint);
+		result.setCheckpointFile(file);
+		result.setCheckpointRanges(ranges);
+		resource.nextStep(result.getLocked().getId(), t -> {
+			t.setCheckpoint(checkpoint);
+			t.setCheckpointFile(file);
+			t.setCheckpointRanges(ranges);
+		});
+	}
+
+	/**
+	 * Return the identifier spans from their text : "name:start-end" separated by ','.
+	 */
+	private static Map<String, int[]> parseRanges(final String ranges) {
+		final Map<String, int[]> result = new TreeMap<>();
+		for (final var range : StringUtils.split(StringUtils.defaultString(ranges), ',')) {
+			final var name = StringUtils.substringBeforeLast(range, ":");
+			final var bounds = StringUtils.split(StringUtils.substringAfterLast(range, ":"), '-');
+			result.put(name, new int[] { Integer.parseInt(bounds[0]), Integer.parseInt(bounds[1]) });
+		}
+		return result;
+	}
+
+	/**
+	 * Return the text of identifier spans, see {@link #parseRanges(String)}.
+	 */
+	private static String formatRanges(final Map<String, int[]> ranges) {
+		return ranges.entrySet().stream().map(e -> e.getKey() + ":" + e.getValue()[0] + "-" + e.getValue()[1])
+				.collect(Collectors.joining(","));
+	}
+
+	/**
+	 * Persist a chunk of issues with all their associations and changes. The dedicated ranges of the JIRA sequences are
+	 * reserved in the chunk transaction, so a failed chunk releases them.
+	 */
+	private void persistChunk(final ImportContext context, final ImportStatus result, final List<JiraIssueRow> issues) {
+		final var created = new ArrayList<JiraIssueRow>();
+		final var updated = new ArrayList<JiraIssueRow>();
+		for (final var issue : issues) {
+			final var id = context.existing.get(issue.getIssueNum());
+			if (id == null) {
+				created.add(issue);
+			} else {
+				issue.setId(id);
+				updated.add(issue);
+			}
+		}
+		if (!created.isEmpty()) {
+			createIssues(context, result, created);
+		}
+		if (!updated.isEmpty()) {
+			// Update mode, compare the existing issues to their stored state
+			log.info("Update issues {} to {}", updated.getFirst().getIssueNum(), updated.getLast().getIssueNum());
+			final var stored = jiraDao.getIssuesWithCollections(context.dataSource,
+					updated.stream().map(JiraIssueRow::getId).toList(), context.customFields);
+			final var nbUpdated = jiraUpdateDao.updateIssues(context.dataSource, updated, stored, context.customFields,
+					context.typeToStatusToStep, buildStatusChanges(context, updated));
+			result.setUpdatedIssues(ObjectUtils.getIfNull(result.getUpdatedIssues(), 0) + nbUpdated);
+		}
+	}
+
+	/**
+	 * Create new issues with all their associations and changes.
+	 */
+	private void createIssues(final ImportContext context, final ImportStatus result, final List<JiraIssueRow> issues) {
+		log.info("Create issues {} to {}", issues.getFirst().getIssueNum(), issues.getLast().getIssueNum());
+		jiraUpdateDao.addIssues(context.dataSource, result.getJira(), issues, context.typeToStatusToStep);
 
 		// Associate issues to components and (due|fix)versions
-		log.info("Associate components to issues");
 		jiraUpdateDao.associateComponentsAndVersions(context.dataSource, issues);
-		nextStep(result);
 
 		// Associate custom field values
-		log.info("Associate custom fields");
 		jiraUpdateDao.associateCustomFieldsValues(context.dataSource, issues, context.customFields);
-		nextStep(result);
 
 		// Associate labels
-		log.info("Associate labels");
 		jiraUpdateDao.addLabels(context.dataSource, issues);
-		nextStep(result);
 
 		// Add status changes
-		log.info("Add status changes history");
-		jiraUpdateDao.addChanges(context.dataSource, buildStatusChanges(context, result, issues));
-		nextStep(result);
-
-		// Synchronize JIRA
-		log.info("Synchronize JIRA cache and index");
-		synchronizeJira(context, result);
-		nextStep(result);
-		// OPT : Build and return a rollback file
+		final var statusChanges = buildStatusChanges(context, issues);
+		result.setStatusChanges(ObjectUtils.getIfNull(result.getStatusChanges(), 0)
+				+ statusChanges.values().stream().mapToInt(List::size).sum());
+		jiraUpdateDao.addChanges(context.dataSource, statusChanges);
 	}
 
 	private void prepareCompleteData(final ImportContext context, final ImportStatus result) {
@@ -764,7 +1104,7 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	 * @throws IOException When CSV cannot be read.
 	 */
 	@POST
-	@Path("{mode}/{encoding}")
+	@jakarta.ws.rs.Path("{mode}/{encoding}")
 	@Consumes(MediaType.MULTIPART_FORM_DATA)
 	public ImportStatus upload(@Multipart("csv-file") final InputStream csvInput,
 			@PathParam("encoding") final String encoding, @PathParam("subscription") final int subscription,
@@ -773,40 +1113,8 @@ public class JiraImportPluginResource extends JiraBaseResource {
 		subscriptionResource.checkVisible(subscription);
 		try {
 
-			final var importStatus = resource.startTask(subscription, task -> {
-
-				// Initialize starting information
-				task.setStep(1);
-
-				// Reset old values
-				task.setChanges(null);
-				task.setComponents(null);
-				task.setCustomFields(null);
-				task.setIssueFrom(null);
-				task.setIssues(null);
-				task.setJira(null);
-				task.setJiraVersion(null);
-				task.setLabels(null);
-				task.setMaxIssue(null);
-				task.setMinIssue(null);
-				task.setNewIssues(null);
-				task.setNewVersions(null);
-				task.setNewComponents(null);
-				task.setPkey(null);
-				task.setPriorities(null);
-				task.setResolutions(null);
-				task.setStatuses(null);
-				task.setIssueTo(null);
-				task.setTypes(null);
-				task.setUsers(null);
-				task.setVersions(null);
-				task.setScriptRunner(null);
-				task.setStatusChanges(null);
-				task.setSynchronizedJira(null);
-				task.setCanSynchronizeJira(null);
-				task.setMode(mode);
-			});
-			uploadPrivate(importStatus, new InputStreamReader(csvInput, encoding));
+			final var importStatus = startUpload(subscription, mode);
+			uploadPrivate(importStatus, csvInput, encoding);
 			failed = false;
 			return importStatus;
 		} finally {
@@ -815,16 +1123,171 @@ public class JiraImportPluginResource extends JiraBaseResource {
 		}
 	}
 
+	/**
+	 * Import CSV data into a JIRA project in the background. The subscription is locked, then the upload is spooled in a
+	 * temporary file and the import is started right away. Its progress is available with the task status of the
+	 * subscription.
+	 *
+	 * @param csvInput     the CSV to import.
+	 * @param encoding     the encoding of CSV file.
+	 * @param subscription the subscription identifier.
+	 * @param mode         the upload mode.
+	 * @return the accepted response with the started import status.
+	 * @throws IOException When CSV cannot be spooled.
+	 */
+	@POST
+	@jakarta.ws.rs.Path("async/{mode}/{encoding}")
+	@Consumes(MediaType.MULTIPART_FORM_DATA)
+	public Response uploadAsync(@Multipart("csv-file") final InputStream csvInput,
+			@PathParam("encoding") final String encoding, @PathParam("subscription") final int subscription,
+			@PathParam("mode") final UploadMode mode) throws IOException {
+		subscriptionResource.checkVisible(subscription);
+
+		// Lock first, so a running import rejects the upload before it is spooled
+		final var importStatus = startUpload(subscription, mode);
+		Path file = null;
+		try {
+			file = Files.createTempFile("jira-import", ".csv");
+			Files.copy(csvInput, file, StandardCopyOption.REPLACE_EXISTING);
+			getImportExecutor().execute(new AsyncImport(importStatus, file, encoding, SecurityContextHolder.getContext()));
+		} catch (final IOException | RuntimeException e) {
+			// Not queued, release the lock
+			if (file != null) {
+				FileUtils.deleteQuietly(file.toFile());
+			}
+			resource.endTask(subscription, true);
+			throw e;
+		}
+		return Response.status(Response.Status.ACCEPTED).entity(importStatus).build();
+	}
+
+	/**
+	 * Import the spooled CSV data, in a worker thread. The failure is only available in the task status.
+	 */
+	private void runAsync(final ImportStatus importStatus, final Path file, final String encoding,
+			final SecurityContext context) {
+		SecurityContextHolder.setContext(context);
+		final int subscription = importStatus.getLocked().getId();
+		boolean failed = true;
+		try {
+			// The transaction of the resource methods does not cover this thread
+			new TransactionTemplate(transactionManager).executeWithoutResult(s -> {
+				try (var csvInput = Files.newInputStream(file)) {
+					uploadPrivate(importStatus, csvInput, encoding);
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+			failed = false;
+		} catch (final RuntimeException e) {
+			log.error("Import of subscription {} failed", subscription, e);
+		} finally {
+			// Make sure, whatever the situation, to release the lock
+			resource.endTask(subscription, failed);
+			FileUtils.deleteQuietly(file.toFile());
+			SecurityContextHolder.clearContext();
+		}
+	}
+
+	/**
+	 * Return the executor of the asynchronous imports, built on first use.
+	 */
+	private synchronized Executor getImportExecutor() {
+		if (importExecutor == null) {
+			importExecutor = Executors.newFixedThreadPool(Math.max(1, asyncParallelism),
+					Thread.ofVirtual().name("jira-import-", 0).factory());
+		}
+		return importExecutor;
+	}
+
+	/**
+	 * Stop accepting asynchronous imports, and wait for the running and queued ones. After
+	 * {@link #asyncShutdownTimeout}, the running imports are interrupted and the queued ones are ended as failed, so
+	 * no subscription stays locked.
+	 */
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (importExecutor instanceof ExecutorService executor) {
+			executor.shutdown();
+			try {
+				if (!executor.awaitTermination(asyncShutdownTimeout, TimeUnit.MILLISECONDS)) {
+					cancel(executor);
+					executor.awaitTermination(asyncShutdownTimeout, TimeUnit.MILLISECONDS);
+				}
+			} catch (final InterruptedException e) {
+				cancel(executor);
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Interrupt the running imports and end the queued ones as failed.
+	 */
+	private void cancel(final ExecutorService executor) {
+		executor.shutdownNow().stream().filter(AsyncImport.class::isInstance).map(AsyncImport.class::cast)
+				.forEach(AsyncImport::cancel);
+	}
+
+	/**
+	 * Lock the subscription and reset the import status.
+	 *
+	 * @param subscription the subscription identifier.
+	 * @param mode         the upload mode.
+	 * @return the started import status.
+	 */
+	private ImportStatus startUpload(final int subscription, final UploadMode mode) {
+		return resource.startTask(subscription, task -> {
+
+			// Initialize starting information
+			task.setStep(1);
+
+			// Reset old values
+			task.setChanges(null);
+			task.setComponents(null);
+			task.setCustomFields(null);
+			task.setIssueFrom(null);
+			task.setIssues(null);
+			task.setJira(null);
+			task.setJiraVersion(null);
+			task.setLabels(null);
+			task.setMaxIssue(null);
+			task.setMinIssue(null);
+			task.setNewIssues(null);
+			task.setNewVersions(null);
+			task.setNewComponents(null);
+			task.setPkey(null);
+			task.setPriorities(null);
+			task.setResolutions(null);
+			task.setStatuses(null);
+			task.setIssueTo(null);
+			task.setTypes(null);
+			task.setUsers(null);
+			task.setVersions(null);
+			task.setScriptRunner(null);
+			task.setStatusChanges(null);
+			task.setSynchronizedJira(null);
+			task.setCanSynchronizeJira(null);
+			task.setResumedIssues(null);
+			task.setUpdatedIssues(null);
+			task.setMode(mode);
+		});
+	}
+
 	/**
 	 * Import CSV data into a JIRA project
 	 *
 	 * @param result   the import result.
 	 * @param csvInput the CSV to import.
+	 * @param encoding the encoding of CSV file.
 	 */
-	private void uploadPrivate(final ImportStatus result, final Reader csvInput) throws IOException {
+	private void uploadPrivate(final ImportStatus result, final InputStream csvInput, final String encoding)
+			throws IOException {
 		final var context = new ImportContext();
 		validateSubscription(context, result);
-		validateSyntax(context, result, csvInput);
+		final var digest = new DigestInputStream(csvInput, newFileDigest());
+		validateSyntax(context, result, new InputStreamReader(digest, encoding));
+		context.fingerprint = HexFormat.of().formatHex(digest.getMessageDigest().digest());
 		if (result.getMode() == UploadMode.SYNTAX) {
 			return;
 		}
@@ -840,12 +1303,23 @@ public class JiraImportPluginResource extends JiraBaseResource {
 		persistData(context, result);
 	}
 
+	/**
+	 * Return the digest of the fingerprint of the imported files.
+	 */
+	private MessageDigest newFileDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (final NoSuchAlgorithmException e) {
+			throw new TechnicalException("Unable to compute the file fingerprint", e);
+		}
+	}
+
 	private void validateRequiredData(final ImportStatus result, final ImportContext context) {
 		// Collect of foreign keys to validate/complete and initialize the
 		// business objects
 		log.info("Collect required data for the {} issues", context.issues.size());
-		final var rawEntries = context.rawEntries;
-		completeContext(result, rawEntries, context);
+		result.setMinIssue(context.minIssue);
+		result.setMaxIssue(context.maxIssue);
 		final var requiredStatuses = context.requiredStatuses;
 		final var requiredPriorities = context.requiredPriorities;
 		final var requiredTypes = context.requiredTypes;
@@ -887,7 +1361,7 @@ public class JiraImportPluginResource extends JiraBaseResource {
 
 		log.info("... Custom fields definition");
 		context.customFields = jiraDao.getCustomFields(context.dataSource, requiredCustomFields, result.getJira());
-		checkCustomFields(rawEntries, requiredCustomFields, context.customFields);
+		checkCustomFields(context);
 		nextStep(result);
 
 		log.info("... Users");
@@ -896,12 +1370,12 @@ public class JiraImportPluginResource extends JiraBaseResource {
 
 		// Convert text to identifiers
 		log.info("Convert texts to identifiers");
-		convertTextToId(rawEntries, context);
+		convertTextToId(context);
 		nextStep(result);
 
 		// Compare changes for at least on change each line for each issue
 		log.info("Compute changes");
-		context.changes = checkChanges(rawEntries);
+		checkChanges(context);
 		nextStep(result);
 
 		// Compute labels
@@ -933,30 +1407,31 @@ public class JiraImportPluginResource extends JiraBaseResource {
 	private void validateSyntax(final ImportContext context, final ImportStatus result, final Reader csvInput)
 			throws IOException {
 
-		// Read all entries, may need extra memory at this moment ...
-		log.info("Read changes to import");
-		final var rawEntries = csvForBean.toBean(ImportEntry.class, csvInput);
-		result.setChanges(rawEntries.size());
-		if (rawEntries.isEmpty()) {
+		// Read, validate and group the changes in a single pass
+		log.info("Read and validate changes to import");
+		final var pkey = context.parameters.get(PARAMETER_PKEY);
+		final var reader = new BufferedReader(csvInput);
+		final var headers = StringUtils.split(StringUtils.trimToEmpty(reader.readLine()), ';');
+		final var beanReader = new CsvBeanReader<>(reader, ImportEntry.class, headers);
+		new ParallelEntryValidator(validatorBean, validationParallelism, validationMaxErrors).forEach(beanReader,
+				entry -> addChange(context, pkey, entry));
+		final var nbChanges = context.nbChanges;
+		result.setChanges(nbChanges);
+		if (nbChanges == 0) {
 			// No change
 			throw new ValidationJsonException("id", "Empty file, no change found");
 		}
-		nextStep(result);
+		context.issues = context.chronology.keySet();
+		log.info("Validated {} changes of {} issues, {} changes kept", nbChanges, context.issues.size(),
+				context.changes.values().stream().mapToInt(List::size).sum());
+		result.setIssues(context.issues.size());
+		result.setIssueFrom(context.issueFrom);
+		result.setIssueTo(context.issueTo);
 
-		log.info("Validate syntax of {} changes", rawEntries.size());
-		validatorBean.validateCheck(rawEntries);
+		// Reading, syntax, chronology and PKEY steps are done in a single pass
+		nextStep(result);
 		nextStep(result);
-
-		// Collect of foreign keys to validate/complete and initialize the
-		// business objects
-		log.info("Validate chronology and PKEY constant");
-		final var pkey = context.parameters.get(PARAMETER_PKEY);
-		context.issues = checkChronologyAndPkey(rawEntries, pkey);
-		result.setIssues(context.issues.size());
-		result.setIssueFrom(rawEntries.getFirst().getDateValid());
-		result.setIssueTo(rawEntries.getLast().getDateValid());
 		nextStep(result);
-		context.rawEntries = rawEntries;
 	}
 
 	private void validateWorkflowData(final ImportStatus result, final ImportContext context) {
@@ -0,0 +1,181 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.in;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ConstraintViolationException;
+
+import org.ligoj.app.plugin.jira.model.ImportEntry;
+import org.ligoj.bootstrap.core.csv.CsvBeanReader;
+import org.ligoj.bootstrap.core.validation.ValidatorBean;
+
+/**
+ * Bean validation of the imported changes in parallel. The changes are read by chunks, each chunk is validated in a
+ * dedicated {@link ForkJoinPool}, and the valid changes are given to the consumer in the file order. The violations
+ * are reported in the file order too, whatever the worker having found them.
+ */
+class ParallelEntryValidator {
+
+	/**
+	 * Amount of changes validated by a task.
+	 */
+	private static final int CHUNK = 1000;
+
+	private final ValidatorBean validator;
+	private final int parallelism;
+	private final int maxErrors;
+
+	/**
+	 * Failures of the invalid changes, in the file order.
+	 */
+	private final List<ConstraintViolationException> errors = new ArrayList<>();
+
+	/**
+	 * Position of each failure in {@link #errors}, starting from 1.
+	 */
+	private final List<Integer> rows = new ArrayList<>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param validator
+	 *            The bean validator, shared by the workers.
+	 * @param parallelism
+	 *            The amount of workers. When <code>1</code>, the changes are validated in the calling thread.
+	 * @param maxErrors
+	 *            The amount of invalid changes stopping the validation.
+	 */
+	ParallelEntryValidator(final ValidatorBean validator, final int parallelism, final int maxErrors) {
+		this.validator = validator;
+		this.parallelism = parallelism;
+		this.maxErrors = Math.max(1, maxErrors);
+	}
+
+	/**
+	 * Validate the changes of the reader and give the valid ones to the consumer, in the file order. The consumer is no
+	 * more called after the first invalid change, the next changes are only validated to report up to the maximal
+	 * amount of invalid changes.
+	 *
+	 * @param reader
+	 *            The change reader.
+	 * @param consumer
+	 *            The consumer of the valid changes.
+	 * @throws IOException
+	 *             When the changes could not be read.
+	 * @throws ConstraintViolationException
+	 *             When at least one change is invalid.
+	 */
+	void forEach(final CsvBeanReader<ImportEntry> reader, final Consumer<ImportEntry> consumer) throws IOException {
+		var row = 0;
+		if (parallelism <= 1) {
+			for (var entry = reader.read(); entry != null && !isFull(); entry = reader.read()) {
+				accept(++row, entry, validate(entry), consumer);
+			}
+		} else {
+			final var pool = new ForkJoinPool(parallelism);
+			try {
+				final Deque<List<ImportEntry>> chunks = new ArrayDeque<>();
+				final Deque<ForkJoinTask<List<ConstraintViolationException>>> pending = new ArrayDeque<>();
+				var chunk = read(reader);
+				while (!chunk.isEmpty() || !pending.isEmpty()) {
+					// Keep a bounded amount of read changes
+					while (!chunk.isEmpty() && pending.size() < parallelism * 2) {
+						chunks.add(chunk);
+						pending.add(pool.submit(validate(chunk)));
+						chunk = read(reader);
+					}
+					final var entries = chunks.poll();
+					final var failures = pending.poll().join();
+					for (var i = 0; i < entries.size() && !isFull(); i++) {
+						accept(++row, entries.get(i), failures.get(i), consumer);
+					}
+					if (isFull()) {
+						break;
+					}
+				}
+			} finally {
+				pool.shutdownNow();
+			}
+		}
+		if (!errors.isEmpty()) {
+			throw newException();
+		}
+	}
+
+	private boolean isFull() {
+		return errors.size() >= maxErrors;
+	}
+
+	/**
+	 * Read the next chunk of changes.
+	 */
+	private List<ImportEntry> read(final CsvBeanReader<ImportEntry> reader) throws IOException {
+		final List<ImportEntry> chunk = new ArrayList<>(CHUNK);
+		for (var entry = reader.read(); entry != null; entry = chunk.size() < CHUNK ? reader.read() : null) {
+			chunk.add(entry);
+		}
+		return chunk;
+	}
+
+	/**
+	 * Return the validation task of a chunk : the failure of each change, <code>null</code> for a valid change.
+	 */
+	private ForkJoinTask<List<ConstraintViolationException>> validate(final List<ImportEntry> chunk) {
+		return ForkJoinTask.adapt(() -> chunk.stream().map(this::validate).toList());
+	}
+
+	/**
+	 * Validate a change and return its failure, <code>null</code> when valid.
+	 */
+	private ConstraintViolationException validate(final ImportEntry entry) {
+		try {
+			validator.validateCheck(entry);
+			return null;
+		} catch (final ConstraintViolationException e) {
+			return e;
+		}
+	}
+
+	/**
+	 * Give a valid change to the consumer until the first invalid change, and collect the failures.
+	 */
+	private void accept(final int row, final ImportEntry entry, final ConstraintViolationException failure,
+			final Consumer<ImportEntry> consumer) {
+		if (failure != null) {
+			errors.add(failure);
+			rows.add(row);
+		} else if (errors.isEmpty()) {
+			consumer.accept(entry);
+		}
+	}
+
+	/**
+	 * Return the failure of the single invalid change, or the merged violations of the invalid changes.
+	 */
+	private ConstraintViolationException newException() {
+		if (errors.size() == 1) {
+			return errors.get(0);
+		}
+		final Set<ConstraintViolation<?>> violations = new LinkedHashSet<>();
+		final List<String> messages = new ArrayList<>();
+		for (var i = 0; i < errors.size(); i++) {
+			violations.addAll(errors.get(i).getConstraintViolations());
+			messages.add("change " + rows.get(i) + ": " + errors.get(i).getConstraintViolations().stream()
+					.map(v -> v.getPropertyPath() + " " + v.getMessage()).collect(Collectors.joining(", ")));
+		}
+		return new ConstraintViolationException(String.join("; ", messages), violations);
+	}
+}
@@ -5,6 +5,7 @@ package org.ligoj.app.plugin.jira.model;
 
 import java.util.Date;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Table;
 import jakarta.persistence.UniqueConstraint;
@@ -52,4 +53,32 @@ public class ImportStatus extends AbstractLongTaskSubscription {
 	private Boolean canSynchronizeJira;
 	private Boolean synchronizedJira;
 
+	/**
+	 * Greatest issue number of the last chunk committed by the last import. Is kept after a failure, the next import of
+	 * the same file skips the issues up to this number already persisted in JIRA.
+	 */
+	private Integer checkpoint;
+
+	/**
+	 * SHA-256 fingerprint of the file of the {@link #checkpoint}. Another file does not resume the import.
+	 */
+	private String checkpointFile;
+
+	/**
+	 * Span of the identifiers handed out to the committed chunks of the last import, by sequence, like
+	 * "Issue:10100-10300,OSCurrentStep:10200-10400". The end is excluded. Is kept after the import.
+	 */
+	@Column(length = 2000)
+	private String checkpointRanges;
+
+	/**
+	 * Amount of issues skipped because already persisted by a previous failed import.
+	 */
+	private Integer resumedIssues;
+
+	/**
+	 * Amount of existing issues changed by an update import.
+	 */
+	private Integer updatedIssues;
+
 }
@@ -0,0 +1,52 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.model;
+
+import java.util.Date;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import org.ligoj.bootstrap.core.model.AbstractPersistable;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * SLA checkpoint of a subscription : the high-water mark of the JIRA changes already computed, and the configuration
+ * used for the computed issues. The computed issues are stored in {@link SlaCheckpointIssue}.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_BT_SLA_CHECKPOINT", uniqueConstraints = @UniqueConstraint(columnNames = "subscription"))
+public class SlaCheckpoint extends AbstractPersistable<Integer> {
+
+	/**
+	 * The subscription identifier.
+	 */
+	private int subscription;
+
+	/**
+	 * Digest of the SLA, business hours and holidays configuration of the computed issues.
+	 */
+	private String configuration;
+
+	/**
+	 * When <code>true</code>, the computed issues include the time spent data.
+	 */
+	private boolean timing;
+
+	/**
+	 * The last update date of the computed issues and changes.
+	 */
+	private Date watermark;
+
+	/**
+	 * The last change group identifier of the computed changes.
+	 */
+	private int watermarkId;
+
+}
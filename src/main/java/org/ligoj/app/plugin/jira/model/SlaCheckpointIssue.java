@@ -0,0 +1,42 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.model;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Lob;
+import jakarta.persistence.Table;
+import jakarta.persistence.UniqueConstraint;
+
+import org.ligoj.bootstrap.core.model.AbstractPersistable;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A computed issue of a {@link SlaCheckpoint}. Only the resolved issues are stored.
+ */
+@Getter
+@Setter
+@Entity
+@Table(name = "LIGOJ_BT_SLA_CHECKPOINT_ISSUE", uniqueConstraints = @UniqueConstraint(columnNames = { "subscription",
+		"issue" }))
+public class SlaCheckpointIssue extends AbstractPersistable<Integer> {
+
+	/**
+	 * The subscription identifier.
+	 */
+	private int subscription;
+
+	/**
+	 * The JIRA issue identifier.
+	 */
+	private int issue;
+
+	/**
+	 * The computed issue, JSON serialized.
+	 */
+	@Lob
+	private String data;
+
+}
@@ -26,6 +26,11 @@ public enum UploadMode {
 	/**
 	 * Validate and insert data.
 	 */
-	FULL
+	FULL,
+
+	/**
+	 * Validate, insert the new issues and update the existing ones.
+	 */
+	UPDATE
 
 }
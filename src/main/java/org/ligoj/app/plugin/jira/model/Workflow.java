@@ -26,4 +26,9 @@ public class Workflow {
 	 * The mapping status to step identifier/name.
 	 */
 	private Map<String, INamableBean<Integer>> statusToSteps;
+
+	/**
+	 * The parsed descriptor. <code>null</code> for the implicit 'jira' workflow.
+	 */
+	private WorkflowDescriptor descriptor;
 }
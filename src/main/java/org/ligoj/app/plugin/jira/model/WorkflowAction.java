@@ -0,0 +1,30 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.model;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A transition of a workflow descriptor.
+ */
+@Getter
+@Setter
+public class WorkflowAction {
+
+	/**
+	 * The action identifier, unique within the workflow.
+	 */
+	private Integer id;
+
+	/**
+	 * The action's name.
+	 */
+	private String name;
+
+	/**
+	 * The target step identifier of the unconditional result. May be <code>null</code>.
+	 */
+	private Integer step;
+}
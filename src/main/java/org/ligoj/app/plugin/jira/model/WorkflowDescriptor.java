@@ -0,0 +1,46 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.model;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A parsed workflow descriptor : steps, transitions and step to status mapping.
+ */
+@Getter
+@Setter
+public class WorkflowDescriptor {
+
+	/**
+	 * The steps by identifier, in the descriptor order.
+	 */
+	private Map<Integer, WorkflowStep> steps = new LinkedHashMap<>();
+
+	/**
+	 * The initial, common, global and step actions by identifier.
+	 */
+	private Map<Integer, WorkflowAction> actions = new LinkedHashMap<>();
+
+	/**
+	 * The identifiers of the actions creating an issue.
+	 */
+	private List<Integer> initialActions = new ArrayList<>();
+
+	/**
+	 * Return the step of each status. When several steps share the same status, the last one is kept.
+	 *
+	 * @return The steps by status identifier, in the descriptor order.
+	 */
+	public Map<Integer, WorkflowStep> getStatusToStep() {
+		final Map<Integer, WorkflowStep> result = new LinkedHashMap<>();
+		steps.values().stream().filter(s -> s.getStatus() != null).forEach(s -> result.put(s.getStatus(), s));
+		return result;
+	}
+}
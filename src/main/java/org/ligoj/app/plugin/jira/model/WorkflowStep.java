@@ -0,0 +1,38 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A step of a workflow descriptor.
+ */
+@Getter
+@Setter
+public class WorkflowStep {
+
+	/**
+	 * The step identifier, unique within the workflow.
+	 */
+	private Integer id;
+
+	/**
+	 * The step's name.
+	 */
+	private String name;
+
+	/**
+	 * The linked status identifier. May be <code>null</code>.
+	 */
+	private Integer status;
+
+	/**
+	 * The identifiers of the actions available from this step, including the common ones.
+	 */
+	private List<Integer> actions = new ArrayList<>();
+}
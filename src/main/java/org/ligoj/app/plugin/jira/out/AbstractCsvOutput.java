@@ -3,21 +3,20 @@
  */
 package org.ligoj.app.plugin.jira.out;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.Writer;
 import java.text.Format;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.TimeZone;
 
 import jakarta.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.StringUtils;
-import org.apache.commons.lang3.time.DurationFormatUtils;
-import org.apache.commons.lang3.time.FastDateFormat;
 import org.ligoj.app.plugin.bt.model.IssueDetails;
 import org.ligoj.app.resource.NormalizeFormat;
 
@@ -31,6 +30,11 @@ public abstract class AbstractCsvOutput implements StreamingOutput {
 	protected final Map<Integer, String> typeText;
 	protected final Map<Integer, String> priorityText;
 
+	/**
+	 * The normalized status mapping: identifier to normalized name. Computed once per export.
+	 */
+	protected Map<Integer, String> normalizedStatusText;
+
 	/**
 	 *
 	 * @param priorityText   The priority mapping: identifier to name.
@@ -48,15 +52,27 @@ public abstract class AbstractCsvOutput implements StreamingOutput {
 
 	@Override
 	public void write(final OutputStream output) throws IOException {
-		final Writer writer = new BufferedWriter(new OutputStreamWriter(output, "cp1252"));
-		final FastDateFormat df = FastDateFormat.getInstance("yyyy/MM/dd HH:mm:ss");
+		write(new CsvWriter(new OutputStreamWriter(output, "cp1252"), ExportEncoding.BUFFER_SIZE,
+				TimeZone.getDefault()));
+	}
+
+	/**
+	 * Write the CSV headers and data to a cell writer.
+	 *
+	 * @param writer Target output. Flushed, but not closed.
+	 * @throws IOException When data could not be written.
+	 */
+	public void write(final CsvWriter writer) throws IOException {
+		// Normalize the status texts once
 		final Format idf = new NormalizeFormat();
+		normalizedStatusText = new HashMap<>();
+		statusText.forEach((id, text) -> normalizedStatusText.put(id, idf.format(text)));
 
 		// Write headers
 		writeHeaders(writer);
 
 		// Write data
-		writeData(writer, df, idf);
+		writeData(writer);
 		writer.flush();
 	}
 
@@ -74,6 +90,40 @@ public abstract class AbstractCsvOutput implements StreamingOutput {
 		writer.write(";created;createdTimestamp;reporter;assignee;dueDate;dueDateTimestamp");
 	}
 
+	/**
+	 * Return the typed schema of the CSV columns, in the order of the headers.
+	 *
+	 * @return The typed schema.
+	 */
+	public CsvSchema getSchema() {
+		final var schema = new CsvSchema();
+		writeSchema(schema);
+		return schema;
+	}
+
+	/**
+	 * Basic column types, matching {@link #writeNonSlaHeaders(Writer)}.
+	 *
+	 * @param schema Target schema.
+	 */
+	protected void writeNonSlaSchema(final CsvSchema schema) {
+		schema.add("id", CsvSchema.INTEGER).add("issue", CsvSchema.STRING);
+		schema.add("status", CsvSchema.INTEGER).add("statusText", CsvSchema.STRING);
+		schema.add("type", CsvSchema.INTEGER).add("typeText", CsvSchema.STRING);
+		schema.add("priority", CsvSchema.INTEGER).add("priorityText", CsvSchema.STRING);
+		schema.add("resolution", CsvSchema.INTEGER).add("resolutionText", CsvSchema.STRING);
+		schema.add("created", CsvSchema.TIMESTAMP).add("createdTimestamp", CsvSchema.LONG);
+		schema.add("reporter", CsvSchema.STRING).add("assignee", CsvSchema.STRING);
+		schema.add("dueDate", CsvSchema.TIMESTAMP).add("dueDateTimestamp", CsvSchema.LONG);
+	}
+
+	/**
+	 * Write the column types, matching {@link #writeHeaders(Writer)}.
+	 *
+	 * @param schema Target schema.
+	 */
+	protected abstract void writeSchema(CsvSchema schema);
+
 	/**
 	 * Write CSV header. Ends with new line.
 	 *
@@ -86,54 +136,49 @@ public abstract class AbstractCsvOutput implements StreamingOutput {
 	 * Write issues data. Ends with new line.
 	 *
 	 * @param writer Target output.
-	 * @param df     The {@link Format} used to write the date when not <code>null</code>.
-	 * @param idf    The identifier format.
 	 * @throws IOException When data could not be written.
 	 */
-	protected abstract void writeData(Writer writer, Format df, Format idf) throws IOException;
+	protected abstract void writeData(CsvWriter writer) throws IOException;
 
 	/**
 	 * Write issue data
 	 *
 	 * @param issue  The issue to write.
 	 * @param writer Target output.
-	 * @param df     The {@link Format} used to write the date when not <code>null</code>.
-	 * @param idf    The identifier format.
 	 * @throws IOException When data could not be written.
 	 */
-	protected void writeIssueData(final IssueDetails issue, final Writer writer, final Format df, final Format idf)
-			throws IOException {
+	protected void writeIssueData(final IssueDetails issue, final CsvWriter writer) throws IOException {
 		// Write static data
-		writer.write(issue.getId().toString());
+		writer.writeInt(issue.getId());
 		writer.write(';');
 		writer.write(issue.getPkey());
 
 		// Status
 		writer.write(';');
-		writer.write(String.valueOf(issue.getStatus()));
+		writer.writeInt(issue.getStatus());
 		writer.write(';');
-		writer.write(idf.format(statusText.get(issue.getStatus())));
+		writer.write(normalizedStatusText.getOrDefault(issue.getStatus(), ""));
 
 		// Type
 		writer.write(';');
-		writer.write(String.valueOf(issue.getType()));
+		writer.writeInt(issue.getType());
 		writer.write(';');
 		writer.write(typeText.get(issue.getType()));
 
 		// Priority
 		writer.write(';');
-		writer.write(String.valueOf(ObjectUtils.getIfNull(issue.getPriority(), "")));
+		writer.writeNumber(issue.getPriority());
 		writer.write(';');
 		writer.write(ObjectUtils.getIfNull(priorityText.get(issue.getPriority()), ""));
 
 		// Resolution
 		writer.write(';');
-		writer.write(String.valueOf(ObjectUtils.getIfNull(issue.getResolution(), "")));
+		writer.writeNumber(issue.getResolution());
 		writer.write(';');
 		writer.write(ObjectUtils.getIfNull(resolutionText.get(issue.getResolution()), ""));
 
 		// Creation
-		writeDate(writer, df, issue.getCreated());
+		writeDate(writer, issue.getCreated());
 
 		// Reporter
 		writer.write(';');
@@ -144,27 +189,27 @@ public abstract class AbstractCsvOutput implements StreamingOutput {
 		writer.write(StringUtils.trimToEmpty(issue.getAssignee()));
 
 		// Due date
-		writeDate(writer, df, issue.getDueDate());
+		writeDate(writer, issue.getDueDate());
 	}
 
 	/**
-	 * Write a date using the given format and in millisecond format, so 2 strings are added in the CSV output.
-	 * <code>null</code> management is performed there. Empty {@link String} is written with <code>null</code> date.
+	 * Write a date using the "yyyy/MM/dd HH:mm:ss" format and in millisecond format, so 2 strings are added in the CSV
+	 * output. <code>null</code> management is performed there. Empty {@link String} is written with <code>null</code>
+	 * date.
 	 *
 	 * @param writer The target output.
-	 * @param df     The {@link Format} used to write the date when not <code>null</code>.
 	 * @param date   The {@link Date} to write.
 	 * @throws IOException When data could not be written.
 	 */
-	protected void writeDate(final Writer writer, final Format df, final Date date) throws IOException {
+	protected void writeDate(final CsvWriter writer, final Date date) throws IOException {
 		if (date == null) {
 			// null date
 			writer.write(";;");
 		} else {
 			writer.write(';');
-			writer.write(df.format(date));
+			writer.writeDate(date);
 			writer.write(';');
-			writer.write(String.valueOf(date.getTime()));
+			writer.writeLong(date.getTime());
 		}
 	}
 
@@ -176,19 +221,15 @@ public abstract class AbstractCsvOutput implements StreamingOutput {
 	 * @param duration The duration to write, in milliseconds.
 	 * @throws IOException When data could not be written.
 	 */
-	protected void writeDuration(final Writer writer, final Long duration) throws IOException {
+	protected void writeDuration(final CsvWriter writer, final Long duration) throws IOException {
 		if (duration == null) {
 			// null duration
 			writer.write(";;");
 		} else {
 			writer.write(';');
-			if (duration < 0) {
-				// Add the sign before the HMS value
-				writer.write('-');
-			}
-			writer.write(DurationFormatUtils.formatDuration(Math.abs(duration), "HH:mm:ss"));
+			writer.writeDuration(duration);
 			writer.write(';');
-			writer.write(String.valueOf(duration));
+			writer.writeLong(duration);
 		}
 	}
 }
@@ -0,0 +1,315 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.Buffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.VarCharVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.compression.CompressionUtil;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.message.IpcOption;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.TimeUnit;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.arrow.vector.types.pojo.FieldType;
+import org.apache.arrow.vector.types.pojo.Schema;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.io.output.StringBuilderWriter;
+
+/**
+ * Arrow IPC stream output of a CSV export : same columns and same data, typed by the schema of the CSV export and
+ * compressed with ZSTD. The CSV output writes its cells to the vectors, and the rows are sent by record batches, so
+ * only one batch is kept in memory. The dates are UTC timestamps in milliseconds, and the decimal numbers are doubles.
+ */
+public class ArrowStreamingOutput implements StreamingOutput {
+
+	/**
+	 * Media type of the Arrow IPC streams.
+	 */
+	public static final String MEDIA_TYPE = "application/vnd.apache.arrow.stream";
+
+	/**
+	 * JVM option required by the Arrow memory to access the direct buffers.
+	 */
+	public static final String JVM_OPTION = "--add-opens=java.base/java.nio=ALL-UNNAMED";
+
+	private final AbstractCsvOutput csv;
+
+	private final int batchSize;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param csv       The CSV export to convert.
+	 * @param batchSize The maximal amount of rows of a record batch.
+	 */
+	public ArrowStreamingOutput(final AbstractCsvOutput csv, final int batchSize) {
+		this.csv = csv;
+		this.batchSize = Math.max(batchSize, 1);
+	}
+
+	/**
+	 * Indicate the Arrow memory can be allocated in this JVM : the <code>java.nio</code> package must be open to this
+	 * module, see {@link #JVM_OPTION}.
+	 *
+	 * @return <code>true</code> when the Arrow exports are available.
+	 */
+	public static boolean isSupported() {
+		return Buffer.class.getModule().isOpen(Buffer.class.getPackageName(), ArrowStreamingOutput.class.getModule());
+	}
+
+	/**
+	 * Return the Arrow schema of the CSV export.
+	 *
+	 * @return The Arrow schema, in the order of the CSV columns.
+	 */
+	public Schema getSchema() {
+		final List<Field> fields = new ArrayList<>();
+		for (final CsvSchema.Field field : csv.getSchema().getSchema().getFields()) {
+			fields.add(new Field(field.getName(), FieldType.nullable(toArrowType(field.getType())), null));
+		}
+		return new Schema(fields);
+	}
+
+	/**
+	 * Return the Arrow type of a CSV column type.
+	 */
+	private static ArrowType toArrowType(final String type) {
+		return switch (type) {
+		case CsvSchema.INTEGER -> new ArrowType.Int(32, true);
+		case CsvSchema.LONG -> new ArrowType.Int(64, true);
+		case CsvSchema.TIMESTAMP -> new ArrowType.Timestamp(TimeUnit.MILLISECOND, "UTC");
+		case CsvSchema.DECIMAL -> new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE);
+		default -> ArrowType.Utf8.INSTANCE;
+		};
+	}
+
+	@Override
+	public void write(final OutputStream output) throws IOException {
+		// The target stream is owned by the container
+		try (var allocator = new RootAllocator();
+				var root = VectorSchemaRoot.create(getSchema(), allocator);
+				var writer = new ArrowStreamWriter(root, null, Channels.newChannel(CloseShieldOutputStream.wrap(output)),
+						IpcOption.DEFAULT, CommonsCompressionFactory.INSTANCE, CompressionUtil.CodecType.ZSTD)) {
+			root.allocateNew();
+			writer.start();
+			final var rows = new RowWriter(root, writer);
+			csv.write(rows);
+			rows.writeBatch();
+			writer.end();
+		}
+		output.flush();
+	}
+
+	/**
+	 * Cell writer filling the vectors row by row, and sending the full record batches. The numbers, the dates and the
+	 * decimals written by the CSV output are set as they are in the typed vectors, without text conversion. The other
+	 * values are written as text in the string vectors. The first line, the headers, is skipped. An empty cell, or an
+	 * unresolved value of a typed column, is <code>null</code>.
+	 */
+	private class RowWriter extends CsvWriter {
+
+		private final VectorSchemaRoot root;
+		private final ArrowStreamWriter writer;
+		private final List<FieldVector> vectors;
+
+		/**
+		 * Text of the current cell, formatted as in the CSV export.
+		 */
+		private final StringBuilderWriter cell = new StringBuilderWriter();
+		private final CsvWriter text = new CsvWriter(cell, 64, TimeZone.getDefault());
+		private boolean headers = true;
+
+		/**
+		 * When <code>true</code>, the value of the current cell is set in its typed vector.
+		 */
+		private boolean typed;
+		private int column;
+		private int row;
+
+		private RowWriter(final VectorSchemaRoot root, final ArrowStreamWriter writer) {
+			super(Writer.nullWriter(), 64, TimeZone.getDefault());
+			this.root = root;
+			this.writer = writer;
+			this.vectors = root.getFieldVectors();
+		}
+
+		@Override
+		public void write(final int c) throws IOException {
+			// A single quote only protects the cell
+			if (c != '"') {
+				writeText((char) c);
+			}
+		}
+
+		@Override
+		public void write(final char[] chars, final int offset, final int length) throws IOException {
+			for (var i = offset; i < offset + length; i++) {
+				writeText(chars[i]);
+			}
+		}
+
+		@Override
+		public void write(final String str, final int offset, final int length) throws IOException {
+			for (var i = offset; i < offset + length; i++) {
+				writeText(str.charAt(i));
+			}
+		}
+
+		private void writeText(final char c) throws IOException {
+			if (headers) {
+				headers = c != '\n';
+			} else if (c == ';') {
+				endCell();
+			} else if (c == '\n') {
+				endCell();
+				endRow();
+			} else {
+				text.write(c);
+			}
+		}
+
+		@Override
+		public void writeLong(final long value) throws IOException {
+			final var vector = getVector();
+			if (vector instanceof BigIntVector v) {
+				v.setSafe(row, value);
+				typed = true;
+			} else if (vector instanceof IntVector v) {
+				v.setSafe(row, Math.toIntExact(value));
+				typed = true;
+			} else {
+				text.writeLong(value);
+			}
+		}
+
+		@Override
+		public void writeDate(final long time) throws IOException {
+			if (getVector() instanceof TimeStampMilliTZVector v) {
+				v.setSafe(row, time);
+				typed = true;
+			} else {
+				text.writeDate(time);
+			}
+		}
+
+		@Override
+		public void writeDecimal(final Number value) throws IOException {
+			if (getVector() instanceof Float8Vector v) {
+				v.setSafe(row, value.doubleValue());
+				typed = true;
+			} else {
+				text.writeDecimal(value);
+			}
+		}
+
+		@Override
+		public void writeInvalid() throws IOException {
+			// No typed value, the cell of a typed column stays null
+			if (getVector() instanceof VarCharVector) {
+				text.writeInvalid();
+			}
+		}
+
+		@Override
+		public void writeDuration(final long duration) throws IOException {
+			text.writeDuration(duration);
+		}
+
+		@Override
+		public void writeQuoted(final String value) throws IOException {
+			// Not protected, the quotes are kept
+			text.write(value);
+		}
+
+		@Override
+		public void writeEscaped(final String value) throws IOException {
+			text.write(value.replace(';', ','));
+		}
+
+		/**
+		 * Return the vector of the current cell, <code>null</code> for a cell out of the schema.
+		 */
+		private FieldVector getVector() {
+			return column < vectors.size() ? vectors.get(column) : null;
+		}
+
+		private void endCell() throws IOException {
+			final var vector = getVector();
+			if (vector != null) {
+				text.flush();
+				final var value = cell.getBuilder();
+				if (vector instanceof VarCharVector v) {
+					if (value.isEmpty()) {
+						v.setNull(row);
+					} else {
+						v.setSafe(row, value.toString().getBytes(StandardCharsets.UTF_8));
+					}
+				} else if (!value.isEmpty()) {
+					// The written value does not match the schema
+					throw new IllegalStateException("Value '" + value + "' does not match the type "
+							+ vector.getField().getType() + " of column " + vector.getName());
+				} else if (!typed) {
+					vector.setNull(row);
+				}
+			}
+			column++;
+			typed = false;
+			cell.getBuilder().setLength(0);
+		}
+
+		private void endRow() throws IOException {
+			// Missing cells are null
+			while (column < vectors.size()) {
+				vectors.get(column++).setNull(row);
+			}
+			column = 0;
+			row++;
+			if (row == batchSize) {
+				writeBatch();
+			}
+		}
+
+		/**
+		 * Send the pending rows, and reuse the vectors for the next batch.
+		 */
+		private void writeBatch() throws IOException {
+			if (row > 0) {
+				root.setRowCount(row);
+				writer.writeBatch();
+				vectors.forEach(FieldVector::reset);
+				row = 0;
+			}
+		}
+
+		@Override
+		public void flush() {
+			// Rows are sent by batches
+		}
+
+		@Override
+		public void close() {
+			// The batches are ended by the Arrow output
+		}
+	}
+}
@@ -0,0 +1,107 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import lombok.Getter;
+
+/**
+ * Typed schema of a CSV export : the reader options and the type of each column, in the order of the headers. The
+ * schema follows the Spark "struct" JSON format, so the export can be loaded without type inference.
+ */
+@Getter
+public class CsvSchema {
+
+	/**
+	 * 32 bits integer type.
+	 */
+	public static final String INTEGER = "integer";
+
+	/**
+	 * 64 bits integer type.
+	 */
+	public static final String LONG = "long";
+
+	/**
+	 * Text type.
+	 */
+	public static final String STRING = "string";
+
+	/**
+	 * Date type, see the "timestampFormat" option.
+	 */
+	public static final String TIMESTAMP = "timestamp";
+
+	/**
+	 * Decimal number type, with ',' as decimal separator. See the "locale" option.
+	 */
+	public static final String DECIMAL = "decimal(38,10)";
+
+	/**
+	 * The CSV reader options matching the CSV writers.
+	 */
+	private final Map<String, String> options = new LinkedHashMap<>();
+
+	/**
+	 * The column types.
+	 */
+	private final Struct schema = new Struct();
+
+	/**
+	 * Constructor with the options of the CSV writers.
+	 */
+	public CsvSchema() {
+		options.put("header", "true");
+		options.put("sep", ";");
+		options.put("quote", "\"");
+		options.put("escape", "\"");
+		options.put("encoding", "windows-1252");
+		options.put("timestampFormat", "yyyy/MM/dd HH:mm:ss");
+		options.put("locale", "fr-FR");
+	}
+
+	/**
+	 * Add a column.
+	 *
+	 * @param name
+	 *            The column name, as written in the headers.
+	 * @param type
+	 *            The column type.
+	 * @return this instance.
+	 */
+	public CsvSchema add(final String name, final String type) {
+		schema.fields.add(new Field(name, type));
+		return this;
+	}
+
+	/**
+	 * Ordered columns.
+	 */
+	@Getter
+	public static class Struct {
+		private final String type = "struct";
+		private final List<Field> fields = new ArrayList<>();
+	}
+
+	/**
+	 * Typed column. All columns are nullable.
+	 */
+	@Getter
+	public static class Field {
+		private final String name;
+		private final String type;
+		private final boolean nullable = true;
+		private final Map<String, String> metadata = Collections.emptyMap();
+
+		private Field(final String name, final String type) {
+			this.name = name;
+			this.type = type;
+		}
+	}
+}
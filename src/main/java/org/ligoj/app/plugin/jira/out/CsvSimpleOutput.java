@@ -5,7 +5,6 @@ package org.ligoj.app.plugin.jira.out;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.text.Format;
 
 import org.ligoj.app.plugin.jira.JiraSimpleExport;
 import org.ligoj.app.plugin.jira.dao.JiraIssueRow;
@@ -45,22 +44,28 @@ public class CsvSimpleOutput extends AbstractCsvOutput {
 	}
 
 	@Override
-	protected void writeData(final Writer writer, final Format df, final Format idf) throws IOException {
+	protected void writeSchema(final CsvSchema schema) {
+		writeNonSlaSchema(schema);
+		schema.add("summary", CsvSchema.STRING);
+	}
+
+	@Override
+	protected void writeData(final CsvWriter writer) throws IOException {
 		for (final JiraIssueRow issue : export.getIssues()) {
 			// Write static data
-			writeIssueData(issue, writer, df, idf);
+			writeIssueData(issue, writer);
 			writer.write('\n');
 		}
 	}
 
 	@Override
-	protected void writeIssueData(final IssueDetails issue, final Writer writer, final Format df, final Format idf) throws IOException {
-		super.writeIssueData(issue, writer, df, idf);
+	protected void writeIssueData(final IssueDetails issue, final CsvWriter writer) throws IOException {
+		super.writeIssueData(issue, writer);
 
 		// Write the escaped summary
 		writer.write(';');
 		writer.append('\"');
-		writer.append(((JiraIssueRow) issue).getSummary().replace("\"", "\"\""));
+		writer.writeQuoted(((JiraIssueRow) issue).getSummary());
 		writer.append('\"');
 	}
 
@@ -0,0 +1,58 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.function.Consumer;
+
+import org.ligoj.app.plugin.bt.IssueSla;
+import org.ligoj.app.plugin.jira.JiraSlaComputations;
+
+/**
+ * CSV output writer of SLA computations produced issue by issue. Each line is written as soon as the SLA of its issue
+ * is computed, so the whole issue history is never held in memory.
+ */
+public class CsvSlaStreamingOutput extends CsvStreamingOutput {
+
+	private final Consumer<Consumer<IssueSla>> issues;
+
+	/**
+	 * Constructor for database online data.
+	 *
+	 * @param slaComputations
+	 *            SLA computations without issues, but with the SLA configurations.
+	 * @param issues
+	 *            The issue source, called once with the consumer receiving the computed issues ordered by identifier.
+	 */
+	public CsvSlaStreamingOutput(final JiraSlaComputations slaComputations, final Consumer<Consumer<IssueSla>> issues) {
+		super(slaComputations);
+		this.issues = issues;
+	}
+
+	@Override
+	protected void writeHeaders(final Writer writer) throws IOException {
+		super.writeHeaders(writer);
+
+		// Send the headers before the first issue is computed
+		writer.flush();
+	}
+
+	@Override
+	protected void writeData(final CsvWriter writer) throws IOException {
+		try {
+			issues.accept(issue -> {
+				try {
+					writeIssue(issue, writer);
+				} catch (final IOException e) {
+					throw new UncheckedIOException(e);
+				}
+			});
+		} catch (final UncheckedIOException e) {
+			// Client has likely closed the connection
+			throw e.getCause();
+		}
+	}
+}
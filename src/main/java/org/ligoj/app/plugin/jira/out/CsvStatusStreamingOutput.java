@@ -5,12 +5,11 @@ package org.ligoj.app.plugin.jira.out;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.text.Format;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import org.apache.commons.lang3.ObjectUtils;
+import org.ligoj.app.plugin.jira.dao.JiraChangeHistory;
 import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
 
 /**
@@ -18,7 +17,7 @@ import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
  */
 public class CsvStatusStreamingOutput extends AbstractCsvOutput {
 
-	protected final List<JiraChangeItem> changes;
+	protected final JiraChangeHistory history;
 
 	/**
 	 * Constructor for database offline data.
@@ -29,8 +28,20 @@ public class CsvStatusStreamingOutput extends AbstractCsvOutput {
 	 *            Status mapping, identifier to text.
 	 */
 	public CsvStatusStreamingOutput(final List<JiraChangeItem> changes, final Map<Integer, String> statusText) {
+		this(JiraChangeHistory.of(changes), statusText);
+	}
+
+	/**
+	 * Constructor for database offline data.
+	 * 
+	 * @param history
+	 *            Status change history.
+	 * @param statusText
+	 *            Status mapping, identifier to text.
+	 */
+	public CsvStatusStreamingOutput(final JiraChangeHistory history, final Map<Integer, String> statusText) {
 		super(null, null, statusText, null);
-		this.changes = changes;
+		this.history = history;
 	}
 
 	@Override
@@ -39,41 +50,51 @@ public class CsvStatusStreamingOutput extends AbstractCsvOutput {
 	}
 
 	@Override
-	protected void writeData(final Writer writer, final Format df, final Format idf) throws IOException {
-		final Map<Integer, String> idToKey = new HashMap<>();
-		for (final JiraChangeItem change : changes) {
-			// Complete mapping
-			if (change.getPkey() != null) {
-				idToKey.put(change.getId(), change.getPkey());
-			}
+	protected void writeSchema(final CsvSchema schema) {
+		schema.add("issueid", CsvSchema.INTEGER).add("key", CsvSchema.STRING).add("author", CsvSchema.STRING);
+		schema.add("from", CsvSchema.INTEGER).add("to", CsvSchema.INTEGER);
+		schema.add("fromText", CsvSchema.STRING).add("toText", CsvSchema.STRING);
+		schema.add("date", CsvSchema.TIMESTAMP).add("dateTimestamp", CsvSchema.LONG);
+	}
 
-			// Write static data
-			writeData(change, idToKey.get(change.getId()), writer, df, idf);
+	@Override
+	protected void writeData(final CsvWriter writer) throws IOException {
+		for (var index = 0; index < history.size(); index++) {
+			writeData(index, writer);
 			writer.write('\n');
 		}
 	}
 
 	/**
-	 * Write issue data
+	 * Write change data
 	 */
-	private void writeData(final JiraChangeItem change, final String key, final Writer writer, final Format df, final Format idf) throws IOException {
+	private void writeData(final int index, final CsvWriter writer) throws IOException {
+		final int issue = history.getIssue(index);
+		final int from = history.getFromStatus(index);
+		final int to = history.getToStatus(index);
+		final long created = history.getCreated(index);
+
 		// Write static data
-		writer.write(change.getId().toString());
+		writer.writeInt(issue);
 		writer.write(';');
-		writer.write(key);
+		writer.write(ObjectUtils.getIfNull(history.getKey(issue), ""));
 		writer.write(';');
-		writer.write(ObjectUtils.getIfNull(change.getAuthor(), change.getReporter()));
+		writer.write(ObjectUtils.getIfNull(history.getAuthor(index), ""));
 		writer.write(';');
-		writer.write(ObjectUtils.getIfNull(change.getFromStatus(), "").toString());
+		if (from != JiraChangeHistory.NO_STATUS) {
+			writer.writeInt(from);
+		}
 		writer.write(';');
-		writer.write(String.valueOf(change.getToStatus()));
+		writer.writeInt(to);
 		writer.write(';');
-		writer.write(idf.format(ObjectUtils.getIfNull(statusText.get(change.getFromStatus()), "")));
+		if (from != JiraChangeHistory.NO_STATUS) {
+			writer.write(normalizedStatusText.getOrDefault(from, ""));
+		}
 		writer.write(';');
-		writer.write(idf.format(statusText.get(change.getToStatus())));
+		writer.write(normalizedStatusText.getOrDefault(to, ""));
 		writer.write(';');
-		writer.write(df.format(change.getCreated()));
+		writer.writeDate(created);
 		writer.write(';');
-		writer.write(String.valueOf(change.getCreated().getTime()));
+		writer.writeLong(created);
 	}
 }
@@ -5,11 +5,11 @@ package org.ligoj.app.plugin.jira.out;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.text.Format;
 import java.util.Comparator;
 import java.util.Map;
 
-import org.apache.commons.lang3.ObjectUtils;
+import javax.sql.DataSource;
+
 import org.ligoj.app.plugin.bt.IssueSla;
 import org.ligoj.app.plugin.bt.SlaConfiguration;
 import org.ligoj.app.plugin.bt.SlaData;
@@ -38,6 +38,15 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 		slaComputations.setIssues(slaComputations.getIssues().stream().sorted(Comparator.comparing(AbstractPersistable::getId)).toList());
 	}
 
+	/**
+	 * Return the data source read during the serialization.
+	 *
+	 * @return The data source of JIRA database.
+	 */
+	public DataSource getDataSource() {
+		return slaComputations.getDataSource();
+	}
+
 	@Override
 	protected void writeHeaders(final Writer writer) throws IOException {
 		writeNonSlaHeaders(writer);
@@ -51,6 +60,26 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 		writer.write('\n');
 	}
 
+	@Override
+	protected void writeSchema(final CsvSchema schema) {
+		writeNonSlaSchema(schema);
+
+		// SLA types
+		for (final SlaConfiguration sla : slaComputations.getSlaConfigurations()) {
+			final var prefix = "[SLA] " + sla.getName();
+			schema.add(prefix + "(h:m:s)", CsvSchema.STRING).add(prefix + "(ms)", CsvSchema.LONG);
+			schema.add(prefix + "(Start)", CsvSchema.TIMESTAMP).add(prefix + "(Start timestamp)", CsvSchema.LONG);
+			schema.add(prefix + "(Stop)", CsvSchema.TIMESTAMP).add(prefix + "(Stop timestamp)", CsvSchema.LONG);
+			schema.add(prefix + "(Revised Due Date)", CsvSchema.TIMESTAMP);
+			schema.add(prefix + "(Revised Due Date timestamp)", CsvSchema.LONG);
+			schema.add(prefix + "(Revised Due Date distance h:m:s)", CsvSchema.STRING);
+			schema.add(prefix + "(Revised Due Date distance ms)", CsvSchema.LONG);
+		}
+
+		// Status counter types
+		slaComputations.getStatusText().values().forEach(status -> schema.add("#" + status, CsvSchema.INTEGER));
+	}
+
 	/**
 	 * Write headers
 	 *
@@ -107,17 +136,30 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 	}
 
 	@Override
-	protected void writeData(final Writer writer, final Format df, final Format idf) throws IOException {
+	protected void writeData(final CsvWriter writer) throws IOException {
 		for (final IssueSla issue : slaComputations.getIssues()) {
-			// Write standard data
-			writeIssueData(issue, writer, df, idf);
-
-			// Write specific data
-			writeSlaData(issue, writer, df);
-			writer.write('\n');
+			writeIssue(issue, writer);
 		}
 	}
 
+	/**
+	 * Write a whole line of one issue. Ends with new line.
+	 *
+	 * @param issue
+	 *            The issue to write.
+	 * @param writer
+	 *            Target output.
+	 * @throws IOException When data could not be written.
+	 */
+	protected void writeIssue(final IssueSla issue, final CsvWriter writer) throws IOException {
+		// Write standard data
+		writeIssueData(issue, writer);
+
+		// Write specific data
+		writeSlaData(issue, writer);
+		writer.write('\n');
+	}
+
 	/**
 	 * Write data of one issue : SLA and counters.
 	 *
@@ -125,14 +167,12 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 	 *            The issue to write.
 	 * @param writer
 	 *            Target output.
-	 * @param df
-	 *            The {@link Format} used to write the date when not <code>null</code>.
 	 * @throws IOException When data could not be written.
 	 */
-	protected void writeSlaData(final IssueSla issue, final Writer writer, final Format df) throws IOException {
+	protected void writeSlaData(final IssueSla issue, final CsvWriter writer) throws IOException {
 
 		// Write SLA duration
-		writeSlaDurationData(issue, writer, df);
+		writeSlaDurationData(issue, writer);
 
 		// Write SLA counters
 		writeSlaCounters(issue, writer);
@@ -147,13 +187,13 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 	 *            Target output.
 	 * @throws IOException When data could not be written.
 	 */
-	protected void writeSlaCounters(final IssueSla issue, final Writer writer) throws IOException {
+	protected void writeSlaCounters(final IssueSla issue, final CsvWriter writer) throws IOException {
 		final Map<Integer, Integer> counter = issue.getStatusCounter();
 		for (final Integer status : slaComputations.getStatusText().keySet()) {
 			writer.write(';');
 
 			// Write counters
-			writer.write(ObjectUtils.getIfNull(counter.get(status), "0").toString());
+			writer.writeInt(counter.getOrDefault(status, 0));
 		}
 	}
 
@@ -164,11 +204,9 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 	 *            The issue to write.
 	 * @param writer
 	 *            Target output.
-	 * @param df
-	 *            The {@link Format} used to write the date when not <code>null</code>.
 	 * @throws IOException When data could not be written.
 	 */
-	protected void writeSlaDurationData(final IssueSla issue, final Writer writer, final Format df) throws IOException {
+	protected void writeSlaDurationData(final IssueSla issue, final CsvWriter writer) throws IOException {
 		for (final SlaData data : issue.getData()) {
 
 			// Write the duration
@@ -178,9 +216,9 @@ public class CsvStreamingOutput extends AbstractCsvOutput {
 			} else {
 				// Write formated and raw values of duration
 				writeDuration(writer, data.getDuration());
-				writeDate(writer, df, data.getStart());
-				writeDate(writer, df, data.getStop());
-				writeDate(writer, df, data.getRevisedDueDate());
+				writeDate(writer, data.getStart());
+				writeDate(writer, data.getStop());
+				writeDate(writer, data.getRevisedDueDate());
 				writeDuration(writer, data.getRevisedDueDateDistance());
 			}
 		}
@@ -5,34 +5,38 @@ package org.ligoj.app.plugin.jira.out;
 
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.collections4.CollectionUtils;
-import org.apache.commons.lang3.ObjectUtils;
-import org.apache.commons.lang3.Strings;
 import org.ligoj.app.plugin.bt.IssueSla;
 import org.ligoj.app.plugin.jira.JiraSlaComputations;
+import org.ligoj.app.plugin.jira.editor.AbstractEditor;
 import org.ligoj.app.plugin.jira.editor.CustomFieldEditor;
+import org.ligoj.app.plugin.jira.editor.DateEditor;
+import org.ligoj.app.plugin.jira.editor.FloatEditor;
 import org.ligoj.app.plugin.jira.model.CustomField;
 import org.ligoj.app.plugin.jira.model.CustomFieldValue;
 import org.ligoj.app.plugin.bt.model.IssueDetails;
 
 import java.io.IOException;
 import java.io.Writer;
-import java.text.Format;
 import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
-import java.util.stream.Collectors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 /**
- * CSV output writer from Jira issues data and custom field values.
+ * CSV output writer from Jira issues data and custom field values. The issues and the custom field values are both
+ * ordered by issue, and are merged while they are read.
  */
 @Slf4j
-public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
+public class CsvWithCustomFieldsStreamingOutput extends CsvSlaStreamingOutput {
 
 	/**
-	 * All custom field values ordered by issue and custom field.
+	 * All custom field values ordered by issue and custom field, opened during the serialization.
 	 */
-	private final List<CustomFieldValue> customFieldValues;
+	private final Supplier<Stream<CustomFieldValue>> customFieldValues;
 
 	/**
 	 * Custom field configurations, ordered by identifier.
@@ -42,7 +46,12 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 	/**
 	 * Custom field values cursor.
 	 */
-	private int issueAndCustomFieldsCursor = 0;
+	private Iterator<CustomFieldValue> cursor;
+
+	/**
+	 * Custom field value at the cursor position. <code>null</code> when all values have been read.
+	 */
+	private CustomFieldValue current;
 
 	/**
 	 * All association between issues and components. Key is the issue, Value are the associated components.
@@ -78,13 +87,55 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 	public CsvWithCustomFieldsStreamingOutput(final JiraSlaComputations slaComputations, final List<CustomFieldValue> customFieldValues,
 			final Map<Integer, CustomFieldEditor> customFields, final Map<Integer, Collection<Integer>> componentAssociations,
 			final Map<Integer, String> components, final Map<Integer, Integer> subTasks) {
-		super(slaComputations);
+		this(slaComputations, consumer -> slaComputations.getIssues().forEach(consumer), customFieldValues::stream, customFields,
+				componentAssociations, components, subTasks);
+	}
+
+	/**
+	 * Constructor for database online data.
+	 * 
+	 * @param slaComputations
+	 *            SLA computations without issues, but with the SLA configurations.
+	 * @param issues
+	 *            The issue source, called once with the consumer receiving the computed issues ordered by identifier.
+	 * @param customFieldValues
+	 *            The custom field values source, ordered by issue and custom field. The stream is opened once during the
+	 *            serialization and closed after the last issue.
+	 * @param customFields
+	 *            Custom field configurations, ordered by identifier.
+	 * @param components
+	 *            All components associated to this project, ordered by name.
+	 * @param componentAssociations
+	 *            All association between issues and components. Key is the issue, Value are the associated components.
+	 * @param subTasks
+	 *            Subtask relationship. Key is the identifier of the subtask. Value is the parent.
+	 */
+	public CsvWithCustomFieldsStreamingOutput(final JiraSlaComputations slaComputations, final Consumer<Consumer<IssueSla>> issues,
+			final Supplier<Stream<CustomFieldValue>> customFieldValues, final Map<Integer, CustomFieldEditor> customFields,
+			final Map<Integer, Collection<Integer>> componentAssociations, final Map<Integer, String> components,
+			final Map<Integer, Integer> subTasks) {
+		super(slaComputations, issues);
 		this.customFieldValues = customFieldValues;
 		this.customFields = customFields;
 		this.componentAssociations = componentAssociations;
 		this.components = components;
 		this.subTasks = subTasks;
+	}
+
+	@Override
+	protected void writeData(final CsvWriter writer) throws IOException {
+		try (var values = customFieldValues.get()) {
+			cursor = values.iterator();
+			next();
+			super.writeData(writer);
+		}
+	}
 
+	/**
+	 * Move the cursor to the next custom field value.
+	 */
+	private void next() {
+		current = cursor.hasNext() ? cursor.next() : null;
 	}
 
 	@Override
@@ -108,66 +159,98 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 		}
 	}
 
+	@Override
+	protected void writeNonSlaSchema(final CsvSchema schema) {
+		super.writeNonSlaSchema(schema);
+		schema.add("timeSpent(s)", CsvSchema.LONG).add("timeEstimate(s)", CsvSchema.LONG);
+		schema.add("timeEstimateInit(s)", CsvSchema.LONG).add("parent", CsvSchema.INTEGER);
+		schema.add("components", CsvSchema.STRING);
+
+		// Custom fields are typed by their editor, the multi-valued and the referenced values are texts
+		for (final CustomFieldEditor customField : customFields.values()) {
+			schema.add(customField.getName(), toType(customField.getEditor()));
+		}
+	}
+
+	/**
+	 * Return the column type of a custom field editor.
+	 */
+	private String toType(final AbstractEditor editor) {
+		if (editor instanceof DateEditor) {
+			return CsvSchema.TIMESTAMP;
+		}
+		if (editor instanceof FloatEditor) {
+			return CsvSchema.DECIMAL;
+		}
+		return CsvSchema.STRING;
+	}
+
 	/**
 	 * Complete the standard data with temporal data (not SLA), sub task, and components
 	 */
 	@Override
-	protected void writeIssueData(final IssueDetails issue, final Writer writer, final Format df, final Format idf) throws IOException {
+	protected void writeIssueData(final IssueDetails issue, final CsvWriter writer) throws IOException {
 		// Write static data
-		super.writeIssueData(issue, writer, df, idf);
+		super.writeIssueData(issue, writer);
 
 		// Time spent
 		writer.write(';');
-		writer.write(String.valueOf(ObjectUtils.getIfNull((Object) issue.getTimeSpent(), "")));
+		writer.writeNumber(issue.getTimeSpent());
 
 		// Time estimate
 		writer.write(';');
-		writer.write(String.valueOf(ObjectUtils.getIfNull((Object) issue.getTimeEstimate(), "")));
+		writer.writeNumber(issue.getTimeEstimate());
 
 		// Time initial estimate
 		writer.write(';');
-		writer.write(String.valueOf(ObjectUtils.getIfNull((Object) issue.getTimeEstimateInit(), "")));
+		writer.writeNumber(issue.getTimeEstimateInit());
 
 		// Optional parent
 		writer.write(';');
-		writer.write(String.valueOf(ObjectUtils.getIfNull(subTasks.get(issue.getId()), "")));
+		writer.writeNumber(subTasks.get(issue.getId()));
 
 		// Custom non-fixed fields
-		writeCustomData((IssueSla) issue, writer, df);
+		writeCustomData((IssueSla) issue, writer);
 	}
 
 	/**
 	 * Custom non fixed fields
 	 */
-	private void writeCustomData(final IssueSla issue, final Writer writer, final Format df) throws IOException {
+	private void writeCustomData(final IssueSla issue, final CsvWriter writer) throws IOException {
 
 		// Write components data
 		writeComponentsData(issue, writer);
 
 		// Write custom fields data
-		writeCustomFieldsData(issue, writer, df);
+		writeCustomFieldsData(issue, writer);
 	}
 
 	/**
 	 * Write all components attached to given issue.
 	 */
-	private void writeComponentsData(final IssueSla issue, final Writer writer) throws IOException {
+	private void writeComponentsData(final IssueSla issue, final CsvWriter writer) throws IOException {
 		// Write the component values with ',' as separator
 		writer.append(';');
-		writer.write(
-				CollectionUtils.emptyIfNull(componentAssociations.get(issue.getId())).stream().map(components::get).collect(Collectors.joining(",")));
+		var first = true;
+		for (final Integer component : CollectionUtils.emptyIfNull(componentAssociations.get(issue.getId()))) {
+			if (!first) {
+				writer.append(',');
+			}
+			writer.write(String.valueOf(components.get(component)));
+			first = false;
+		}
 	}
 
 	/**
 	 * Write all custom field values attached to given issue.
 	 */
-	private void writeCustomFieldsData(final IssueSla issue, final Writer writer, final Format df) throws IOException {
+	private void writeCustomFieldsData(final IssueSla issue, final CsvWriter writer) throws IOException {
 		final int issueId = issue.getId();
 
 		// Write the custom field values, starting from the position of the cursor
 		for (final CustomFieldEditor customField : customFields.values()) {
 			writer.append(';');
-			writeCustomFieldData(issueId, customField, writer, df);
+			writeCustomFieldData(issueId, customField, writer);
 
 		}
 	}
@@ -176,17 +259,16 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 	 * Write all custom field values attached to given issue and custom field. Multi-valued custom fields use ',' as
 	 * separator.
 	 */
-	private void writeCustomFieldData(final int issue, final CustomFieldEditor customField, final Writer writer, final Format df) throws IOException {
+	private void writeCustomFieldData(final int issue, final CustomFieldEditor customField, final CsvWriter writer) throws IOException {
 		final int customFieldId = customField.getId();
 
 		// Write the custom field data
 		boolean first = true;
 		moveToIssueAndCustomField(issue, customFieldId);
 		boolean stringData = false;
-		while (issueAndCustomFieldsCursor < customFieldValues.size() && customFieldValues.get(issueAndCustomFieldsCursor).getIssue() == issue
-				&& customFieldValues.get(issueAndCustomFieldsCursor).getCustomField() == customFieldId) {
+		while (current != null && current.getIssue() == issue && current.getCustomField() == customFieldId) {
 			// Custom field value has been found
-			final CustomFieldValue customFieldValue = customFieldValues.get(issueAndCustomFieldsCursor);
+			final CustomFieldValue customFieldValue = current;
 			if (!first) {
 				// Multivalued custom field, append the value
 				writer.append(',');
@@ -194,16 +276,16 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 			final Object value = customField.getEditor().getValue(customField, customFieldValue);
 			if (value == null) {
 				// Broken reference has been found, report it
-				writer.append("#INVALID");
+				writer.writeInvalid();
 				log.warn("Broken reference for project '{}'[{}], issue [{}], custom field '{}'[{}], value '{}'",
 						slaComputations.getProject().getName(), slaComputations.getJira(), issue, customField.getName(), customField.getId(),
 						customFieldValue.getStringValue());
-			} else if (value instanceof Date) {
+			} else if (value instanceof Date date) {
 				// Simple date, no escape
-				writer.append(df.format(value));
-			} else if (value instanceof Number) {
+				writer.writeDate(date);
+			} else if (value instanceof Number number) {
 				// Simple number, no escape
-				writer.append(Strings.CS.removeEnd(value.toString().replace('.', ','), ",0"));
+				writer.writeDecimal(number);
 			} else {
 				if (!stringData) {
 					// Add the cell protection
@@ -211,9 +293,9 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 					stringData = true;
 				}
 				// Write the value escaping the protection chars
-				writer.append(value.toString().replace("\"", "\"\"").replace(';', ','));
+				writer.writeEscaped(value.toString());
 			}
-			issueAndCustomFieldsCursor++;
+			next();
 			first = false;
 		}
 
@@ -227,12 +309,11 @@ public class CsvWithCustomFieldsStreamingOutput extends CsvStreamingOutput {
 	 * Move the cursor to the next matching issue and custom field
 	 */
 	private void moveToIssueAndCustomField(final int issue, final int customFieldId) {
-		while (issueAndCustomFieldsCursor < customFieldValues.size() && customFieldValues.get(issueAndCustomFieldsCursor).getIssue() < issue) {
-			issueAndCustomFieldsCursor++;
+		while (current != null && current.getIssue() < issue) {
+			next();
 		}
-		while (issueAndCustomFieldsCursor < customFieldValues.size() && customFieldValues.get(issueAndCustomFieldsCursor).getIssue() == issue
-				&& customFieldValues.get(issueAndCustomFieldsCursor).getCustomField() < customFieldId) {
-			issueAndCustomFieldsCursor++;
+		while (current != null && current.getIssue() == issue && current.getCustomField() < customFieldId) {
+			next();
 		}
 	}
 
@@ -0,0 +1,345 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.apache.commons.lang3.Strings;
+
+/**
+ * Buffered CSV cell writer. Numbers, dates and durations are encoded straight into the reusable char buffer, without
+ * intermediate {@link String}. Not thread safe.
+ */
+public class CsvWriter extends Writer {
+
+	/**
+	 * Marker of a value that cannot be resolved.
+	 */
+	public static final String INVALID = "#INVALID";
+
+	private static final long DAY = 24 * 60 * 60 * 1000L;
+
+	/**
+	 * Days from 0000-03-01 to 1970-01-01, the epoch of the civil calendar computation.
+	 */
+	private static final int DAYS_0000_TO_1970 = 719468;
+
+	private static final int DAYS_PER_ERA = 146097;
+
+	private final Writer out;
+	private final char[] buffer;
+	private final TimeZone timeZone;
+	private int position;
+
+	/**
+	 * Day of the last written date, in local time. Avoids the calendar computation for the dates of the same day.
+	 */
+	private long lastDay = Long.MIN_VALUE;
+
+	/**
+	 * Encoded "yyyy/MM/dd " of {@link #lastDay}.
+	 */
+	private final char[] lastDayChars = new char[11];
+
+	/**
+	 * Constructor.
+	 *
+	 * @param out
+	 *            The target writer.
+	 * @param size
+	 *            The buffer size.
+	 * @param timeZone
+	 *            The time zone of the written dates.
+	 */
+	public CsvWriter(final Writer out, final int size, final TimeZone timeZone) {
+		this.out = out;
+		this.buffer = new char[Math.max(size, 64)];
+		this.timeZone = timeZone;
+	}
+
+	/**
+	 * Ensure the buffer can receive the given amount of chars.
+	 */
+	private void reserve(final int length) throws IOException {
+		if (position + length > buffer.length) {
+			flushBuffer();
+		}
+	}
+
+	private void flushBuffer() throws IOException {
+		if (position > 0) {
+			out.write(buffer, 0, position);
+			position = 0;
+		}
+	}
+
+	@Override
+	public void write(final int c) throws IOException {
+		reserve(1);
+		buffer[position++] = (char) c;
+	}
+
+	@Override
+	public void write(final char[] chars, final int offset, final int length) throws IOException {
+		if (length > buffer.length) {
+			flushBuffer();
+			out.write(chars, offset, length);
+		} else {
+			reserve(length);
+			System.arraycopy(chars, offset, buffer, position, length);
+			position += length;
+		}
+	}
+
+	@Override
+	public void write(final String str, final int offset, final int length) throws IOException {
+		var start = offset;
+		final var end = offset + length;
+		while (start < end) {
+			reserve(1);
+			final var count = Math.min(end - start, buffer.length - position);
+			str.getChars(start, start + count, buffer, position);
+			position += count;
+			start += count;
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		flushBuffer();
+		out.flush();
+	}
+
+	@Override
+	public void close() throws IOException {
+		flushBuffer();
+		out.close();
+	}
+
+	/**
+	 * Write an integer value.
+	 *
+	 * @param value
+	 *            The value to write.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeInt(final int value) throws IOException {
+		writeLong(value);
+	}
+
+	/**
+	 * Write a long value.
+	 *
+	 * @param value
+	 *            The value to write.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeLong(final long value) throws IOException {
+		if (value == Long.MIN_VALUE) {
+			write(Long.toString(value));
+			return;
+		}
+		reserve(20);
+		var remaining = value;
+		if (remaining < 0) {
+			buffer[position++] = '-';
+			remaining = -remaining;
+		}
+		// Write the digits from the end
+		final var end = position + digits(remaining);
+		var index = end;
+		do {
+			buffer[--index] = (char) ('0' + remaining % 10);
+			remaining /= 10;
+		} while (remaining > 0);
+		position = end;
+	}
+
+	/**
+	 * Write a number value. Nothing is written for a <code>null</code> value.
+	 *
+	 * @param value
+	 *            The value to write. May be <code>null</code>.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeNumber(final Number value) throws IOException {
+		if (value != null) {
+			writeLong(value.longValue());
+		}
+	}
+
+	private static int digits(final long value) {
+		var digits = 1;
+		for (var bound = 10L; digits < 19 && value >= bound; bound *= 10) {
+			digits++;
+		}
+		return digits;
+	}
+
+	/**
+	 * Write a number with at least 2 digits.
+	 */
+	private void write2(final long value) throws IOException {
+		if (value < 10) {
+			write('0');
+		}
+		writeLong(value);
+	}
+
+	/**
+	 * Write a date with the "yyyy/MM/dd HH:mm:ss" format.
+	 *
+	 * @param date
+	 *            The date to write.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeDate(final Date date) throws IOException {
+		writeDate(date.getTime());
+	}
+
+	/**
+	 * Write a date with the "yyyy/MM/dd HH:mm:ss" format.
+	 *
+	 * @param time
+	 *            The date to write, in milliseconds since the epoch.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeDate(final long time) throws IOException {
+		final var local = time + timeZone.getOffset(time);
+		final var day = Math.floorDiv(local, DAY);
+		if (day != lastDay) {
+			encodeDay(day);
+		}
+		write(lastDayChars, 0, lastDayChars.length);
+		final var seconds = Math.floorMod(local, DAY) / 1000;
+		reserve(8);
+		put2(seconds / 3600);
+		buffer[position++] = ':';
+		put2(seconds / 60 % 60);
+		buffer[position++] = ':';
+		put2(seconds % 60);
+	}
+
+	private void put2(final long value) {
+		buffer[position++] = (char) ('0' + value / 10);
+		buffer[position++] = (char) ('0' + value % 10);
+	}
+
+	/**
+	 * Encode the "yyyy/MM/dd " prefix of a day, from the civil calendar computation of the days since the epoch.
+	 */
+	private void encodeDay(final long day) {
+		final var z = day + DAYS_0000_TO_1970;
+		final var era = Math.floorDiv(z, DAYS_PER_ERA);
+		final var doe = z - era * DAYS_PER_ERA;
+		final var yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+		final var doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+		final var mp = (5 * doy + 2) / 153;
+		final var d = doy - (153 * mp + 2) / 5 + 1;
+		final var m = mp < 10 ? mp + 3 : mp - 9;
+		final var y = yoe + era * 400 + (m <= 2 ? 1 : 0);
+		lastDayChars[0] = (char) ('0' + y / 1000 % 10);
+		lastDayChars[1] = (char) ('0' + y / 100 % 10);
+		lastDayChars[2] = (char) ('0' + y / 10 % 10);
+		lastDayChars[3] = (char) ('0' + y % 10);
+		lastDayChars[4] = '/';
+		lastDayChars[5] = (char) ('0' + m / 10);
+		lastDayChars[6] = (char) ('0' + m % 10);
+		lastDayChars[7] = '/';
+		lastDayChars[8] = (char) ('0' + d / 10);
+		lastDayChars[9] = (char) ('0' + d % 10);
+		lastDayChars[10] = ' ';
+		lastDay = day;
+	}
+
+	/**
+	 * Write a duration with the "HH:mm:ss" format, the hours are not bounded to a day. The sign is written for the
+	 * negative durations.
+	 *
+	 * @param duration
+	 *            The duration to write, in milliseconds.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeDuration(final long duration) throws IOException {
+		if (duration < 0) {
+			// Add the sign before the HMS value
+			write('-');
+		}
+		final var seconds = Math.abs(duration / 1000);
+		write2(seconds / 3600);
+		reserve(6);
+		buffer[position++] = ':';
+		put2(seconds / 60 % 60);
+		buffer[position++] = ':';
+		put2(seconds % 60);
+	}
+
+	/**
+	 * Write a decimal number with ',' as decimal separator. The ",0" suffix of the integral values is not written.
+	 *
+	 * @param value
+	 *            The value to write.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeDecimal(final Number value) throws IOException {
+		write(Strings.CS.removeEnd(value.toString().replace('.', ','), ",0"));
+	}
+
+	/**
+	 * Write the marker of a value that cannot be resolved, such as a broken reference.
+	 *
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeInvalid() throws IOException {
+		write(INVALID);
+	}
+
+	/**
+	 * Write a value inside a quoted cell, the quotes are doubled.
+	 *
+	 * @param value
+	 *            The value to write.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeQuoted(final String value) throws IOException {
+		writeEscaped(value, ';');
+	}
+
+	/**
+	 * Write a value inside a quoted multi-valued cell, the quotes are doubled and the ';' are replaced by ','.
+	 *
+	 * @param value
+	 *            The value to write.
+	 * @throws IOException
+	 *             When data could not be written.
+	 */
+	public void writeEscaped(final String value) throws IOException {
+		writeEscaped(value, ',');
+	}
+
+	private void writeEscaped(final String value, final char semicolon) throws IOException {
+		for (var i = 0; i < value.length(); i++) {
+			final var c = value.charAt(i);
+			reserve(2);
+			if (c == '"') {
+				buffer[position++] = '"';
+				buffer[position++] = '"';
+			} else {
+				buffer[position++] = c == ';' ? semicolon : c;
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.util.Locale;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.StringUtils;
+
+import lombok.Getter;
+
+/**
+ * Content encoding of the exports.
+ */
+public enum ExportEncoding {
+
+	/**
+	 * No compression.
+	 */
+	IDENTITY(null),
+
+	/**
+	 * GZIP compression.
+	 */
+	GZIP("gzip");
+
+	/**
+	 * Buffer size of the export writers and of the compression streams. Larger than the default 8KB to reduce the
+	 * amount of flushes and of compression calls.
+	 */
+	public static final int BUFFER_SIZE = 64 * 1024;
+
+	/**
+	 * File name suffix selecting the GZIP compression whatever the <code>Accept-Encoding</code> header.
+	 */
+	public static final String GZIP_SUFFIX = ".gz";
+
+	/**
+	 * The <code>Content-Encoding</code> header value. <code>null</code> for {@link #IDENTITY}.
+	 */
+	@Getter
+	private final String contentEncoding;
+
+	ExportEncoding(final String contentEncoding) {
+		this.contentEncoding = contentEncoding;
+	}
+
+	/**
+	 * Return the encoding negotiated from the <code>Accept-Encoding</code> header.
+	 *
+	 * @param acceptEncoding
+	 *            The <code>Accept-Encoding</code> header value. May be <code>null</code>.
+	 * @return The negotiated encoding, {@link #GZIP} when accepted by the client.
+	 */
+	public static ExportEncoding of(final String acceptEncoding) {
+		for (final String value : StringUtils.split(StringUtils.defaultString(acceptEncoding), ',')) {
+			final var parts = StringUtils.split(value, ';');
+			final var coding = StringUtils.trimToEmpty(parts.length == 0 ? null : parts[0]).toLowerCase(Locale.ROOT);
+			if (("gzip".equals(coding) || "x-gzip".equals(coding) || "*".equals(coding)) && isAccepted(parts)) {
+				return GZIP;
+			}
+		}
+		return IDENTITY;
+	}
+
+	/**
+	 * Indicate the quality value of a coding is not zero.
+	 */
+	private static boolean isAccepted(final String[] parts) {
+		for (var i = 1; i < parts.length; i++) {
+			final var parameter = StringUtils.deleteWhitespace(parts[i]);
+			if (parameter.startsWith("q=")) {
+				try {
+					return Double.parseDouble(parameter.substring(2)) > 0;
+				} catch (final NumberFormatException e) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Return an output writing the given export with this encoding.
+	 *
+	 * @param output
+	 *            The export to encode.
+	 * @return The encoded output.
+	 */
+	public StreamingOutput encode(final StreamingOutput output) {
+		if (this == IDENTITY) {
+			return output;
+		}
+		return out -> {
+			// The target stream is owned by the container, only finish the compression
+			final var gzip = new GZIPOutputStream(out, BUFFER_SIZE);
+			output.write(CloseShieldOutputStream.wrap(gzip));
+			gzip.finish();
+			out.flush();
+		};
+	}
+}
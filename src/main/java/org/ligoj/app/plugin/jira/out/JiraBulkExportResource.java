@@ -0,0 +1,305 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.BiFunction;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import jakarta.ws.rs.GET;
+import jakarta.ws.rs.PathParam;
+import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.QueryParam;
+import jakarta.ws.rs.core.MediaType;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.collections4.CollectionUtils;
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.ObjectUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.plugin.jira.JiraBaseResource;
+import org.ligoj.app.plugin.jira.dao.JiraDataSourceRegistry;
+import org.ligoj.app.plugin.jira.dao.JiraReferenceDataCache;
+import org.ligoj.app.resource.plugin.AbstractToolPluginResource;
+import org.ligoj.app.resource.subscription.SubscriptionResource;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * JIRA bulk export resource : the same report of several subscriptions in a single ZIP file, one entry per
+ * subscription. The subscriptions are grouped by JIRA database, and share the reference data.
+ */
+@Slf4j
+@jakarta.ws.rs.Path(JiraBaseResource.URL + "/export")
+@Service
+@Produces(MediaType.APPLICATION_JSON)
+public class JiraBulkExportResource {
+
+	/**
+	 * A subscription to export.
+	 *
+	 * @param subscription The subscription identifier.
+	 * @param database     The JIRA database URL.
+	 * @param name         The ZIP entry name.
+	 */
+	private record BulkEntry(int subscription, String database, String name) {
+	}
+
+	@Autowired
+	protected JiraExportPluginResource exportResource;
+
+	@Autowired
+	protected SubscriptionResource subscriptionResource;
+
+	@Autowired
+	protected JiraReferenceDataCache referenceCache;
+
+	@Autowired
+	protected JiraDataSourceRegistry dataSourceRegistry;
+
+	/**
+	 * Amount of subscriptions exported concurrently. When <code>1</code>, the subscriptions are exported one by one in
+	 * the requesting thread. Each worker holds a connection of the JIRA database during the serialization, so this
+	 * amount is bounded by the size of the connection pools, see <code>jira.datasource.max-pool-size</code>.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.export.bulk.parallelism:1}")
+	private int parallelism = 1;
+
+	/**
+	 * Return the supported reports and their single subscription export.
+	 */
+	private Map<String, BiFunction<Integer, String, Response>> getReports() {
+		return Map.of("simple", exportResource::getSimpleCsv, "short", exportResource::getSlaComputationsCsvStream,
+				"full", exportResource::getSlaComputationsCsvWithCustomFields, "status",
+				exportResource::getStatusHistory);
+	}
+
+	/**
+	 * Return the same report of several subscriptions as a ZIP file.
+	 *
+	 * @param subscriptions
+	 *            The subscription identifiers.
+	 * @param report
+	 *            The report type : "simple", "short", "full" or "status".
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	@GET
+	@jakarta.ws.rs.Path("{file:.*.zip}")
+	@Produces(MediaType.APPLICATION_OCTET_STREAM)
+	public Response getBulkExport(@QueryParam("subscription") final List<Integer> subscriptions,
+			@QueryParam("report") final String report, @PathParam("file") final String file) {
+		final var export = getReports().get(StringUtils.defaultString(report));
+		if (export == null) {
+			throw new ValidationJsonException("report", "Unknown report '" + report + "'");
+		}
+		if (CollectionUtils.isEmpty(subscriptions)) {
+			throw new ValidationJsonException("subscription", "No subscription to export");
+		}
+
+		// Check all subscriptions before the streaming, and group them by JIRA database
+		final List<BulkEntry> entries = new ArrayList<>();
+		for (final int subscription : new LinkedHashSet<>(subscriptions)) {
+			final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+			entries.add(new BulkEntry(subscription,
+					ObjectUtils.getIfNull(parameters.get(JiraBaseResource.PARAMETER_JDBC_URL), ""),
+					subscription + "-" + parameters.get(JiraBaseResource.PARAMETER_PKEY) + "-" + report + ".csv"));
+		}
+		entries.sort(Comparator.comparing(BulkEntry::database).thenComparing(BulkEntry::subscription));
+		log.info("Bulk {} report of {} subscriptions requested by '{}'", report, entries.size(),
+				SecurityContextHolder.getContext().getAuthentication().getName());
+
+		final var context = SecurityContextHolder.getContext();
+		return AbstractToolPluginResource.download(output -> write(output, entries, export, context), file).build();
+	}
+
+	/**
+	 * Write the ZIP file of all subscriptions. A failed subscription is replaced by an error entry.
+	 */
+	private void write(final OutputStream output, final List<BulkEntry> entries,
+			final BiFunction<Integer, String, Response> export, final SecurityContext context) throws IOException {
+		final var scope = new JiraReferenceDataCache.Scope();
+		final var zip = new ZipOutputStream(output);
+		final var workers = Math.min(parallelism, dataSourceRegistry.getMaxPoolSize());
+		if (workers <= 1) {
+			for (final BulkEntry entry : entries) {
+				zip.putNextEntry(new ZipEntry(entry.name()));
+				try {
+					render(entry, export, scope, CloseShieldOutputStream.wrap(zip));
+					zip.closeEntry();
+				} catch (final UncheckedIOException e) {
+					// Client has likely closed the connection
+					throw e.getCause();
+				} catch (final RuntimeException e) {
+					zip.closeEntry();
+					writeError(zip, entry, e);
+				}
+			}
+		} else {
+			writeParallel(zip, entries, export, scope, context, workers);
+		}
+		zip.finish();
+		zip.flush();
+	}
+
+	/**
+	 * Render the subscriptions in temporary files with a bounded parallelism, and add them to the ZIP file in order.
+	 */
+	private void writeParallel(final ZipOutputStream zip, final List<BulkEntry> entries,
+			final BiFunction<Integer, String, Response> export, final JiraReferenceDataCache.Scope scope,
+			final SecurityContext context, final int workers) throws IOException {
+		final var pool = new ForkJoinPool(workers);
+		final Deque<ForkJoinTask<Path>> pending = new ArrayDeque<>();
+		try (var files = new RenderedFiles()) {
+			try {
+				var next = 0;
+				for (final BulkEntry entry : entries) {
+					// Keep a bounded amount of rendered files
+					while (next < entries.size() && pending.size() < workers * 2) {
+						final var submitted = entries.get(next++);
+						pending.add(pool.submit(() -> renderFile(submitted, export, scope, context, files)));
+					}
+					try {
+						final var rendered = pending.poll().join();
+						try {
+							zip.putNextEntry(new ZipEntry(entry.name()));
+							Files.copy(rendered, zip);
+							zip.closeEntry();
+						} finally {
+							files.delete(rendered);
+						}
+					} catch (final RuntimeException e) {
+						writeError(zip, entry, e);
+					}
+				}
+			} finally {
+				// Stop the remaining tasks on failure, their files are deleted once closed
+				pool.shutdownNow();
+				pending.forEach(task -> task.cancel(true));
+			}
+		}
+	}
+
+	/**
+	 * Render a subscription in a temporary file, in a worker thread.
+	 */
+	private Path renderFile(final BulkEntry entry, final BiFunction<Integer, String, Response> export,
+			final JiraReferenceDataCache.Scope scope, final SecurityContext context, final RenderedFiles files)
+			throws IOException {
+		SecurityContextHolder.setContext(context);
+		final var file = files.create();
+		try (var out = Files.newOutputStream(file)) {
+			render(entry, export, scope, out);
+			return file;
+		} catch (final IOException | RuntimeException e) {
+			files.delete(file);
+			throw e;
+		} finally {
+			SecurityContextHolder.clearContext();
+			files.release(file);
+		}
+	}
+
+	/**
+	 * Temporary files of the rendered subscriptions. Once closed, all files are deleted, including the ones completed
+	 * later by the tasks still running.
+	 */
+	private static class RenderedFiles implements Closeable {
+
+		private final Set<Path> files = ConcurrentHashMap.newKeySet();
+
+		private volatile boolean closed;
+
+		/**
+		 * Create a temporary file.
+		 */
+		private Path create() throws IOException {
+			final var file = Files.createTempFile("jira-export", ".csv");
+			files.add(file);
+			return file;
+		}
+
+		/**
+		 * Delete a temporary file.
+		 */
+		private void delete(final Path file) throws IOException {
+			files.remove(file);
+			Files.deleteIfExists(file);
+		}
+
+		/**
+		 * Delete a completed file when no more expected.
+		 */
+		private void release(final Path file) throws IOException {
+			if (closed) {
+				delete(file);
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			closed = true;
+			for (final Path file : files) {
+				delete(file);
+			}
+		}
+	}
+
+	/**
+	 * Render a subscription with the shared reference data.
+	 */
+	private void render(final BulkEntry entry, final BiFunction<Integer, String, Response> export,
+			final JiraReferenceDataCache.Scope scope, final OutputStream out) {
+		log.info("Bulk export of subscription {}", entry.subscription());
+		referenceCache.share(scope, () -> {
+			try {
+				((StreamingOutput) export.apply(entry.subscription(), entry.name()).getEntity()).write(out);
+			} catch (final IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			return null;
+		});
+	}
+
+	/**
+	 * Add the error entry of a failed subscription.
+	 */
+	private void writeError(final ZipOutputStream zip, final BulkEntry entry, final RuntimeException e)
+			throws IOException {
+		log.error("Bulk export of subscription {} failed", entry.subscription(), e);
+		zip.putNextEntry(new ZipEntry(entry.name() + ".error.txt"));
+		zip.write(StringUtils.defaultString(e.getMessage(), e.getClass().getName()).getBytes(StandardCharsets.UTF_8));
+		zip.closeEntry();
+	}
+}
@@ -0,0 +1,345 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import jakarta.ws.rs.core.EntityTag;
+import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.StreamingOutput;
+
+import org.apache.commons.io.output.CloseShieldOutputStream;
+import org.apache.commons.lang3.StringUtils;
+import org.ligoj.app.resource.plugin.AbstractToolPluginResource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Disk cache of the generated exports. An export is identified by its subscription, its report type and a fingerprint
+ * of the data it is built from. The exports are stored compressed, and the least recently written ones are evicted
+ * beyond the maximal size. The entity tag of an export is built from the fingerprint and the current time to live
+ * period, so a conditional request with a matching <code>If-None-Match</code> header is answered without content only
+ * while the SLA durations of the unresolved issues have not drifted beyond the time to live. The cache is disabled by
+ * default.
+ */
+@Slf4j
+@Component
+public class JiraExportCache {
+
+	private static final String EXTENSION = ".gz";
+
+	/**
+	 * Directory of the cached exports. When empty, the cache is disabled.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.export.cache.directory:}")
+	private String directory = "";
+
+	/**
+	 * Maximal size in bytes of the cached exports.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.export.cache.max-size:1073741824}")
+	private long maxSize = 1073741824L;
+
+	/**
+	 * Time to live in milliseconds of a cached export. Bounds the drift of the SLA of the unresolved issues.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.export.cache.ttl:3600000}")
+	private long ttl = 3600000L;
+
+	/**
+	 * Time to live in milliseconds of the fingerprint of the data of a subscription. Bounds the delay before a data
+	 * change is visible, and saves the fingerprint queries of the close requests, including the not modified ones.
+	 */
+	@Setter
+	@Getter
+	@Value("${jira.export.cache.fingerprint-ttl:10000}")
+	private long fingerprintTtl = 10000L;
+
+	/**
+	 * Fingerprint and its expiration time.
+	 */
+	private record Fingerprint(String value, long expire) {
+	}
+
+	private final Map<Integer, Fingerprint> fingerprints = new ConcurrentHashMap<>();
+
+	/**
+	 * Indicate the cache is enabled.
+	 *
+	 * @return <code>true</code> when the cache is enabled.
+	 */
+	public boolean isEnabled() {
+		return StringUtils.isNotBlank(directory);
+	}
+
+	/**
+	 * Return the fingerprint of the data of a subscription, computed at most once by fingerprint time to live.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param loader
+	 *            The fingerprint loader, called when the fingerprint is not known or expired.
+	 * @return The fingerprint of the data the exports are built from.
+	 */
+	public String getFingerprint(final int subscription, final Supplier<String> loader) {
+		final var now = System.currentTimeMillis();
+		final var cached = fingerprints.get(subscription);
+		if (cached != null && cached.expire() > now) {
+			return cached.value();
+		}
+		fingerprints.values().removeIf(f -> f.expire() <= now);
+		final var value = loader.get();
+		if (fingerprintTtl > 0) {
+			fingerprints.put(subscription, new Fingerprint(value, now + fingerprintTtl));
+		}
+		return value;
+	}
+
+	/**
+	 * Invalidate the fingerprint of the data of a subscription.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 */
+	public void invalidate(final int subscription) {
+		fingerprints.remove(subscription);
+	}
+
+	/**
+	 * Return the entity tag of an export for the current time to live period.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param report
+	 *            The report type.
+	 * @param fingerprint
+	 *            The fingerprint of the data the export is built from.
+	 * @param encoding
+	 *            The content encoding of the export.
+	 * @return The entity tag.
+	 */
+	public EntityTag newTag(final int subscription, final String report, final String fingerprint,
+			final ExportEncoding encoding) {
+		return newTag(subscription, report, fingerprint, encoding, System.currentTimeMillis() / Math.max(ttl, 1));
+	}
+
+	private EntityTag newTag(final int subscription, final String report, final String fingerprint,
+			final ExportEncoding encoding, final long period) {
+		return new EntityTag(DigestUtils.md5DigestAsHex((subscription + ";" + report + ";" + fingerprint + ";"
+				+ encoding + ";" + period).getBytes(StandardCharsets.UTF_8)));
+	}
+
+	/**
+	 * Indicate the given <code>If-None-Match</code> header matches the entity tag.
+	 *
+	 * @param tag
+	 *            The entity tag of the export.
+	 * @param ifNoneMatch
+	 *            The <code>If-None-Match</code> header value. May be <code>null</code>.
+	 * @return <code>true</code> when the client already has this export.
+	 */
+	public boolean isNotModified(final EntityTag tag, final String ifNoneMatch) {
+		if (ifNoneMatch == null) {
+			return false;
+		}
+		for (final String value : StringUtils.split(ifNoneMatch, ',')) {
+			final var candidate = StringUtils.removeStart(value.trim(), "W/");
+			if ("*".equals(candidate) || ("\"" + tag.getValue() + "\"").equals(candidate)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return the export download response : not modified, from the cache, or generated and then cached. The exports
+	 * are cached compressed, so a compressed export is read from the cache as is. The entity tag changes with the time
+	 * to live period, so an export is not modified only within the period it has been built in.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param report
+	 *            The report type.
+	 * @param fingerprint
+	 *            The fingerprint of the data the export is built from.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The <code>If-None-Match</code> header value. May be <code>null</code>.
+	 * @param encoding
+	 *            The content encoding of the export.
+	 * @param output
+	 *            The export generator, called only on cache miss.
+	 * @return The download response builder.
+	 */
+	public ResponseBuilder download(final int subscription, final String report, final String fingerprint,
+			final String file, final String ifNoneMatch, final ExportEncoding encoding,
+			final Supplier<StreamingOutput> output) {
+		final var period = System.currentTimeMillis() / Math.max(ttl, 1);
+		final var tag = newTag(subscription, report, fingerprint, encoding, period);
+		if (isNotModified(tag, ifNoneMatch)) {
+			log.info("Export {} of subscription {} not modified", report, subscription);
+			return Response.notModified(tag);
+		}
+		// The cached export is shared by all encodings
+		final var cached = Paths.get(directory, subscription + "-" + report + "-"
+				+ newTag(subscription, report, fingerprint, ExportEncoding.GZIP, period).getValue() + EXTENSION);
+		final StreamingOutput entity;
+		if (!isValid(cached)) {
+			entity = newCachingOutput(cached, output.get(), encoding);
+		} else if (encoding == ExportEncoding.GZIP) {
+			log.info("Compressed export {} of subscription {} read from the cache", report, subscription);
+			entity = out -> Files.copy(cached, out);
+		} else {
+			log.info("Export {} of subscription {} read from the cache", report, subscription);
+			entity = out -> {
+				try (InputStream in = new GZIPInputStream(Files.newInputStream(cached), ExportEncoding.BUFFER_SIZE)) {
+					in.transferTo(out);
+				}
+			};
+		}
+		return AbstractToolPluginResource.download(entity, file).tag(tag);
+	}
+
+	private boolean isValid(final Path cached) {
+		try {
+			return Files.isRegularFile(cached)
+					&& Files.getLastModifiedTime(cached).toMillis() + ttl > System.currentTimeMillis();
+		} catch (final IOException e) {
+			return false;
+		}
+	}
+
+	/**
+	 * Return an output writing the export both to the client and to the cache. The export is compressed once : the
+	 * compressed content is shared by the client and the cache when the client accepts it. The cached export is visible
+	 * only once completely written.
+	 */
+	private StreamingOutput newCachingOutput(final Path cached, final StreamingOutput output,
+			final ExportEncoding encoding) {
+		return out -> {
+			Files.createDirectories(cached.getParent());
+			final var temp = Files.createTempFile(cached.getParent(), "export", ".tmp");
+			try {
+				try (var file = Files.newOutputStream(temp)) {
+					if (encoding == ExportEncoding.GZIP) {
+						// The target stream is owned by the container, only finish the compression
+						final var gzip = new GZIPOutputStream(new TeeOutputStream(out, file), ExportEncoding.BUFFER_SIZE);
+						output.write(CloseShieldOutputStream.wrap(gzip));
+						gzip.finish();
+						out.flush();
+					} else {
+						try (var cache = new GZIPOutputStream(file, ExportEncoding.BUFFER_SIZE)) {
+							output.write(new TeeOutputStream(out, cache));
+						}
+					}
+				}
+				Files.move(temp, cached, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+				evict(cached);
+			} finally {
+				Files.deleteIfExists(temp);
+			}
+		};
+	}
+
+	/**
+	 * Output stream writing to the client and to the cache. Closing this stream only flushes it : the client stream is
+	 * owned by the container, and the cache stream by the caching output.
+	 */
+	private static class TeeOutputStream extends FilterOutputStream {
+
+		private final OutputStream cache;
+
+		private TeeOutputStream(final OutputStream out, final OutputStream cache) {
+			super(out);
+			this.cache = cache;
+		}
+
+		@Override
+		public void write(final int b) throws IOException {
+			out.write(b);
+			cache.write(b);
+		}
+
+		@Override
+		public void write(final byte[] b, final int off, final int len) throws IOException {
+			out.write(b, off, len);
+			cache.write(b, off, len);
+		}
+
+		@Override
+		public void flush() throws IOException {
+			out.flush();
+			cache.flush();
+		}
+
+		@Override
+		public void close() throws IOException {
+			flush();
+		}
+	}
+
+	/**
+	 * Return the file name without the entity tag : subscription and report type.
+	 */
+	private String toPrefix(final String name) {
+		return name.substring(0, name.lastIndexOf('-') + 1);
+	}
+
+	/**
+	 * Evict the exports of the same report with another fingerprint, the expired exports, and then the oldest exports
+	 * beyond the maximal size.
+	 */
+	private void evict(final Path cached) throws IOException {
+		final var name = cached.getFileName().toString();
+		final var prefix = toPrefix(name);
+		final var now = System.currentTimeMillis();
+		final List<File> files = new ArrayList<>();
+		try (Stream<Path> paths = Files.list(cached.getParent())) {
+			paths.map(Path::toFile).filter(f -> f.getName().endsWith(EXTENSION)).forEach(files::add);
+		}
+		files.sort(Comparator.comparingLong(File::lastModified).reversed());
+		var size = 0L;
+		for (final File file : files) {
+			final var current = file.getName().equals(name);
+			if (!current && (toPrefix(file.getName()).equals(prefix) || file.lastModified() + ttl <= now
+					|| size + file.length() > maxSize)) {
+				log.info("Evict cached export {}", file.getName());
+				Files.deleteIfExists(file.toPath());
+			} else {
+				size += file.length();
+			}
+		}
+	}
+}
@@ -3,30 +3,45 @@
  */
 package org.ligoj.app.plugin.jira.out;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
 import java.nio.charset.StandardCharsets;
 import java.text.Format;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.Deque;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
-import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
+import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityNotFoundException;
 import javax.sql.DataSource;
 import jakarta.transaction.Transactional;
 import jakarta.ws.rs.GET;
+import jakarta.ws.rs.HeaderParam;
 import jakarta.ws.rs.Path;
 import jakarta.ws.rs.PathParam;
 import jakarta.ws.rs.Produces;
+import jakarta.ws.rs.core.HttpHeaders;
 import jakarta.ws.rs.core.MediaType;
 import jakarta.ws.rs.core.Response;
+import jakarta.ws.rs.core.Response.ResponseBuilder;
+import jakarta.ws.rs.core.StreamingOutput;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -44,10 +59,12 @@ import org.ligoj.app.plugin.bt.dao.SlaRepository;
 import org.ligoj.app.plugin.jira.JiraBaseResource;
 import org.ligoj.app.plugin.jira.JiraSimpleExport;
 import org.ligoj.app.plugin.jira.JiraSlaComputations;
+import org.ligoj.app.plugin.jira.dao.JiraChangeHistory;
 import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
+import org.ligoj.app.plugin.jira.dao.JiraSlaCheckpointStore;
 import org.ligoj.app.plugin.jira.dao.JiraIssueRow;
 import org.ligoj.app.plugin.jira.editor.CustomFieldEditor;
-import org.ligoj.app.plugin.jira.model.CustomFieldValue;
+import org.ligoj.app.plugin.jira.model.SlaCheckpoint;
 import org.ligoj.app.plugin.bt.model.BugTrackerConfiguration;
 import org.ligoj.app.plugin.bt.model.BusinessHours;
 import org.ligoj.app.plugin.bt.model.ChangeItem;
@@ -55,16 +72,20 @@ import org.ligoj.app.plugin.bt.model.Sla;
 import org.ligoj.app.resource.NormalizeFormat;
 import org.ligoj.app.resource.plugin.AbstractToolPluginResource;
 import org.ligoj.bootstrap.core.DescribedBean;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
 import org.ligoj.bootstrap.core.template.BeanProcessor;
 import org.ligoj.bootstrap.core.template.FormatProcessor;
 import org.ligoj.bootstrap.core.template.MapProcessor;
 import org.ligoj.bootstrap.core.template.Processor;
 import org.ligoj.bootstrap.core.template.Template;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 
 /**
@@ -104,6 +125,57 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	@Autowired
 	protected BugTrackerConfigurationRepository bugTrackerConfigurationRepository;
 
+	/**
+	 * Amount of workers computing the SLA of independent issues. When <code>1</code>, the SLA are computed in the
+	 * requesting thread.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.sla.parallelism:1}")
+	private int slaParallelism = 1;
+
+	@Autowired
+	protected JiraSlaCheckpointStore checkpointStore;
+
+	@Autowired
+	protected JiraExportCache exportCache;
+
+	/**
+	 * Maximal amount of rows of a record batch of the Arrow exports. Bounds the memory used by an Arrow export.
+	 */
+	@Getter
+	@Setter
+	@Value("${jira.export.arrow.batch-size:10000}")
+	private int arrowBatchSize = 10000;
+
+	/**
+	 * When <code>false</code>, the JVM does not open <code>java.nio</code> to the Arrow memory, and the Arrow exports
+	 * are rejected.
+	 */
+	@Getter
+	@Setter
+	private boolean arrowSupported = true;
+
+	/**
+	 * Check the Arrow exports are available in this JVM.
+	 */
+	@PostConstruct
+	public void checkArrow() {
+		arrowSupported = ArrowStreamingOutput.isSupported();
+		if (!arrowSupported) {
+			log.warn("Arrow exports are disabled, the JVM option '{}' is missing", ArrowStreamingOutput.JVM_OPTION);
+		}
+	}
+
+	/**
+	 * Reject an Arrow export when the Arrow memory cannot be allocated, instead of failing during the serialization.
+	 */
+	private void assertArrowSupported() {
+		if (!arrowSupported) {
+			throw new TechnicalException("Arrow exports need the JVM option " + ArrowStreamingOutput.JVM_OPTION);
+		}
+	}
+
 	/**
 	 * Return a simple export data without any computation.
 	 *
@@ -153,16 +225,13 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	 * @return the SLA configuration
 	 */
 	protected JiraSlaComputations getSlaComputations(final int subscription, final boolean timing) {
+		if (checkpointStore.isEnabled()) {
+			return getIncrementalSlaComputations(subscription, timing, false);
+		}
 
 		// Find the project corresponding to the given JIRA project
 		final long start = System.currentTimeMillis();
-		log.info("Get configuration of " + subscription);
-		final BugTrackerConfiguration btConfiguration = bugTrackerConfigurationRepository
-				.findBySubscriptionFetch(subscription);
-		if (btConfiguration == null) {
-			throw new EntityNotFoundException(String.valueOf(subscription));
-		}
-
+		final BugTrackerConfiguration btConfiguration = getBtConfiguration(subscription);
 		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
 		final int jira = Integer.parseInt(parameters.get(JiraBaseResource.PARAMETER_PROJECT));
 		final String pkey = parameters.get(JiraBaseResource.PARAMETER_PKEY);
@@ -180,11 +249,6 @@ public class JiraExportPluginResource extends JiraBaseResource {
 		log.info("Get relevant status, priorities, resolutions, components and types of project {} subscription {}",
 				pkey, subscription);
 		final Map<Integer, String> statusText = updateIndentifierFromText(dataSource, slas, jira, changes);
-		final Map<Integer, String> priorityText = jiraDao.getPriorities(dataSource);
-		final Map<Integer, String> resolutionText = jiraDao.getResolutions(dataSource);
-		final Map<Integer, String> typeText = jiraDao.getTypes(dataSource, jira);
-		log.info("Fetch done of {} for {} changes, {} status, {} priorities, {} types, {} resolutions", subscription,
-				changes.size(), statusText.size(), priorityText.size(), typeText.size(), resolutionText.size());
 
 		// Get relevant holidays and project configuration to compute SLA
 		log.info("Compute SLA of {}", subscription);
@@ -195,12 +259,123 @@ public class JiraExportPluginResource extends JiraBaseResource {
 		} else {
 			holidays = holidayRepository.getHolidays(subscription, changes.get(0).getCreated(), new Date());
 		}
-		final SlaComputations computations = slaProcessor.process(businessHours, changes, holidays, slas);
+		final JiraSlaComputations jiraComputations = newSlaComputations(btConfiguration, dataSource, jira, slas,
+				statusText, holidays);
+		if (slaParallelism > 1) {
+			// Issues are independent, compute them by partitions
+			jiraComputations.setIssues(
+					new ParallelSlaProcessor(slaProcessor, businessHours, holidays, slas, slaParallelism).process(changes));
+			jiraComputations.setSlaConfigurations(
+					slaProcessor.process(businessHours, new ArrayList<>(), holidays, slas).getSlaConfigurations());
+		} else {
+			final SlaComputations computations = slaProcessor.process(businessHours, changes, holidays, slas);
+			jiraComputations.setIssues(computations.getIssues());
+			jiraComputations.setSlaConfigurations(computations.getSlaConfigurations());
+		}
+		log.info("End of SLA computation of {} for {} changes, took {}", subscription, changes.size(),
+				DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
+		return jiraComputations;
+	}
+
+	/**
+	 * Return SLA computations reusing the checkpoint of the subscription : only the issues unresolved or touched since
+	 * the high-water mark of the checkpoint are computed, the other ones are read from the checkpoint. The checkpoint
+	 * is replaced when the SLA, business hours or holidays configuration has changed.
+	 */
+	private JiraSlaComputations getIncrementalSlaComputations(final int subscription, final boolean timing,
+			final boolean full) {
+		final long start = System.currentTimeMillis();
+		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+		final String pkey = parameters.get(JiraBaseResource.PARAMETER_PKEY);
+		final JiraSlaComputations jiraComputations = getStreamedSlaComputations(subscription, parameters);
+		final DataSource dataSource = jiraComputations.getDataSource();
+		final int jira = jiraComputations.getJira();
+		final List<BusinessHours> businessHours = jiraComputations.getBtConfiguration().getBusinessHours();
+		final List<Date> holidays = jiraComputations.getHolidays();
+		final List<Sla> slas = jiraComputations.getSlas();
+
+		// The high-water mark is read before the changes, a concurrent change will be computed again
+		final Date watermark = jiraDao.getLastUpdate(dataSource, jira);
+		final int watermarkId = jiraDao.getLastChangeGroup(dataSource, jira);
+		final SlaCheckpoint checkpoint = full ? null : checkpointStore.get(subscription, timing);
+		Map<Integer, IssueSla> issues = null;
+		if (checkpoint != null && checkpoint.getConfiguration()
+				.equals(checkpointStore.newConfiguration(slas, businessHours, holidays, checkpoint.getWatermark()))) {
+			issues = checkpointStore.getIssues(subscription);
+		}
+		final List<JiraChangeItem> changes;
+		if (issues == null) {
+			log.info("Get changes of {}({}), no valid SLA checkpoint", pkey, jira);
+			changes = jiraDao.getChanges(dataSource, jira, pkey, false, timing);
+			issues = new TreeMap<>();
+		} else {
+			log.info("Get changes of {}({}) since {}, {} issues in SLA checkpoint", pkey, jira,
+					checkpoint.getWatermark(), issues.size());
+			changes = jiraDao.getChanges(dataSource, jira, pkey, timing, checkpoint.getWatermark(),
+					checkpoint.getWatermarkId());
+		}
+		log.info("Retrieved changes : {}", changes.size());
+
+		// Compute the touched issues and merge them with the checkpoint
+		final List<IssueSla> computed;
+		if (slaParallelism > 1) {
+			computed = new ParallelSlaProcessor(slaProcessor, businessHours, holidays, slas, slaParallelism)
+					.process(toChangeItems(changes));
+		} else {
+			computed = slaProcessor.process(businessHours, toChangeItems(changes), holidays, slas).getIssues();
+		}
+		for (final IssueSla issue : computed) {
+			issues.put(issue.getId(), issue);
+		}
+		final Set<Integer> ids = jiraDao.getIssueIds(dataSource, jira);
+		if (checkpoint != null && !issues.keySet().containsAll(ids)) {
+			// Issue neither touched nor in the checkpoint
+			log.warn("Incomplete SLA checkpoint of {}, computed again", subscription);
+			return getIncrementalSlaComputations(subscription, timing, true);
+		}
+		final Set<Integer> removed = new HashSet<>(issues.keySet());
+		removed.removeAll(ids);
+		issues.keySet().removeAll(removed);
+
+		// Save the new checkpoint, there is nothing to save without issue
+		if (watermark != null) {
+			checkpointStore.save(subscription, timing,
+					checkpointStore.newConfiguration(slas, businessHours, holidays, watermark), watermark, watermarkId,
+					computed, checkpoint == null ? null : removed);
+		}
+		jiraComputations.setIssues(new ArrayList<>(issues.values()));
+		log.info("End of incremental SLA computation of {} for {} computed issues, took {}", subscription,
+				computed.size(), DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
+		return jiraComputations;
+	}
+
+	/**
+	 * Return the bug tracker configuration of a subscription.
+	 */
+	private BugTrackerConfiguration getBtConfiguration(final int subscription) {
+		log.info("Get configuration of " + subscription);
+		final BugTrackerConfiguration btConfiguration = bugTrackerConfigurationRepository
+				.findBySubscriptionFetch(subscription);
+		if (btConfiguration == null) {
+			throw new EntityNotFoundException(String.valueOf(subscription));
+		}
+		return btConfiguration;
+	}
+
+	/**
+	 * Return a new SLA computations without issues, but with the texts of all involved JIRA identifiers.
+	 */
+	private JiraSlaComputations newSlaComputations(final BugTrackerConfiguration btConfiguration,
+			final DataSource dataSource, final int jira, final List<Sla> slas, final Map<Integer, String> statusText,
+			final List<Date> holidays) {
+		final Map<Integer, String> priorityText = jiraDao.getPriorities(dataSource);
+		final Map<Integer, String> resolutionText = jiraDao.getResolutions(dataSource);
+		final Map<Integer, String> typeText = jiraDao.getTypes(dataSource, jira);
+		log.info("Fetch done of {} status, {} priorities, {} types, {} resolutions", statusText.size(),
+				priorityText.size(), typeText.size(), resolutionText.size());
 		final JiraSlaComputations jiraComputations = new JiraSlaComputations();
 		jiraComputations.setDataSource(dataSource);
 		jiraComputations.setSlas(slas);
-		jiraComputations.setIssues(computations.getIssues());
-		jiraComputations.setSlaConfigurations(computations.getSlaConfigurations());
 		jiraComputations.setJira(jira);
 		jiraComputations.setProject(DescribedBean.clone(btConfiguration.getSubscription().getProject()));
 		jiraComputations.setBtConfiguration(btConfiguration);
@@ -209,11 +384,107 @@ public class JiraExportPluginResource extends JiraBaseResource {
 		jiraComputations.setPriorityText(priorityText);
 		jiraComputations.setResolutionText(resolutionText);
 		jiraComputations.setTypeText(typeText);
-		log.info("End of SLA computation, took {}",
-				DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
 		return jiraComputations;
 	}
 
+	/**
+	 * Return a streamed SLA computations CSV output. The issues are read from a forward only cursor ordered by issue,
+	 * and the SLA of each issue is computed and written as soon as all its changes are read. Only the changes of the
+	 * current issue are held in memory.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return the streamed output. Issues are read during the serialization.
+	 */
+	protected CsvSlaStreamingOutput getSlaComputationsStreaming(final int subscription) {
+		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+		final JiraSlaComputations jiraComputations = getStreamedSlaComputations(subscription, parameters);
+		return new CsvSlaStreamingOutput(jiraComputations,
+				newIssueSource(subscription, parameters.get(JiraBaseResource.PARAMETER_PKEY), jiraComputations, false));
+	}
+
+	/**
+	 * Return SLA computations without issues, but with the SLA configurations and the texts of all involved JIRA
+	 * identifiers. The changes are not read.
+	 */
+	private JiraSlaComputations getStreamedSlaComputations(final int subscription, final Map<String, String> parameters) {
+		final BugTrackerConfiguration btConfiguration = getBtConfiguration(subscription);
+		final int jira = Integer.parseInt(parameters.get(JiraBaseResource.PARAMETER_PROJECT));
+		final String pkey = parameters.get(JiraBaseResource.PARAMETER_PKEY);
+		final DataSource dataSource = getStreamingDataSource(parameters);
+
+		// Get SLA configuration and the attributes of issues without reading the changes
+		final List<Sla> slas = slaRepository.findBySubscription(subscription);
+		log.info("Get relevant status, priorities, resolutions and types of project {} subscription {}", pkey,
+				subscription);
+		final Map<Integer, String> statusText = updateIndentifierFromText(dataSource, slas, jira,
+				jiraDao.getInvolvedStatuses(dataSource, jira));
+
+		// Get relevant holidays and project configuration to compute SLA
+		final Date firstCreated = jiraDao.getFirstCreated(dataSource, jira);
+		final List<Date> holidays;
+		if (firstCreated == null) {
+			holidays = new ArrayList<>();
+		} else {
+			holidays = holidayRepository.getHolidays(subscription, firstCreated, new Date());
+		}
+		final JiraSlaComputations jiraComputations = newSlaComputations(btConfiguration, dataSource, jira, slas,
+				statusText, holidays);
+		jiraComputations.setIssues(new ArrayList<>());
+		jiraComputations.setSlaConfigurations(slaProcessor
+				.process(btConfiguration.getBusinessHours(), new ArrayList<>(), holidays, slas).getSlaConfigurations());
+		return jiraComputations;
+	}
+
+	/**
+	 * Return the issue source computing the SLA issue by issue during the serialization.
+	 */
+	private Consumer<Consumer<IssueSla>> newIssueSource(final int subscription, final String pkey,
+			final JiraSlaComputations jiraComputations, final boolean timing) {
+		final DataSource dataSource = jiraComputations.getDataSource();
+		final int jira = jiraComputations.getJira();
+		final List<BusinessHours> businessHours = jiraComputations.getBtConfiguration().getBusinessHours();
+		return consumer -> {
+			final long start = System.currentTimeMillis();
+			log.info("Stream SLA of {}({})", pkey, jira);
+			if (slaParallelism > 1) {
+				// Issues are independent, compute them by batches and keep the cursor order
+				new ParallelSlaProcessor(slaProcessor, businessHours, jiraComputations.getHolidays(),
+						jiraComputations.getSlas(), slaParallelism).forEach(
+								issueConsumer -> jiraDao.forEachIssueChanges(dataSource, jira, pkey, timing,
+										changes -> issueConsumer.accept(toChangeItems(changes))),
+								consumer);
+			} else {
+				jiraDao.forEachIssueChanges(dataSource, jira, pkey, timing,
+						changes -> slaProcessor.process(businessHours, toChangeItems(changes),
+								jiraComputations.getHolidays(), jiraComputations.getSlas()).getIssues().forEach(consumer));
+			}
+			log.info("End of streamed SLA computation of {}, took {}", subscription,
+					DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
+		};
+	}
+
+	/**
+	 * Return the JIRA changes as bug tracker changes.
+	 */
+	@SuppressWarnings({ "rawtypes", "unchecked" })
+	private List<ChangeItem> toChangeItems(final List<JiraChangeItem> changes) {
+		return (List) changes;
+	}
+
+	/**
+	 * Return SLA computations as CSV input stream.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	public Response getSlaComputationsCsv(final int subscription, final String file) {
+		return getSlaComputationsCsv(subscription, file, null, null);
+	}
+
 	/**
 	 * Return SLA computations as CSV input stream.
 	 *
@@ -221,17 +492,75 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	 *            The subscription identifier.
 	 * @param file
 	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
 	 * @return the stream ready to be read during the serialization.
 	 */
 	@GET
-	@Path("{file:.*-short.csv}")
+	@Path("{file:.*-short.csv(?:\\.gz)?}")
 	@Produces(MediaType.APPLICATION_OCTET_STREAM)
 	public Response getSlaComputationsCsv(@PathParam("subscription") final int subscription,
-			@PathParam("file") final String file) {
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) final String acceptEncoding) {
 		log.info("SLA report requested by '{}' for subscription '{}'",
 				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
-		return AbstractToolPluginResource
-				.download(new CsvStreamingOutput(getSlaComputations(subscription, false)), file).build();
+		return download(subscription, "short", file, ifNoneMatch, acceptEncoding,
+				() -> new CsvStreamingOutput(getSlaComputations(subscription, false)));
+	}
+
+	/**
+	 * Return SLA computations as CSV input stream. Unlike {@link #getSlaComputationsCsv(int, String)}, the issues are
+	 * computed and written one by one during the serialization.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	public Response getSlaComputationsCsvStream(final int subscription, final String file) {
+		return getSlaComputationsCsvStream(subscription, file, null, null);
+	}
+
+	/**
+	 * Return SLA computations as CSV input stream. Unlike {@link #getSlaComputationsCsv(int, String, String)}, the
+	 * issues are computed and written one by one during the serialization.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	@GET
+	@Path("{file:.*-short-stream.csv(?:\\.gz)?}")
+	@Produces(MediaType.APPLICATION_OCTET_STREAM)
+	public Response getSlaComputationsCsvStream(@PathParam("subscription") final int subscription,
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) final String acceptEncoding) {
+		log.info("Streamed SLA report requested by '{}' for subscription '{}'",
+				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
+		return download(subscription, "short-stream", file, ifNoneMatch, acceptEncoding,
+				() -> getSlaComputationsStreaming(subscription));
+	}
+
+	/**
+	 * Return simple data as CSV input stream. There is no specific computation.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	public Response getSimpleCsv(final int subscription, final String file) {
+		return getSimpleCsv(subscription, file, null, null);
 	}
 
 	/**
@@ -241,16 +570,22 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	 *            The subscription identifier.
 	 * @param file
 	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
 	 * @return the stream ready to be read during the serialization.
 	 */
 	@GET
-	@Path("{file:.*-simple.csv}")
+	@Path("{file:.*-simple.csv(?:\\.gz)?}")
 	@Produces(MediaType.APPLICATION_OCTET_STREAM)
 	public Response getSimpleCsv(@PathParam("subscription") final int subscription,
-			@PathParam("file") final String file) {
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) final String acceptEncoding) {
 		log.info("Standard report requested by '{}' for subscription '{}'",
 				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
-		return AbstractToolPluginResource.download(new CsvSimpleOutput(getSimpleData(subscription)), file).build();
+		return download(subscription, "simple", file, ifNoneMatch, acceptEncoding,
+				() -> new CsvSimpleOutput(getSimpleData(subscription)));
 	}
 
 	/**
@@ -262,40 +597,123 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	 *            The user file name to use in download response.
 	 * @return the stream ready to be read during the serialization.
 	 */
+	public Response getSlaComputationsCsvWithCustomFields(final int subscription, final String file) {
+		return getSlaComputationsCsvWithCustomFields(subscription, file, null, null);
+	}
+
+	/**
+	 * Return SLA computations and custom field data as CSV input stream.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
+	 * @return the stream ready to be read during the serialization.
+	 */
 	@GET
-	@Path("{file:.*-full.csv}")
+	@Path("{file:.*-full.csv(?:\\.gz)?}")
 	@Produces(MediaType.APPLICATION_OCTET_STREAM)
 	public Response getSlaComputationsCsvWithCustomFields(@PathParam("subscription") final int subscription,
-			@PathParam("file") final String file) {
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) final String acceptEncoding) {
 		log.info("SLA+ report requested by '{}' for subscription '{}'",
 				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
+		return download(subscription, "full", file, ifNoneMatch, acceptEncoding,
+				() -> newFullOutput(subscription, csv -> csv));
+	}
+
+	/**
+	 * Return SLA computations and custom field data as an Arrow IPC stream, with the columns of the CSV export. Custom
+	 * fields are typed by their editor.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	@GET
+	@Path("{file:.*-full.arrow}")
+	@Produces(ArrowStreamingOutput.MEDIA_TYPE)
+	public Response getSlaComputationsArrowWithCustomFields(@PathParam("subscription") final int subscription,
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch) {
+		assertArrowSupported();
+		log.info("SLA+ columnar report requested by '{}' for subscription '{}'",
+				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
+		// The batches are already compressed
+		return download(subscription, "full-arrow", file, ifNoneMatch, null,
+				() -> newFullOutput(subscription, csv -> new ArrowStreamingOutput(csv, arrowBatchSize)));
+	}
+
+	/**
+	 * Return the SLA computations and custom field data output. The issues, changes and custom field values cursors are
+	 * read together during the serialization, on a single connection.
+	 */
+	private StreamingOutput newFullOutput(final int subscription,
+			final Function<AbstractCsvOutput, StreamingOutput> format) {
+		final var csv = newFullCsvOutput(subscription);
+		final var output = format.apply(csv);
+		return out -> {
+			try {
+				jiraDao.readOnSingleConnection(csv.getDataSource(), () -> {
+					try {
+						output.write(out);
+					} catch (final IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+			} catch (final UncheckedIOException e) {
+				throw e.getCause();
+			}
+		};
+	}
+
+	/**
+	 * Return the SLA computations and custom field data CSV output.
+	 */
+	private CsvWithCustomFieldsStreamingOutput newFullCsvOutput(final int subscription) {
 		final long start = System.currentTimeMillis();
-		final JiraSlaComputations slaComputations = getSlaComputations(subscription, true);
+		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+		final JiraSlaComputations slaComputations = getStreamedSlaComputations(subscription, parameters);
 		final DataSource dataSource = slaComputations.getDataSource();
+		final int jira = slaComputations.getJira();
 
 		// Components
 		final Map<Integer, Collection<Integer>> componentAssociations = jiraDao.getComponentsAssociation(dataSource,
-				slaComputations.getJira());
+				jira);
 		log.info("Retrieved components associations : {}", componentAssociations.size());
-		final Map<Integer, String> components = jiraDao.getComponents(dataSource, slaComputations.getJira());
+		final Map<Integer, String> components = jiraDao.getComponents(dataSource, jira);
 		log.info("Retrieved components configurations : {}", components.size());
 
-		// Custom fields
-		final List<CustomFieldValue> customFieldValues = jiraDao.getCustomFieldValues(dataSource,
-				slaComputations.getJira());
-		log.info("Retrieved custom fields : {}", customFieldValues.size());
-		final Map<Integer, CustomFieldEditor> customFields = getCustomFields(dataSource, customFieldValues,
-				slaComputations.getJira());
-		log.info("Retrieved custom field configurations : {}", customFields.size());
+		// Custom fields, the values are read during the serialization
+		final Map<Integer, CustomFieldEditor> customFields = getCustomFields(dataSource, jira);
 
 		// Parent relationships
-		final Map<Integer, Integer> subTasks = jiraDao.getSubTasks(dataSource, slaComputations.getJira());
+		final Map<Integer, Integer> subTasks = jiraDao.getSubTasks(dataSource, jira);
 		log.info("Retrieved parent relashionships : {}", subTasks.size());
 
 		log.info("End of full report data gathering, took {}",
 				DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
-		return AbstractToolPluginResource.download(new CsvWithCustomFieldsStreamingOutput(slaComputations,
-				customFieldValues, customFields, componentAssociations, components, subTasks), file).build();
+		return new CsvWithCustomFieldsStreamingOutput(slaComputations,
+				newIssueSource(subscription, parameters.get(JiraBaseResource.PARAMETER_PKEY), slaComputations, true),
+				() -> jiraDao.streamCustomFieldValues(dataSource, jira), customFields, componentAssociations,
+				components, subTasks);
+	}
+
+	/**
+	 * Return the custom field configurations of a project.
+	 */
+	private Map<Integer, CustomFieldEditor> getCustomFields(final DataSource dataSource, final int jira) {
+		final Map<Integer, CustomFieldEditor> customFields = jiraDao.getCustomFieldsById(dataSource,
+				jiraDao.getCustomFieldIds(dataSource, jira), jira);
+		log.info("Retrieved custom field configurations : {}", customFields.size());
+		return customFields;
 	}
 
 	/**
@@ -307,43 +725,116 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	 *            The user file name to use in download response.
 	 * @return the stream ready to be read during the serialization.
 	 */
+	public Response getStatusHistory(final int subscription, final String file) {
+		return getStatusHistory(subscription, file, null, null);
+	}
+
+	/**
+	 * Return status history without SL computation.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
+	 * @return the stream ready to be read during the serialization.
+	 */
 	@GET
-	@Path("{file:.*-status.csv}")
+	@Path("{file:.*-status.csv(?:\\.gz)?}")
 	@Produces(MediaType.APPLICATION_OCTET_STREAM)
 	public Response getStatusHistory(@PathParam("subscription") final int subscription,
-			@PathParam("file") final String file) {
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) final String acceptEncoding) {
 		log.info("Status history report requested by '{}' for subscription '{}'",
 				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
+		return download(subscription, "status", file, ifNoneMatch, acceptEncoding, () -> newStatusOutput(subscription));
+	}
+
+	/**
+	 * Return status history without SL computation as an Arrow IPC stream, with the columns of the CSV export.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @return the stream ready to be read during the serialization.
+	 */
+	@GET
+	@Path("{file:.*-status.arrow}")
+	@Produces(ArrowStreamingOutput.MEDIA_TYPE)
+	public Response getStatusHistoryArrow(@PathParam("subscription") final int subscription,
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch) {
+		assertArrowSupported();
+		log.info("Status history columnar report requested by '{}' for subscription '{}'",
+				SecurityContextHolder.getContext().getAuthentication().getName(), subscription);
+		// The batches are already compressed
+		return download(subscription, "status-arrow", file, ifNoneMatch, null,
+				() -> new ArrowStreamingOutput(newStatusOutput(subscription), arrowBatchSize));
+	}
+
+	/**
+	 * Return the status history output.
+	 */
+	private CsvStatusStreamingOutput newStatusOutput(final int subscription) {
 		final long start = System.currentTimeMillis();
 		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
 		final int jira = Integer.parseInt(parameters.get(JiraBaseResource.PARAMETER_PROJECT));
 		final String pkey = parameters.get(JiraBaseResource.PARAMETER_PKEY);
-		final DataSource dataSource = getDataSource(parameters);
+		final DataSource dataSource = getStreamingDataSource(parameters);
 
 		// Get changes, relevant holidays and project configuration
 		log.info("Get changes of {}({})", pkey, jira);
-		final List<JiraChangeItem> changes = jiraDao.getChanges(dataSource, jira, pkey, true, false);
-		log.info("Retrieved changes : " + changes.size());
+		final JiraChangeHistory history = jiraDao.getChangeHistory(dataSource, jira, pkey);
+		log.info("Retrieved changes : " + history.size());
 
 		// Compute the identifiers from the texts
 		log.info("Get relevant text of project's statuses");
-		final Map<Integer, String> statusText = jiraDao.getStatuses(dataSource, getInvolvedStatuses(changes),
+		final Map<Integer, String> statusText = jiraDao.getStatuses(dataSource, history.getStatuses(),
 				new ArrayList<>());
 		log.info("End of status report data gathering, took {}",
 				DurationFormatUtils.formatDurationHMS(System.currentTimeMillis() - start));
-		return AbstractToolPluginResource.download(new CsvStatusStreamingOutput(changes, statusText), file).build();
+		return new CsvStatusStreamingOutput(history, statusText);
 	}
 
 	/**
-	 * Return ordered custom field identifiers.
+	 * Return the typed schema of the SLA computations and custom field data CSV export. Custom fields are typed by their
+	 * editor.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The typed schema of the "-full.csv" export.
 	 */
-	private Map<Integer, CustomFieldEditor> getCustomFields(final DataSource dataSource,
-			final List<CustomFieldValue> customFieldValues, final int project) {
-		final java.util.Set<Integer> ids = new LinkedHashSet<>();
-		for (final CustomFieldValue cv : customFieldValues) {
-			ids.add(cv.getCustomField());
-		}
-		return jiraDao.getCustomFieldsById(dataSource, ids, project);
+	@GET
+	@Path("{file:.*-full.schema.json}")
+	public CsvSchema getSlaComputationsCsvWithCustomFieldsSchema(@PathParam("subscription") final int subscription) {
+		// Only the SLA and custom field configurations, the issues and their associations are not read
+		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+		final JiraSlaComputations slaComputations = getStreamedSlaComputations(subscription, parameters);
+		return new CsvWithCustomFieldsStreamingOutput(slaComputations, consumer -> {
+			// No issue
+		}, Stream::empty, getCustomFields(slaComputations.getDataSource(), slaComputations.getJira()),
+				Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap()).getSchema();
+	}
+
+	/**
+	 * Return the typed schema of the status history CSV export.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @return The typed schema of the "-status.csv" export.
+	 */
+	@GET
+	@Path("{file:.*-status.schema.json}")
+	public CsvSchema getStatusHistorySchema(@PathParam("subscription") final int subscription) {
+		// Only check the subscription, the schema does not depend on the data
+		subscriptionResource.getParameters(subscription);
+		return new CsvStatusStreamingOutput(JiraChangeHistory.of(Collections.emptyList()), Collections.emptyMap())
+				.getSchema();
 	}
 
 	/**
@@ -355,24 +846,98 @@ public class JiraExportPluginResource extends JiraBaseResource {
 	 *            The user file name to use in download response.
 	 * @return the stream ready to be read during the serialization.
 	 */
+	public Response getSlaComputationsXls(final int subscription, final String file) {
+		return getSlaComputationsXls(subscription, file, null, null);
+	}
+
+	/**
+	 * Return SLA computations as XLS input stream.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
+	 * @return the stream ready to be read during the serialization.
+	 */
 	@GET
-	@Path("{file:.*.xml}")
+	@Path("{file:.*.xml(?:\\.gz)?}")
 	@Produces(MediaType.APPLICATION_OCTET_STREAM)
 	public Response getSlaComputationsXls(@PathParam("subscription") final int subscription,
-			@PathParam("file") final String file) {
-		final JiraSlaComputations slaComputations = getSlaComputations(subscription, false);
-		final Map<String, Processor<?>> tags = mapTags(slaComputations);
-
-		// Get the template data
-		return AbstractToolPluginResource.download(output -> {
-			try (InputStream template = new ClassPathResource("csv/template/template-sla.xml").getInputStream();
-					PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
-				new Template<JiraSlaComputations>(IOUtils.toString(template, StandardCharsets.UTF_8)).write(writer,
-						tags, slaComputations);
-				writer.flush();
-			}
-		}, file).build();
+			@PathParam("file") final String file, @HeaderParam(HttpHeaders.IF_NONE_MATCH) final String ifNoneMatch,
+			@HeaderParam(HttpHeaders.ACCEPT_ENCODING) final String acceptEncoding) {
+		return download(subscription, "xml", file, ifNoneMatch, acceptEncoding, () -> {
+			final JiraSlaComputations slaComputations = getSlaComputations(subscription, false);
+			final Map<String, Processor<?>> tags = mapTags(slaComputations);
+
+			// Get the template data
+			return output -> {
+				try (InputStream template = new ClassPathResource("csv/template/template-sla.xml").getInputStream();
+						PrintWriter writer = new PrintWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8))) {
+					new Template<JiraSlaComputations>(IOUtils.toString(template, StandardCharsets.UTF_8)).write(writer,
+							tags, slaComputations);
+					writer.flush();
+				}
+			};
+		});
+	}
 
+	/**
+	 * Return the export download response, through the export cache when enabled. The export is compressed when the
+	 * file name ends with {@value ExportEncoding#GZIP_SUFFIX}, or when the client accepts a compressed content.
+	 *
+	 * @param subscription
+	 *            The subscription identifier.
+	 * @param report
+	 *            The report type.
+	 * @param file
+	 *            The user file name to use in download response.
+	 * @param ifNoneMatch
+	 *            The entity tag of the export already owned by the client. May be <code>null</code>.
+	 * @param acceptEncoding
+	 *            The encodings accepted by the client. May be <code>null</code>.
+	 * @param output
+	 *            The export generator.
+	 * @return The download response.
+	 */
+	private Response download(final int subscription, final String report, final String file,
+			final String ifNoneMatch, final String acceptEncoding, final Supplier<StreamingOutput> output) {
+		final var compressedFile = file.endsWith(ExportEncoding.GZIP_SUFFIX);
+		final var encoding = compressedFile ? ExportEncoding.GZIP : ExportEncoding.of(acceptEncoding);
+		final ResponseBuilder response;
+		if (exportCache.isEnabled()) {
+			response = exportCache.download(subscription, report,
+					exportCache.getFingerprint(subscription, () -> newExportFingerprint(subscription)), file,
+					ifNoneMatch, encoding, output);
+		} else {
+			response = AbstractToolPluginResource.download(encoding.encode(output.get()), file);
+		}
+		if (!compressedFile) {
+			// The content depends on the negotiated encoding
+			response.encoding(encoding.getContentEncoding()).header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		}
+		return response.build();
+	}
+
+	/**
+	 * Return the fingerprint of the data of the exports of a subscription : last change group, last update, and the
+	 * SLA configuration.
+	 */
+	private String newExportFingerprint(final int subscription) {
+		final Map<String, String> parameters = subscriptionResource.getParameters(subscription);
+		final int jira = Integer.parseInt(parameters.get(JiraBaseResource.PARAMETER_PROJECT));
+		final DataSource dataSource = getDataSource(parameters);
+		final BugTrackerConfiguration btConfiguration = bugTrackerConfigurationRepository
+				.findBySubscriptionFetch(subscription);
+		final String configuration = btConfiguration == null ? ""
+				: checkpointStore.newConfiguration(slaRepository.findBySubscription(subscription),
+						btConfiguration.getBusinessHours(),
+						holidayRepository.getHolidays(subscription, new Date(0), new Date()), new Date());
+		return jiraDao.getLastChangeGroup(dataSource, jira) + ";"
+				+ Objects.toString(jiraDao.getLastUpdate(dataSource, jira), "") + ";" + configuration;
 	}
 
 	/**
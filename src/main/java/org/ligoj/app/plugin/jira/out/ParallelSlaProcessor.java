@@ -0,0 +1,154 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
+
+import org.ligoj.app.plugin.bt.IssueSla;
+import org.ligoj.app.plugin.bt.SlaProcessor;
+import org.ligoj.app.plugin.bt.model.BusinessHours;
+import org.ligoj.app.plugin.bt.model.ChangeItem;
+import org.ligoj.app.plugin.bt.model.Sla;
+
+/**
+ * SLA computation of independent issues in parallel. The changes are partitioned by issue, each partition is computed
+ * by a {@link SlaProcessor} call in a dedicated {@link ForkJoinPool}, and the computed issues are merged in the
+ * identifier order.
+ */
+class ParallelSlaProcessor {
+
+	/**
+	 * Amount of issues computed by a streamed task.
+	 */
+	private static final int STREAM_BATCH = 100;
+
+	/**
+	 * Amount of partitions per worker of the in-memory computation, smoothing the uneven issue sizes.
+	 */
+	private static final int PARTITIONS_PER_WORKER = 4;
+
+	private static final Comparator<IssueSla> BY_ID = Comparator.comparing(IssueSla::getId);
+
+	private final SlaProcessor slaProcessor;
+	private final List<BusinessHours> businessHours;
+	private final List<Date> holidays;
+	private final List<Sla> slas;
+	private final int parallelism;
+
+	/**
+	 * Constructor with the SLA configuration shared by all issues.
+	 *
+	 * @param slaProcessor
+	 *            The SLA processor, shared by the workers.
+	 * @param businessHours
+	 *            The business hours.
+	 * @param holidays
+	 *            The holidays.
+	 * @param slas
+	 *            The SLA to compute.
+	 * @param parallelism
+	 *            The amount of workers.
+	 */
+	ParallelSlaProcessor(final SlaProcessor slaProcessor, final List<BusinessHours> businessHours,
+			final List<Date> holidays, final List<Sla> slas, final int parallelism) {
+		this.slaProcessor = slaProcessor;
+		this.businessHours = businessHours;
+		this.holidays = holidays;
+		this.slas = slas;
+		this.parallelism = parallelism;
+	}
+
+	/**
+	 * Compute the SLA of all issues of the given changes.
+	 *
+	 * @param changes
+	 *            The changes of all issues, ordered by date.
+	 * @return The computed issues, ordered by identifier.
+	 */
+	List<IssueSla> process(final List<ChangeItem> changes) {
+		// Assign contiguous ranges of issue identifiers to the partitions
+		final int[] ids = changes.stream().mapToInt(ChangeItem::getId).distinct().sorted().toArray();
+		final int nbPartitions = Math.max(1, Math.min(ids.length, parallelism * PARTITIONS_PER_WORKER));
+		final Map<Integer, Integer> partitionOf = new HashMap<>(ids.length * 2);
+		for (var i = 0; i < ids.length; i++) {
+			partitionOf.put(ids[i], (int) ((long) i * nbPartitions / ids.length));
+		}
+
+		// Keep the date order of the changes in each partition
+		final List<List<ChangeItem>> partitions = new ArrayList<>(nbPartitions);
+		for (var i = 0; i < nbPartitions; i++) {
+			partitions.add(new ArrayList<>());
+		}
+		changes.forEach(c -> partitions.get(partitionOf.get(c.getId())).add(c));
+
+		final var pool = new ForkJoinPool(parallelism);
+		try {
+			final List<ForkJoinTask<List<IssueSla>>> tasks = partitions.stream()
+					.map(p -> pool.submit(() -> slaProcessor.process(businessHours, p, holidays, slas).getIssues()))
+					.toList();
+			final List<IssueSla> result = new ArrayList<>();
+			tasks.forEach(t -> result.addAll(t.join()));
+			result.sort(BY_ID);
+			return result;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Compute the SLA of the streamed issues. The issues are computed by batches, with a bounded amount of pending
+	 * batches, and given to the consumer in the source order.
+	 *
+	 * @param source
+	 *            The source giving the changes of each issue, issue by issue.
+	 * @param consumer
+	 *            The consumer of the computed issues.
+	 */
+	void forEach(final Consumer<Consumer<List<ChangeItem>>> source, final Consumer<IssueSla> consumer) {
+		final var pool = new ForkJoinPool(parallelism);
+		try {
+			final Deque<ForkJoinTask<List<IssueSla>>> pending = new ArrayDeque<>();
+			final List<List<ChangeItem>> batch = new ArrayList<>(STREAM_BATCH);
+			source.accept(changes -> {
+				batch.add(changes);
+				if (batch.size() == STREAM_BATCH) {
+					pending.add(submit(pool, List.copyOf(batch)));
+					batch.clear();
+					while (pending.size() > parallelism * 2) {
+						pending.poll().join().forEach(consumer);
+					}
+				}
+			});
+			if (!batch.isEmpty()) {
+				pending.add(submit(pool, List.copyOf(batch)));
+			}
+			while (!pending.isEmpty()) {
+				pending.poll().join().forEach(consumer);
+			}
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Submit the computation of a batch of issues, each issue computed alone.
+	 */
+	private ForkJoinTask<List<IssueSla>> submit(final ForkJoinPool pool, final List<List<ChangeItem>> issues) {
+		return pool.submit(() -> {
+			final List<IssueSla> result = new ArrayList<>();
+			issues.forEach(changes -> result.addAll(slaProcessor.process(businessHours, changes, holidays, slas).getIssues()));
+			return result;
+		});
+	}
+}
@@ -17,6 +17,10 @@ import org.ligoj.app.model.ParameterValue;
 import org.ligoj.app.model.Project;
 import org.ligoj.app.model.Subscription;
 import org.ligoj.app.plugin.jira.dao.ImportStatusRepository;
+import org.ligoj.app.plugin.jira.dao.JiraDataSourceRegistry;
+import org.ligoj.app.plugin.jira.dao.JiraDataSourceRegistry.PoolStatistics;
+import org.ligoj.app.plugin.jira.dao.JiraSlaCheckpointStore;
+import org.ligoj.app.plugin.jira.dao.JiraWorkflowCache;
 import org.ligoj.app.resource.node.ParameterValueResource;
 import org.ligoj.app.resource.subscription.SubscriptionResource;
 import org.ligoj.bootstrap.MatcherUtil;
@@ -28,14 +32,23 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.CacheManager;
 import org.springframework.jdbc.CannotGetJdbcConnectionException;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 
@@ -69,6 +82,15 @@ class JiraPluginResourceTest extends AbstractJiraData3Test {
 	@Autowired
 	private CacheManager cacheManager;
 
+	@Autowired
+	private JiraDataSourceRegistry dataSourceRegistry;
+
+	@Autowired
+	private JiraSlaCheckpointStore checkpointStore;
+
+	@Autowired
+	private JiraWorkflowCache workflowCache;
+
 	@BeforeEach
 	void prepareSubscription() {
 		persistSystemEntities();
@@ -130,6 +152,136 @@ class JiraPluginResourceTest extends AbstractJiraData3Test {
 		Assertions.assertEquals(2, project.getStatuses().get("Open").intValue());
 	}
 
+	@Test
+	void getStatusesWorkflowCache() {
+		final var expected = resource.getStatuses(subscription);
+		try {
+			workflowCache.setTtl(60000);
+			Assertions.assertEquals(expected, resource.getStatuses(subscription));
+			final var size = workflowCache.size();
+			Assertions.assertEquals(expected, resource.getStatuses(subscription));
+			Assertions.assertEquals(size, workflowCache.size());
+		} finally {
+			workflowCache.setTtl(0);
+			workflowCache.invalidate();
+		}
+	}
+
+	@Test
+	void forEachIssueChangesSingleConnection() {
+		final var dataSource = resource.getDataSource(subscription);
+		final var issues = new AtomicInteger();
+		final var active = new AtomicInteger();
+		dao.forEachIssueChanges(dataSource, 10074, "MDA", false, changes -> {
+			issues.incrementAndGet();
+			active.accumulateAndGet(dataSourceRegistry.getStatistics().values().stream()
+					.mapToInt(PoolStatistics::active).sum(), Math::max);
+		});
+		Assertions.assertTrue(issues.get() > 0);
+
+		// Issues and changes cursors are opened together
+		Assertions.assertEquals(1, active.get());
+	}
+
+	@Test
+	void forEachIssueChangesIncremental() {
+		final var fetchSizes = new ArrayList<Integer>();
+		final var fetched = new AtomicInteger();
+		final var dataSource = new DelegatingDataSource(resource.getDataSource(subscription)) {
+			@Override
+			public Connection getConnection() throws SQLException {
+				return intercept(Connection.class, super.getConnection(), fetchSizes, fetched);
+			}
+		};
+		final var firstFetched = new AtomicInteger(-1);
+		dao.setFetchSize(5);
+		try {
+			dao.forEachIssueChanges(dataSource, 10074, "MDA", false,
+					changes -> firstFetched.compareAndSet(-1, fetched.get()));
+		} finally {
+			dao.setFetchSize(1000);
+		}
+
+		// Both cursors are read with the fetch size, and the first issue is consumed before the 9 other ones are fetched
+		Assertions.assertEquals(List.of(5, 5), fetchSizes);
+		Assertions.assertTrue(firstFetched.get() > 0);
+		Assertions.assertTrue(fetched.get() - firstFetched.get() >= 9);
+	}
+
+	/**
+	 * Return a proxy of a JDBC object recording the fetch sizes and the fetched rows of the statements it creates.
+	 */
+	private <T> T intercept(final Class<T> type, final T target, final List<Integer> fetchSizes,
+			final AtomicInteger fetched) {
+		return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { type }, (p, m, args) -> {
+			if ("setFetchSize".equals(m.getName())) {
+				fetchSizes.add((Integer) args[0]);
+			} else if (target instanceof ResultSet && "next".equals(m.getName())) {
+				fetched.incrementAndGet();
+			}
+			final Object result;
+			try {
+				result = m.invoke(target, args);
+			} catch (final InvocationTargetException e) {
+				throw e.getCause();
+			}
+			if (result instanceof PreparedStatement ps) {
+				return intercept(PreparedStatement.class, ps, fetchSizes, fetched);
+			}
+			if (result instanceof ResultSet rs) {
+				return intercept(ResultSet.class, rs, fetchSizes, fetched);
+			}
+			return result;
+		}));
+	}
+
+	@Test
+	void deleteSubscription() {
+		checkpointStore.save(subscription, false, "configuration", new Date(), 1, List.of(), null);
+		Assertions.assertNotNull(checkpointStore.get(subscription, false));
+		resource.delete(subscription, false);
+		Assertions.assertNull(checkpointStore.get(subscription, false));
+	}
+
+	@Test
+	void getWorflowSignature() {
+		final var signature = dao.getWorflowSignature(datasource, "CSN");
+		Assertions.assertTrue(signature.startsWith("10270:"));
+		Assertions.assertEquals(signature, dao.getWorflowSignature(datasource, "CSN"));
+		Assertions.assertNull(dao.getWorflowSignature(datasource, "jira"));
+
+		// An edit of the same length changes the signature
+		new JdbcTemplate(datasource).update(
+				"UPDATE jiraworkflows SET DESCRIPTOR = REPLACE(DESCRIPTOR, '<step ', '<STEP ') WHERE ID = ?", 10270);
+		Assertions.assertNotEquals(signature, dao.getWorflowSignature(datasource, "CSN"));
+	}
+
+	@Test
+	void getProjectCache() {
+		try {
+			dao.setProjectCacheTtl(60000);
+			final var project = dao.getProject(datasource, 10074);
+			Assertions.assertEquals("MDA", project.getName());
+
+			// The cached project is not exposed
+			project.setName("ANY");
+			project.getStatuses().clear();
+			final var cached = dao.getProject(datasource, 10074);
+			Assertions.assertNotSame(project, cached);
+			Assertions.assertEquals("MDA", cached.getName());
+			Assertions.assertEquals(2, cached.getStatuses().get("Open").intValue());
+			Assertions.assertNull(dao.getProject(datasource, -1));
+
+			dao.clearProjectCache(datasource, 10074);
+			Assertions.assertEquals("MDA", dao.getProject(datasource, 10074).getName());
+			dao.clearProjectCache();
+			Assertions.assertEquals("MDA", dao.getProject(datasource, 10074).getName());
+		} finally {
+			dao.setProjectCacheTtl(0);
+			dao.clearProjectCache();
+		}
+	}
+
 	@Test
 	void checkStatusNoAdmin() throws Exception {
 		final var parameters = new HashMap<String, String>();
@@ -137,6 +289,16 @@ class JiraPluginResourceTest extends AbstractJiraData3Test {
 		Assertions.assertTrue(resource.checkStatus(null, parameters));
 	}
 
+	@Test
+	void checkStatusNode() throws Exception {
+		final var parameters = new HashMap<>(pvResource.getNodeParameters("service:bt:jira:6"));
+		parameters.remove(JiraBaseResource.PARAMETER_ADMIN_USER);
+		Assertions.assertTrue(resource.checkStatus("service:bt:jira:6", parameters));
+		final var dataSource = resource.getDataSource(subscription);
+		resource.delete("service:bt:jira:6", false);
+		Assertions.assertNotSame(dataSource, resource.getDataSource(subscription));
+	}
+
 	@Test
 	void checkStatusWithAdmin() throws Exception {
 		prepareJiraServer();
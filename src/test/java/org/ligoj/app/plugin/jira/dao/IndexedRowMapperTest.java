@@ -0,0 +1,72 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.List;
+
+import org.hsqldb.jdbc.JDBCDriver;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.jira.model.CustomFieldValue;
+import org.springframework.jdbc.core.BeanPropertyRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * {@link IndexedRowMapper} test class.
+ */
+class IndexedRowMapperTest {
+
+	private static final String SQL = "SELECT STRINGVALUE AS stringValue, NUMBERVALUE AS numberValue, DATEVALUE AS dateValue,"
+			+ " CUSTOMFIELD AS customField, ISSUE AS issue, 'unknown' AS noProperty FROM cfv ORDER BY ID";
+
+	private static JdbcTemplate jdbcTemplate;
+
+	@BeforeAll
+	static void createTable() {
+		jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new JDBCDriver(), "jdbc:hsqldb:mem:indexedRowMapper", null, null));
+		jdbcTemplate.execute("CREATE TABLE cfv (ID decimal(18,0) NOT NULL, ISSUE decimal(18,0), CUSTOMFIELD decimal(18,0),"
+				+ " STRINGVALUE varchar(255), NUMBERVALUE double, DATEVALUE datetime, PRIMARY KEY (ID))");
+		jdbcTemplate.update("INSERT INTO cfv VALUES (1, 10, 2, 'value', 1.5, '2014-05-21 15:45:56')");
+		jdbcTemplate.update("INSERT INTO cfv VALUES (2, NULL, 3, NULL, NULL, NULL)");
+	}
+
+	@AfterAll
+	static void dropTable() {
+		jdbcTemplate.execute("DROP TABLE cfv");
+	}
+
+	@Test
+	void mapRow() {
+		final List<CustomFieldValue> values = jdbcTemplate.query(SQL, new IndexedRowMapper<>(CustomFieldValue.class));
+		Assertions.assertEquals(2, values.size());
+		final var value = values.get(0);
+		Assertions.assertEquals(10, value.getIssue());
+		Assertions.assertEquals(2, value.getCustomField());
+		Assertions.assertEquals("value", value.getStringValue());
+		Assertions.assertEquals(1.5, value.getNumberValue());
+		Assertions.assertNotNull(value.getDateValue());
+
+		// Null values, default value for the primitive
+		final var nullValue = values.get(1);
+		Assertions.assertEquals(0, nullValue.getIssue());
+		Assertions.assertEquals(3, nullValue.getCustomField());
+		Assertions.assertNull(nullValue.getStringValue());
+		Assertions.assertNull(nullValue.getNumberValue());
+		Assertions.assertNull(nullValue.getDateValue());
+	}
+
+	@Test
+	void mapRowSameAsBeanProperty() {
+		final var expected = jdbcTemplate.query(SQL, new BeanPropertyRowMapper<>(CustomFieldValue.class)).get(0);
+		final var value = jdbcTemplate.query(SQL, new IndexedRowMapper<>(CustomFieldValue.class)).get(0);
+		Assertions.assertEquals(expected.getIssue(), value.getIssue());
+		Assertions.assertEquals(expected.getCustomField(), value.getCustomField());
+		Assertions.assertEquals(expected.getStringValue(), value.getStringValue());
+		Assertions.assertEquals(expected.getNumberValue(), value.getNumberValue());
+		Assertions.assertEquals(expected.getDateValue(), value.getDateValue());
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import org.hsqldb.jdbc.JDBCDriver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SimpleDriverDataSource;
+
+/**
+ * {@link JdbcBatch} test class.
+ */
+class JdbcBatchTest {
+
+	private static final String INSERT = "INSERT INTO batch_item (ID,NAME) values(?,?)";
+
+	private JdbcTemplate jdbcTemplate;
+
+	@BeforeEach
+	void createTable() {
+		jdbcTemplate = new JdbcTemplate(new SimpleDriverDataSource(new JDBCDriver(), "jdbc:hsqldb:mem:jdbcBatch", null, null));
+		jdbcTemplate.execute("CREATE TABLE batch_item (ID decimal(18,0) NOT NULL, NAME varchar(60), PRIMARY KEY (ID))");
+	}
+
+	@AfterEach
+	void dropTable() {
+		jdbcTemplate.execute("DROP TABLE batch_item");
+	}
+
+	private int count() {
+		return jdbcTemplate.queryForObject("SELECT COUNT(ID) FROM batch_item", Integer.class);
+	}
+
+	@Test
+	void flush() {
+		try (var batch = new JdbcBatch(jdbcTemplate, 2)) {
+			batch.add(INSERT, 1, "A");
+			Assertions.assertEquals(0, count());
+			batch.add(INSERT, 2, "B");
+
+			// Batch size is reached
+			Assertions.assertEquals(2, count());
+			batch.add(INSERT, 3, "C");
+			batch.add("DELETE FROM batch_item WHERE ID = ?", 1);
+			batch.flush();
+			Assertions.assertEquals(3, batch.getBatches());
+			Assertions.assertEquals(4, batch.getRows());
+		}
+		Assertions.assertEquals(2, count());
+	}
+
+	@Test
+	void closeWithoutFlush() {
+		Assertions.assertThrows(IllegalStateException.class, () -> {
+			try (var batch = new JdbcBatch(jdbcTemplate, 10)) {
+				batch.add(INSERT, 1, "A");
+				batch.add(INSERT, 2, "B");
+				throw new IllegalStateException();
+			}
+		});
+
+		// The pending rows are discarded
+		Assertions.assertEquals(0, count());
+	}
+}
@@ -0,0 +1,79 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link JiraChangeHistory} test class.
+ */
+class JiraChangeHistoryTest {
+
+	@Test
+	void completeSorted() {
+		final var history = new JiraChangeHistory(0);
+		history.addIssue(1, "P-1", 3);
+		history.add(1, JiraChangeHistory.NO_STATUS, 1, 100L, "reporter");
+		history.addIssue(2, "P-2", 1);
+		history.add(2, JiraChangeHistory.NO_STATUS, 1, 50L, null);
+		for (var i = 0; i < 40; i++) {
+			history.add(1, 1, 3, 200L - i % 2, "author" + i % 3);
+		}
+		history.complete(true);
+
+		Assertions.assertEquals(42, history.size());
+		Assertions.assertEquals(2, history.getIssue(0));
+		Assertions.assertEquals(50L, history.getCreated(0));
+		Assertions.assertNull(history.getAuthor(0));
+		Assertions.assertEquals(1, history.getIssue(1));
+		Assertions.assertEquals(JiraChangeHistory.NO_STATUS, history.getFromStatus(1));
+		Assertions.assertEquals("reporter", history.getAuthor(1));
+
+		// Stable order of the changes having the same date
+		Assertions.assertEquals(199L, history.getCreated(2));
+		Assertions.assertEquals("author1", history.getAuthor(2));
+		Assertions.assertEquals("author0", history.getAuthor(3));
+		Assertions.assertEquals(200L, history.getCreated(41));
+		Assertions.assertEquals("author2", history.getAuthor(41));
+		Assertions.assertEquals(1, history.getFromStatus(41));
+		Assertions.assertEquals(3, history.getToStatus(41));
+
+		Assertions.assertEquals("P-2", history.getKey(2));
+		Assertions.assertNull(history.getKey(3));
+		Assertions.assertEquals(Set.of(1, 3), history.getStatuses());
+	}
+
+	@Test
+	void of() {
+		final var creation = new JiraChangeItem();
+		creation.setId(1);
+		creation.setPkey("P-1");
+		creation.setStatus(4);
+		creation.setToStatus(1);
+		creation.setReporter("reporter");
+		creation.setCreated(new Date(100L));
+		final var change = new JiraChangeItem();
+		change.setId(1);
+		change.setFromStatus(1);
+		change.setToStatus(4);
+		change.setAuthor("author");
+		change.setCreated(new Date(200L));
+
+		final var history = JiraChangeHistory.of(List.of(creation, change));
+		Assertions.assertEquals(2, history.size());
+		Assertions.assertEquals("P-1", history.getKey(1));
+		Assertions.assertEquals(JiraChangeHistory.NO_STATUS, history.getFromStatus(0));
+		Assertions.assertEquals("reporter", history.getAuthor(0));
+		Assertions.assertEquals(1, history.getFromStatus(1));
+		Assertions.assertEquals(4, history.getToStatus(1));
+		Assertions.assertEquals("author", history.getAuthor(1));
+		Assertions.assertEquals(200L, history.getCreated(1));
+		Assertions.assertEquals(Set.of(1, 4), history.getStatuses());
+	}
+}
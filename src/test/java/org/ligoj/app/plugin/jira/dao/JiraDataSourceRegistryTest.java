@@ -0,0 +1,189 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+
+/**
+ * {@link JiraDataSourceRegistry} test class.
+ */
+class JiraDataSourceRegistryTest {
+
+	private static final String DRIVER = "org.hsqldb.jdbc.JDBCDriver";
+	private static final String URL = "jdbc:hsqldb:mem:dataSourceRegistry";
+
+	private JiraDataSourceRegistry registry;
+
+	@BeforeEach
+	void createRegistry() {
+		registry = new JiraDataSourceRegistry();
+	}
+
+	@AfterEach
+	void closeRegistry() {
+		registry.close();
+	}
+
+	@Test
+	void getDataSource() throws SQLException {
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		try (var connection = dataSource.getConnection()) {
+			Assertions.assertTrue(connection.isValid(1));
+		}
+		Assertions.assertSame(dataSource, registry.getDataSource(DRIVER, URL, null, null));
+		Assertions.assertNotSame(dataSource, registry.getDataSource(DRIVER, URL, "SA", ""));
+		Assertions.assertEquals(2, registry.getStatistics().size());
+	}
+
+	@Test
+	void invalidate() {
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		registry.invalidate(DRIVER, URL, null, null);
+		Assertions.assertTrue(registry.getStatistics().isEmpty());
+		Assertions.assertNotSame(dataSource, registry.getDataSource(DRIVER, URL, null, null));
+
+		// Invalidate a not existing pool
+		registry.invalidate(DRIVER, URL, "any", null);
+	}
+
+	@Test
+	void addCloseListener() {
+		final var closed = new ArrayList<DataSource>();
+		registry.addCloseListener(closed::add);
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		registry.invalidate(DRIVER, URL, null, null);
+		Assertions.assertEquals(List.of(dataSource), closed);
+
+		// Nothing to close
+		registry.invalidate(DRIVER, URL, null, null);
+		Assertions.assertEquals(1, closed.size());
+	}
+
+	@Test
+	void getUrl() {
+		final var urls = new ArrayList<String>();
+		registry.addCloseListener(d -> urls.add(registry.getUrl(d)));
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		Assertions.assertEquals(URL, registry.getUrl(dataSource));
+		registry.invalidate(DRIVER, URL, null, null);
+
+		// Available to the listeners only
+		Assertions.assertEquals(List.of(URL), urls);
+		Assertions.assertNull(registry.getUrl(dataSource));
+	}
+
+	@Test
+	void bind() {
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		registry.bind("node1", DRIVER, URL, null, null);
+		registry.bind("node2", DRIVER, URL, null, null);
+		registry.bind(null, DRIVER, URL, "SA", "");
+
+		// Still used by the second node
+		registry.bind("node1", DRIVER, URL, "SA", "");
+		Assertions.assertSame(dataSource, registry.getDataSource(DRIVER, URL, null, null));
+
+		// No more used
+		registry.bind("node2", DRIVER, URL, "SA", "");
+		Assertions.assertNotSame(dataSource, registry.getDataSource(DRIVER, URL, null, null));
+	}
+
+	@Test
+	void unbind() {
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		registry.bind("node1", DRIVER, URL, null, null);
+		registry.bind("node2", DRIVER, URL, null, null);
+		registry.unbind("node1");
+		Assertions.assertSame(dataSource, registry.getDataSource(DRIVER, URL, null, null));
+		registry.unbind("node2");
+		Assertions.assertTrue(registry.getStatistics().isEmpty());
+
+		// Unbind a not bound node
+		registry.unbind("node3");
+	}
+
+	@Test
+	void getDataSourceConcurrent() throws Exception {
+		final var pool = Executors.newFixedThreadPool(4);
+		try {
+			final List<Future<DataSource>> dataSources = new ArrayList<>();
+			for (var i = 0; i < 8; i++) {
+				dataSources.add(pool.submit(() -> registry.getDataSource(DRIVER, URL, null, null)));
+			}
+			for (final Future<DataSource> dataSource : dataSources) {
+				Assertions.assertSame(dataSources.get(0).get(), dataSource.get());
+			}
+		} finally {
+			pool.shutdown();
+		}
+		Assertions.assertEquals(1, registry.getStatistics().size());
+	}
+
+	@Test
+	void evictUnused() {
+		registry.setPoolTimeout(0);
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		Assertions.assertNotSame(dataSource, registry.getDataSource(DRIVER, URL, null, null));
+		Assertions.assertEquals(1, registry.getStatistics().size());
+	}
+
+	@Test
+	void getDataSourceInvalidDriver() {
+		Assertions.assertEquals("Database connection issue for JIRA", Assertions
+				.assertThrows(TechnicalException.class, () -> registry.getDataSource("any", URL, null, null)).getMessage());
+		Assertions.assertTrue(registry.getStatistics().isEmpty());
+	}
+
+	@Test
+	void getDataSourceInvalidCredentials() {
+		Assertions.assertThrows(CannotGetJdbcConnectionException.class,
+				() -> registry.getDataSource(DRIVER, URL, "SA", "invalid"));
+		Assertions.assertTrue(registry.getStatistics().isEmpty());
+	}
+
+	@Test
+	void toUrl() {
+		Assertions.assertTrue(registry.isCursorFetch());
+		Assertions.assertEquals("jdbc:mysql://localhost:3306/jira?rewriteBatchedStatements=true",
+				registry.toUrl("jdbc:mysql://localhost:3306/jira", false));
+		Assertions.assertEquals("jdbc:mysql://localhost:3306/jira?useUnicode=yes&rewriteBatchedStatements=true",
+				registry.toUrl("jdbc:mysql://localhost:3306/jira?useUnicode=yes", false));
+		Assertions.assertEquals("jdbc:mysql://localhost:3306/jira?rewriteBatchedStatements=false",
+				registry.toUrl("jdbc:mysql://localhost:3306/jira?rewriteBatchedStatements=false", false));
+		Assertions.assertEquals(URL, registry.toUrl(URL, false));
+
+		registry.setRewriteBatchedStatements(false);
+		Assertions.assertEquals("jdbc:mysql://localhost:3306/jira",
+				registry.toUrl("jdbc:mysql://localhost:3306/jira", false));
+	}
+
+	@Test
+	void toUrlCursorFetch() {
+		Assertions.assertEquals("jdbc:mysql://localhost:3306/jira?rewriteBatchedStatements=true&useCursorFetch=true",
+				registry.toUrl("jdbc:mysql://localhost:3306/jira", true));
+		Assertions.assertEquals("jdbc:mariadb://localhost:3306/jira?rewriteBatchedStatements=true",
+				registry.toUrl("jdbc:mariadb://localhost:3306/jira", true));
+	}
+
+	@Test
+	void getStreamingDataSource() {
+		// Server side cursors are not supported by this driver, the pool is shared
+		final var dataSource = registry.getDataSource(DRIVER, URL, null, null);
+		Assertions.assertSame(dataSource, registry.getStreamingDataSource(DRIVER, URL, null, null));
+		Assertions.assertEquals(1, registry.getStatistics().size());
+	}
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+/**
+ * {@link JiraReferenceDataCache} test class.
+ */
+class JiraReferenceDataCacheTest {
+
+	private JiraReferenceDataCache cache;
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private final DataSource dataSource = Mockito.mock(DataSource.class);
+
+	@BeforeEach
+	void createCache() {
+		cache = new JiraReferenceDataCache();
+		loads.set(0);
+	}
+
+	private Map<Integer, String> load() {
+		loads.incrementAndGet();
+		final var result = new HashMap<Integer, String>();
+		result.put(1, "Open");
+		return result;
+	}
+
+	@Test
+	void getDisabled() {
+		Assertions.assertEquals("Open", cache.get(dataSource, "issuestatus", 0, this::load).get(1));
+		cache.get(dataSource, "issuestatus", 0, this::load);
+		Assertions.assertEquals(2, loads.get());
+		Assertions.assertEquals(0, cache.getHits());
+		Assertions.assertEquals(0, cache.getMisses());
+		Assertions.assertEquals(0, cache.size());
+	}
+
+	@Test
+	void get() {
+		cache.setTtl(60000);
+		final var values = cache.get(dataSource, "issuestatus", 0, this::load);
+		Assertions.assertSame(values, cache.get(dataSource, "issuestatus", 0, this::load));
+		Assertions.assertThrows(UnsupportedOperationException.class, () -> values.put(2, "Closed"));
+
+		// Project specific data
+		cache.get(dataSource, "issuetype", 1, this::load);
+		cache.get(dataSource, "issuetype", 2, this::load);
+		Assertions.assertEquals(3, loads.get());
+		Assertions.assertEquals(1, cache.getHits());
+		Assertions.assertEquals(3, cache.getMisses());
+		Assertions.assertEquals(3, cache.size());
+	}
+
+	@Test
+	void share() {
+		final var scope = new JiraReferenceDataCache.Scope();
+		final var values = cache.share(scope, () -> cache.get(dataSource, "issuestatus", 0, this::load));
+		Assertions.assertSame(values, cache.share(scope, () -> cache.get(dataSource, "issuestatus", 0, this::load)));
+		Assertions.assertEquals(1, loads.get());
+
+		// Outside the scope, the cache is disabled
+		cache.get(dataSource, "issuestatus", 0, this::load);
+		Assertions.assertEquals(2, loads.get());
+		Assertions.assertNotSame(values,
+				cache.share(new JiraReferenceDataCache.Scope(), () -> cache.get(dataSource, "issuestatus", 0, this::load)));
+	}
+
+	@Test
+	void getExpired() throws InterruptedException {
+		cache.setTtl(1);
+		cache.get(dataSource, "priority", 0, this::load);
+		Thread.sleep(10);
+		cache.get(dataSource, "priority", 0, this::load);
+		Assertions.assertEquals(2, loads.get());
+		Assertions.assertEquals(2, cache.getMisses());
+		Assertions.assertEquals(1, cache.size());
+	}
+
+	@Test
+	void invalidate() {
+		cache.setTtl(60000);
+		final var other = Mockito.mock(DataSource.class);
+		cache.get(dataSource, "priority", 0, this::load);
+		cache.get(other, "priority", 0, this::load);
+		cache.invalidate(dataSource);
+		Assertions.assertEquals(1, cache.size());
+		cache.get(dataSource, "priority", 0, this::load);
+		Assertions.assertEquals(3, loads.get());
+
+		cache.invalidate();
+		Assertions.assertEquals(0, cache.size());
+	}
+}
@@ -6,6 +6,11 @@ package org.ligoj.app.plugin.jira.dao;
 import java.nio.charset.StandardCharsets;
 import java.sql.Connection;
 import java.sql.SQLException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import javax.sql.DataSource;
 
@@ -17,8 +22,11 @@ import org.junit.jupiter.api.Test;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.support.EncodedResource;
 import org.springframework.jdbc.core.JdbcOperations;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.jdbc.datasource.SimpleDriverDataSource;
 import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * {@link JiraUpdateDao} test class.
@@ -83,6 +91,150 @@ class JiraUpdateDaoTest {
 
 		};
 		Assertions.assertEquals(10100, dao.prepareForNextId(datasource, "ChangeGroup", 2000));
+		Assertions.assertEquals(1, dao.getSequenceStatistics(datasource).get("ChangeGroup").retries());
+	}
+
+	@Test
+	void prepareForNextIdBlock() {
+		final JiraUpdateDao dao = new JiraUpdateDao();
+		dao.setSequenceBlockSize(1000);
+		Assertions.assertEquals(10000, dao.prepareForNextId(datasource, "TestBlock", 10));
+		Assertions.assertEquals(10010, dao.prepareForNextId(datasource, "TestBlock", 5));
+		Assertions.assertEquals(11000, getSequence("TestBlock"));
+
+		// Larger than a block, reserved apart
+		Assertions.assertEquals(11000, dao.prepareForNextId(datasource, "TestBlock", 2000));
+		Assertions.assertEquals(13000, getSequence("TestBlock"));
+		Assertions.assertEquals(10015, dao.prepareForNextId(datasource, "TestBlock", 1));
+
+		final var statistics = dao.getSequenceStatistics(datasource).get("TestBlock");
+		Assertions.assertEquals(2, statistics.reservations());
+		Assertions.assertEquals(3000, statistics.reserved());
+		Assertions.assertEquals(2016, statistics.allocated());
+		Assertions.assertEquals(0, statistics.unused());
+		Assertions.assertEquals(984, statistics.available());
+	}
+
+	@Test
+	void prepareForNextIdBlockRollback() {
+		final JiraUpdateDao dao = new JiraUpdateDao();
+		dao.setSequenceBlockSize(100);
+		final var transaction = new TransactionTemplate(new DataSourceTransactionManager(datasource));
+
+		// A chunk refilling the block, then reserving a dedicated range, and finally rolled back
+		final var start = transaction.execute(s -> {
+			final var first = dao.prepareForNextId(datasource, "TestRollback", 10);
+			Assertions.assertEquals(first + 100, dao.prepareForNextId(datasource, "TestRollback", 200));
+			s.setRollbackOnly();
+			return first;
+		});
+
+		// The reservations survive to the rollback, so neither the block nor the range is handed out again
+		Assertions.assertEquals(start + 300, getSequence("TestRollback"));
+		Assertions.assertEquals(start + 10, dao.prepareForNextId(datasource, "TestRollback", 10));
+		final JiraUpdateDao other = new JiraUpdateDao();
+		other.setSequenceBlockSize(100);
+		Assertions.assertEquals(start + 300, other.prepareForNextId(datasource, "TestRollback", 10));
+	}
+
+	@Test
+	void prepareForNextIdBlockConcurrent() throws InterruptedException {
+		final JiraUpdateDao dao = new JiraUpdateDao();
+		dao.setSequenceBlockSize(100);
+		final Set<Integer> ids = ConcurrentHashMap.newKeySet();
+		final var pool = Executors.newFixedThreadPool(8);
+		try {
+			for (var t = 0; t < 8; t++) {
+				pool.execute(() -> {
+					for (var i = 0; i < 100; i++) {
+						final var start = dao.prepareForNextId(datasource, "TestConcurrent", 7);
+						for (var id = start; id < start + 7; id++) {
+							ids.add(id);
+						}
+					}
+				});
+			}
+		} finally {
+			pool.shutdown();
+		}
+		Assertions.assertTrue(pool.awaitTermination(1, TimeUnit.MINUTES));
+
+		// Each identifier is handed out once, and each reserved one is either handed out, lost or available
+		Assertions.assertEquals(5600, ids.size());
+		final var statistics = dao.getSequenceStatistics(datasource).get("TestConcurrent");
+		Assertions.assertEquals(5600, statistics.allocated());
+		Assertions.assertEquals(statistics.reserved(), statistics.allocated() + statistics.unused() + statistics.available());
+		Assertions.assertEquals(10000 + statistics.reserved(), getSequence("TestConcurrent"));
+		dao.close();
+		Assertions.assertTrue(dao.getSequenceStatistics(datasource).isEmpty());
+	}
+
+	@Test
+	void prepareForNextIdClosedPool() {
+		final var registry = new JiraDataSourceRegistry();
+		final var dao = new JiraUpdateDao();
+		dao.dataSourceRegistry = registry;
+		dao.registerListener();
+		dao.setSequenceBlockSize(1000);
+		try {
+			final var pool = registry.getDataSource(JDBCDriver.class.getName(), "jdbc:hsqldb:mem:dataSource", null, null);
+			final var start = dao.prepareForNextId(pool, "TestPool", 10);
+
+			// The sequences are shared by the data sources of the same database
+			Assertions.assertEquals(start + 10, dao.prepareForNextId(datasource, "TestPool", 5));
+			Assertions.assertEquals(985, dao.getSequenceStatistics(pool).get("TestPool").available());
+
+			// The blocks of the closed pool are forgotten
+			registry.invalidate(JDBCDriver.class.getName(), "jdbc:hsqldb:mem:dataSource", null, null);
+			Assertions.assertTrue(dao.getSequenceStatistics(datasource).isEmpty());
+		} finally {
+			registry.close();
+		}
+	}
+
+	private int getSequence(final String name) {
+		return new JdbcTemplate(datasource).queryForObject("SELECT SEQ_ID FROM SEQUENCE_VALUE_ITEM WHERE SEQ_NAME = ?",
+				Integer.class, name);
+	}
+
+	@Test
+	void addComponentsBatched() {
+		final JiraUpdateDao dao = new JiraUpdateDao();
+		dao.setBatchSize(2);
+		final var components = dao.addComponents(datasource, 99999, List.of("C1", "C2", "C3"));
+		Assertions.assertEquals(3, components.size());
+		Assertions.assertEquals(3, new JdbcTemplate(datasource)
+				.queryForObject("SELECT COUNT(ID) FROM component WHERE PROJECT = ?", Integer.class, 99999));
+	}
+
+	@Test
+	void addVersionsBatched() {
+		final JiraUpdateDao dao = new JiraUpdateDao();
+		dao.setBatchSize(2);
+		final var versions = dao.addVersions(datasource, 99998, List.of("V1", "V2", "V3"));
+		Assertions.assertEquals(3, versions.size());
+		Assertions.assertEquals(3, new JdbcTemplate(datasource)
+				.queryForObject("SELECT COUNT(ID) FROM projectversion WHERE PROJECT = ?", Integer.class, 99998));
+	}
+
+	@Test
+	void addLabelsBatched() {
+		final JiraUpdateDao dao = new JiraUpdateDao();
+		dao.jiraDao = new JiraDao();
+		dao.setBatchSize(2);
+		final var jdbcTemplate = new JdbcTemplate(datasource);
+		jdbcTemplate.update("INSERT INTO label(ID,ISSUE,LABEL) values(?,?,?)", 99990, 99997, "OLD");
+		final var issue1 = new JiraIssueRow();
+		issue1.setId(99997);
+		issue1.setLabels(List.of("L1", "L2", "L3"));
+		final var issue2 = new JiraIssueRow();
+		issue2.setId(99996);
+		issue2.setLabels(List.of("L1"));
+		dao.addLabels(datasource, List.of(issue1, issue2));
+		Assertions.assertEquals(List.of("L1", "L2", "L3"), jdbcTemplate
+				.queryForList("SELECT LABEL FROM label WHERE ISSUE = ? ORDER BY LABEL", String.class, 99997));
+		Assertions.assertEquals(List.of("L1"),
+				jdbcTemplate.queryForList("SELECT LABEL FROM label WHERE ISSUE = ?", String.class, 99996));
 	}
 
 }
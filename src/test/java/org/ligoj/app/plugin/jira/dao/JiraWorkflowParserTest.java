@@ -0,0 +1,96 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.io.StringReader;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+
+/**
+ * {@link JiraWorkflowParser} test class.
+ */
+class JiraWorkflowParserTest {
+
+	private final JiraWorkflowParser parser = new JiraWorkflowParser();
+
+	@Test
+	void parse() {
+		final var descriptor = parser.parse(new StringReader("""
+				<?xml version="1.0" encoding="UTF-8"?>
+				<!DOCTYPE workflow PUBLIC "-//OpenSymphony Group//DTD OSWorkflow 2.8//EN" "http://localhost:1/workflow_2_8.dtd">
+				<workflow>
+				  <meta name="jira.description">Description</meta>
+				  <initial-actions>
+				    <action id="1" name="Create Issue">
+				      <meta name="jira.status.id">9</meta>
+				      <results><unconditional-result old-status="Finished" status="Open" step="1"/></results>
+				    </action>
+				  </initial-actions>
+				  <common-actions>
+				    <action id="2" name="Close Issue">
+				      <results><unconditional-result old-status="Finished" status="Closed" step="6"/></results>
+				    </action>
+				  </common-actions>
+				  <steps>
+				    <step id="1" name="Open"><meta name="jira.status.id">1</meta>
+				      <actions><common-action id="2" /></actions>
+				    </step>
+				    <step
+				        name="Closed"
+				        id="6">
+				      <meta name="jira.status.id">
+				        6
+				      </meta>
+				      <actions>
+				        <action id="3" name="Reopen Issue">
+				          <results><unconditional-result old-status="Finished" status="Reopened" step="1"/></results>
+				        </action>
+				      </actions>
+				    </step>
+				    <step id="7" name="Without status"/>
+				  </steps>
+				</workflow>
+				"""));
+		Assertions.assertEquals(List.of(1, 6, 7), List.copyOf(descriptor.getSteps().keySet()));
+		Assertions.assertEquals(List.of(1, 2, 3), List.copyOf(descriptor.getActions().keySet()));
+		Assertions.assertEquals(List.of(1), descriptor.getInitialActions());
+
+		final var open = descriptor.getSteps().get(1);
+		Assertions.assertEquals("Open", open.getName());
+		Assertions.assertEquals(1, open.getStatus());
+		Assertions.assertEquals(List.of(2), open.getActions());
+
+		final var closed = descriptor.getSteps().get(6);
+		Assertions.assertEquals("Closed", closed.getName());
+		Assertions.assertEquals(6, closed.getStatus());
+		Assertions.assertEquals(List.of(3), closed.getActions());
+		Assertions.assertNull(descriptor.getSteps().get(7).getStatus());
+
+		Assertions.assertEquals("Close Issue", descriptor.getActions().get(2).getName());
+		Assertions.assertEquals(6, descriptor.getActions().get(2).getStep());
+		Assertions.assertEquals(1, descriptor.getActions().get(3).getStep());
+
+		final var statusToStep = descriptor.getStatusToStep();
+		Assertions.assertEquals(2, statusToStep.size());
+		Assertions.assertSame(closed, statusToStep.get(6));
+	}
+
+	@Test
+	void parseEscaped() {
+		final var descriptor = parser.parse(new StringReader(
+				"<?xml version=\\\"1.0\\\"?>\\n<workflow><steps>\\n<step id=\\\"1\\\" name=\\\"Open\\\">\\n"
+						+ "<meta name=\\\"jira.status.id\\\">1</meta></step></steps></workflow>"));
+		Assertions.assertEquals("Open", descriptor.getSteps().get(1).getName());
+		Assertions.assertEquals(1, descriptor.getSteps().get(1).getStatus());
+	}
+
+	@Test
+	void parseInvalid() {
+		Assertions.assertEquals("Invalid workflow descriptor", Assertions
+				.assertThrows(TechnicalException.class, () -> parser.parse(new StringReader("<workflow>"))).getMessage());
+	}
+}
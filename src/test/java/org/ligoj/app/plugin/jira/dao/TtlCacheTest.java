@@ -0,0 +1,80 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.dao;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link TtlCache} test class.
+ */
+class TtlCacheTest {
+
+	private final AtomicInteger loads = new AtomicInteger();
+
+	private String load() {
+		return "value" + loads.incrementAndGet();
+	}
+
+	@Test
+	void getDisabled() {
+		final var cache = new TtlCache<String, String>(() -> 0);
+		Assertions.assertFalse(cache.isEnabled());
+		Assertions.assertEquals("value1", cache.get("key", this::load));
+		Assertions.assertEquals("value2", cache.get("key", this::load));
+		Assertions.assertEquals(0, cache.size());
+		Assertions.assertEquals(0, cache.getMisses());
+	}
+
+	@Test
+	void get() {
+		final var cache = new TtlCache<String, String>(() -> 60000);
+		Assertions.assertTrue(cache.isEnabled());
+		Assertions.assertEquals("value1", cache.get("key", this::load));
+		Assertions.assertEquals("value1", cache.get("key", this::load));
+		Assertions.assertEquals(1, cache.getHits());
+		Assertions.assertEquals(1, cache.getMisses());
+
+		// Null values are not cached
+		Assertions.assertNull(cache.get("null", () -> null));
+		Assertions.assertEquals(1, cache.size());
+	}
+
+	@Test
+	void getNotValid() {
+		final var cache = new TtlCache<String, String>(() -> 60000);
+		cache.get("key", this::load);
+		Assertions.assertEquals("value1", cache.get("key", "value1"::equals, this::load));
+		Assertions.assertEquals("value2", cache.get("key", "value1"::equals, this::load));
+		Assertions.assertEquals(1, cache.size());
+	}
+
+	@Test
+	void getExpired() throws InterruptedException {
+		final var cache = new TtlCache<String, String>(() -> 1);
+		cache.get("key1", this::load);
+		cache.get("key2", this::load);
+		Thread.sleep(10);
+
+		// The expired entries are purged by the next miss
+		Assertions.assertEquals("value3", cache.get("key1", this::load));
+		Assertions.assertEquals(1, cache.size());
+	}
+
+	@Test
+	void invalidate() {
+		final var cache = new TtlCache<String, String>(() -> 60000);
+		cache.get("key1", this::load);
+		cache.get("key2", this::load);
+		cache.get("other", this::load);
+		cache.invalidate("key1");
+		Assertions.assertEquals(2, cache.size());
+		cache.invalidateIf(k -> k.startsWith("key"));
+		Assertions.assertEquals(1, cache.size());
+		cache.clear();
+		Assertions.assertEquals(0, cache.size());
+	}
+}
@@ -76,6 +76,31 @@ class DateEditorTest extends AbstractEditorTest {
 		Assertions.assertEquals(getDate(2010, 7, 4, 7, 12, 30), DateEditor.toDate("40363,300347222"));
 	}
 
+	@Test
+	void toDateLenient() {
+		// Not recognized by the single pass parser, parsed by the patterns
+		Assertions.assertEquals(getDate(2014, 3, 3, 0, 0, 0), DateEditor.toDate("31/02/2014"));
+		Assertions.assertEquals(getDate(2014, 5, 21, 15, 45, 0), DateEditor.toDate("21/05/2014   15:45"));
+		Assertions.assertEquals(getDate(2014, 5, 21, 0, 0, 0), DateEditor.toDate("2014-05-21T15:45"));
+		Assertions.assertNull(DateEditor.toDate("2014-5-21"));
+		Assertions.assertNull(DateEditor.toDate(""));
+	}
+
+	@Test
+	void toDateStrict() {
+		Assertions.assertEquals(getDate(2014, 5, 21, 15, 45, 56), DateEditor.toDate("21/05/2014 15:45:56", true));
+		Assertions.assertEquals(getDate(2016, 2, 29, 0, 0, 0), DateEditor.toDate("29.2.2016", true));
+		Assertions.assertEquals(getDate(1950, 5, 21, 0, 0, 0), DateEditor.toDate("21.05.1950", true));
+		Assertions.assertEquals(getDate(2010, 7, 4, 7, 12, 30), DateEditor.toDate("40363,300347222", true));
+		Assertions.assertNull(DateEditor.toDate("31/02/2014", true));
+		Assertions.assertNull(DateEditor.toDate("29.2.2015", true));
+		Assertions.assertNull(DateEditor.toDate("2014-05-21 24:00", true));
+		Assertions.assertNull(DateEditor.toDate("2014-05-21T15:45", true));
+		Assertions.assertNull(DateEditor.toDate("21/05/2014   15:45", true));
+		Assertions.assertNull(DateEditor.toDate("40363,", true));
+		Assertions.assertNull(DateEditor.toDate("", true));
+	}
+
 	@Test
 	void managedTypesDateTime() {
 		assertDate(getDate(2014, 5, 21, 15, 45, 56), "com.atlassian.jira.plugin.system.customfieldtypes:datetime");
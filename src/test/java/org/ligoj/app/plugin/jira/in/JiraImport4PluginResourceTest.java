@@ -0,0 +1,98 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.in;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.spy;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.jira.dao.JiraIssueRow;
+import org.ligoj.app.plugin.jira.dao.JiraUpdateDao;
+import org.ligoj.app.plugin.jira.model.ImportStatus;
+import org.ligoj.app.plugin.jira.model.UploadMode;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class of {@link JiraImportPluginResource}
+ */
+class JiraImport4PluginResourceTest extends AbstractJiraImportPluginResourceTest {
+
+	private int countIssues() {
+		return new JdbcTemplate(datasource).queryForObject(
+				"SELECT COUNT(ID) FROM jiraissue WHERE PROJECT = ? AND issuenum IN (2,3,6)", Integer.class, 10074);
+	}
+
+	@Test
+	void testZUploadResume() throws Exception {
+		final JiraUpdateDao jiraUpdateDao = resource.jiraUpdateDao;
+		resource.setChunkSize(2);
+
+		// Fail during the second chunk : the issues 2 and 3 are committed, not the issue 6
+		resource.jiraUpdateDao = spy(jiraUpdateDao);
+		doThrow(new IllegalStateException("chunk-failure")).when(resource.jiraUpdateDao).addLabels(any(),
+				argThat((List<JiraIssueRow> issues) -> issues.getFirst().getIssueNum() == 6));
+		Assertions.assertEquals("chunk-failure",
+				Assertions.assertThrows(IllegalStateException.class,
+						() -> resource.upload(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(),
+								ENCODING, subscription, UploadMode.FULL))
+						.getMessage());
+		ImportStatus result = jiraResource.getTask(subscription);
+		Assertions.assertEquals(3, result.getCheckpoint().intValue());
+		Assertions.assertEquals(64, result.getCheckpointFile().length());
+		Assertions.assertTrue(result.getCheckpointRanges().contains("Issue:"));
+		Assertions.assertEquals(2, countIssues());
+
+		// Resume from the checkpoint
+		resource.jiraUpdateDao = jiraUpdateDao;
+		resource.upload(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(), ENCODING,
+				subscription, UploadMode.FULL);
+		result = jiraResource.getTask(subscription);
+		Assertions.assertFalse(result.isFailed());
+		Assertions.assertNull(result.getCheckpoint());
+		Assertions.assertNull(result.getCheckpointFile());
+		Assertions.assertTrue(result.getCheckpointRanges().contains("Issue:"));
+		Assertions.assertEquals(2, result.getResumedIssues().intValue());
+		Assertions.assertEquals(1, result.getNewIssues().intValue());
+		Assertions.assertEquals(0, result.getNewComponents().intValue());
+		Assertions.assertEquals(30, result.getStep());
+		Assertions.assertEquals(3, countIssues());
+	}
+
+	@Test
+	void testZUploadResumeOtherFile() throws Exception {
+		final JiraUpdateDao jiraUpdateDao = resource.jiraUpdateDao;
+		resource.setChunkSize(2);
+		resource.jiraUpdateDao = spy(jiraUpdateDao);
+		doThrow(new IllegalStateException("chunk-failure")).when(resource.jiraUpdateDao).addLabels(any(),
+				argThat((List<JiraIssueRow> issues) -> issues.getFirst().getIssueNum() == 6));
+		Assertions.assertThrows(IllegalStateException.class,
+				() -> resource.upload(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(),
+						ENCODING, subscription, UploadMode.FULL));
+		Assertions.assertEquals(3, jiraResource.getTask(subscription).getCheckpoint().intValue());
+
+		// Another file does not resume the import : the committed issues are reported as existing ones
+		resource.jiraUpdateDao = jiraUpdateDao;
+		final var csv = IOUtils.toString(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(),
+				ENCODING).replace("SUMMARY-1;", "SUMMARY-0;");
+		final var input = new ByteArrayInputStream(csv.getBytes(Charset.forName(ENCODING)));
+		Assertions.assertTrue(Assertions
+				.assertThrows(ValidationJsonException.class,
+						() -> resource.upload(input, ENCODING, subscription, UploadMode.FULL))
+				.getErrors().toString().contains("Updating issues is not yet implemented"));
+		final var result = jiraResource.getTask(subscription);
+		Assertions.assertNull(result.getResumedIssues());
+		Assertions.assertEquals(2, countIssues());
+	}
+
+}
@@ -0,0 +1,147 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.in;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.jira.model.ImportStatus;
+import org.ligoj.app.plugin.jira.model.UploadMode;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class of {@link JiraImportPluginResource}
+ */
+class JiraImport5PluginResourceTest extends AbstractJiraImportPluginResourceTest {
+
+	private String readCsv() throws IOException {
+		return IOUtils.toString(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(), ENCODING);
+	}
+
+	@Test
+	void testZUploadUpdate() throws Exception {
+		var csv = readCsv();
+		resource.upload(new ByteArrayInputStream(csv.getBytes(Charset.forName(ENCODING))), ENCODING, subscription,
+				UploadMode.FULL);
+
+		// Same file, nothing to update
+		resource.upload(new ByteArrayInputStream(csv.getBytes(Charset.forName(ENCODING))), ENCODING, subscription,
+				UploadMode.UPDATE);
+		ImportStatus result = jiraResource.getTask(subscription);
+		Assertions.assertFalse(result.isFailed());
+		Assertions.assertEquals(0, result.getNewIssues().intValue());
+		Assertions.assertEquals(0, result.getUpdatedIssues().intValue());
+
+		// Only the summary of the issue 3 is changed
+		resource.upload(new ByteArrayInputStream(csv.replace("SUMMARY-34", "SUMMARY-UPDATED").getBytes(Charset.forName(ENCODING))),
+				ENCODING, subscription, UploadMode.UPDATE);
+		result = jiraResource.getTask(subscription);
+		Assertions.assertEquals(1, result.getUpdatedIssues().intValue());
+		final var jdbcTemplate = new JdbcTemplate(datasource);
+		Assertions.assertEquals("SUMMARY-UPDATED", jdbcTemplate.queryForObject(
+				"SELECT SUMMARY FROM jiraissue WHERE issuenum = ? AND PROJECT = ?", String.class, 3, 10074));
+		Assertions.assertEquals(1, jdbcTemplate.queryForObject(
+				"SELECT COUNT(ID) FROM jiraissue WHERE issuenum = ? AND PROJECT = ?", Integer.class, 3, 10074).intValue());
+		final int issue6 = jdbcTemplate.queryForObject("SELECT ID FROM jiraissue WHERE issuenum = ? AND PROJECT = ?",
+				Integer.class, 6, 10074);
+
+		// Labels of the issue 6 : 'Label2' is replaced by 'Label7'
+		csv = replaceLine(csv.replace("SUMMARY-34", "SUMMARY-UPDATED"), "42;", "Label5,Label2", "Label5,Label7");
+		upload(csv);
+		Assertions.assertEquals(List.of("Label5", "Label7"), jdbcTemplate.queryForList(
+				"SELECT LABEL FROM label WHERE ISSUE = ? ORDER BY LABEL", String.class, issue6));
+
+		// Components and versions of the issue 6
+		csv = replaceLine(csv, "42;", "Major;Javascript,Java;", "Major;Javascript;");
+		csv = replaceLine(csv, "42;", "Label5,Label7;1.1.0,1.2.0;1.2.0;", "Label5,Label7;1.1.0;1.2.0;");
+		upload(csv);
+		Assertions.assertEquals(1, countAssociations(jdbcTemplate, issue6, "IssueComponent"));
+		Assertions.assertEquals(1, countAssociations(jdbcTemplate, issue6, "IssueFixVersion"));
+		Assertions.assertEquals(1, countAssociations(jdbcTemplate, issue6, "IssueVersion"));
+
+		// Custom field of the issue 6 : 'Délai levée réserves (jrs)'
+		csv = replaceLine(csv, "42;", "12:01;5;http", "12:01;7;http");
+		upload(csv);
+		Assertions.assertEquals(7, jdbcTemplate.queryForObject(
+				"SELECT NUMBERVALUE FROM customfieldvalue WHERE ISSUE = ? AND CUSTOMFIELD = ?", Double.class, issue6, 10009),
+				0.01);
+
+		// Status history of the issue 6 : a new status change is appended
+		final var changes6 = getStatusChanges(jdbcTemplate, issue6);
+		final var step6 = getStep(jdbcTemplate, issue6);
+		csv += "43;6;Reopened;SUMMARY-42;Bug;Major;Javascript;;;DESCRIPTION-42;Label5,Label7;1.1.0;1.2.0;12/04/2014 12:01;"
+				+ "fdaugan;admin-test;admin-test;vN° DFE;02/03/2014 12:01;7;http://vigi.fr;vDescription réserves;"
+				+ "Demande révisée,Décalage planning;03/03/2014 12:01;APP;E,A\r\n";
+		upload(csv);
+		final var appended = getStatusChanges(jdbcTemplate, issue6);
+		Assertions.assertEquals(changes6.size() + 1, appended.size());
+		Assertions.assertEquals(changes6, appended.subList(0, changes6.size()));
+		Assertions.assertEquals(4, jdbcTemplate.queryForObject("SELECT issuestatus FROM jiraissue WHERE ID = ?",
+				Integer.class, issue6).intValue());
+
+		// Workflow step of the issue 6 follows the status
+		Assertions.assertNotEquals(step6, getStep(jdbcTemplate, issue6));
+
+		// Status history of the issue 3 : the 'In Progress' status is reached earlier, the history is replaced
+		final int issue3 = jdbcTemplate.queryForObject("SELECT ID FROM jiraissue WHERE issuenum = ? AND PROJECT = ?",
+				Integer.class, 3, 10074);
+		final var changes3 = getStatusChanges(jdbcTemplate, issue3);
+		csv = replaceLine(csv, "19;", "19;3;Open;", "19;3;In Progress;");
+		upload(csv);
+		final var replaced = getStatusChanges(jdbcTemplate, issue3);
+		Assertions.assertEquals(changes3.size(), replaced.size());
+		Assertions.assertTrue(replaced.getFirst() > changes3.getLast());
+		Assertions.assertEquals(getDate(2014, 3, 19, 12, 1, 0), jdbcTemplate.queryForObject(
+				"SELECT MIN(cg.CREATED) FROM changegroup cg INNER JOIN changeitem ci ON ci.groupid = cg.ID"
+						+ " WHERE cg.issueid = ? AND ci.FIELD = ?", Date.class, issue3, "status"));
+	}
+
+	/**
+	 * Upload the CSV in update mode, and check the single updated issue.
+	 */
+	private void upload(final String csv) throws IOException {
+		resource.upload(new ByteArrayInputStream(csv.getBytes(Charset.forName(ENCODING))), ENCODING, subscription,
+				UploadMode.UPDATE);
+		final var result = jiraResource.getTask(subscription);
+		Assertions.assertFalse(result.isFailed());
+		Assertions.assertEquals(0, result.getNewIssues().intValue());
+		Assertions.assertEquals(1, result.getUpdatedIssues().intValue());
+	}
+
+	/**
+	 * Replace a text in the line of a change.
+	 */
+	private String replaceLine(final String csv, final String id, final String search, final String replacement) {
+		return Arrays.stream(csv.split("\n", -1)).map(l -> l.startsWith(id) ? l.replace(search, replacement) : l)
+				.collect(Collectors.joining("\n"));
+	}
+
+	private int countAssociations(final JdbcTemplate jdbcTemplate, final int issue, final String type) {
+		return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM nodeassociation WHERE SOURCE_NODE_ID = ?"
+				+ " AND SOURCE_NODE_ENTITY = ? AND ASSOCIATION_TYPE = ?", Integer.class, issue, "Issue", type);
+	}
+
+	/**
+	 * Return the identifiers of the status change groups of an issue.
+	 */
+	private List<Integer> getStatusChanges(final JdbcTemplate jdbcTemplate, final int issue) {
+		return jdbcTemplate.queryForList("SELECT cg.ID FROM changegroup cg INNER JOIN changeitem ci ON ci.groupid = cg.ID"
+				+ " WHERE cg.issueid = ? AND ci.FIELD = ? ORDER BY cg.ID", Integer.class, issue, "status");
+	}
+
+	private int getStep(final JdbcTemplate jdbcTemplate, final int issue) {
+		return jdbcTemplate.queryForObject("SELECT cs.STEP_ID FROM OS_CURRENTSTEP cs"
+				+ " INNER JOIN jiraissue i ON i.WORKFLOW_ID = cs.ENTRY_ID WHERE i.ID = ?", Integer.class, issue);
+	}
+
+}
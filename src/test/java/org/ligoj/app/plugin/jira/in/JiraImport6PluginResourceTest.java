@@ -0,0 +1,68 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.in;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+
+import jakarta.ws.rs.core.Response;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.jira.model.ImportStatus;
+import org.ligoj.app.plugin.jira.model.UploadMode;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Test class of {@link JiraImportPluginResource}
+ */
+class JiraImport6PluginResourceTest extends AbstractJiraImportPluginResourceTest {
+
+	@BeforeEach
+	void runInCurrentThread() {
+		// Run the import in the test transaction, and keep the security context cleared by the worker
+		resource.importExecutor = task -> {
+			final var context = SecurityContextHolder.getContext();
+			task.run();
+			SecurityContextHolder.setContext(context);
+		};
+	}
+
+	private Response uploadAsync(final String csv) throws IOException {
+		return resource.uploadAsync(new ByteArrayInputStream(csv.getBytes(Charset.forName(ENCODING))), ENCODING,
+				subscription, UploadMode.FULL);
+	}
+
+	@Test
+	void testUploadAsyncFailed() throws IOException {
+		final var csv = IOUtils.toString(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(),
+				ENCODING);
+
+		// Only the headers, the failure is not thrown to the client
+		final var response = uploadAsync(csv.substring(0, csv.indexOf('\n') + 1));
+		Assertions.assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
+		final var result = jiraResource.getTask(subscription);
+		Assertions.assertTrue(result.isFailed());
+		Assertions.assertNotNull(result.getEnd());
+	}
+
+	@Test
+	void testZUploadAsync() throws IOException {
+		final var response = uploadAsync(IOUtils
+				.toString(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(), ENCODING));
+		Assertions.assertEquals(Response.Status.ACCEPTED.getStatusCode(), response.getStatus());
+		Assertions.assertEquals(UploadMode.FULL, ((ImportStatus) response.getEntity()).getMode());
+
+		final var result = jiraResource.getTask(subscription);
+		Assertions.assertFalse(result.isFailed());
+		Assertions.assertNotNull(result.getEnd());
+		Assertions.assertEquals(30, result.getStep());
+		Assertions.assertEquals(3, result.getNewIssues().intValue());
+	}
+
+}
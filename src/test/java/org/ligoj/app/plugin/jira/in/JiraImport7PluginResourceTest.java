@@ -0,0 +1,70 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.in;
+
+import java.io.IOException;
+import java.util.Date;
+
+import org.hsqldb.lib.StringInputStream;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.plugin.jira.model.UploadMode;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Test class of {@link JiraImportPluginResource}, grouping of the changes of a same issue.
+ */
+class JiraImport7PluginResourceTest extends AbstractJiraImportPluginResourceTest {
+
+	private static final String HEADER = "id;issue;status;summary;type;priority;resolution;resolutionDate;date;assignee;reporter;author\n";
+
+	@Test
+	void testUploadGroupChanges() throws IOException {
+		// Issue 2 : status changes separated by changes without status change
+		// Issue 3 : no status change at all
+		resource.upload(new StringInputStream(HEADER
+				+ "1;2;Open;SUMMARY1;Bug;Major;;;01/03/2014 12:01;fdaugan;admin-test;fdaugan\n"
+				+ "2;2;In Progress;SUMMARY2;Bug;Major;;;01/03/2014 12:02;fdaugan;admin-test;fdaugan\n"
+				+ "3;2;In Progress;SUMMARY3;Bug;Major;;;01/03/2014 12:03;admin-test;admin-test;fdaugan\n"
+				+ "4;2;In Progress;SUMMARY4;Bug;Minor;;;01/03/2014 12:04;fdaugan;admin-test;fdaugan\n"
+				+ "5;2;Resolved;SUMMARY5;Bug;Minor;Fixed;01/03/2014 12:05;01/03/2014 12:05;fdaugan;admin-test;fdaugan\n"
+				+ "6;2;Resolved;SUMMARY6;Bug;Minor;Fixed;01/03/2014 12:05;01/03/2014 12:06;admin-test;admin-test;fdaugan\n"
+				+ "7;3;Open;SUMMARY1;Bug;Major;;;01/03/2014 12:01;fdaugan;admin-test;fdaugan\n"
+				+ "8;3;Open;SUMMARY2;Bug;Major;;;01/03/2014 12:02;fdaugan;admin-test;fdaugan\n"
+				+ "9;3;Open;SUMMARY3;Bug;Minor;;;01/03/2014 12:03;admin-test;admin-test;fdaugan\n"), ENCODING,
+				subscription, UploadMode.FULL);
+		final var result = jiraResource.getTask(subscription);
+		Assertions.assertFalse(result.isFailed());
+		Assertions.assertEquals(9, result.getChanges().intValue());
+		Assertions.assertEquals(2, result.getIssues().intValue());
+		Assertions.assertEquals(2, result.getStatusChanges().intValue());
+
+		// The final state is the one of the last change, even when the previous changes have been stripped
+		final var jdbcTemplate = new JdbcTemplate(datasource);
+		Assertions.assertEquals("SUMMARY6", getIssueColumn(jdbcTemplate, 2, "SUMMARY"));
+		Assertions.assertEquals("admin-test", getIssueColumn(jdbcTemplate, 2, "ASSIGNEE"));
+		Assertions.assertEquals("SUMMARY3", getIssueColumn(jdbcTemplate, 3, "SUMMARY"));
+		Assertions.assertEquals("admin-test", getIssueColumn(jdbcTemplate, 3, "ASSIGNEE"));
+
+		// The status changes keep the date of the first change of each status
+		final var dates = jdbcTemplate.queryForList(
+				"SELECT cg.CREATED FROM changegroup cg INNER JOIN changeitem ci ON ci.groupid = cg.ID"
+						+ " INNER JOIN jiraissue i ON i.ID = cg.issueid WHERE i.issuenum = ? AND i.PROJECT = ?"
+						+ " AND ci.FIELD = ? ORDER BY cg.CREATED",
+				Date.class, 2, 10074, "status");
+		Assertions.assertEquals(2, dates.size());
+		Assertions.assertEquals(getDate(2014, 3, 1, 12, 2, 0), dates.get(0));
+		Assertions.assertEquals(getDate(2014, 3, 1, 12, 5, 0), dates.get(1));
+		Assertions.assertEquals(0, jdbcTemplate.queryForObject(
+				"SELECT COUNT(cg.ID) FROM changegroup cg INNER JOIN jiraissue i ON i.ID = cg.issueid"
+						+ " WHERE i.issuenum = ? AND i.PROJECT = ?",
+				Integer.class, 3, 10074).intValue());
+	}
+
+	private String getIssueColumn(final JdbcTemplate jdbcTemplate, final int issue, final String column) {
+		return jdbcTemplate.queryForObject("SELECT " + column + " FROM jiraissue WHERE issuenum = ? AND PROJECT = ?",
+				String.class, issue, 10074);
+	}
+
+}
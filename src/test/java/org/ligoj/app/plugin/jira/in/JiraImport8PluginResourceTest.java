@@ -0,0 +1,131 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.in;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+
+import jakarta.ws.rs.core.Response;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.ligoj.app.model.Subscription;
+import org.ligoj.app.plugin.jira.JiraPluginResource;
+import org.ligoj.app.plugin.jira.model.ImportStatus;
+import org.ligoj.app.plugin.jira.model.UploadMode;
+import org.ligoj.app.resource.subscription.SubscriptionResource;
+import org.ligoj.bootstrap.core.resource.BusinessException;
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Test class of {@link JiraImportPluginResource}, asynchronous imports run by the import executor. The worker threads
+ * do not see the test transaction, so the task management and the subscription parameters are mocked.
+ */
+class JiraImport8PluginResourceTest extends AbstractJiraImportPluginResourceTest {
+
+	private JiraPluginResource tasks;
+
+	private final ImportStatus status = new ImportStatus();
+
+	@BeforeEach
+	void mockTasks() {
+		status.setLocked(em.find(Subscription.class, subscription));
+		tasks = Mockito.mock(JiraPluginResource.class);
+		Mockito.when(tasks.startTask(ArgumentMatchers.eq(subscription), ArgumentMatchers.any())).thenAnswer(i -> {
+			i.<Consumer<ImportStatus>>getArgument(1).accept(status);
+			return status;
+		});
+		resource.resource = tasks;
+
+		final var subscriptions = Mockito.mock(SubscriptionResource.class);
+		Mockito.when(subscriptions.getParameters(subscription))
+				.thenReturn(resource.getSubscriptionResource().getParameters(subscription));
+		ReflectionTestUtils.setField(resource, "subscriptionResource", subscriptions);
+	}
+
+	@AfterEach
+	void shutdown() {
+		resource.shutdown();
+	}
+
+	private Response uploadAsync() throws IOException {
+		final var csv = IOUtils.toString(new ClassPathResource("csv/upload/nominal-complete.csv").getInputStream(),
+				ENCODING);
+		return resource.uploadAsync(new ByteArrayInputStream(csv.getBytes(Charset.forName(ENCODING))), ENCODING,
+				subscription, UploadMode.PREVIEW);
+	}
+
+	@Test
+	void testUploadAsyncExecutor() throws IOException {
+		final var worker = new AtomicReference<Thread>();
+		final var transaction = new AtomicBoolean();
+		Mockito.when(tasks.nextStep(ArgumentMatchers.eq(subscription), ArgumentMatchers.any())).thenAnswer(i -> {
+			worker.set(Thread.currentThread());
+			transaction.set(TransactionSynchronizationManager.isActualTransactionActive());
+			i.<Consumer<ImportStatus>>getArgument(1).accept(status);
+			return status;
+		});
+		Assertions.assertEquals(Response.Status.ACCEPTED.getStatusCode(), uploadAsync().getStatus());
+
+		// The import runs in a worker thread, within its own transaction
+		Mockito.verify(tasks, Mockito.timeout(60000)).endTask(subscription, false);
+		Assertions.assertNotSame(Thread.currentThread(), worker.get());
+		Assertions.assertTrue(transaction.get());
+		Assertions.assertEquals(3, status.getIssues().intValue());
+	}
+
+	@Test
+	void testUploadAsyncLocked() {
+		Mockito.when(tasks.startTask(ArgumentMatchers.eq(subscription), ArgumentMatchers.any()))
+				.thenThrow(new BusinessException("concurrent-task", subscription));
+		final var input = new ByteArrayInputStream(new byte[10]);
+		Assertions.assertThrows(BusinessException.class,
+				() -> resource.uploadAsync(input, ENCODING, subscription, UploadMode.PREVIEW));
+
+		// Rejected before the upload is spooled
+		Assertions.assertEquals(10, input.available());
+		Mockito.verify(tasks, Mockito.never()).endTask(ArgumentMatchers.anyInt(), ArgumentMatchers.anyBoolean());
+	}
+
+	@Test
+	void testShutdown() throws IOException, InterruptedException {
+		final var started = new CountDownLatch(1);
+		final var blocked = new CountDownLatch(1);
+		Mockito.when(tasks.nextStep(ArgumentMatchers.eq(subscription), ArgumentMatchers.any())).thenAnswer(i -> {
+			started.countDown();
+			try {
+				blocked.await();
+			} catch (final InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException(e);
+			}
+			return status;
+		});
+		resource.setAsyncParallelism(1);
+		resource.setAsyncShutdownTimeout(100);
+
+		// The first import is running, the second one is queued
+		uploadAsync();
+		uploadAsync();
+		Assertions.assertTrue(started.await(1, TimeUnit.MINUTES));
+
+		// The running import is interrupted, and the queued one is ended without running
+		resource.shutdown();
+		Mockito.verify(tasks, Mockito.timeout(60000).times(2)).endTask(subscription, true);
+		Mockito.verify(tasks, Mockito.never()).endTask(subscription, false);
+	}
+}
@@ -19,7 +19,9 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.jpa.JpaObjectRetrievalFailureException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.charset.Charset;
 
 import static org.mockito.Mockito.*;
 
@@ -230,6 +232,53 @@ class JiraImportPluginResourceTest extends AbstractJiraImportPluginResourceTest
 		}
 	}
 
+	@Test
+	void testUploadMissingResolutionForResolvedNotReplaced() {
+		// The change providing the resolution stays kept even when followed by a change of the same status
+		final var input = new StringInputStream("id;issue;status;summary;type;priority;resolution;resolutionDate;date;assignee;reporter;author\n"
+				+ "1;2;Open;SUMMARY;Bug;Major;;;01/03/2014 12:01;fdaugan;admin-test;fdaugan\n"
+				+ "2;2;Open;SUMMARY2;Bug;Major;Won't Fix;01/03/2014 12:02;01/03/2014 12:02;fdaugan;admin-test;fdaugan\n"
+				+ "3;2;Open;SUMMARY3;Bug;Major;;;01/03/2014 12:03;fdaugan;admin-test;fdaugan\n");
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> resource.upload(input, ENCODING, subscription,
+				UploadMode.PREVIEW)), "resolution", "Resolution is provided but has never been resolved for issue 2(id=2)");
+	}
+
+	@Test
+	void testUploadResolutionAfterResolved() throws IOException {
+		// Once resolved, a resolution without resolved status does not need to be kept
+		final var input = new StringInputStream("id;issue;status;summary;type;priority;resolution;resolutionDate;date;assignee;reporter;author\n"
+				+ "1;2;Open;SUMMARY;Bug;Major;;;01/03/2014 12:01;fdaugan;admin-test;fdaugan\n"
+				+ "2;2;Resolved;SUMMARY2;Bug;Major;Fixed;01/03/2014 12:02;01/03/2014 12:02;fdaugan;admin-test;fdaugan\n"
+				+ "3;2;Reopened;SUMMARY3;Bug;Major;Fixed;01/03/2014 12:02;01/03/2014 12:03;fdaugan;admin-test;fdaugan\n"
+				+ "4;2;Reopened;SUMMARY4;Bug;Major;Fixed;01/03/2014 12:02;01/03/2014 12:04;fdaugan;admin-test;fdaugan\n");
+		final var result = resource.upload(input, ENCODING, subscription, UploadMode.PREVIEW);
+		Assertions.assertEquals(4, result.getChanges().intValue());
+		Assertions.assertEquals(2, result.getStatusChanges().intValue());
+	}
+
+	@Test
+	void testUploadNoChangeTypedCustomField() {
+		// Different raw values, but the same decimal value
+		final var input = new ByteArrayInputStream(
+				("id;issue;status;summary;type;priority;date;assignee;reporter;author;cf$Délai levée réserves (jrs)\n"
+						+ "1;2;Open;SUMMARY;Bug;Major;01/03/2014 12:01;fdaugan;admin-test;fdaugan;5\n"
+						+ "2;2;Open;SUMMARY;Bug;Major;01/03/2014 12:02;fdaugan;admin-test;fdaugan;5,0\n").getBytes(Charset.forName(ENCODING)));
+		MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> resource.upload(input, ENCODING, subscription,
+				UploadMode.PREVIEW)), "issue", "No change detected detected for issue 2(id=2) for changes between 01/03/2014 12:01 and 01/03/2014 12:02");
+	}
+
+	@Test
+	void testUploadChangeTypedCustomField() throws IOException {
+		final var input = new ByteArrayInputStream(
+				("id;issue;status;summary;type;priority;date;assignee;reporter;author;cf$Délai levée réserves (jrs)\n"
+						+ "1;2;Open;SUMMARY;Bug;Major;01/03/2014 12:01;fdaugan;admin-test;fdaugan;5\n"
+						+ "2;2;Open;SUMMARY;Bug;Major;01/03/2014 12:02;fdaugan;admin-test;fdaugan;6\n").getBytes(Charset.forName(ENCODING)));
+		final var result = resource.upload(input, ENCODING, subscription, UploadMode.PREVIEW);
+		Assertions.assertEquals(2, result.getChanges().intValue());
+		Assertions.assertEquals(1, result.getCustomFields().intValue());
+		Assertions.assertEquals(0, result.getStatusChanges().intValue());
+	}
+
 	@Test
 	void testUploadInvalidResolutionDate() throws IOException {
 		try (var input = new ClassPathResource("csv/upload/invalid-resolution-date.csv").getInputStream()) {
@@ -262,6 +311,31 @@ class JiraImportPluginResourceTest extends AbstractJiraImportPluginResourceTest
 		}
 	}
 
+	@Test
+	void testUploadInvalidInputParallel() {
+		final var input = new StringInputStream("id;issue;status;summary;type;priority;date;assignee;reporter;author\n"
+				+ "1;2;Open;SUMMARY;;Major;01/03/2014 12:01;fdaugan;admin-test;fdaugan\n"
+				+ "2;2;Open;SUMMARY;Bug;Major;01/03/2014 12:02;fdaugan;admin-test;fdaugan\n"
+				+ "3;2;Open;SUMMARY;;Major;01/03/2014 12:03;fdaugan;admin-test;fdaugan\n"
+				+ "4;2;Open;SUMMARY;;Major;01/03/2014 12:04;fdaugan;admin-test;fdaugan\n");
+		resource.setValidationParallelism(2);
+		resource.setValidationMaxErrors(2);
+		try {
+			final var e = Assertions.assertThrows(ConstraintViolationException.class,
+					() -> resource.upload(input, ENCODING, subscription, UploadMode.PREVIEW));
+			MatcherUtil.assertThrows(e, "type", "NotBlank");
+
+			// Violations of the first two invalid changes, in the file order
+			Assertions.assertEquals(2, e.getConstraintViolations().size());
+			Assertions.assertTrue(e.getMessage().startsWith("change 1: type "));
+			Assertions.assertTrue(e.getMessage().contains("; change 3: type "));
+			Assertions.assertFalse(e.getMessage().contains("change 4"));
+		} finally {
+			resource.setValidationParallelism(1);
+			resource.setValidationMaxErrors(1);
+		}
+	}
+
 	@Test
 	void testUploadInvalidCfSelectValue() throws IOException {
 		try (var input = new ClassPathResource("csv/upload/invalid-cf-select.csv").getInputStream()) {
@@ -310,6 +384,22 @@ class JiraImportPluginResourceTest extends AbstractJiraImportPluginResourceTest
 		}
 	}
 
+	@Test
+	void testUploadInvalidWorkflowStatusOfType() {
+		// The 'Bug' type is mapped to the default 'jira' workflow not managing the 'Reopened' status
+		final var jdbcTemplate = new JdbcTemplate(datasource);
+		jdbcTemplate.update("insert into workflowschemeentity (ID, SCHEME, WORKFLOW, issuetype) values(?,?,?,?)", 99999,
+				10025, "jira", "1");
+		try {
+			final var input = new StringInputStream("id;issue;status;summary;type;priority;date;assignee;reporter;author\n"
+					+ "1;2;Reopened;SUMMARY;Bug;Major;01/03/2014 12:01;fdaugan;admin-test;fdaugan\n");
+			MatcherUtil.assertThrows(Assertions.assertThrows(ValidationJsonException.class, () -> resource.upload(input, ENCODING, subscription,
+					UploadMode.PREVIEW)), "status", "Status 'Reopened' of issue 2(id=1) is not managed by the workflow 'jira' of its type 'Bug'");
+		} finally {
+			jdbcTemplate.update("delete from workflowschemeentity WHERE ID = ?", 99999);
+		}
+	}
+
 	@Test
 	void testUploadInvalidType() throws IOException {
 		var input = new ClassPathResource("csv/upload/invalid-type.csv").getInputStream();
@@ -0,0 +1,112 @@
+/*
+ * Licensed under MIT (https://github.com/ligoj/ligoj/blob/master/LICENSE)
+ */
+package org.ligoj.app.plugin.jira.out;
+
+import org.apache.commons.lang3.time.DurationFormatUtils;
+import org.apache.commons.lang3.time.FastDateFormat;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Random;
+import java.util.TimeZone;
+
+/**
+ * Test class of {@link CsvWriter}
+ */
+class CsvWriterTest {
+
+	private String write(final int size, final TimeZone timeZone, final CsvWriterConsumer consumer)
+			throws IOException {
+		final var out = new StringWriter();
+		final var writer = new CsvWriter(out, size, timeZone);
+		consumer.accept(writer);
+		writer.flush();
+		return out.toString();
+	}
+
+	@FunctionalInterface
+	private interface CsvWriterConsumer {
+		void accept(CsvWriter writer) throws IOException;
+	}
+
+	@Test
+	void writeNumbers() throws IOException {
+		Assertions.assertEquals("0;-1;2147483647;-9223372036854775808;9223372036854775807;;10024",
+				write(64, TimeZone.getDefault(), w -> {
+					w.writeInt(0);
+					w.write(';');
+					w.writeInt(-1);
+					w.write(';');
+					w.writeInt(Integer.MAX_VALUE);
+					w.write(';');
+					w.writeLong(Long.MIN_VALUE);
+					w.write(';');
+					w.writeLong(Long.MAX_VALUE);
+					w.write(';');
+					w.writeNumber(null);
+					w.write(';');
+					w.writeNumber(10024);
+				}));
+	}
+
+	@Test
+	void writeDecimal() throws IOException {
+		Assertions.assertEquals("1,25;3;#INVALID", write(64, TimeZone.getDefault(), w -> {
+			w.writeDecimal(1.25);
+			w.write(';');
+			w.writeDecimal(3.0);
+			w.write(';');
+			w.writeInvalid();
+		}));
+	}
+
+	@Test
+	void writeDate() throws IOException {
+		for (final var zone : new String[] { "Europe/Paris", "UTC", "America/New_York", "Asia/Kolkata" }) {
+			final var timeZone = TimeZone.getTimeZone(zone);
+			final var df = FastDateFormat.getInstance("yyyy/MM/dd HH:mm:ss", timeZone);
+			final var random = new Random(1);
+			for (var i = 0; i < 10000; i++) {
+				// Dates from 1938 to 2096, and around the daylight saving time change of 2024/03/31
+				final var time = i % 2 == 0 ? random.nextLong(-1000000000000L, 4000000000000L)
+						: 1711846800000L + random.nextInt(-3600000, 3600000);
+				Assertions.assertEquals(df.format(time), write(64, timeZone, w -> w.writeDate(time)));
+			}
+		}
+	}
+
+	@Test
+	void writeDuration() throws IOException {
+		final var random = new Random(1);
+		for (var i = 0; i < 10000; i++) {
+			final var duration = random.nextLong(-1000000000000L, 1000000000000L);
+			Assertions.assertEquals((duration < 0 ? "-" : "")
+					+ DurationFormatUtils.formatDuration(Math.abs(duration), "HH:mm:ss"),
+					write(64, TimeZone.getDefault(), w -> w.writeDuration(duration)));
+		}
+		Assertions.assertEquals("00:00:00", write(64, TimeZone.getDefault(), w -> w.writeDuration(999)));
+	}
+
+	@Test
+	void writeEscaped() throws IOException {
+		Assertions.assertEquals("a\"\"b;c|a\"\"b,c", write(64, TimeZone.getDefault(), w -> {
+			w.writeQuoted("a\"b;c");
+			w.write('|');
+			w.writeEscaped("a\"b;c");
+		}));
+	}
+
+	@Test
+	void writeLargerThanBuffer() throws IOException {
+		final var value = "0123456789".repeat(20);
+		Assertions.assertEquals("-" + value + value + "-", write(64, TimeZone.getDefault(), w -> {
+			w.write('-');
+			w.write(value);
+			w.write(value.toCharArray());
+			w.write('-');
+		}));
+	}
+}
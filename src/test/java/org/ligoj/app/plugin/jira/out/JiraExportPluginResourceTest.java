@@ -5,7 +5,19 @@ package org.ligoj.app.plugin.jira.out;
 
 import jakarta.persistence.EntityNotFoundException;
 import jakarta.transaction.Transactional;
+import jakarta.ws.rs.core.HttpHeaders;
+import jakarta.ws.rs.core.Response;
 import jakarta.ws.rs.core.StreamingOutput;
+import org.apache.arrow.compression.CommonsCompressionFactory;
+import org.apache.arrow.memory.RootAllocator;
+import org.apache.arrow.vector.BigIntVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
+import org.apache.arrow.vector.TimeStampMilliTZVector;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.types.FloatingPointPrecision;
+import org.apache.arrow.vector.types.pojo.ArrowType;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.hsqldb.jdbc.JDBCDriver;
 import org.junit.jupiter.api.*;
@@ -16,9 +28,13 @@ import org.ligoj.app.plugin.bt.SlaData;
 import org.ligoj.app.plugin.bt.dao.SlaRepository;
 import org.ligoj.app.plugin.jira.AbstractJiraDataTest;
 import org.ligoj.app.plugin.jira.JiraSlaComputations;
+import org.ligoj.app.plugin.jira.dao.JiraChangeItem;
 import org.ligoj.app.plugin.jira.dao.JiraDao;
+import org.ligoj.app.plugin.jira.dao.JiraSlaCheckpointStore;
 import org.ligoj.bootstrap.core.SpringUtils;
 import org.ligoj.bootstrap.core.csv.CsvBeanReader;
+import org.ligoj.bootstrap.core.resource.TechnicalException;
+import org.ligoj.bootstrap.core.validation.ValidationJsonException;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.core.io.support.EncodedResource;
@@ -31,10 +47,18 @@ import org.springframework.test.context.junit.jupiter.SpringExtension;
 
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.sql.SQLException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipInputStream;
 
 /**
  * Test class of {@link JiraExportPluginResource}
@@ -51,6 +75,15 @@ class JiraExportPluginResourceTest extends AbstractJiraDataTest {
 	@Autowired
 	private SlaRepository slaRepository;
 
+	@Autowired
+	private JiraSlaCheckpointStore checkpointStore;
+
+	@Autowired
+	private JiraExportCache exportCache;
+
+	@Autowired
+	private JiraBulkExportResource bulkResource;
+
 	@BeforeEach
 	void init() {
 		subscription = getSubscription("MDA");
@@ -86,6 +119,21 @@ class JiraExportPluginResourceTest extends AbstractJiraDataTest {
 		Assertions.assertEquals(0, customFieldsById.size());
 	}
 
+	@Test
+	void streamCustomFieldValues() {
+		final var dao = SpringUtils.getBean(JiraDao.class);
+		final var expected = dao.getCustomFieldValues(datasource, 10074).stream()
+				.map(v -> v.getIssue() + "/" + v.getCustomField() + "/" + v.getStringValue()).toList();
+		Assertions.assertFalse(expected.isEmpty());
+		try (var values = dao.streamCustomFieldValues(datasource, 10074)) {
+			Assertions.assertEquals(expected,
+					values.map(v -> v.getIssue() + "/" + v.getCustomField() + "/" + v.getStringValue()).toList());
+		}
+		Assertions.assertEquals(
+				new HashSet<>(dao.getCustomFieldValues(datasource, 10074).stream().map(v -> v.getCustomField()).toList()),
+				dao.getCustomFieldIds(datasource, 10074));
+	}
+
 	@Test
 	void getSlaComputationsCsv() throws Exception {
 		final var csv = (StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity();
@@ -151,6 +199,170 @@ class JiraExportPluginResourceTest extends AbstractJiraDataTest {
 		Assertions.assertEquals(197, count);
 	}
 
+	@Test
+	void getSlaComputationsCsvStream() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(expected);
+		final var out = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsvStream(subscription, "file1").getEntity()).write(out);
+		Assertions.assertEquals(expected.toString("cp1252"), out.toString("cp1252"));
+	}
+
+	@Test
+	void getSlaComputationsCsvParallel() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(expected);
+		resource.setSlaParallelism(4);
+		try {
+			final var out = new ByteArrayOutputStream();
+			((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(out);
+			Assertions.assertEquals(expected.toString("cp1252"), out.toString("cp1252"));
+			final var outStream = new ByteArrayOutputStream();
+			((StreamingOutput) resource.getSlaComputationsCsvStream(subscription, "file1").getEntity()).write(outStream);
+			Assertions.assertEquals(expected.toString("cp1252"), outStream.toString("cp1252"));
+		} finally {
+			resource.setSlaParallelism(1);
+		}
+	}
+
+	@Test
+	void getSlaComputationsCsvIncremental() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(expected);
+		checkpointStore.setEnabled(true);
+		try {
+			// The first export builds the checkpoint, the next ones reuse it
+			for (var i = 0; i < 2; i++) {
+				final var out = new ByteArrayOutputStream();
+				((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(out);
+				Assertions.assertEquals(expected.toString("cp1252"), out.toString("cp1252"));
+			}
+			final var checkpoint = checkpointStore.get(subscription, false);
+			Assertions.assertNotNull(checkpoint);
+			Assertions.assertNotNull(checkpointStore.getIssues(subscription));
+			Assertions.assertNull(checkpointStore.get(subscription, true));
+
+			// A configuration change invalidates the checkpoint
+			checkpoint.setConfiguration("-");
+			final var out = new ByteArrayOutputStream();
+			((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(out);
+			Assertions.assertEquals(expected.toString("cp1252"), out.toString("cp1252"));
+			Assertions.assertNotEquals("-", checkpointStore.get(subscription, false).getConfiguration());
+		} finally {
+			checkpointStore.setEnabled(false);
+		}
+	}
+
+	@Test
+	void getSlaComputationsCsvCached() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(expected);
+		final var directory = Files.createTempDirectory("export");
+		exportCache.setDirectory(directory.toString());
+		try {
+			// The first export is generated and cached, the second one is read from the cache
+			String tag = null;
+			for (var i = 0; i < 2; i++) {
+				final var response = resource.getSlaComputationsCsv(subscription, "file1");
+				final var out = new ByteArrayOutputStream();
+				((StreamingOutput) response.getEntity()).write(out);
+				Assertions.assertEquals(expected.toString("cp1252"), out.toString("cp1252"));
+				Assertions.assertNotNull(response.getEntityTag());
+				tag = response.getEntityTag().toString();
+			}
+			Assertions.assertEquals(1, directory.toFile().list().length);
+
+			// The client already has this export
+			final var response = resource.getSlaComputationsCsv(subscription, "file1", tag, null);
+			Assertions.assertEquals(Response.Status.NOT_MODIFIED.getStatusCode(), response.getStatus());
+			Assertions.assertNull(response.getEntity());
+			Assertions.assertEquals(Response.Status.OK.getStatusCode(),
+					resource.getSlaComputationsCsv(subscription, "file1", "\"other\"", null).getStatus());
+
+			// The compressed export is read from the cache as is
+			final var gzip = resource.getSlaComputationsCsv(subscription, "file1", tag, "gzip");
+			Assertions.assertEquals(Response.Status.OK.getStatusCode(), gzip.getStatus());
+			Assertions.assertNotEquals(tag, gzip.getEntityTag().toString());
+			Assertions.assertEquals(expected.toString("cp1252"), gunzip(gzip).toString("cp1252"));
+
+			// The entity tag expires with the time to live period, the SLA durations may have drifted
+			exportCache.setTtl(1);
+			Thread.sleep(5);
+			final var expired = resource.getSlaComputationsCsv(subscription, "file1", tag, null);
+			Assertions.assertEquals(Response.Status.OK.getStatusCode(), expired.getStatus());
+			Assertions.assertNotEquals(tag, expired.getEntityTag().toString());
+		} finally {
+			exportCache.setTtl(3600000);
+			exportCache.invalidate(subscription);
+			exportCache.setDirectory("");
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+	@Test
+	void getSlaComputationsCsvCachedGzip() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(expected);
+		final var directory = Files.createTempDirectory("export");
+		exportCache.setDirectory(directory.toString());
+		try {
+			// The compressed export is generated once, for both the client and the cache
+			final var gzip = resource.getSlaComputationsCsv(subscription, "file1", null, "gzip");
+			Assertions.assertEquals(expected.toString("cp1252"), gunzip(gzip).toString("cp1252"));
+			Assertions.assertEquals(1, directory.toFile().list().length);
+
+			// The cached export is valid
+			final var out = new ByteArrayOutputStream();
+			((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(out);
+			Assertions.assertEquals(expected.toString("cp1252"), out.toString("cp1252"));
+			Assertions.assertEquals(1, directory.toFile().list().length);
+		} finally {
+			exportCache.invalidate(subscription);
+			exportCache.setDirectory("");
+			FileUtils.deleteDirectory(directory.toFile());
+		}
+	}
+
+	@Test
+	void getFingerprint() {
+		final var loads = new AtomicInteger();
+		Assertions.assertEquals("1", exportCache.getFingerprint(-1, () -> String.valueOf(loads.incrementAndGet())));
+		Assertions.assertEquals("1", exportCache.getFingerprint(-1, () -> String.valueOf(loads.incrementAndGet())));
+		exportCache.invalidate(-1);
+		Assertions.assertEquals("2", exportCache.getFingerprint(-1, () -> String.valueOf(loads.incrementAndGet())));
+		exportCache.invalidate(-1);
+	}
+
+	@Test
+	void getSlaComputationsCsvGzip() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsv(subscription, "file1").getEntity()).write(expected);
+
+		// Negotiated compression
+		final var response = resource.getSlaComputationsCsv(subscription, "file1", null, "deflate, gzip;q=0.8");
+		Assertions.assertEquals("gzip", response.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+		Assertions.assertEquals(HttpHeaders.ACCEPT_ENCODING, response.getHeaderString(HttpHeaders.VARY));
+		Assertions.assertEquals(expected.toString("cp1252"), gunzip(response).toString("cp1252"));
+
+		// Compressed file, whatever the accepted encodings
+		final var file = resource.getSlaComputationsCsv(subscription, "file1-short.csv.gz", null, "gzip;q=0");
+		Assertions.assertNull(file.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+		Assertions.assertEquals(expected.toString("cp1252"), gunzip(file).toString("cp1252"));
+
+		// Refused compression
+		final var identity = resource.getSlaComputationsCsv(subscription, "file1", null, "gzip;q=0, identity");
+		Assertions.assertNull(identity.getHeaderString(HttpHeaders.CONTENT_ENCODING));
+	}
+
+	private ByteArrayOutputStream gunzip(final Response response) throws IOException {
+		final var compressed = new ByteArrayOutputStream();
+		((StreamingOutput) response.getEntity()).write(compressed);
+		final var out = new ByteArrayOutputStream();
+		try (var in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+			in.transferTo(out);
+		}
+		return out;
+	}
 
 	private void checkIssue174b(CsvChange issue) {
 		checkIssue174Base(issue);
@@ -225,6 +437,216 @@ class JiraExportPluginResourceTest extends AbstractJiraDataTest {
 		Assertions.assertTrue(lastLine.endsWith(";0;1;1;2;1;0"));
 	}
 
+	@Test
+	void getSlaComputationsCsvWithCustomFieldsSchema() throws Exception {
+		final var schema = resource.getSlaComputationsCsvWithCustomFieldsSchema(subscription);
+		final var out = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsCsvWithCustomFields(subscription, "file1").getEntity()).write(out);
+		final var header = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(out.toByteArray()), "cp1252"))
+				.readLine();
+		Assertions.assertEquals(header,
+				schema.getSchema().getFields().stream().map(CsvSchema.Field::getName).collect(Collectors.joining(";")));
+		Assertions.assertEquals(";", schema.getOptions().get("sep"));
+		final Map<String, String> types = new HashMap<>();
+		schema.getSchema().getFields().forEach(f -> types.put(f.getName(), f.getType()));
+		Assertions.assertEquals(CsvSchema.INTEGER, types.get("id"));
+		Assertions.assertEquals(CsvSchema.TIMESTAMP, types.get("Date de livraison"));
+		Assertions.assertEquals(CsvSchema.DECIMAL, types.get("Délai levée réserves (jrs)"));
+		Assertions.assertEquals(CsvSchema.STRING, types.get("Région"));
+		Assertions.assertEquals(CsvSchema.LONG, types.get("[SLA] Livraison(ms)"));
+		Assertions.assertEquals(CsvSchema.INTEGER, types.get("#Closed"));
+	}
+
+	@Test
+	void getSlaComputationsArrowWithCustomFields() throws Exception {
+		final var out = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSlaComputationsArrowWithCustomFields(subscription, "file1-full.arrow", null)
+				.getEntity()).write(out);
+		final var schema = resource.getSlaComputationsCsvWithCustomFieldsSchema(subscription);
+		try (var allocator = new RootAllocator();
+				var reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator,
+						CommonsCompressionFactory.INSTANCE)) {
+			final var root = reader.getVectorSchemaRoot();
+			Assertions.assertEquals(schema.getSchema().getFields().size(), root.getSchema().getFields().size());
+			Assertions.assertEquals(new ArrowType.FloatingPoint(FloatingPointPrecision.DOUBLE),
+					root.getSchema().findField("Délai levée réserves (jrs)").getType());
+			final Map<Integer, Integer> rows = new HashMap<>();
+			var count = 0;
+			while (reader.loadNextBatch()) {
+				final var id = (IntVector) root.getVector("id");
+				for (var i = 0; i < root.getRowCount(); i++) {
+					if (id.get(i) == 12706) {
+						// Typed custom fields
+						Assertions.assertEquals("MDA-41", root.getVector("issue").getObject(i).toString());
+						Assertions.assertEquals(1.25, ((Float8Vector) root.getVector("Délai levée réserves (jrs)")).get(i));
+						Assertions.assertEquals("E,A", root.getVector("Région").getObject(i).toString());
+						Assertions.assertEquals(1247121933000L,
+								((TimeStampMilliTZVector) root.getVector("created")).get(i));
+						Assertions.assertTrue(root.getVector("resolution").isNull(i));
+						Assertions.assertEquals(2, ((IntVector) root.getVector("#Open")).get(i));
+					}
+					rows.put(id.get(i), i);
+				}
+				count += root.getRowCount();
+			}
+			Assertions.assertTrue(rows.containsKey(12706));
+			Assertions.assertEquals(rows.size(), count);
+		}
+	}
+
+	@Test
+	void getStatusHistoryArrow() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getStatusHistory(subscription, "file1").getEntity()).write(expected);
+		final var lines = expected.toString("cp1252").split("\n");
+		final var out = new ByteArrayOutputStream();
+		resource.setArrowBatchSize(2);
+		try {
+			((StreamingOutput) resource.getStatusHistoryArrow(subscription, "file1-status.arrow", null).getEntity())
+					.write(out);
+		} finally {
+			resource.setArrowBatchSize(10000);
+		}
+		try (var allocator = new RootAllocator();
+				var reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator,
+						CommonsCompressionFactory.INSTANCE)) {
+			final var root = reader.getVectorSchemaRoot();
+			Assertions.assertEquals("issueid;key;author;from;to;fromText;toText;date;dateTimestamp", root.getSchema()
+					.getFields().stream().map(org.apache.arrow.vector.types.pojo.Field::getName)
+					.collect(Collectors.joining(";")));
+
+			// Bounded batches
+			Assertions.assertTrue(reader.loadNextBatch());
+			Assertions.assertEquals(2, root.getRowCount());
+			Assertions.assertEquals(11432, ((IntVector) root.getVector("issueid")).get(0));
+			Assertions.assertEquals("MDA-1", root.getVector("key").getObject(0).toString());
+			Assertions.assertTrue(root.getVector("from").isNull(0));
+			Assertions.assertEquals(1, ((IntVector) root.getVector("to")).get(0));
+			Assertions.assertEquals(1237818403000L, ((TimeStampMilliTZVector) root.getVector("date")).get(0));
+			Assertions.assertEquals(1237818403000L, ((BigIntVector) root.getVector("dateTimestamp")).get(0));
+			var count = root.getRowCount();
+			while (reader.loadNextBatch()) {
+				Assertions.assertTrue(root.getRowCount() <= 2);
+				count += root.getRowCount();
+			}
+			Assertions.assertEquals(lines.length - 1, count);
+		}
+	}
+
+	@Test
+	void getArrowUnsupported() {
+		// Surefire opens java.nio to the Arrow memory
+		resource.checkArrow();
+		Assertions.assertTrue(resource.isArrowSupported());
+
+		resource.setArrowSupported(false);
+		try {
+			Assertions.assertEquals("Arrow exports need the JVM option --add-opens=java.base/java.nio=ALL-UNNAMED",
+					Assertions.assertThrows(TechnicalException.class,
+							() -> resource.getSlaComputationsArrowWithCustomFields(subscription, "file1-full.arrow", null))
+							.getMessage());
+			Assertions.assertThrows(TechnicalException.class,
+					() -> resource.getStatusHistoryArrow(subscription, "file1-status.arrow", null));
+		} finally {
+			resource.setArrowSupported(true);
+		}
+	}
+
+	@Test
+	void writeArrowTypedValues() throws Exception {
+		final var creation = new JiraChangeItem();
+		creation.setId(1);
+		creation.setPkey("P-1");
+		creation.setToStatus(1);
+		creation.setReporter("a\"b");
+		creation.setCreated(new Date(1729992600123L));
+		final var out = new ByteArrayOutputStream();
+		final var timeZone = TimeZone.getDefault();
+		try {
+			// The second 02:30 of the last DST day
+			TimeZone.setDefault(TimeZone.getTimeZone("Europe/Paris"));
+			new ArrowStreamingOutput(new CsvStatusStreamingOutput(List.of(creation), Map.of(1, "Open")), 10).write(out);
+		} finally {
+			TimeZone.setDefault(timeZone);
+		}
+		try (var allocator = new RootAllocator();
+				var reader = new ArrowStreamReader(new ByteArrayInputStream(out.toByteArray()), allocator,
+						CommonsCompressionFactory.INSTANCE)) {
+			final var root = reader.getVectorSchemaRoot();
+			Assertions.assertTrue(reader.loadNextBatch());
+			Assertions.assertEquals(1, root.getRowCount());
+
+			// The exact instant, with the milliseconds
+			Assertions.assertEquals(1729992600123L, ((TimeStampMilliTZVector) root.getVector("date")).get(0));
+			Assertions.assertEquals(1729992600123L, ((BigIntVector) root.getVector("dateTimestamp")).get(0));
+			Assertions.assertTrue(root.getVector("from").isNull(0));
+			Assertions.assertEquals("a\"b", root.getVector("author").getObject(0).toString());
+			Assertions.assertEquals("OPEN", root.getVector("toText").getObject(0).toString());
+		}
+	}
+
+	@Test
+	void getStatusHistorySchema() {
+		Assertions.assertEquals("issueid;key;author;from;to;fromText;toText;date;dateTimestamp",
+				resource.getStatusHistorySchema(subscription).getSchema().getFields().stream()
+						.map(CsvSchema.Field::getName).collect(Collectors.joining(";")));
+	}
+
+	@Test
+	void getBulkExport() throws Exception {
+		final var expected = new ByteArrayOutputStream();
+		((StreamingOutput) resource.getSimpleCsv(subscription, "file1").getEntity()).write(expected);
+		final var out = new ByteArrayOutputStream();
+		((StreamingOutput) bulkResource.getBulkExport(List.of(subscription, subscription), "simple", "file1.zip")
+				.getEntity()).write(out);
+		try (var zip = new ZipInputStream(new ByteArrayInputStream(out.toByteArray()))) {
+			Assertions.assertEquals(subscription + "-MDA-simple.csv", zip.getNextEntry().getName());
+			Assertions.assertEquals(expected.toString("cp1252"), new String(zip.readAllBytes(), "cp1252"));
+			Assertions.assertNull(zip.getNextEntry());
+		}
+	}
+
+	@Test
+	void getBulkExportParallelFailed() throws Exception {
+		// The parallelism is bounded by the connection pool size
+		bulkResource.setParallelism(100);
+		try {
+			final var before = getRenderedFiles();
+			final var output = (StreamingOutput) bulkResource
+					.getBulkExport(List.of(subscription), "simple", "file1.zip").getEntity();
+			Assertions.assertThrows(IOException.class, () -> output.write(new OutputStream() {
+				@Override
+				public void write(final int b) throws IOException {
+					throw new IOException("Closed");
+				}
+			}));
+
+			// The rendered files are deleted, including the ones completed after the failure
+			for (var i = 0; i < 50 && !before.containsAll(getRenderedFiles()); i++) {
+				Thread.sleep(100);
+			}
+			Assertions.assertTrue(before.containsAll(getRenderedFiles()));
+		} finally {
+			bulkResource.setParallelism(1);
+		}
+	}
+
+	private List<String> getRenderedFiles() throws IOException {
+		try (var files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+			return files.map(f -> f.getFileName().toString()).filter(f -> f.startsWith("jira-export")).toList();
+		}
+	}
+
+	@Test
+	void getBulkExportInvalid() {
+		Assertions.assertThrows(ValidationJsonException.class,
+				() -> bulkResource.getBulkExport(List.of(subscription), "any", "file1.zip"));
+		Assertions.assertThrows(ValidationJsonException.class,
+				() -> bulkResource.getBulkExport(List.of(), "simple", "file1.zip"));
+		Assertions.assertThrows(EntityNotFoundException.class,
+				() -> bulkResource.getBulkExport(List.of(subscription, 0), "simple", "file1.zip"));
+	}
+
 	@Test
 	void getStatusHistory() throws Exception {
 		final var csv = (StreamingOutput) resource.getStatusHistory(subscription, "file1").getEntity();